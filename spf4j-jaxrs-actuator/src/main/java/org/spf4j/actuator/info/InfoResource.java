@@ -20,6 +20,7 @@ import org.spf4j.base.avro.ApplicationInfo;
 import org.spf4j.service.avro.ProcessInfo;
 import org.spf4j.cluster.Service;
 import org.spf4j.cluster.ServiceInfo;
+import org.spf4j.jaxrs.Cached;
 import org.spf4j.jaxrs.JaxRsSecurityContext;
 import org.spf4j.log.ExecContextLogger;
 
@@ -57,6 +58,7 @@ public class InfoResource {
 
   @Path("local")
   @GET
+  @Cached(ttl = 10)
   public ProcessInfo getProcessInfo() {
     return getProcessInfo(service.getServiceInfo());
   }
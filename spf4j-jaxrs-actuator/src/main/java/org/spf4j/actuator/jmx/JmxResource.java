@@ -25,18 +25,19 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
 import javax.annotation.security.RolesAllowed;
 import javax.management.Attribute;
 import javax.management.AttributeNotFoundException;
 import javax.management.Descriptor;
 import javax.management.InstanceNotFoundException;
-import javax.management.IntrospectionException;
 import javax.management.InvalidAttributeValueException;
 import javax.management.MBeanAttributeInfo;
 import javax.management.MBeanException;
 import javax.management.MBeanInfo;
 import javax.management.MBeanOperationInfo;
 import javax.management.MBeanParameterInfo;
+import javax.management.MBeanServer;
 import javax.management.MBeanServerConnection;
 import javax.management.MalformedObjectNameException;
 import javax.management.ObjectInstance;
@@ -93,6 +94,17 @@ public class JmxResource implements JmxRestApi {
     "operations"
   };
 
+  private final MBeanMetadataCache metadataCache;
+
+  public JmxResource() {
+    this.metadataCache = new MBeanMetadataCache(ManagementFactory.getPlatformMBeanServer());
+  }
+
+  @PreDestroy
+  public void close() throws IOException {
+    metadataCache.close();
+  }
+
   @GET
   @Override
   @SuppressFBWarnings("EXS_EXCEPTION_SOFTENING_NO_CHECKED")// intentional
@@ -145,10 +157,8 @@ public class JmxResource implements JmxRestApi {
           String type = attr.getType();
           if (attr instanceof OpenMBeanAttributeInfoSupport) {
             OpenType openType = ((OpenMBeanAttributeInfoSupport) attr).getOpenType();
-            OpenTypeAvroConverter converter = OpenTypeConverterSupplier.INSTANCE
-                    .getConverter(openType);
             output.accept(new org.spf4j.base.avro.jmx.MBeanAttributeInfo(attr.getName(), type,
-                    converter.getSchema(openType, OpenTypeConverterSupplier.INSTANCE),
+                    OpenTypeConverterSupplier.INSTANCE.getSchema(openType),
                     attr.getDescription(), attr.isReadable(), attr.isWritable(), attr.isIs(), descriptorMap));
           } else {
             output.accept(new org.spf4j.base.avro.jmx.MBeanAttributeInfo(attr.getName(),
@@ -165,40 +175,54 @@ public class JmxResource implements JmxRestApi {
   @Override
   public StreamingArrayContent<AttributeValue> getMBeanAttributeValues(
           @PathParam("mbeanName") final String mbeanName) {
-    MBeanServerConnection srv = ManagementFactory.getPlatformMBeanServer();
+    MBeanServer srv = ManagementFactory.getPlatformMBeanServer();
     ObjectName mname = getJmxObjName(mbeanName);
-    MBeanInfo mBeanInfo = getMBeanInfo(srv, mname);
+    MBeanMetadataCache.MBeanMetadata meta = metadataCache.get(mname);
     return new StreamingArrayContent<AttributeValue>() {
       @Override
       public void write(final ArrayWriter<AttributeValue> output) throws IOException {
-        for (MBeanAttributeInfo attr : mBeanInfo.getAttributes()) {
-          if (!attr.isReadable()) {
-            continue;
-          }
-          LOG.debug("writing attribute type {}", attr.getType(), attr);
+        List<Attribute> values;
+        try {
+          values = srv.getAttributes(mname, meta.getReadableAttrNames()).asList();
+        } catch (ReflectionException ex) {
+          throw new RuntimeException("Unable to read attributes of " + mname, ex);
+        } catch (InstanceNotFoundException ex) {
+          throw new NotFoundException(ex);
+        }
+        // getAttributes returns the values in request order, and omits the attributes it failed to read.
+        int vIdx = 0;
+        int nrValues = values.size();
+        for (int i = 0, l = meta.getNrReadableAttrs(); i < l; i++) {
+          MBeanAttributeInfo attr = meta.getReadableAttr(i);
           String name = attr.getName();
-          OpenType openType = getOpenType(attr);
-          OpenTypeAvroConverter converter = OpenTypeConverterSupplier.INSTANCE.getConverter(openType);
-          try {
-            output.accept(new AttributeValue(name, converter.fromOpenValue(openType,
-                    srv.getAttribute(mname, name), OpenTypeConverterSupplier.INSTANCE)));
-          } catch (MBeanException | ReflectionException ex) {
-            throw new RuntimeException("Unable to convert attribute " + attr, ex);
-          } catch (AttributeNotFoundException | InstanceNotFoundException ex) {
-            throw new NotFoundException(ex);
-          } catch (RuntimeMBeanException ex) {
-            ExecutionContexts.current().accumulateComponent(ContextTags.HTTP_WARNINGS,
-                    new HttpWarning(HttpWarning.MISCELLANEOUS,
-                    "jmx", ex.getMessage()));
-            LOG.warn("Unable to read value for {}", attr.getName(), attr, ex);
+          LOG.debug("writing attribute type {}", attr.getType(), attr);
+          Object value;
+          if (vIdx < nrValues && values.get(vIdx).getName().equals(name)) {
+            value = values.get(vIdx++).getValue();
+          } else {
+            try {
+              value = srv.getAttribute(mname, name); // retry individually to get the failure detail.
+            } catch (MBeanException | ReflectionException ex) {
+              throw new RuntimeException("Unable to convert attribute " + attr, ex);
+            } catch (AttributeNotFoundException | InstanceNotFoundException ex) {
+              throw new NotFoundException(ex);
+            } catch (RuntimeMBeanException ex) {
+              ExecutionContexts.current().accumulateComponent(ContextTags.HTTP_WARNINGS,
+                      new HttpWarning(HttpWarning.MISCELLANEOUS,
+                      "jmx", ex.getMessage()));
+              LOG.warn("Unable to read value for {}", attr.getName(), attr, ex);
+              continue;
+            }
           }
+          output.accept(new AttributeValue(name, meta.getReadableAttrConverter(i).fromOpenValue(
+                  meta.getReadableAttrType(i), value, OpenTypeConverterSupplier.INSTANCE)));
         }
       }
 
     };
   }
 
-  private static OpenType getOpenType(final MBeanAttributeInfo attr) {
+  static OpenType getOpenType(final MBeanAttributeInfo attr) {
     OpenType openType;
     if (attr instanceof OpenMBeanAttributeInfoSupport) {
       openType = ((OpenMBeanAttributeInfoSupport) attr).getOpenType();
@@ -247,14 +271,27 @@ public class JmxResource implements JmxRestApi {
           @PathParam("attrName") final String attrName) throws MBeanException, ReflectionException, IOException {
     MBeanServerConnection srv = ManagementFactory.getPlatformMBeanServer();
     ObjectName mname = getJmxObjName(mbeanName);
-    MBeanInfo mBeanInfo = getMBeanInfo(srv, mname);
-    MBeanAttributeInfo attr = findAttrInfo(mBeanInfo, attrName);
-    if (attr == null) {
-      throw new NotFoundException("Attribute " + attrName + " not found for " + mbeanName);
+    MBeanMetadataCache.MBeanMetadata meta = metadataCache.get(mname);
+    int attrIdx = meta.indexOf(attrName);
+    if (attrIdx < 0 && findAttrInfo(meta.getInfo(), attrName) == null) {
+      // DynamicMBeans can change their MBeanInfo without notice.
+      meta = metadataCache.refresh(mname);
+      attrIdx = meta.indexOf(attrName);
     }
     try {
-      OpenType openType = getOpenType(attr);
-      OpenTypeAvroConverter converter = OpenTypeConverterSupplier.INSTANCE.getConverter(openType);
+      OpenType openType;
+      OpenTypeAvroConverter converter;
+      if (attrIdx >= 0) {
+        openType = meta.getReadableAttrType(attrIdx);
+        converter = meta.getReadableAttrConverter(attrIdx);
+      } else {
+        MBeanAttributeInfo attr = findAttrInfo(meta.getInfo(), attrName);
+        if (attr == null) {
+          throw new NotFoundException("Attribute " + attrName + " not found for " + mbeanName);
+        }
+        openType = getOpenType(attr);
+        converter = OpenTypeConverterSupplier.INSTANCE.getConverter(openType);
+      }
       return converter.fromOpenValue(openType, srv.getAttribute(mname, attrName), OpenTypeConverterSupplier.INSTANCE);
     } catch (AttributeNotFoundException | InstanceNotFoundException ex) {
       throw new NotFoundException("Atttr not found: " + attrName + " for " + mbeanName, ex);
@@ -307,17 +344,13 @@ public class JmxResource implements JmxRestApi {
           List<org.spf4j.base.avro.jmx.MBeanParameterInfo> params = new ArrayList<>(signature.length);
           for (MBeanParameterInfo pi : signature) {
             OpenType<?> pOpenType = getOpenType(pi);
-            OpenTypeAvroConverter converter = OpenTypeConverterSupplier.INSTANCE
-                    .getConverter(pOpenType);
             params.add(new org.spf4j.base.avro.jmx.MBeanParameterInfo(pi.getName(),
-                    pi.getType(), converter.getSchema(pOpenType, OpenTypeConverterSupplier.INSTANCE),
+                    pi.getType(), OpenTypeConverterSupplier.INSTANCE.getSchema(pOpenType),
                     pi.getDescription(), toDescriptorMap(pi.getDescriptor())));
           }
           OpenType<?> returnOpenType = getOpenType(op);
-          OpenTypeAvroConverter converter = OpenTypeConverterSupplier.INSTANCE
-                  .getConverter(returnOpenType);
           output.accept(new org.spf4j.base.avro.jmx.MBeanOperationInfo(op.getName(), params,
-                  op.getReturnType(), converter.getSchema(returnOpenType, OpenTypeConverterSupplier.INSTANCE),
+                  op.getReturnType(), OpenTypeConverterSupplier.INSTANCE.getSchema(returnOpenType),
                   op.getDescription(), toImpact(op.getImpact()), descriptorMap));
         }
       }
@@ -334,7 +367,7 @@ public class JmxResource implements JmxRestApi {
           throws MBeanException, ReflectionException, IOException {
     MBeanServerConnection srv = ManagementFactory.getPlatformMBeanServer();
     ObjectName mname = getJmxObjName(mbeanName);
-    MBeanInfo mBeanInfo = getMBeanInfo(srv, mname);
+    MBeanInfo mBeanInfo = metadataCache.get(mname).getInfo();
     String opName = invocation.getName();
     List<Object> parameters = invocation.getParameters();
     List<String> sign = invocation.getSignature();
@@ -415,22 +448,8 @@ public class JmxResource implements JmxRestApi {
     }
   }
 
-  private static MBeanInfo getMBeanInfo(final String mbeanName) {
-    MBeanServerConnection srv = ManagementFactory.getPlatformMBeanServer();
-    ObjectName mname = getJmxObjName(mbeanName);
-    return getMBeanInfo(srv, mname);
-  }
-
-  private static MBeanInfo getMBeanInfo(final MBeanServerConnection srv, final ObjectName mname) {
-    MBeanInfo mBeanInfo;
-    try {
-      mBeanInfo = srv.getMBeanInfo(mname);
-    } catch (IntrospectionException | ReflectionException | IOException ex) {
-      throw new RuntimeException(ex);
-    } catch (InstanceNotFoundException ex) {
-      throw new NotFoundException("Mbean not found " + mname, ex);
-    }
-    return mBeanInfo;
+  private MBeanInfo getMBeanInfo(final String mbeanName) {
+    return metadataCache.get(getJmxObjName(mbeanName)).getInfo();
   }
 
   private static ObjectName getJmxObjName(final String mbeanName) {
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.actuator.jmx;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.management.InstanceNotFoundException;
+import javax.management.IntrospectionException;
+import javax.management.ListenerNotFoundException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerDelegate;
+import javax.management.MBeanServerNotification;
+import javax.management.Notification;
+import javax.management.NotificationFilterSupport;
+import javax.management.NotificationListener;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import javax.management.openmbean.OpenType;
+import javax.ws.rs.NotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Per ObjectName cache of MBean metadata (MBeanInfo, readable attributes with their open types and converters).
+ * Entries are invalidated when the MBean is (re)registered or unregistered.
+ * A DynamicMBean can change its MBeanInfo while registered, without any notification, so callers that do not find
+ * an attribute in the cached metadata should {@link #refresh(ObjectName)} it before reporting the attribute missing.
+ * @author Zoltan Farkas
+ */
+final class MBeanMetadataCache implements NotificationListener {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MBeanMetadataCache.class);
+
+  private final MBeanServer srv;
+
+  private final ConcurrentMap<ObjectName, MBeanMetadata> cache;
+
+  MBeanMetadataCache(final MBeanServer srv) {
+    this.srv = srv;
+    this.cache = new ConcurrentHashMap<>();
+    NotificationFilterSupport filter = new NotificationFilterSupport();
+    filter.enableType(MBeanServerNotification.REGISTRATION_NOTIFICATION);
+    filter.enableType(MBeanServerNotification.UNREGISTRATION_NOTIFICATION);
+    try {
+      srv.addNotificationListener(MBeanServerDelegate.DELEGATE_NAME, this, filter, null);
+    } catch (InstanceNotFoundException ex) {
+      throw new IllegalStateException("No MBeanServerDelegate registered with " + srv, ex);
+    }
+  }
+
+  @Override
+  public void handleNotification(final Notification notification, final Object handback) {
+    if (notification instanceof MBeanServerNotification) {
+      ObjectName mbeanName = ((MBeanServerNotification) notification).getMBeanName();
+      if (cache.remove(mbeanName) != null) {
+        LOG.debug("Invalidated cached metadata for {}", mbeanName);
+      }
+    }
+  }
+
+  MBeanMetadata get(final ObjectName mname) {
+    MBeanMetadata result = cache.get(mname);
+    if (result == null) {
+      result = new MBeanMetadata(getMBeanInfo(mname));
+      MBeanMetadata existing = cache.putIfAbsent(mname, result);
+      if (existing != null) {
+        return existing;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Re-read the MBeanInfo of a MBean, and replace the cached metadata.
+   * @param mname the MBean name.
+   * @return the up to date metadata.
+   */
+  MBeanMetadata refresh(final ObjectName mname) {
+    MBeanMetadata result = new MBeanMetadata(getMBeanInfo(mname));
+    cache.put(mname, result);
+    return result;
+  }
+
+  private MBeanInfo getMBeanInfo(final ObjectName mname) {
+    try {
+      return srv.getMBeanInfo(mname);
+    } catch (IntrospectionException | ReflectionException ex) {
+      throw new RuntimeException(ex);
+    } catch (InstanceNotFoundException ex) {
+      throw new NotFoundException("Mbean not found " + mname, ex);
+    }
+  }
+
+  void close() throws IOException {
+    try {
+      srv.removeNotificationListener(MBeanServerDelegate.DELEGATE_NAME, this);
+    } catch (InstanceNotFoundException | ListenerNotFoundException ex) {
+      throw new IOException(ex);
+    }
+    cache.clear();
+  }
+
+  @Override
+  public String toString() {
+    return "MBeanMetadataCache{" + "size=" + cache.size() + '}';
+  }
+
+  /**
+   * Immutable MBean metadata, with everything derived from the MBeanInfo we need to serve attribute values.
+   */
+  static final class MBeanMetadata {
+
+    private final MBeanInfo info;
+
+    private final String[] readableAttrNames;
+
+    private final MBeanAttributeInfo[] readableAttrs;
+
+    private final OpenType[] readableAttrTypes;
+
+    private final OpenTypeAvroConverter[] readableAttrConverters;
+
+    MBeanMetadata(final MBeanInfo info) {
+      this.info = info;
+      MBeanAttributeInfo[] attributes = info.getAttributes();
+      List<MBeanAttributeInfo> readable = new ArrayList<>(attributes.length);
+      for (MBeanAttributeInfo attr : attributes) {
+        if (attr.isReadable()) {
+          readable.add(attr);
+        }
+      }
+      int nrAttrs = readable.size();
+      this.readableAttrs = readable.toArray(new MBeanAttributeInfo[nrAttrs]);
+      this.readableAttrNames = new String[nrAttrs];
+      this.readableAttrTypes = new OpenType[nrAttrs];
+      this.readableAttrConverters = new OpenTypeAvroConverter[nrAttrs];
+      for (int i = 0; i < nrAttrs; i++) {
+        MBeanAttributeInfo attr = readableAttrs[i];
+        readableAttrNames[i] = attr.getName();
+        try {
+          OpenType openType = JmxResource.getOpenType(attr);
+          readableAttrConverters[i] = OpenTypeConverterSupplier.INSTANCE.getConverter(openType);
+          readableAttrTypes[i] = openType;
+        } catch (RuntimeException ex) {
+          // unsupported attribute type, will fail when the attribute is accessed.
+          LOG.debug("Unsupported attribute {}", attr, ex);
+        }
+      }
+    }
+
+    MBeanInfo getInfo() {
+      return info;
+    }
+
+    /**
+     * @return the readable attribute names, do not modify.
+     */
+    String[] getReadableAttrNames() {
+      return readableAttrNames;
+    }
+
+    int getNrReadableAttrs() {
+      return readableAttrNames.length;
+    }
+
+    MBeanAttributeInfo getReadableAttr(final int idx) {
+      return readableAttrs[idx];
+    }
+
+    OpenType getReadableAttrType(final int idx) {
+      OpenType result = readableAttrTypes[idx];
+      if (result == null) {
+        // will throw the appropriate exception.
+        return JmxResource.getOpenType(readableAttrs[idx]);
+      }
+      return result;
+    }
+
+    OpenTypeAvroConverter getReadableAttrConverter(final int idx) {
+      OpenTypeAvroConverter result = readableAttrConverters[idx];
+      if (result == null) {
+        // will throw the appropriate exception.
+        return OpenTypeConverterSupplier.INSTANCE.getConverter(getReadableAttrType(idx));
+      }
+      return result;
+    }
+
+    /**
+     * @return the index of the readable attribute, -1 if not found.
+     */
+    int indexOf(final String attrName) {
+      for (int i = 0; i < readableAttrNames.length; i++) {
+        if (readableAttrNames[i].equals(attrName)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    public String toString() {
+      return "MBeanMetadata{" + "info=" + info + '}';
+    }
+
+  }
+
+}
@@ -174,7 +174,7 @@ public interface OpenTypeAvroConverter<T extends OpenType, A, C> {
     @Override
     public Schema getSchema(final ArrayType type, final OpenTypeConverterSupplier convSupp) {
       OpenType elementOpenType = type.getElementOpenType();
-      Schema elemSchema = convSupp.getConverter(elementOpenType).getSchema(elementOpenType, convSupp);
+      Schema elemSchema = convSupp.getSchema(elementOpenType);
       return Schema.createArray(elemSchema);
     }
   };
@@ -187,7 +187,7 @@ public interface OpenTypeAvroConverter<T extends OpenType, A, C> {
       if (openValue == null) {
         return null;
       }
-      GenericData.Record record = new GenericData.Record(getSchema(type, convSupp));
+      GenericData.Record record = new GenericData.Record(convSupp.getSchema(type));
       for (String attribute : type.keySet()) {
         OpenType<?> aType = type.getType(attribute);
         record.put(attribute, convSupp.getConverter(aType).fromOpenValue(aType,
@@ -227,7 +227,7 @@ public interface OpenTypeAvroConverter<T extends OpenType, A, C> {
       List<Schema.Field> fields = new ArrayList<>(keySet.size());
       for (String attribute : keySet) {
         OpenType<?> aType = type.getType(attribute);
-        Schema schema = convSupp.getConverter(aType).getSchema(aType, convSupp);
+        Schema schema = convSupp.getSchema(aType);
         fields.add(new Schema.Field(attribute, schema, "", (Object) null));
       }
       return Schema.createRecord(null, type.getDescription(), "", false, fields);
@@ -271,7 +271,7 @@ public interface OpenTypeAvroConverter<T extends OpenType, A, C> {
     @Override
     public Schema getSchema(final TabularType type, final OpenTypeConverterSupplier convSupp) {
       CompositeType rowType = type.getRowType();
-      Schema rowSchema = convSupp.getConverter(rowType).getSchema(rowType, convSupp);
+      Schema rowSchema = convSupp.getSchema(rowType);
       Schema arraySchema = Schema.createArray(rowSchema);
       ArrayNode arrNode = Schema.MAPPER.createArrayNode();
       for (String pkc : type.getIndexNames()) {
@@ -15,12 +15,15 @@
  */
 package org.spf4j.actuator.jmx;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import javax.annotation.Nullable;
 import javax.management.openmbean.ArrayType;
 import javax.management.openmbean.CompositeType;
 import javax.management.openmbean.OpenType;
 import javax.management.openmbean.SimpleType;
 import javax.management.openmbean.TabularType;
+import org.apache.avro.Schema;
 import org.spf4j.reflect.CachingTypeMapWrapper;
 import org.spf4j.reflect.GraphTypeMap;
 
@@ -33,7 +36,13 @@ public final class OpenTypeConverterSupplier {
 
   private final CachingTypeMapWrapper<OpenTypeAvroConverter> typeHandler;
 
+  /**
+   * OpenTypes are immutable and implement equals/hashCode, so their avro schemas can be cached for good.
+   */
+  private final ConcurrentMap<OpenType<?>, Schema> schemaCache;
+
   private OpenTypeConverterSupplier() {
+    schemaCache = new ConcurrentHashMap<>();
     typeHandler = new CachingTypeMapWrapper<>(new GraphTypeMap());
     typeHandler.safePut(SimpleType.class, OpenTypeAvroConverter.SIMPLE_TYPE)
             .safePut(ArrayType.class, OpenTypeAvroConverter.ARRAY_TYPE)
@@ -53,6 +62,28 @@ public final class OpenTypeConverterSupplier {
     }
   }
 
+  /**
+   * Get the avro schema for a open type.
+   * @param openType the open type.
+   * @return the schema, cached.
+   */
+  public Schema getSchema(@Nullable final OpenType<?> openType) {
+    OpenTypeAvroConverter converter = getConverter(openType);
+    if (openType == null) {
+      return converter.getSchema(openType, this);
+    }
+    Schema result = schemaCache.get(openType);
+    if (result == null) {
+      // no computeIfAbsent, schema computation for composite types is recursive.
+      result = converter.getSchema(openType, this);
+      Schema existing = schemaCache.putIfAbsent(openType, result);
+      if (existing != null) {
+        return existing;
+      }
+    }
+    return result;
+  }
+
   @Override
   public String toString() {
     return "OpenTypeConverterSupplier{" + "typeHandler=" + typeHandler + '}';
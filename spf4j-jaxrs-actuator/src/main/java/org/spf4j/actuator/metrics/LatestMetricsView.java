@@ -0,0 +1,184 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.actuator.metrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import org.apache.avro.Schema;
+import org.spf4j.base.TimeSource;
+import org.spf4j.perf.MeasurementStore;
+
+/**
+ * In memory view of the latest measurement interval, served to scrapers.
+ * The measurement store is flushed at most once every maxStaleness, and the measurement list and the
+ * default prometheus scrape output are computed once per flush, no matter how many concurrent scrapers hit us.
+ * Historical queries (explicit from/to) still go to the store files.
+ * @author Zoltan Farkas
+ */
+final class LatestMetricsView {
+
+  private final MeasurementStore store;
+
+  private final long maxStalenessNanos;
+
+  /** the minimum interval between the store flushes forced by unknown measurement lookups. */
+  private final long minForcedRefreshNanos;
+
+  private final Duration defaultFromDuration;
+
+  private final Object sync;
+
+  private volatile long lastFlushNanos;
+
+  private volatile Snapshot snapshot;
+
+  LatestMetricsView(final MeasurementStore store, final Duration maxStaleness,
+          final Duration defaultFromDuration) {
+    this.store = store;
+    this.maxStalenessNanos = maxStaleness.toNanos();
+    this.minForcedRefreshNanos = Math.min(maxStalenessNanos, TimeUnit.SECONDS.toNanos(1));
+    this.defaultFromDuration = defaultFromDuration;
+    this.sync = new Object();
+    this.lastFlushNanos = TimeSource.nanoTime() - maxStalenessNanos - 1;
+    this.snapshot = null;
+  }
+
+  /**
+   * @return all the measurements known to the store, from the latest interval.
+   */
+  Collection<Schema> getMeasurements() throws IOException {
+    return getSnapshot().measurements.values();
+  }
+
+  /**
+   * @param name the measurement name.
+   * @return the measurement schema, or null if no such measurement.
+   * On miss the store will be flushed, since the measurement might have been allocated after our last flush,
+   * but not more often than once a second (or maxStaleness if smaller), so that lookups of unknown measurements
+   * cannot trigger a store flush per request.
+   */
+  @Nullable
+  Schema getMeasurement(final String name) throws IOException {
+    Snapshot s = getSnapshot();
+    Schema result = s.measurements.get(name);
+    if (result == null && TimeSource.nanoTime() - s.createdNanos > minForcedRefreshNanos) {
+      result = refresh(true).measurements.get(name);
+    }
+    return result;
+  }
+
+  /**
+   * @return the prometheus text rendering for the default interval: [now - defaultFromDuration, now],
+   * aggregated over defaultFromDuration.
+   */
+  byte[] getPrometheusText() throws IOException {
+    Snapshot s = getSnapshot();
+    byte[] result = s.prometheusText;
+    if (result == null) {
+      // rendering is guarded by the snapshot, not to block flushes and historical queries while we render.
+      synchronized (s) {
+        result = s.prometheusText;
+        if (result == null) {
+          Instant to = Instant.now();
+          ByteArrayOutputStream bos = new ByteArrayOutputStream(8192);
+          new MetricsResource.PrometheusOutput(store.query(), defaultFromDuration.toMillis(),
+                  to.minus(defaultFromDuration), to).write(bos);
+          result = bos.toByteArray();
+          s.prometheusText = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Flush the store before a historical query, so that the store files contain all the data recorded so far.
+   */
+  void syncStore() throws IOException {
+    synchronized (sync) {
+      store.flush();
+      lastFlushNanos = TimeSource.nanoTime();
+    }
+  }
+
+  private Snapshot getSnapshot() throws IOException {
+    Snapshot s = snapshot;
+    if (s == null || TimeSource.nanoTime() - s.createdNanos > maxStalenessNanos) {
+      return refresh(false);
+    }
+    return s;
+  }
+
+  private Snapshot refresh(final boolean force) throws IOException {
+    synchronized (sync) {
+      Snapshot s = snapshot;
+      long now = TimeSource.nanoTime();
+      if (s != null && now - s.createdNanos <= (force ? minForcedRefreshNanos : maxStalenessNanos)) {
+        return s; // somebody else refreshed while we waited.
+      }
+      if (force) {
+        store.flush();
+        lastFlushNanos = TimeSource.nanoTime();
+      } else {
+        flushIfStale();
+      }
+      Collection<Schema> measurements = store.query().getMeasurements(x -> true);
+      Map<String, Schema> byName = new HashMap<>(measurements.size() + measurements.size() / 3 + 1);
+      for (Schema measurement : measurements) {
+        byName.put(measurement.getName(), measurement);
+      }
+      s = new Snapshot(lastFlushNanos, Collections.unmodifiableMap(byName));
+      snapshot = s;
+      return s;
+    }
+  }
+
+  private void flushIfStale() throws IOException {
+    if (TimeSource.nanoTime() - lastFlushNanos > maxStalenessNanos) {
+      store.flush();
+      lastFlushNanos = TimeSource.nanoTime();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "LatestMetricsView{" + "maxStalenessNanos=" + maxStalenessNanos
+            + ", defaultFromDuration=" + defaultFromDuration + '}';
+  }
+
+  private static final class Snapshot {
+
+    private final long createdNanos;
+
+    private final Map<String, Schema> measurements;
+
+    private volatile byte[] prometheusText;
+
+    Snapshot(final long createdNanos, final Map<String, Schema> measurements) {
+      this.createdNanos = createdNanos;
+      this.measurements = measurements;
+    }
+  }
+
+}
@@ -67,12 +67,22 @@ public class MetricsResource {
 
   private final MeasurementStore mStore;
 
+  private final LatestMetricsView latest;
+
+  /**
+   * @param defaultFromDuration the default query interval (now - defaultFromDuration, now)
+   * @param maxStaleness the max age of the data served to scrapers (no explicit from/to),
+   * all scrapes within this interval are served from memory, without flushing and re-reading the store.
+   */
   @Inject
   @SuppressFBWarnings("EI_EXPOSE_REP2")
   public MetricsResource(@ConfigProperty(name = "metrics.fromDefaultDuration",
-          defaultValue = "PT1M") final Duration defaultFromDuration) {
+          defaultValue = "PT1M") final Duration defaultFromDuration,
+          @ConfigProperty(name = "metrics.scrapeMaxStaleness",
+          defaultValue = "PT5S") final Duration maxStaleness) {
     this.defaultFromDuration = defaultFromDuration;
     mStore = ProcessMeasurementStore.getMeasurementStore();
+    latest = new LatestMetricsView(mStore, maxStaleness, defaultFromDuration);
   }
 
 
@@ -82,8 +92,7 @@ public class MetricsResource {
   @Path("local")
   @AvroSchema(value = "{\"type\":\"array\",\"items\": {\"type\":\"string\", \"logicalType\":\"avsc\"}}")
   public Collection<Schema> getMetrics() throws IOException {
-    mStore.flush();
-    return mStore.query().getMeasurements(x -> true);
+    return latest.getMeasurements();
   }
 
   /**
@@ -102,6 +111,10 @@ public class MetricsResource {
           @Nullable @QueryParam("from") final Instant pfrom,
           @Nullable @QueryParam("to") final Instant pto,
           @Nullable @QueryParam("aggDuration") final Duration pagg) throws IOException {
+    if (pfrom == null && pto == null && pagg == null) {
+      byte[] text = latest.getPrometheusText();
+      return out -> out.write(text);
+    }
     Instant from = pfrom == null ? Instant.now().minus(defaultFromDuration) : pfrom;
     Instant to = pto == null ? Instant.now() : pto;
     Duration agg = pagg == null ? defaultFromDuration : pagg;
@@ -109,7 +122,7 @@ public class MetricsResource {
     if (aggMillis > Integer.MAX_VALUE) {
       throw new ClientErrorException("Invalid aggregation durration: " + agg, 400);
     }
-    mStore.flush();
+    latest.syncStore();
     MeasurementStoreQuery query = mStore.query();
     return new PrometheusOutput(query, aggMillis, from, to);
   }
@@ -120,15 +133,11 @@ public class MetricsResource {
   @Produces(value = {"application/avsc+json;qs=0.9"})
   public Schema getMetricSchema(@PathParam("metric") final String metricName)
           throws IOException {
-    mStore.flush();
-    MeasurementStoreQuery query = mStore.query();
-    Collection<Schema> measurements = query.getMeasurements(x -> x.equals(metricName));
-    if (measurements.isEmpty()) {
+    Schema measurement = latest.getMeasurement(metricName);
+    if (measurement == null) {
       throw new NotFoundException("Metric not found: " + metricName);
-    } else if (measurements.size() > 1) {
-      throw new IllegalStateException("Multiple metrics found, this is a bug: " + measurements);
     }
-    return measurements.iterator().next();
+    return measurement;
   }
 
   @GET
@@ -150,6 +159,7 @@ public class MetricsResource {
       }
     }
     Schema measurement = getMetricSchema(metricName);
+    latest.syncStore();
     MeasurementStoreQuery query = mStore.query();
     return  aggMillis <= 0
             ? query.getMeasurementData(measurement, from, to)
@@ -190,10 +200,10 @@ public class MetricsResource {
 
   @Override
   public String toString() {
-    return "MetricsResource{" + "defaultFromDuration=" + defaultFromDuration + '}';
+    return "MetricsResource{" + "defaultFromDuration=" + defaultFromDuration + ", latest=" + latest + '}';
   }
 
-  private static class PrometheusOutput implements StreamingOutput {
+  static final class PrometheusOutput implements StreamingOutput {
 
     private final MeasurementStoreQuery query;
     private final long aggMillis;
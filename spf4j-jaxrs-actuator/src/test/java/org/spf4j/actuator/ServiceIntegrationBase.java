@@ -21,6 +21,7 @@ import java.security.Principal;
 import java.util.function.Function;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
+import org.spf4j.actuator.filters.FiltersTestResource;
 import org.spf4j.grizzly.JerseyService;
 import org.spf4j.grizzly.JerseyServiceBuilder;
 import org.spf4j.grizzly.JvmServices;
@@ -51,6 +52,7 @@ public abstract class ServiceIntegrationBase {
     jerseyService = new JerseyServiceBuilder(JVM)
             .withFeature(ActuatorFeature.class)
             .withFeature(SingleNodeClusterFeature.class)
+            .withServiceProvider(FiltersTestResource.class)
             .withPort(9090)
             .withSecurityAuthenticator(new SecurityAuthenticator() {
               @Override
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.actuator.filters;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import javax.inject.Inject;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.UriInfo;
+import org.spf4j.base.avro.LogLevel;
+import org.spf4j.base.avro.LogRecord;
+import org.spf4j.jaxrs.Cached;
+
+/**
+ * Endpoints to exercise the server and client filters in real requests. (registered by ServiceIntegrationBase)
+ * @author Zoltan Farkas
+ */
+@Path("test/filters")
+public final class FiltersTestResource {
+
+  private static final AtomicInteger CACHED_CALLS = new AtomicInteger();
+
+  private final Client client;
+
+  @Inject
+  public FiltersTestResource(final Client client) {
+    this.client = client;
+  }
+
+  /**
+   * @return a different content every time it is executed, cached for a minute.
+   */
+  @GET
+  @Path("cached")
+  @Produces(MediaType.TEXT_PLAIN)
+  @Cached(ttl = 60)
+  public String getCached() {
+    return "cached " + CACHED_CALLS.incrementAndGet();
+  }
+
+  /**
+   * @return the Host the request was sent to.
+   */
+  @GET
+  @Path("host")
+  @Produces(MediaType.TEXT_PLAIN)
+  public String getHost(@HeaderParam(HttpHeaders.HOST) final String host) {
+    return host;
+  }
+
+  @POST
+  @Path("echo")
+  @Consumes(MediaType.TEXT_PLAIN)
+  @Produces(MediaType.TEXT_PLAIN)
+  public String echo(final String body) {
+    return body;
+  }
+
+  /**
+   * @return the echo of a downstream call, made with the server rest client in the request context.
+   */
+  @GET
+  @Path("downstream")
+  @Produces(MediaType.TEXT_PLAIN)
+  public String callDownstream(@Context final UriInfo uriInfo) {
+    return client.target(uriInfo.getBaseUri()).path("test/filters/echo").request(MediaType.TEXT_PLAIN)
+            .post(Entity.text("downstream"), String.class);
+  }
+
+  /**
+   * @return count records, not a collection, large iterables are written by the non blocking writer.
+   */
+  @GET
+  @Path("records")
+  @Produces({"application/json", "application/avro"})
+  public Iterable<LogRecord> getRecords(@QueryParam("count") final int count) {
+    return () -> IntStream.range(0, count).mapToObj(FiltersTestResource::record).iterator();
+  }
+
+  public static LogRecord record(final int idx) {
+    return new LogRecord("test", "trace" + idx, LogLevel.INFO, Instant.ofEpochMilli(idx), "logger", "thread",
+            "message " + idx, Collections.EMPTY_LIST, Collections.EMPTY_LIST, Collections.EMPTY_MAP, null);
+  }
+
+}
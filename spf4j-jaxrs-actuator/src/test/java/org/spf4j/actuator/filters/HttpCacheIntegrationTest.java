@@ -0,0 +1,62 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.actuator.filters;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.ws.rs.core.MediaType;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spf4j.actuator.ServiceIntegrationBase;
+import org.spf4j.jaxrs.client.EndpointMetrics;
+import org.spf4j.jaxrs.client.HttpCache;
+import org.spf4j.jaxrs.client.Spf4JClient;
+import org.spf4j.jaxrs.client.Spf4jClientBuilder;
+import org.spf4j.jaxrs.client.Spf4jWebTarget;
+
+/**
+ * The client http cache (HttpCacheClientFilter) against the server response cache.
+ * @author Zoltan Farkas
+ */
+public class HttpCacheIntegrationTest extends ServiceIntegrationBase {
+
+  @Test(timeout = 10000)
+  public void testServedFromTheClientCache() {
+    Map<String, LongAdder> recorded = new ConcurrentHashMap<>();
+    EndpointMetrics.Registry metrics = new EndpointMetrics.Registry(10, (metric, endpoint) ->
+            value -> recorded.computeIfAbsent(metric, k -> new LongAdder()).increment());
+    Spf4JClient client = new Spf4jClientBuilder().build()
+            .withHttpCache(new HttpCache(100000, 10000)).withEndpointMetrics(metrics);
+    try {
+      Spf4jWebTarget target = client.target(getTarget().getUri()).path("test/filters/cached");
+      String first = target.request(MediaType.TEXT_PLAIN).get(String.class);
+      String second = target.request(MediaType.TEXT_PLAIN).get(String.class);
+      Assert.assertEquals(first, second);
+      // one network attempt, the second call is a cache hit.
+      Assert.assertEquals(1, count(recorded, EndpointMetrics.ATTEMPT_TIME));
+      Assert.assertEquals(1, count(recorded, EndpointMetrics.CACHE_HITS));
+    } finally {
+      client.close();
+    }
+  }
+
+  private static long count(final Map<String, LongAdder> recorded, final String metric) {
+    LongAdder count = recorded.get(metric);
+    return count == null ? 0 : count.sum();
+  }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.actuator.filters;
+
+import java.util.List;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.MediaType;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spf4j.actuator.ServiceIntegrationBase;
+import org.spf4j.base.avro.LogRecord;
+
+/**
+ * Large responses are written by the NonBlockingWriter, in many chunks, through the content encoders.
+ * (the test client asks for gzip)
+ * @author Zoltan Farkas
+ */
+public class NonBlockingWriterIntegrationTest extends ServiceIntegrationBase {
+
+  private static final int COUNT = 20000;
+
+  @Test(timeout = 30000)
+  public void testLargeJsonResponse() {
+    assertRecords(getRecords(MediaType.APPLICATION_JSON));
+  }
+
+  @Test(timeout = 30000)
+  public void testLargeAvroResponse() {
+    assertRecords(getRecords("application/avro"));
+  }
+
+  private static List<LogRecord> getRecords(final String mediaType) {
+    return getTarget().path("test/filters/records").queryParam("count", COUNT)
+            .request(mediaType).get(new GenericType<List<LogRecord>>() { });
+  }
+
+  private static void assertRecords(final List<LogRecord> records) {
+    Assert.assertEquals(COUNT, records.size());
+    for (int i = 0; i < COUNT; i++) {
+      Assert.assertEquals(FiltersTestResource.record(i), records.get(i));
+    }
+  }
+
+}
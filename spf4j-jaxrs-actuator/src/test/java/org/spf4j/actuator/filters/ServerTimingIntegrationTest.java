@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.actuator.filters;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spf4j.actuator.ServiceIntegrationBase;
+import org.spf4j.base.ExecutionContext;
+import org.spf4j.base.ExecutionContexts;
+import org.spf4j.http.Headers;
+import org.spf4j.http.RequestContextTags;
+import org.spf4j.http.ServerTiming.ServerTimingMetric;
+
+/**
+ * The request phase timings: auth (ExecutionContextFilter), deser, exec (ServerTimingFilter),
+ * and their roll up across hops (ExecutionContextClientFilter).
+ * @author Zoltan Farkas
+ */
+public class ServerTimingIntegrationTest extends ServiceIntegrationBase {
+
+  @Test(timeout = 10000)
+  public void testServerTimings() {
+    try (ExecutionContext ctx = ExecutionContexts.start("test", 10, TimeUnit.SECONDS)) {
+      Response response = getTarget().path("test/filters/echo").request(MediaType.TEXT_PLAIN)
+              .post(Entity.text("hello"));
+      try {
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals("hello", response.readEntity(String.class));
+        String serverTiming = response.getHeaderString(Headers.SERVER_TIMING);
+        Assert.assertNotNull(serverTiming);
+        Assert.assertTrue(serverTiming, serverTiming.contains("auth;dur="));
+        Assert.assertTrue(serverTiming, serverTiming.contains("deser;dur="));
+        Assert.assertTrue(serverTiming, serverTiming.contains("exec;dur="));
+        // the response serialization happens after the headers are written.
+        Assert.assertFalse(serverTiming, serverTiming.contains(" ser;dur="));
+      } finally {
+        response.close();
+      }
+      List<String> names = names(ctx.get(RequestContextTags.SERVER_TIMINGS));
+      Assert.assertTrue(names.toString(), names.contains("downstream"));
+      Assert.assertTrue(names.toString(), names.contains("ds.auth"));
+      Assert.assertTrue(names.toString(), names.contains("ds.deser"));
+      Assert.assertTrue(names.toString(), names.contains("ds.exec"));
+    }
+  }
+
+  /**
+   * The downstream call timings roll up in the request context, and are written in the response Server-Timing.
+   */
+  @Test(timeout = 10000)
+  public void testDownstreamTimingsRollUp() {
+    Response response = getTarget().path("test/filters/downstream").request(MediaType.TEXT_PLAIN).get();
+    try {
+      Assert.assertEquals(200, response.getStatus());
+      Assert.assertEquals("downstream", response.readEntity(String.class));
+      String serverTiming = response.getHeaderString(Headers.SERVER_TIMING);
+      Assert.assertNotNull(serverTiming);
+      Assert.assertTrue(serverTiming, serverTiming.contains("downstream;dur="));
+      Assert.assertTrue(serverTiming, serverTiming.contains("ds.auth;dur="));
+      Assert.assertTrue(serverTiming, serverTiming.contains("ds.deser;dur="));
+      Assert.assertTrue(serverTiming, serverTiming.contains("ds.exec;dur="));
+    } finally {
+      response.close();
+    }
+  }
+
+  private static List<String> names(final List<ServerTimingMetric> timings) {
+    Assert.assertNotNull(timings);
+    List<String> result = new ArrayList<>(timings.size());
+    for (ServerTimingMetric timing : timings) {
+      result.add(timing.getName());
+    }
+    return result;
+  }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.actuator.filters;
+
+import java.net.URI;
+import javax.ws.rs.core.MediaType;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spf4j.actuator.ServiceIntegrationBase;
+import org.spf4j.jaxrs.client.Spf4JClient;
+import org.spf4j.jaxrs.client.Spf4jClientBuilder;
+import org.spf4j.jaxrs.client.Spf4jClientProperties;
+import org.spf4j.jaxrs.client.Spf4jWebTarget;
+import org.spf4j.jaxrs.client.providers.ShadowTrafficClientFilter;
+
+/**
+ * Shadow requests (ShadowTrafficClientFilter) reach their shadow destination.
+ * The primary target is 127.0.0.1, the shadow destination localhost, the same server.
+ * @author Zoltan Farkas
+ */
+public class ShadowTrafficIntegrationTest extends ServiceIntegrationBase {
+
+  @Test(timeout = 10000)
+  public void testShadowRequestGoesToTheShadowDestination() {
+    Spf4JClient client = new Spf4jClientBuilder()
+            .property(Spf4jClientProperties.SHADOW_MAX_CONCURRENCY, 1).build();
+    try {
+      Assert.assertNotNull(client.getShadowTraffic());
+      URI primary = getTarget().getUri();
+      Spf4jWebTarget target = client.target(primary).path("test/filters/host");
+      Assert.assertEquals(primary.getAuthority(), target.request(MediaType.TEXT_PLAIN).get(String.class));
+      URI shadow = URI.create("http://localhost:" + primary.getPort() + "/test/filters/host");
+      Assert.assertEquals(shadow.getAuthority(), target.request(MediaType.TEXT_PLAIN)
+              .property(ShadowTrafficClientFilter.SHADOW_URI_PROP, shadow).get(String.class));
+    } finally {
+      client.close();
+    }
+  }
+
+}
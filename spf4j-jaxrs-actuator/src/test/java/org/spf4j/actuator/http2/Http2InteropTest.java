@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.actuator.http2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.spf4j.actuator.ActuatorFeature;
+import org.spf4j.grizzly.JerseyService;
+import org.spf4j.grizzly.JerseyServiceBuilder;
+import org.spf4j.grizzly.JvmServices;
+import org.spf4j.grizzly.JvmServicesBuilder;
+import org.spf4j.grizzly.SingleNodeClusterFeature;
+
+/**
+ * HTTP/2 cleartext interop: h2c with prior knowledge (okhttp), and the h2c upgrade handshake.
+ * @author Zoltan Farkas
+ */
+public class Http2InteropTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(Http2InteropTest.class);
+
+  private static final JvmServices JVM = new JvmServicesBuilder()
+          .withApplicationName("http2Test")
+          .withLogFolder("./target")
+          .build().start().closeOnShutdown();
+
+  private static JerseyService jerseyService;
+
+  private static int port;
+
+  @BeforeClass
+  public static void setUp() throws IOException {
+    port = freePort();
+    jerseyService = new JerseyServiceBuilder(JVM)
+            .withFeature(ActuatorFeature.class)
+            .withFeature(SingleNodeClusterFeature.class)
+            .withPort(port)
+            .withHttp2(true)
+            .withHttp2PriorKnowledge(true)
+            .build();
+    jerseyService.start();
+  }
+
+  @AfterClass
+  public static void tearDown() {
+    jerseyService.close();
+  }
+
+  static int freePort() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+
+  @Test
+  public void testH2cPriorKnowledge() throws IOException {
+    OkHttpClient client = new OkHttpClient.Builder()
+            .protocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE))
+            .build();
+    Request req = new Request.Builder().url("http://127.0.0.1:" + port + "/health/ping").build();
+    // the requests are multiplexed over the same h2c connection.
+    for (int i = 0; i < 3; i++) {
+      try (Response resp = client.newCall(req).execute()) {
+        LOG.debug("Response {} {}", resp.protocol(), resp.code());
+        Assert.assertEquals(200, resp.code());
+        Assert.assertEquals(Protocol.HTTP_2, resp.protocol());
+      }
+    }
+  }
+
+  @Test
+  public void testH2cUpgrade() throws IOException {
+    try (Socket socket = new Socket("127.0.0.1", port)) {
+      socket.setSoTimeout(10000);
+      OutputStream os = socket.getOutputStream();
+      os.write(("GET /health/ping HTTP/1.1\r\n"
+              + "Host: 127.0.0.1:" + port + "\r\n"
+              + "Connection: Upgrade, HTTP2-Settings\r\n"
+              + "Upgrade: h2c\r\n"
+              + "HTTP2-Settings: AAMAAABkAARAAAAAAAIAAAAA\r\n"
+              + "\r\n").getBytes(StandardCharsets.US_ASCII));
+      os.flush();
+      String statusLine = readLine(socket.getInputStream());
+      LOG.debug("Upgrade response {}", statusLine);
+      Assert.assertTrue(statusLine, statusLine.startsWith("HTTP/1.1 101"));
+    }
+  }
+
+  private static String readLine(final InputStream is) throws IOException {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream(64);
+    int c;
+    while ((c = is.read()) >= 0 && c != '\n') {
+      if (c != '\r') {
+        bos.write(c);
+      }
+    }
+    return new String(bos.toByteArray(), StandardCharsets.US_ASCII);
+  }
+
+}
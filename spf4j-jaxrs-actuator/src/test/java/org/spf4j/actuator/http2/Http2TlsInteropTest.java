@@ -0,0 +1,116 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.actuator.http2;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.Arrays;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.glassfish.grizzly.ssl.SSLContextConfigurator;
+import org.glassfish.grizzly.ssl.SSLEngineConfigurator;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.spf4j.actuator.ActuatorFeature;
+import org.spf4j.grizzly.JerseyService;
+import org.spf4j.grizzly.JerseyServiceBuilder;
+import org.spf4j.grizzly.JvmServices;
+import org.spf4j.grizzly.JvmServicesBuilder;
+import org.spf4j.grizzly.SingleNodeClusterFeature;
+
+/**
+ * HTTP/2 over TLS (h2 negotiated via ALPN) interop, with a self signed localhost certificate.
+ * @author Zoltan Farkas
+ */
+public class Http2TlsInteropTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(Http2TlsInteropTest.class);
+
+  private static final String KEYSTORE = "/http2-test.p12";
+
+  private static final String KEYSTORE_PASS = "changeit";
+
+  private static final JvmServices JVM = new JvmServicesBuilder()
+          .withApplicationName("http2TlsTest")
+          .withLogFolder("./target")
+          .build().start().closeOnShutdown();
+
+  private static JerseyService jerseyService;
+
+  private static int port;
+
+  @BeforeClass
+  public static void setUp() throws IOException, URISyntaxException {
+    port = Http2InteropTest.freePort();
+    SSLContextConfigurator sslContext = new SSLContextConfigurator();
+    sslContext.setKeyStoreFile(new File(Http2TlsInteropTest.class.getResource(KEYSTORE).toURI()).getPath());
+    sslContext.setKeyStorePass(KEYSTORE_PASS);
+    sslContext.setKeyStoreType("PKCS12");
+    jerseyService = new JerseyServiceBuilder(JVM)
+            .withFeature(ActuatorFeature.class)
+            .withFeature(SingleNodeClusterFeature.class)
+            .withPort(port)
+            .withHttp2(true)
+            .withSSLEngineConfigurator(
+                    new SSLEngineConfigurator(sslContext.createSSLContext(true), false, false, false))
+            .build();
+    jerseyService.start();
+  }
+
+  @AfterClass
+  public static void tearDown() {
+    jerseyService.close();
+  }
+
+  @Test
+  public void testH2Alpn() throws IOException, GeneralSecurityException {
+    KeyStore trusted = KeyStore.getInstance("PKCS12");
+    try (InputStream is = Http2TlsInteropTest.class.getResourceAsStream(KEYSTORE)) {
+      trusted.load(is, KEYSTORE_PASS.toCharArray());
+    }
+    TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+    tmf.init(trusted);
+    X509TrustManager trustManager = (X509TrustManager) tmf.getTrustManagers()[0];
+    SSLContext ctx = SSLContext.getInstance("TLS");
+    ctx.init(null, tmf.getTrustManagers(), null);
+    OkHttpClient client = new OkHttpClient.Builder()
+            .sslSocketFactory(ctx.getSocketFactory(), trustManager)
+            .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            .build();
+    Request req = new Request.Builder().url("https://localhost:" + port + "/health/ping").build();
+    for (int i = 0; i < 3; i++) {
+      try (Response resp = client.newCall(req).execute()) {
+        LOG.debug("Response {} {}", resp.protocol(), resp.code());
+        Assert.assertEquals(200, resp.code());
+        Assert.assertEquals(Protocol.HTTP_2, resp.protocol());
+      }
+    }
+  }
+
+}
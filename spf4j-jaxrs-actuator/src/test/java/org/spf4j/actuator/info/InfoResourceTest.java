@@ -2,7 +2,9 @@
 package org.spf4j.actuator.info;
 
 import java.net.MalformedURLException;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 import org.junit.Assert;
 import org.junit.Test;
 import org.slf4j.Logger;
@@ -35,4 +37,28 @@ public class InfoResourceTest extends ServiceIntegrationBase {
     Assert.assertNotNull(ai);
   }
 
+  /**
+   * info/local is @Cached, varying on Accept: every Accept value gets its own cache entry.
+   */
+  @Test(timeout = 10000)
+  public void testProcessInfoCachedPerAccept() {
+    Response json = getProcessInfo(MediaType.APPLICATION_JSON);
+    Response avro = getProcessInfo("application/avro");
+    Response jsonAgain = getProcessInfo(MediaType.APPLICATION_JSON);
+    Assert.assertEquals(HttpHeaders.ACCEPT, json.getHeaderString(HttpHeaders.VARY));
+    Assert.assertNotNull(json.getEntityTag());
+    Assert.assertNotEquals(json.getEntityTag(), avro.getEntityTag());
+    Assert.assertEquals(json.getEntityTag(), jsonAgain.getEntityTag());
+    Assert.assertTrue(json.getMediaType().isCompatible(MediaType.APPLICATION_JSON_TYPE));
+    Assert.assertTrue(jsonAgain.getMediaType().isCompatible(MediaType.APPLICATION_JSON_TYPE));
+    Assert.assertEquals("avro", avro.getMediaType().getSubtype());
+  }
+
+  private static Response getProcessInfo(final String accept) {
+    Response response = getTarget().path("info/local").request(accept).get();
+    response.close(); // only the headers are checked.
+    Assert.assertEquals(200, response.getStatus());
+    return response;
+  }
+
 }
@@ -15,11 +15,18 @@
  */
 package org.spf4j.actuator.jmx;
 
+import java.lang.management.ManagementFactory;
 import java.util.Collections;
 import java.util.List;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.core.GenericType;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import org.junit.Assert;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -92,6 +99,50 @@ public class JMXResourceTest extends ServiceIntegrationBase {
      LOG.debug("Jmx {} attribute  {} value ", "java.lang:name=Metaspace,type=MemoryPool", "Name", resp);
   }
 
+  @Test
+  public void testGetAttributeCachedMetadata() throws JMException {
+    MBeanServer srv = ManagementFactory.getPlatformMBeanServer();
+    String mbeanName = "org.spf4j.test:type=JMXResourceTest";
+    ObjectName name = new ObjectName(mbeanName);
+    srv.registerMBean(new StandardMBean(new MBeanMetadataCacheTest.TestA(),
+            MBeanMetadataCacheTest.TestAMBean.class), name);
+    try {
+      Assert.assertEquals("a", getAttributeValue(mbeanName, "A"));
+      Assert.assertEquals(404, getAttribute(mbeanName, "B").getStatus());
+      Assert.assertEquals(404, getAttribute(mbeanName, "WriteOnly").getStatus());
+      srv.unregisterMBean(name);
+      Assert.assertEquals(404, getAttribute(mbeanName, "A").getStatus());
+      srv.registerMBean(new StandardMBean(new MBeanMetadataCacheTest.TestB(),
+              MBeanMetadataCacheTest.TestBMBean.class), name);
+      Assert.assertEquals(404, getAttribute(mbeanName, "A").getStatus());
+      Assert.assertEquals(1, ((Number) getAttributeValue(mbeanName, "B")).intValue());
+      srv.unregisterMBean(name);
+      MBeanMetadataCacheTest.TestDynamicMBean dynamic = new MBeanMetadataCacheTest.TestDynamicMBean();
+      dynamic.put("X", 1);
+      srv.registerMBean(dynamic, name);
+      Assert.assertEquals(1, ((Number) getAttributeValue(mbeanName, "X")).intValue());
+      dynamic.put("Y", 2);
+      Assert.assertEquals(2, ((Number) getAttributeValue(mbeanName, "Y")).intValue());
+    } finally {
+      if (srv.isRegistered(name)) {
+        srv.unregisterMBean(name);
+      }
+    }
+  }
+
+  private static Response getAttribute(final String mbeanName, final String attrName) {
+    return getTarget().path("jmx/local/{mbean}/attributes/values/{attrName}")
+              .resolveTemplate("mbean", mbeanName)
+              .resolveTemplate("attrName", attrName)
+              .request(MediaType.APPLICATION_JSON).get();
+  }
+
+  private static Object getAttributeValue(final String mbeanName, final String attrName) {
+    try (Response resp = getAttribute(mbeanName, attrName)) {
+      Assert.assertEquals(200, resp.getStatus());
+      return resp.readEntity(Object.class);
+    }
+  }
 
   @Test
   public void testInvokeOperation() {
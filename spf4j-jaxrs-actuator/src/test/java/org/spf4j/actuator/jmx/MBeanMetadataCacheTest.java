@@ -0,0 +1,193 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.actuator.jmx;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import javax.ws.rs.NotFoundException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Zoltan Farkas
+ */
+public class MBeanMetadataCacheTest {
+
+  private MBeanServer srv;
+
+  private ObjectName name;
+
+  private MBeanMetadataCache cache;
+
+  @Before
+  public void setUp() throws JMException {
+    srv = ManagementFactory.getPlatformMBeanServer();
+    name = new ObjectName("org.spf4j.test:type=MBeanMetadataCacheTest");
+    cache = new MBeanMetadataCache(srv);
+  }
+
+  @After
+  public void tearDown() throws JMException, IOException {
+    cache.close();
+    if (srv.isRegistered(name)) {
+      srv.unregisterMBean(name);
+    }
+  }
+
+  @Test
+  public void testReRegisterWithDifferentInterface() throws JMException {
+    srv.registerMBean(new StandardMBean(new TestA(), TestAMBean.class), name);
+    MBeanMetadataCache.MBeanMetadata meta = cache.get(name);
+    Assert.assertSame(meta, cache.get(name));
+    Assert.assertEquals(0, meta.indexOf("A"));
+    Assert.assertEquals(-1, meta.indexOf("B"));
+    Assert.assertEquals(-1, meta.indexOf("WriteOnly"));
+    srv.unregisterMBean(name);
+    try {
+      cache.get(name);
+      Assert.fail();
+    } catch (NotFoundException ex) {
+      // expected
+    }
+    srv.registerMBean(new StandardMBean(new TestB(), TestBMBean.class), name);
+    MBeanMetadataCache.MBeanMetadata meta2 = cache.get(name);
+    Assert.assertNotSame(meta, meta2);
+    Assert.assertEquals(-1, meta2.indexOf("A"));
+    Assert.assertEquals(0, meta2.indexOf("B"));
+    Assert.assertEquals("long", meta2.getReadableAttrType(0).getTypeName());
+  }
+
+  @Test
+  public void testDynamicMBeanRefresh() throws JMException {
+    TestDynamicMBean mbean = new TestDynamicMBean();
+    mbean.put("X", 1);
+    srv.registerMBean(mbean, name);
+    MBeanMetadataCache.MBeanMetadata meta = cache.get(name);
+    Assert.assertEquals(1, meta.getNrReadableAttrs());
+    mbean.put("Y", 2);
+    // no notification for MBeanInfo changes, the cached metadata is stale until refreshed.
+    Assert.assertEquals(-1, cache.get(name).indexOf("Y"));
+    MBeanMetadataCache.MBeanMetadata refreshed = cache.refresh(name);
+    Assert.assertTrue(refreshed.indexOf("Y") >= 0);
+    Assert.assertSame(refreshed, cache.get(name));
+  }
+
+  public interface TestAMBean {
+
+    String getA();
+
+    void setWriteOnly(String value);
+  }
+
+  public interface TestBMBean {
+
+    long getB();
+  }
+
+  public static final class TestA implements TestAMBean {
+
+    @Override
+    public String getA() {
+      return "a";
+    }
+
+    @Override
+    public void setWriteOnly(final String value) {
+      // nothing
+    }
+  }
+
+  public static final class TestB implements TestBMBean {
+
+    @Override
+    public long getB() {
+      return 1L;
+    }
+  }
+
+  /**
+   * A DynamicMBean with a set of Integer attributes that can change while registered.
+   */
+  public static final class TestDynamicMBean implements DynamicMBean {
+
+    private final Map<String, Integer> attrs = new ConcurrentHashMap<>();
+
+    @Override
+    public Object getAttribute(final String attribute) throws AttributeNotFoundException {
+      Integer result = attrs.get(attribute);
+      if (result == null) {
+        throw new AttributeNotFoundException(attribute);
+      }
+      return result;
+    }
+
+    void put(final String attribute, final int value) {
+      attrs.put(attribute, value);
+    }
+
+    @Override
+    public void setAttribute(final Attribute attribute) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public AttributeList getAttributes(final String[] attributes) {
+      AttributeList result = new AttributeList(attributes.length);
+      for (String attr : attributes) {
+        Integer value = attrs.get(attr);
+        if (value != null) {
+          result.add(new Attribute(attr, value));
+        }
+      }
+      return result;
+    }
+
+    @Override
+    public AttributeList setAttributes(final AttributeList attributes) {
+      return new AttributeList(0);
+    }
+
+    @Override
+    public Object invoke(final String actionName, final Object[] params, final String[] signature) {
+      throw new UnsupportedOperationException(actionName);
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+      MBeanAttributeInfo[] attrInfos = new MBeanAttributeInfo[attrs.size()];
+      int i = 0;
+      for (String attr : attrs.keySet()) {
+        attrInfos[i++] = new MBeanAttributeInfo(attr, Integer.class.getName(), attr, true, false, false);
+      }
+      return new MBeanInfo(TestDynamicMBean.class.getName(), "test", attrInfos, null, null, null);
+    }
+  }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.actuator.metrics;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spf4j.perf.MeasurementStore;
+import org.spf4j.perf.MeasurementStoreQuery;
+
+/**
+ * @author Zoltan Farkas
+ */
+public class LatestMetricsViewTest {
+
+  @Test
+  public void testUnknownMeasurementFlushIsRateLimited() throws IOException {
+    AtomicInteger nrFlushes = new AtomicInteger();
+    LatestMetricsView view = new LatestMetricsView(store(nrFlushes), Duration.ofMinutes(1), Duration.ofMinutes(1));
+    Assert.assertTrue(view.getMeasurements().isEmpty());
+    int flushes = nrFlushes.get();
+    for (int i = 0; i < 100; i++) {
+      Assert.assertNull(view.getMeasurement("unknown" + i));
+    }
+    // all the lookups happen within a second of the last flush.
+    Assert.assertTrue("flushes: " + nrFlushes.get(), nrFlushes.get() - flushes <= 1);
+  }
+
+  private static MeasurementStore store(final AtomicInteger nrFlushes) {
+    MeasurementStoreQuery query = (MeasurementStoreQuery) Proxy.newProxyInstance(
+            LatestMetricsViewTest.class.getClassLoader(), new Class[] {MeasurementStoreQuery.class},
+            (proxy, method, args) -> {
+              if ("getMeasurements".equals(method.getName())) {
+                return Collections.emptyList();
+              }
+              throw new UnsupportedOperationException(method.toString());
+            });
+    return (MeasurementStore) Proxy.newProxyInstance(
+            LatestMetricsViewTest.class.getClassLoader(), new Class[] {MeasurementStore.class},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "flush":
+                  nrFlushes.incrementAndGet();
+                  return null;
+                case "query":
+                  return query;
+                default:
+                  throw new UnsupportedOperationException(method.toString());
+              }
+            });
+  }
+
+}
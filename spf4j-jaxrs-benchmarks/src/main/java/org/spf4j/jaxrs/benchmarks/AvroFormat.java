@@ -0,0 +1,143 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.benchmarks;
+
+import java.util.function.Function;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import org.spf4j.jaxrs.common.providers.avro.BinaryAvroMessageBodyReader;
+import org.spf4j.jaxrs.common.providers.avro.BinaryAvroMessageBodyWriter;
+import org.spf4j.jaxrs.common.providers.avro.CsvAvroMessageBodyReader;
+import org.spf4j.jaxrs.common.providers.avro.CsvAvroMessageBodyWriter;
+import org.spf4j.jaxrs.common.providers.avro.JsonAvroMessageBodyReader;
+import org.spf4j.jaxrs.common.providers.avro.JsonAvroMessageBodyWriter;
+import org.spf4j.jaxrs.common.providers.avro.SchemaProtocol;
+import org.spf4j.jaxrs.common.providers.avro.XJsonAvroMessageBodyReader;
+import org.spf4j.jaxrs.common.providers.avro.XJsonAvroMessageBodyWriter;
+import org.spf4j.jaxrs.common.providers.avro.stream.BinaryAvroIterableMessageBodyReader;
+import org.spf4j.jaxrs.common.providers.avro.stream.BinaryAvroIterableMessageBodyWriter;
+import org.spf4j.jaxrs.common.providers.avro.stream.BinaryAvroStreamingMessageBodyReader;
+import org.spf4j.jaxrs.common.providers.avro.stream.BinaryAvroStreamingMessageBodyWriter;
+import org.spf4j.jaxrs.common.providers.avro.stream.CsvAvroIterableMessageBodyReader;
+import org.spf4j.jaxrs.common.providers.avro.stream.CsvAvroIterableMessageBodyWriter;
+import org.spf4j.jaxrs.common.providers.avro.stream.CsvAvroStreamingMessageBodyReader;
+import org.spf4j.jaxrs.common.providers.avro.stream.CsvAvroStreamingMessageBodyWriter;
+import org.spf4j.jaxrs.common.providers.avro.stream.JsonAvroIterableMessageBodyReader;
+import org.spf4j.jaxrs.common.providers.avro.stream.JsonAvroIterableMessageBodyWriter;
+import org.spf4j.jaxrs.common.providers.avro.stream.JsonAvroStreamingMessageBodyReader;
+import org.spf4j.jaxrs.common.providers.avro.stream.JsonAvroStreamingMessageBodyWriter;
+import org.spf4j.jaxrs.common.providers.avro.stream.XJsonAvroIterableMessageBodyReader;
+import org.spf4j.jaxrs.common.providers.avro.stream.XJsonAvroIterableMessageBodyWriter;
+import org.spf4j.jaxrs.common.providers.avro.stream.XJsonAvroStreamingMessageBodyReader;
+import org.spf4j.jaxrs.common.providers.avro.stream.XJsonAvroStreamingMessageBodyWriter;
+
+/**
+ * The avro wire formats, with their providers for every payload variant:
+ * <ul>
+ * <li>object - the whole array is (de)serialized as one value by the Avro*MessageBodyWriter/Reader.</li>
+ * <li>iterable - Iterable/CloseableIterable, by the Avro*IterableMessageBodyWriter/Reader.</li>
+ * <li>streaming - StreamingArrayContent, by the Avro*StreamingMessageBodyWriter/Reader.</li>
+ * </ul>
+ * @author Zoltan Farkas
+ */
+public enum AvroFormat {
+  BINARY(new Providers(MediaType.valueOf("application/avro"),
+          BinaryAvroMessageBodyWriter::new, BinaryAvroMessageBodyReader::new),
+          new Providers(MediaType.valueOf("application/avro"),
+          BinaryAvroIterableMessageBodyWriter::new, BinaryAvroIterableMessageBodyReader::new),
+          new Providers(MediaType.valueOf("application/avro"),
+          BinaryAvroStreamingMessageBodyWriter::new, BinaryAvroStreamingMessageBodyReader::new)),
+  JSON(new Providers(MediaType.valueOf("application/avro+json"),
+          JsonAvroMessageBodyWriter::new, JsonAvroMessageBodyReader::new),
+          new Providers(MediaType.valueOf("application/avro+json"),
+          JsonAvroIterableMessageBodyWriter::new, JsonAvroIterableMessageBodyReader::new),
+          new Providers(MediaType.valueOf("application/avro+json"),
+          JsonAvroStreamingMessageBodyWriter::new, JsonAvroStreamingMessageBodyReader::new)),
+  XJSON(new Providers(MediaType.valueOf("application/avro-x+json"),
+          XJsonAvroMessageBodyWriter::new, XJsonAvroMessageBodyReader::new),
+          new Providers(MediaType.valueOf("application/avro-x+json"),
+          XJsonAvroIterableMessageBodyWriter::new, XJsonAvroIterableMessageBodyReader::new),
+          new Providers(MediaType.valueOf("application/avro-x+json"),
+          XJsonAvroStreamingMessageBodyWriter::new, XJsonAvroStreamingMessageBodyReader::new)),
+  CSV(new Providers(MediaType.valueOf("text/csv;fmt=avro"),
+          CsvAvroMessageBodyWriter::new, CsvAvroMessageBodyReader::new),
+          new Providers(MediaType.valueOf("text/csv"),
+          CsvAvroIterableMessageBodyWriter::new, CsvAvroIterableMessageBodyReader::new),
+          new Providers(MediaType.valueOf("text/csv;fmt=avro"),
+          CsvAvroStreamingMessageBodyWriter::new, CsvAvroStreamingMessageBodyReader::new));
+
+  private final Providers object;
+
+  private final Providers iterable;
+
+  private final Providers streaming;
+
+  AvroFormat(final Providers object, final Providers iterable, final Providers streaming) {
+    this.object = object;
+    this.iterable = iterable;
+    this.streaming = streaming;
+  }
+
+  public Providers getProviders(final PayloadVariant variant) {
+    switch (variant) {
+      case OBJECT:
+        return object;
+      case ITERABLE:
+        return iterable;
+      case STREAMING:
+        return streaming;
+      default:
+        throw new IllegalArgumentException("Unsupported variant " + variant);
+    }
+  }
+
+  public static final class Providers {
+
+    private final MediaType mediaType;
+
+    private final Function<SchemaProtocol, ? extends MessageBodyWriter> writerFactory;
+
+    private final Function<SchemaProtocol, ? extends MessageBodyReader> readerFactory;
+
+    Providers(final MediaType mediaType,
+            final Function<SchemaProtocol, ? extends MessageBodyWriter> writerFactory,
+            final Function<SchemaProtocol, ? extends MessageBodyReader> readerFactory) {
+      this.mediaType = mediaType;
+      this.writerFactory = writerFactory;
+      this.readerFactory = readerFactory;
+    }
+
+    public MediaType getMediaType() {
+      return mediaType;
+    }
+
+    public MessageBodyWriter createWriter(final SchemaProtocol protocol) {
+      return writerFactory.apply(protocol);
+    }
+
+    public MessageBodyReader createReader(final SchemaProtocol protocol) {
+      return readerFactory.apply(protocol);
+    }
+
+    @Override
+    public String toString() {
+      return "Providers{" + "mediaType=" + mediaType + '}';
+    }
+
+  }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import org.apache.avro.SchemaResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.spf4j.jaxrs.StreamingArrayContent;
+import org.spf4j.jaxrs.common.providers.avro.DefaultSchemaProtocol;
+
+/**
+ * Avro message body writers and readers, against in memory streams,
+ * for every format x payload shape x payload variant.
+ *
+ * @author Zoltan Farkas
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Threads(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AvroProvidersBenchmark {
+
+  private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+
+  @Param({"BINARY", "JSON", "XJSON", "CSV"})
+  private AvroFormat format;
+
+  @Param({"NARROW", "WIDE", "TEXT"})
+  private PayloadShape shape;
+
+  @Param({"OBJECT", "ITERABLE", "STREAMING"})
+  private PayloadVariant variant;
+
+  @Param({"10", "1000"})
+  private int nrRecords;
+
+  private MessageBodyWriter writer;
+
+  private MessageBodyReader reader;
+
+  private MediaType mediaType;
+
+  private Object payload;
+
+  private Class<?> writeType;
+
+  private Type writeGenericType;
+
+  private MediaType readMediaType;
+
+  private MultivaluedMap<String, String> readHeaders;
+
+  private byte[] serialized;
+
+  private ByteArrayOutputStream bos;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    DefaultSchemaProtocol protocol = new DefaultSchemaProtocol(SchemaResolver.NONE);
+    AvroFormat.Providers providers = format.getProviders(variant);
+    writer = providers.createWriter(protocol);
+    reader = providers.createReader(protocol);
+    mediaType = providers.getMediaType();
+    List<Object> records = shape.create(nrRecords);
+    switch (variant) {
+      case OBJECT:
+      case ITERABLE:
+        payload = records;
+        writeType = List.class;
+        writeGenericType = shape.getListType();
+        break;
+      case STREAMING:
+        payload = new ListStreamingArrayContent(records);
+        writeType = StreamingArrayContent.class;
+        writeGenericType = shape.getStreamingType();
+        break;
+      default:
+        throw new IllegalStateException("Unsupported variant " + variant);
+    }
+    bos = new ByteArrayOutputStream(65536);
+    MultivaluedMap<String, Object> headers = write();
+    serialized = bos.toByteArray();
+    Object contentType = headers.getFirst(HttpHeaders.CONTENT_TYPE);
+    readMediaType = contentType == null ? mediaType : MediaType.valueOf(contentType.toString());
+    readHeaders = new MultivaluedHashMap<>(2);
+    readHeaders.putSingle(HttpHeaders.CONTENT_TYPE, readMediaType.toString());
+  }
+
+  @Benchmark
+  public int write(final Blackhole bh) throws IOException {
+    bh.consume(write());
+    return bos.size();
+  }
+
+  @Benchmark
+  @SuppressWarnings("unchecked") // the reader is picked by format and variant, its entity type varies.
+  public void read(final Blackhole bh) throws IOException {
+    InputStream is = new ByteArrayInputStream(serialized);
+    switch (variant) {
+      case OBJECT:
+        bh.consume(reader.readFrom(List.class, shape.getListType(), NO_ANNOTATIONS,
+                readMediaType, readHeaders, is));
+        break;
+      case ITERABLE:
+        Iterable<?> iterable = (Iterable<?>) reader.readFrom(Iterable.class, shape.getIterableType(),
+                NO_ANNOTATIONS, readMediaType, readHeaders, is);
+        for (Object o : iterable) {
+          bh.consume(o);
+        }
+        if (iterable instanceof Closeable) {
+          ((Closeable) iterable).close();
+        }
+        break;
+      case STREAMING:
+        try (StreamingArrayContent<?> content = (StreamingArrayContent<?>) reader.readFrom(
+                StreamingArrayContent.class, shape.getStreamingType(),
+                NO_ANNOTATIONS, readMediaType, readHeaders, is)) {
+          BlackholeArrayWriter.consume(content, bh);
+        }
+        break;
+      default:
+        throw new IllegalStateException("Unsupported variant " + variant);
+    }
+  }
+
+  @SuppressWarnings("unchecked") // the writer is picked by format and variant, its entity type varies.
+  private MultivaluedMap<String, Object> write() throws IOException {
+    bos.reset();
+    MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>(4);
+    writer.writeTo(payload, writeType, writeGenericType, NO_ANNOTATIONS, mediaType, headers, bos);
+    return headers;
+  }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.inject.Singleton;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.GenericEntity;
+import javax.ws.rs.core.Response;
+
+/**
+ * Serves pre-built payloads, so that the benchmark measures the jax-rs/avro/filter overhead only.
+ * @author Zoltan Farkas
+ */
+@Path("bench")
+@Singleton
+public final class BenchmarkResource {
+
+  private final ConcurrentMap<String, List<Object>> payloads = new ConcurrentHashMap<>();
+
+  @GET
+  @Path("records/{shape}")
+  @Produces({"application/avro", "application/avro+json", "application/avro-x+json",
+    "text/csv", "text/csv;fmt=avro"})
+  public Response getRecords(@PathParam("shape") final PayloadShape shape,
+          @QueryParam("nr") @DefaultValue("10") final int nrRecords) {
+    return Response.ok(new GenericEntity<>(getPayload(shape, nrRecords), shape.getListType())).build();
+  }
+
+  @GET
+  @Path("stream/{shape}")
+  @Produces({"application/avro", "application/avro+json", "application/avro-x+json", "text/csv;fmt=avro"})
+  public Response streamRecords(@PathParam("shape") final PayloadShape shape,
+          @QueryParam("nr") @DefaultValue("10") final int nrRecords) {
+    return Response.ok(new GenericEntity<>(new ListStreamingArrayContent(getPayload(shape, nrRecords)),
+            shape.getStreamingType())).build();
+  }
+
+  private List<Object> getPayload(final PayloadShape shape, final int nrRecords) {
+    return payloads.computeIfAbsent(shape.name() + ':' + nrRecords, (k) -> shape.create(nrRecords));
+  }
+
+  @Override
+  public String toString() {
+    return "BenchmarkResource{" + "payloads=" + payloads.keySet() + '}';
+  }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks, accepts the regular JMH command line options, with the following defaults:
+ * <ul>
+ * <li>all benchmarks in this package.</li>
+ * <li>-prof gc, to have the allocation rates (gc.alloc.rate.norm) next to the throughput.</li>
+ * <li>-rf json -rff target/jmh-result.json, for machine readable results, to compare across builds.</li>
+ * </ul>
+ *
+ * java -jar target/benchmarks.jar AvroProvidersBenchmark -p format=BINARY,JSON -p variant=STREAMING
+ *
+ * @author Zoltan Farkas
+ */
+public final class BenchmarkRunner {
+
+  private BenchmarkRunner() { }
+
+  public static void main(final String[] args) throws RunnerException, CommandLineOptionException {
+    CommandLineOptions cmdOptions = new CommandLineOptions(args);
+    ChainedOptionsBuilder options = new OptionsBuilder().parent(cmdOptions);
+    if (cmdOptions.getIncludes().isEmpty()) {
+      options.include(BenchmarkRunner.class.getPackage().getName() + ".*");
+    }
+    if (cmdOptions.getProfilers().isEmpty()) {
+      options.addProfiler(GCProfiler.class);
+    }
+    if (!cmdOptions.getResultFormat().hasValue()) {
+      options.resultFormat(ResultFormatType.JSON);
+    }
+    if (!cmdOptions.getResult().hasValue()) {
+      options.result("target/jmh-result.json");
+    }
+    new Runner(options.build()).run();
+  }
+
+}
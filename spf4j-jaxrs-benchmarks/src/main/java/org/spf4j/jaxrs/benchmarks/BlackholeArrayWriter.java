@@ -0,0 +1,59 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.benchmarks;
+
+import java.io.IOException;
+import org.openjdk.jmh.infra.Blackhole;
+import org.spf4j.base.ArrayWriter;
+import org.spf4j.jaxrs.StreamingArrayContent;
+
+/**
+ * Consumes the streamed elements.
+ * @author Zoltan Farkas
+ */
+final class BlackholeArrayWriter<T> implements ArrayWriter<T> {
+
+  private final Blackhole bh;
+
+  BlackholeArrayWriter(final Blackhole bh) {
+    this.bh = bh;
+  }
+
+  static <T> void consume(final StreamingArrayContent<T> content, final Blackhole bh) throws IOException {
+    content.write(new BlackholeArrayWriter<>(bh));
+  }
+
+  @Override
+  public void write(final T t) {
+    bh.consume(t);
+  }
+
+  @Override
+  public void accept(final T t) {
+    bh.consume(t);
+  }
+
+  @Override
+  public void flush() {
+    // nothing to flush.
+  }
+
+  @Override
+  public void close() {
+    // nothing to close.
+  }
+
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.spf4j.jaxrs.common.providers.avro.AvroMessageBodyWriter;
+import org.spf4j.jaxrs.common.providers.avro.BinaryAvroMessageBodyWriter;
+import org.spf4j.jaxrs.common.providers.avro.JsonAvroMessageBodyWriter;
+import org.spf4j.jaxrs.common.providers.avro.SchemaProtocol;
+import org.spf4j.servlet.CountingServletOutputStream;
+
+/**
+ * Avro writers writing through the counting stream, compared with writing to the raw stream,
+ * and with the previous (synchronized) counting implementation.
+ *
+ * java -jar target/benchmarks.jar CountingServletOutputStreamBenchmark
+ *
+ * @author Zoltan Farkas
+ */
+@State(Scope.Thread)
+@Fork(2)
+@Threads(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CountingServletOutputStreamBenchmark {
+
+  private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+
+  private static final Schema SCHEMA = SchemaBuilder.record("TestRecord").namespace("org.spf4j.test")
+          .fields()
+          .requiredString("name")
+          .requiredLong("id")
+          .requiredDouble("value")
+          .name("tags").type().array().items().stringType().noDefault()
+          .endRecord();
+
+  @Param({"binary", "json"})
+  private String format;
+
+  @Param({"1", "1000"})
+  private int nrRecords;
+
+  private AvroMessageBodyWriter writer;
+
+  private MediaType mediaType;
+
+  private Object payload;
+
+  private SinkServletOutputStream sink;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    if ("binary".equals(format)) {
+      writer = new BinaryAvroMessageBodyWriter(SchemaProtocol.NONE);
+      mediaType = MediaType.valueOf("application/avro");
+    } else {
+      writer = new JsonAvroMessageBodyWriter(SchemaProtocol.NONE);
+      mediaType = MediaType.valueOf("application/avro+json");
+    }
+    List<GenericRecord> records = new ArrayList<>(nrRecords);
+    for (int i = 0; i < nrRecords; i++) {
+      GenericRecord rec = new GenericData.Record(SCHEMA);
+      rec.put("name", "record-" + i);
+      rec.put("id", (long) i);
+      rec.put("value", i * 0.5);
+      List<String> tags = new ArrayList<>(3);
+      tags.add("a");
+      tags.add("bb");
+      tags.add("ccc");
+      rec.put("tags", tags);
+      records.add(rec);
+    }
+    payload = nrRecords == 1 ? records.get(0)
+            : new GenericData.Array<>(Schema.createArray(SCHEMA), records);
+    sink = new SinkServletOutputStream();
+  }
+
+  @Benchmark
+  public long writeRaw() throws IOException {
+    sink.reset();
+    write(sink);
+    return sink.size();
+  }
+
+  @Benchmark
+  public long writeCounting() throws IOException {
+    sink.reset();
+    CountingServletOutputStream os = new CountingServletOutputStream(sink);
+    write(os);
+    return os.getCount();
+  }
+
+  @Benchmark
+  public long writeSynchronizedCounting() throws IOException {
+    sink.reset();
+    SynchronizedCountingServletOutputStream os = new SynchronizedCountingServletOutputStream(sink);
+    write(os);
+    return os.getCount();
+  }
+
+  private void write(final ServletOutputStream os) throws IOException {
+    writer.writeTo(payload, Object.class, Object.class, NO_ANNOTATIONS, mediaType,
+            new MultivaluedHashMap<>(), os);
+  }
+
+  private static final class SinkServletOutputStream extends ServletOutputStream {
+
+    private final ByteArrayOutputStream bos = new ByteArrayOutputStream(65536);
+
+    void reset() {
+      bos.reset();
+    }
+
+    int size() {
+      return bos.size();
+    }
+
+    @Override
+    public boolean isReady() {
+      return true;
+    }
+
+    @Override
+    public void setWriteListener(final WriteListener writeListener) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void write(final int b) {
+      bos.write(b);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) {
+      bos.write(b, off, len);
+    }
+
+  }
+
+  /**
+   * The previous implementation, as a baseline.
+   */
+  private static final class SynchronizedCountingServletOutputStream extends ServletOutputStream {
+
+    private final ServletOutputStream out;
+
+    private long count;
+
+    SynchronizedCountingServletOutputStream(final ServletOutputStream out) {
+      this.out = out;
+    }
+
+    @Override
+    public boolean isReady() {
+      return out.isReady();
+    }
+
+    @Override
+    public void setWriteListener(final WriteListener writeListener) {
+      out.setWriteListener(writeListener);
+    }
+
+    synchronized long getCount() {
+      return count;
+    }
+
+    @Override
+    public synchronized void write(final byte[] b, final int off, final int len) throws IOException {
+      out.write(b, off, len);
+      count += len;
+    }
+
+    @Override
+    public synchronized void write(final int b) throws IOException {
+      out.write(b);
+      count++;
+    }
+
+  }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.benchmarks;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.avro.SchemaResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.spf4j.jaxrs.client.EndpointPoliciesConfig;
+import org.spf4j.jaxrs.config.ConfigImpl;
+import org.spf4j.jaxrs.config.ConfigProviderResolverImpl;
+import org.spf4j.jaxrs.config.JerseyMicroprofileConfigurationModel;
+import org.spf4j.service.avro.HttpExecutionPolicy;
+
+/**
+ * EndpointPoliciesConfig.getHttpExecutionPolicy in isolation: rule matching and policy resolution,
+ * done for every client request.
+ * The policies are configured via system properties.
+ *
+ * @author Zoltan Farkas
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Threads(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EndpointPoliciesConfigBenchmark {
+
+  private static final String POLICIES = "{\"policies\" : ["
+          + "{\"matcher\" : {\"host\" : \"my-service\\\\.prod\\\\.svc\\\\.cluster\\\\.local\", \"path\" : \".*\"},"
+          + " \"policies\" : {\"httpExecutionPolicyRef\" : \"bench.exec.policy.local\"}},"
+          + "{\"matcher\" : {\"host\" : \"my-service\\\\.prod\\\\.svc\\\\..*\", \"path\" : \".*\","
+          + " \"methods\" : [\"GET\", \"OPTIONS\"]},"
+          + " \"policies\" : {\"httpExecutionPolicyRef\" : \"bench.exec.policy.read\"}},"
+          + "{\"matcher\" : {\"host\" : \".*\", \"path\" : \".*\"},"
+          + " \"policies\" : {\"httpExecutionPolicyRef\" : \"bench.exec.policy.default\"}}"
+          + "]}";
+
+  /** the host the request is made to, determines how many rules match. */
+  @Param({"other-service", "my-service.prod.svc.cluster.local"})
+  private String host;
+
+  private EndpointPoliciesConfig config;
+
+  private Map<String, List<String>> headers;
+
+  private Map<String, List<String>> queryParams;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    System.setProperty(EndpointPoliciesConfig.CONFIG_NAME, POLICIES);
+    System.setProperty("bench.exec.policy.default",
+            "{\"overallTimeout\": \"PT30S\", \"attemptTimeout\": \"PT15S\", \"connectTimeout\": \"PT1S\"}");
+    System.setProperty("bench.exec.policy.read", "{\"attemptTimeout\": \"PT5S\"}");
+    System.setProperty("bench.exec.policy.local", "{\"connectTimeout\": \"PT0.1S\"}");
+    config = new EndpointPoliciesConfig(new JerseyMicroprofileConfigurationModel(
+            (ConfigImpl) new ConfigProviderResolverImpl().getConfig()), SchemaResolver.NONE);
+    headers = Collections.singletonMap("Accept", Collections.singletonList("application/json"));
+    queryParams = Collections.emptyMap();
+  }
+
+  @Benchmark
+  public HttpExecutionPolicy getHttpExecutionPolicy() {
+    return config.getHttpExecutionPolicy(host, 8080, "/api/v1/records", "GET", headers, queryParams);
+  }
+
+}
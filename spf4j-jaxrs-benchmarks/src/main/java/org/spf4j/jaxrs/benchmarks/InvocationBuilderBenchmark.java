@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.HttpMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.spf4j.jaxrs.client.Spf4JClient;
+import org.spf4j.jaxrs.client.Spf4jClientBuilder;
+import org.spf4j.jaxrs.client.Spf4jInvocation;
+import org.spf4j.jaxrs.client.Spf4jWebTarget;
+
+/**
+ * Spf4jInvocationBuilder.build in isolation: the per request work done before anything is sent
+ * (target resolution, execution policy lookup, retry executor setup). No request is executed.
+ *
+ * @author Zoltan Farkas
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Threads(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class InvocationBuilderBenchmark {
+
+  private Spf4JClient client;
+
+  private Spf4jWebTarget target;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    client = new Spf4jClientBuilder().build();
+    target = client.target("http://127.0.0.1:9191/bench").path("records/{shape}");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    client.close();
+  }
+
+  @Benchmark
+  public Spf4jInvocation build() {
+    return target.resolveTemplate("shape", "NARROW").queryParam("nr", 10)
+            .request("application/avro").build(HttpMethod.GET);
+  }
+
+  @Benchmark
+  public Spf4jInvocation buildOnResolvedTarget() {
+    return target.request("application/avro").build(HttpMethod.GET);
+  }
+
+}
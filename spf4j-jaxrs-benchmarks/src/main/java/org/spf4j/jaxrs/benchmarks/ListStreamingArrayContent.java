@@ -0,0 +1,48 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import org.spf4j.base.ArrayWriter;
+import org.spf4j.jaxrs.StreamingArrayContent;
+
+/**
+ * Streams back a pre-built list.
+ * @author Zoltan Farkas
+ */
+final class ListStreamingArrayContent implements StreamingArrayContent<Object> {
+
+  private final List<Object> records;
+
+  ListStreamingArrayContent(final List<Object> records) {
+    this.records = records;
+  }
+
+  @Override
+  public void write(final ArrayWriter<Object> output) throws IOException {
+    for (Object rec : records) {
+      output.write(rec);
+    }
+    output.close();
+  }
+
+  @Override
+  public String toString() {
+    return "ListStreamingArrayContent{" + "size=" + records.size() + '}';
+  }
+
+}
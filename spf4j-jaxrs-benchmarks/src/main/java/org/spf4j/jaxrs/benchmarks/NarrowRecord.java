@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.benchmarks;
+
+/**
+ * A small record, a handful of mixed primitive fields.
+ * @author Zoltan Farkas
+ */
+public final class NarrowRecord {
+
+  private String name;
+
+  private long id;
+
+  private double value;
+
+  private boolean active;
+
+  private int count;
+
+  public NarrowRecord() {
+  }
+
+  public NarrowRecord(final String name, final long id, final double value, final boolean active,
+          final int count) {
+    this.name = name;
+    this.id = id;
+    this.value = value;
+    this.active = active;
+    this.count = count;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public long getId() {
+    return id;
+  }
+
+  public double getValue() {
+    return value;
+  }
+
+  public boolean isActive() {
+    return active;
+  }
+
+  public int getCount() {
+    return count;
+  }
+
+  @Override
+  public String toString() {
+    return "NarrowRecord{" + "name=" + name + ", id=" + id + ", value=" + value + ", active=" + active
+            + ", count=" + count + '}';
+  }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.benchmarks;
+
+import com.google.common.reflect.TypeParameter;
+import com.google.common.reflect.TypeToken;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongFunction;
+import org.spf4j.base.CloseableIterable;
+import org.spf4j.jaxrs.StreamingArrayContent;
+
+/**
+ * The payload shapes we benchmark with.
+ * @author Zoltan Farkas
+ */
+public enum PayloadShape {
+  NARROW(NarrowRecord.class,
+          (i) -> new NarrowRecord("record-" + i, i, i * 0.5, (i & 1) == 0, (int) i)),
+  WIDE(WideRecord.class, WideRecord::new),
+  TEXT(TextRecord.class,
+          (i) -> new TextRecord("key-" + i, "A \"quoted\" title, with a comma " + i,
+                  "A longer description\nspanning lines, with unicode éèê and\ttabs. " + i,
+                  "/some/path/to/resource/" + i + "?q=a&b=c"));
+
+  private final Class<?> recordClass;
+
+  private final LongFunction<?> factory;
+
+  private final Type listType;
+
+  private final Type iterableType;
+
+  private final Type streamingType;
+
+  PayloadShape(final Class<?> recordClass, final LongFunction<?> factory) {
+    this.recordClass = recordClass;
+    this.factory = factory;
+    this.listType = listOf(recordClass);
+    this.iterableType = iterableOf(recordClass);
+    this.streamingType = streamingOf(recordClass);
+  }
+
+  public Class<?> getRecordClass() {
+    return recordClass;
+  }
+
+  /**
+   * @return List&lt;recordClass&gt;
+   */
+  public Type getListType() {
+    return listType;
+  }
+
+  /**
+   * @return CloseableIterable&lt;recordClass&gt;
+   */
+  public Type getIterableType() {
+    return iterableType;
+  }
+
+  /**
+   * @return StreamingArrayContent&lt;recordClass&gt;
+   */
+  public Type getStreamingType() {
+    return streamingType;
+  }
+
+  public List<Object> create(final int nrRecords) {
+    List<Object> result = new ArrayList<>(nrRecords);
+    for (int i = 0; i < nrRecords; i++) {
+      result.add(factory.apply(i));
+    }
+    return result;
+  }
+
+  private static <T> Type listOf(final Class<T> clasz) {
+    return new TypeToken<List<T>>() { }.where(new TypeParameter<T>() { }, clasz).getType();
+  }
+
+  private static <T> Type iterableOf(final Class<T> clasz) {
+    return new TypeToken<CloseableIterable<T>>() { }.where(new TypeParameter<T>() { }, clasz).getType();
+  }
+
+  private static <T> Type streamingOf(final Class<T> clasz) {
+    return new TypeToken<StreamingArrayContent<T>>() { }.where(new TypeParameter<T>() { }, clasz).getType();
+  }
+
+}
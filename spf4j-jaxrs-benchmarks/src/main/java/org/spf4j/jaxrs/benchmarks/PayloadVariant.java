@@ -0,0 +1,29 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.benchmarks;
+
+/**
+ * How an array payload is handed to/returned by the jax-rs runtime.
+ * @author Zoltan Farkas
+ */
+public enum PayloadVariant {
+  /** List&lt;T&gt; */
+  OBJECT,
+  /** Iterable&lt;T&gt;, CloseableIterable&lt;T&gt; */
+  ITERABLE,
+  /** StreamingArrayContent&lt;T&gt; */
+  STREAMING
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.benchmarks;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.UriInfo;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.IndexedRecord;
+import org.apache.avro.reflect.ReflectData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.spf4j.jaxrs.IterableArrayContent;
+import org.spf4j.jaxrs.server.providers.ProjectionJaxRsFilter;
+
+/**
+ * ProjectionJaxRsFilter in isolation: a "_project" request against a response of generic records,
+ * the filter setup (projection parsing, schema projection) and the projection of every record.
+ * The request/response contexts are minimal proxies, only what the filter uses is implemented.
+ *
+ * @author Zoltan Farkas
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Threads(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ProjectionFilterBenchmark {
+
+  private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+
+  @Param({"NARROW", "WIDE"})
+  private PayloadShape shape;
+
+  @Param({"10", "1000"})
+  private int nrRecords;
+
+  private ProjectionJaxRsFilter filter;
+
+  private Schema elementSchema;
+
+  private List<IndexedRecord> records;
+
+  private ContainerRequestContext request;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    filter = new ProjectionJaxRsFilter(() -> {
+      throw new UnsupportedOperationException("no default projection in this benchmark");
+    });
+    elementSchema = ReflectData.get().getSchema(shape.getRecordClass());
+    records = new ArrayList<>(nrRecords);
+    for (Object o : shape.create(nrRecords)) {
+      GenericData.Record record = new GenericData.Record(elementSchema);
+      for (Schema.Field field : elementSchema.getFields()) {
+        record.put(field.pos(), ReflectData.get().getField(o, field.name(), field.pos()));
+      }
+      records.add(record);
+    }
+    List<Schema.Field> fields = elementSchema.getFields();
+    // project half of the fields.
+    StringBuilder projection = new StringBuilder();
+    for (int i = 0; i < fields.size(); i += 2) {
+      if (projection.length() > 0) {
+        projection.append(',');
+      }
+      projection.append(fields.get(i).name());
+    }
+    MultivaluedMap<String, String> queryParams = new MultivaluedHashMap<>(2);
+    queryParams.putSingle("_project", projection.toString());
+    UriInfo uriInfo = proxy(UriInfo.class, (p, m, a) -> {
+      if ("getQueryParameters".equals(m.getName())) {
+        return queryParams;
+      }
+      throw new UnsupportedOperationException(m.toString());
+    });
+    request = proxy(ContainerRequestContext.class, (p, m, a) -> {
+      if ("getUriInfo".equals(m.getName())) {
+        return uriInfo;
+      }
+      throw new UnsupportedOperationException(m.toString());
+    });
+  }
+
+  @Benchmark
+  public void project(final Blackhole bh) {
+    Object[] entity = {IterableArrayContent.from(records, elementSchema)};
+    ContainerResponseContext response = proxy(ContainerResponseContext.class, (p, m, a) -> {
+      switch (m.getName()) {
+        case "getStatus":
+          return 200;
+        case "getEntity":
+          return entity[0];
+        case "setEntity":
+          entity[0] = a[0];
+          return null;
+        case "getEntityClass":
+          return entity[0].getClass();
+        case "getEntityType":
+          return entity[0].getClass();
+        case "getEntityAnnotations":
+          return NO_ANNOTATIONS;
+        default:
+          throw new UnsupportedOperationException(m.toString());
+      }
+    });
+    filter.filter(request, response);
+    for (Object record : (Iterable<?>) entity[0]) {
+      bh.consume(record);
+    }
+  }
+
+  private static <T> T proxy(final Class<T> clasz, final InvocationHandler handler) {
+    return clasz.cast(Proxy.newProxyInstance(ProjectionFilterBenchmark.class.getClassLoader(),
+            new Class<?>[] {clasz}, handler));
+  }
+
+}
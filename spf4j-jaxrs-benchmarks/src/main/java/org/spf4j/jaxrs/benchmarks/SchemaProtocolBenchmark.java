@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.core.MediaType;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaResolver;
+import org.apache.avro.reflect.ReflectData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.spf4j.jaxrs.common.providers.avro.DefaultSchemaProtocol;
+
+/**
+ * DefaultSchemaProtocol in isolation: schema serialization to the Content-Type header,
+ * and its parsing on the receiving side, per payload shape.
+ *
+ * @author Zoltan Farkas
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Threads(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SchemaProtocolBenchmark {
+
+  private static final MediaType AVRO = MediaType.valueOf("application/avro");
+
+  @Param({"NARROW", "WIDE", "TEXT"})
+  private PayloadShape shape;
+
+  private DefaultSchemaProtocol protocol;
+
+  private Schema schema;
+
+  private MediaType withSchema;
+
+  private String contentType;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    protocol = new DefaultSchemaProtocol(SchemaResolver.NONE);
+    schema = Schema.createArray(ReflectData.get().getSchema(shape.getRecordClass()));
+    withSchema = protocol.acceptable(AVRO, schema);
+    StringBuilder ct = new StringBuilder();
+    protocol.serialize(AVRO, (k, v) -> ct.append(v), schema);
+    contentType = ct.toString();
+  }
+
+  @Benchmark
+  public void serialize(final Blackhole bh) {
+    protocol.serialize(AVRO, (k, v) -> bh.consume(v), schema);
+  }
+
+  @Benchmark
+  public Schema deserialize() {
+    return protocol.deserialize(MediaType.valueOf(contentType), x -> null, Object.class, Object.class);
+  }
+
+  @Benchmark
+  public MediaType acceptable() {
+    return protocol.acceptable(AVRO, schema);
+  }
+
+  @Benchmark
+  public Schema getAcceptableSchema() {
+    return protocol.getAcceptableSchema(withSchema);
+  }
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.benchmarks;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.core.GenericType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.spf4j.grizzly.JerseyService;
+import org.spf4j.grizzly.JerseyServiceBuilder;
+import org.spf4j.grizzly.JvmServices;
+import org.spf4j.grizzly.JvmServicesBuilder;
+import org.spf4j.jaxrs.StreamingArrayContent;
+import org.spf4j.jaxrs.client.Spf4jWebTarget;
+
+/**
+ * End to end requests against an in-process grizzly server, through the spf4j client
+ * (Spf4jInvocationBuilder, client filters) and server (ExecutionContextFilter, jax-rs filters, avro providers).
+ *
+ * The server listens on 127.0.0.1:{spf4j.benchmarks.port} (default 9191).
+ *
+ * @author Zoltan Farkas
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Threads(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ServiceBenchmark {
+
+  @Param({"BINARY", "JSON", "XJSON", "CSV"})
+  private AvroFormat format;
+
+  @Param({"NARROW", "WIDE"})
+  private PayloadShape shape;
+
+  @Param({"OBJECT", "ITERABLE", "STREAMING"})
+  private PayloadVariant variant;
+
+  @Param({"1", "1000"})
+  private int nrRecords;
+
+  private JvmServices jvm;
+
+  private JerseyService jerseyService;
+
+  private Spf4jWebTarget target;
+
+  private String accept;
+
+  private GenericType<?> responseType;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    int port = Integer.getInteger("spf4j.benchmarks.port", 9191);
+    jvm = new JvmServicesBuilder()
+            .withApplicationName("jaxrsBenchmark")
+            .withLogFolder("./target")
+            .build().start();
+    jerseyService = new JerseyServiceBuilder(jvm)
+            .withFeature(BenchmarkFeature.class)
+            .withBindAddress("127.0.0.1")
+            .withPort(port)
+            .build();
+    jerseyService.start();
+    accept = format.getProviders(variant).getMediaType().toString();
+    Spf4jWebTarget base = jerseyService.getApplication().getRestClient().target("http://127.0.0.1:" + port)
+            .path("bench");
+    switch (variant) {
+      case OBJECT:
+        target = base.path("records").path(shape.name()).queryParam("nr", nrRecords);
+        responseType = new GenericType<>(shape.getListType());
+        break;
+      case ITERABLE:
+        target = base.path("records").path(shape.name()).queryParam("nr", nrRecords);
+        responseType = new GenericType<>(shape.getIterableType());
+        break;
+      case STREAMING:
+        target = base.path("stream").path(shape.name()).queryParam("nr", nrRecords);
+        responseType = new GenericType<>(shape.getStreamingType());
+        break;
+      default:
+        throw new IllegalStateException("Unsupported variant " + variant);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    jerseyService.close();
+    jvm.close();
+  }
+
+  @Benchmark
+  public void get(final Blackhole bh) throws IOException {
+    Object response = target.request(accept).get(responseType);
+    switch (variant) {
+      case OBJECT:
+        bh.consume(((List<?>) response).size());
+        break;
+      case ITERABLE:
+        for (Object o : (Iterable<?>) response) {
+          bh.consume(o);
+        }
+        if (response instanceof Closeable) {
+          ((Closeable) response).close();
+        }
+        break;
+      case STREAMING:
+        try (StreamingArrayContent<?> content = (StreamingArrayContent<?>) response) {
+          BlackholeArrayWriter.consume(content, bh);
+        }
+        break;
+      default:
+        throw new IllegalStateException("Unsupported variant " + variant);
+    }
+  }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.benchmarks;
+
+/**
+ * A string heavy record, with content that needs escaping in the text formats (json, csv).
+ * @author Zoltan Farkas
+ */
+public final class TextRecord {
+
+  private String key;
+
+  private String title;
+
+  private String description;
+
+  private String path;
+
+  public TextRecord() {
+  }
+
+  public TextRecord(final String key, final String title, final String description, final String path) {
+    this.key = key;
+    this.title = title;
+    this.description = description;
+    this.path = path;
+  }
+
+  public String getKey() {
+    return key;
+  }
+
+  public String getTitle() {
+    return title;
+  }
+
+  public String getDescription() {
+    return description;
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  @Override
+  public String toString() {
+    return "TextRecord{" + "key=" + key + ", title=" + title + ", path=" + path + '}';
+  }
+
+}
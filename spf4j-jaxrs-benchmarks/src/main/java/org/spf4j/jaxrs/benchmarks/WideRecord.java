@@ -0,0 +1,150 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.benchmarks;
+
+/**
+ * A wide flat record, 16 fields of mixed types.
+ * @author Zoltan Farkas
+ */
+public final class WideRecord {
+
+  private String str1;
+
+  private long lng1;
+
+  private double dbl1;
+
+  private int int1;
+
+  private String str2;
+
+  private long lng2;
+
+  private double dbl2;
+
+  private int int2;
+
+  private String str3;
+
+  private long lng3;
+
+  private double dbl3;
+
+  private int int3;
+
+  private String str4;
+
+  private long lng4;
+
+  private double dbl4;
+
+  private int int4;
+
+  public WideRecord() {
+  }
+
+  /**
+   * @param seed all the fields are derived from it.
+   */
+  public WideRecord(final long seed) {
+    this.str1 = "str1-" + seed;
+    this.lng1 = seed + 1;
+    this.dbl1 = seed * 0.1;
+    this.int1 = (int) seed + 1;
+    this.str2 = "str2-" + seed;
+    this.lng2 = seed + 2;
+    this.dbl2 = seed * 0.2;
+    this.int2 = (int) seed + 2;
+    this.str3 = "str3-" + seed;
+    this.lng3 = seed + 3;
+    this.dbl3 = seed * 0.3;
+    this.int3 = (int) seed + 3;
+    this.str4 = "str4-" + seed;
+    this.lng4 = seed + 4;
+    this.dbl4 = seed * 0.4;
+    this.int4 = (int) seed + 4;
+  }
+
+  public String getStr1() {
+    return str1;
+  }
+
+  public long getLng1() {
+    return lng1;
+  }
+
+  public double getDbl1() {
+    return dbl1;
+  }
+
+  public int getInt1() {
+    return int1;
+  }
+
+  public String getStr2() {
+    return str2;
+  }
+
+  public long getLng2() {
+    return lng2;
+  }
+
+  public double getDbl2() {
+    return dbl2;
+  }
+
+  public int getInt2() {
+    return int2;
+  }
+
+  public String getStr3() {
+    return str3;
+  }
+
+  public long getLng3() {
+    return lng3;
+  }
+
+  public double getDbl3() {
+    return dbl3;
+  }
+
+  public int getInt3() {
+    return int3;
+  }
+
+  public String getStr4() {
+    return str4;
+  }
+
+  public long getLng4() {
+    return lng4;
+  }
+
+  public double getDbl4() {
+    return dbl4;
+  }
+
+  public int getInt4() {
+    return int4;
+  }
+
+  @Override
+  public String toString() {
+    return "WideRecord{" + "str1=" + str1 + ", lng1=" + lng1 + '}';
+  }
+
+}
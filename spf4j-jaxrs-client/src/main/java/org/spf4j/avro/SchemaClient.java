@@ -1,6 +1,7 @@
 package org.spf4j.avro;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
@@ -13,12 +14,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystem;
-import java.nio.file.FileSystemAlreadyExistsException;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -73,8 +74,12 @@ public final class SchemaClient implements SchemaResolver {
 
   private final Path localMavenRepo;
 
+  /** schema id (mvnId) -> schema. */
   private final LoadingCache<String, Schema> memoryCache;
 
+  /** schema package (groupId:artifactId:version) -> all the schemas in the package. */
+  private final Cache<String, SchemaPackage> packageCache;
+
   private final Spf4JClient client;
 
   @SuppressFBWarnings("PATH_TRAVERSAL_IN")
@@ -107,12 +112,17 @@ public final class SchemaClient implements SchemaResolver {
     }
     this.localMavenRepo = localMavenRepo;
     this.client = client;
-    this.memoryCache = CacheBuilder.newBuilder().weakKeys().build(new CacheLoader<String, Schema>() {
+    this.memoryCache = CacheBuilder.newBuilder()
+            .maximumSize(Integer.getInteger("spf4j.schemaClient.maxSchemas", 10000))
+            .build(new CacheLoader<String, Schema>() {
       @Override
       public Schema load(final String key) throws Exception {
         return loadSchema(key);
       }
     });
+    this.packageCache = CacheBuilder.newBuilder()
+            .maximumSize(Integer.getInteger("spf4j.schemaClient.maxPackages", 256))
+            .build();
   }
 
   public static Spf4JClient createDefaultClient() {
@@ -143,47 +153,152 @@ public final class SchemaClient implements SchemaResolver {
     }
   }
 
-  @SuppressFBWarnings("PCAIL_POSSIBLE_CONSTANT_ALLOCATION_IN_LOOP")
   Schema loadSchema(final String id) throws IOException {
     Schema fromClassPath = getFromClassPath(id);
     if (fromClassPath != null) {
       return fromClassPath;
     }
     SchemaRef sr = new SchemaRef(id);
-    Path schemaPackage = getSchemaPackage(sr);
-    URI zipUri = URI.create("jar:" + schemaPackage.toUri().toURL());
-    FileSystem zipFs;
-    synchronized (zipUri.toString().intern()) { // newFileSystem fails if already one there...
-      try {
-        zipFs = FileSystems.newFileSystem(zipUri, Collections.emptyMap());
-      } catch (FileSystemAlreadyExistsException ex) {
-        zipFs = FileSystems.getFileSystem(zipUri);
-      } catch (ZipError ze) {
-        LOG.debug("zip error with {}", zipUri, ze);
-        Files.delete(schemaPackage);
-        return loadSchema(id);
+    String packageId = sr.getGroupId() + ':' + sr.getArtifactId() + ':' + sr.getVersion();
+    SchemaPackage pkg;
+    try {
+      pkg = packageCache.get(packageId, () -> loadPackage(packageId, sr));
+    } catch (ExecutionException | UncheckedExecutionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else {
+        throw new UncheckedExecutionException(cause);
       }
     }
-    for (Path root : zipFs.getRootDirectories()) {
-      Path index = root.resolve("schema_index.properties");
-      if (Files.exists(index)) {
-        Properties prop = new Properties();
-        try (BufferedReader indexReader = Files.newBufferedReader(index)) {
-          prop.load(indexReader);
+    return pkg.getSchema(id, sr.getRef());
+  }
+
+  /**
+   * Loads (downloads if needed) a schema package, and parses all the schemas in it.
+   * Invoked once per package at a time (the package cache load is single flight).
+   */
+  private SchemaPackage loadPackage(final String packageId, final SchemaRef ref) throws IOException {
+    Path schemaPackage = getSchemaPackage(ref);
+    // a private (not registered) zip file system, no need to coordinate with other users of the jar.
+    try (FileSystem zipFs = FileSystems.newFileSystem(schemaPackage, (ClassLoader) null)) {
+      for (Path root : zipFs.getRootDirectories()) {
+        Path index = root.resolve("schema_index.properties");
+        if (Files.exists(index)) {
+          Properties prop = new Properties();
+          try (BufferedReader indexReader = Files.newBufferedReader(index)) {
+            prop.load(indexReader);
+          }
+          SchemaPackage result = new SchemaPackage(packageId, root, prop);
+          result.loadAll();
+          return result;
         }
-        String schemaName = prop.getProperty(sr.getRef());
-        if (schemaName == null) {
-          throw new IOException("unable to resolve schema: " + id + " missing from index " + index);
+      }
+    } catch (ZipError ze) {
+      LOG.debug("zip error with {}", schemaPackage, ze);
+      Files.delete(schemaPackage);
+      return loadPackage(packageId, ref);
+    }
+    throw new IOException("unable to resolve schemas from: " + packageId + ", missing schema index");
+  }
+
+  /**
+   * All the schemas of a schema package, parsed.
+   */
+  private final class SchemaPackage implements SchemaResolver {
+
+    private final String packageId;
+
+    private final Map<String, String> refToSchemaName;
+
+    private final Map<String, Schema> schemas;
+
+    /** the zip root while loading, null after. */
+    @Nullable
+    private Path root;
+
+    SchemaPackage(final String packageId, final Path root, final Properties index) {
+      this.packageId = packageId;
+      this.root = root;
+      this.refToSchemaName = new HashMap<>(index.size() + index.size() / 3);
+      for (Map.Entry<Object, Object> entry : index.entrySet()) {
+        String key = (String) entry.getKey();
+        if (!"_pkg".equals(key)) {
+          refToSchemaName.put(key, entry.getValue().toString());
         }
-        Path schemaPath = root.resolve(schemaName.replace('.', '/') + ".avsc");
-        try (BufferedInputStream bis = new BufferedInputStream(Files.newInputStream(schemaPath))) {
-          Schema.Parser parser = new Schema.Parser(new AvroNamesRefResolver(this));
-          parser.setValidate(false);
-          return parser.parse(bis);
+      }
+      this.schemas = new HashMap<>(refToSchemaName.size() + refToSchemaName.size() / 3);
+    }
+
+    void loadAll() throws IOException {
+      for (String ref : refToSchemaName.keySet()) {
+        parse(ref);
+      }
+      root = null;
+    }
+
+    Schema getSchema(final String id, final String ref) throws IOException {
+      Schema result = schemas.get(ref);
+      if (result == null) {
+        throw new IOException("unable to resolve schema: " + id + " missing from package " + packageId);
+      }
+      return result;
+    }
+
+    /**
+     * Parse a schema of this package, references to the schemas of the same package are parsed on demand,
+     * other references are resolved via the schema client.
+     */
+    private Schema parse(final String ref) throws IOException {
+      Schema result = schemas.get(ref);
+      if (result != null) {
+        return result;
+      }
+      String schemaName = refToSchemaName.get(ref);
+      if (schemaName == null || root == null) {
+        throw new IOException("unable to resolve schema: " + packageId + ':' + ref + " missing from index");
+      }
+      Path schemaPath = root.resolve(schemaName.replace('.', '/') + ".avsc");
+      try (BufferedInputStream bis = new BufferedInputStream(Files.newInputStream(schemaPath))) {
+        Schema.Parser parser = new Schema.Parser(new AvroNamesRefResolver(this));
+        parser.setValidate(false);
+        result = parser.parse(bis);
+      }
+      schemas.put(ref, result);
+      return result;
+    }
+
+    @Override
+    public Schema resolveSchema(final String id) {
+      SchemaRef sr = new SchemaRef(id);
+      if (packageId.equals(sr.getGroupId() + ':' + sr.getArtifactId() + ':' + sr.getVersion())) {
+        try {
+          return parse(sr.getRef());
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
         }
       }
+      return SchemaClient.this.resolveSchema(id);
+    }
+
+    @Override
+    @Nullable
+    public String getId(final Schema schema) {
+      return SchemaClient.this.getId(schema);
     }
-    throw new IOException("unable to resolve schema: " + id);
+
+    @Override
+    public String toString() {
+      return "SchemaPackage{" + "packageId=" + packageId + ", nrSchemas=" + refToSchemaName.size() + '}';
+    }
+
+  }
+
+  @VisibleForTesting
+  long cachedSchemas() {
+    return memoryCache.size();
   }
 
   @Nullable
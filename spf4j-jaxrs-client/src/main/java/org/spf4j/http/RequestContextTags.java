@@ -15,8 +15,15 @@
  */
 package org.spf4j.http;
 
+import gnu.trove.set.hash.THashSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.Nullable;
 import org.spf4j.base.ExecutionContext;
 import org.spf4j.base.ExecutionContext.SimpleTag;
+import org.spf4j.base.ExecutionContext.Tag;
 
 /**
  * @author Zoltan Farkas
@@ -37,4 +44,138 @@ public final class RequestContextTags {
 
   };
 
+  /**
+   * When true, the avro responses are requested with the full schema instead of the schema fingerprint.
+   * Set on the context of the call attempt that repeats a call that failed with an unknown schema fingerprint,
+   * so that it does not affect the other (hedged, retried) attempts of the call.
+   */
+  public static final SimpleTag<Boolean> FULL_AVRO_SCHEMA = new ExecutionContext.SimpleTag<Boolean>() {
+    @Override
+    public String toString() {
+      return "FAS";
+    }
+  };
+
+  /**
+   * Set to true by the http cache client filter on the context of a call attempt that was served from the cache,
+   * (without going to the network) so that the attempt is not recorded as an observed endpoint latency,
+   * attempt metric, or retry budget success.
+   */
+  public static final SimpleTag<Boolean> HTTP_CACHE_HIT = new ExecutionContext.SimpleTag<Boolean>() {
+    @Override
+    public String toString() {
+      return "HCH";
+    }
+  };
+
+  /**
+   * Http warnings attached to current execution context.
+   */
+  public static final WarningsTag HTTP_WARNINGS =  new WarningsTag();
+
+  /**
+   * All instances are equal, (the same context tag) so that the deprecated server side alias
+   * (org.spf4j.http.ContextTags.WarningsTag) works with the warnings added by the client.
+   */
+  public static class WarningsTag implements Tag<Set<HttpWarning>, HttpWarning> {
+
+    @Override
+    public final String toString() {
+      return "HW";
+    }
+
+    @Override
+    public final int hashCode() {
+      return 2309;
+    }
+
+    @Override
+    public final boolean equals(final Object obj) {
+      return obj instanceof WarningsTag;
+    }
+
+    @Override
+    public Set<HttpWarning> accumulate(final Set<HttpWarning> existing, final Set<HttpWarning> current) {
+      if (existing == null) {
+        return new THashSet<>(current);
+      } else {
+        existing.addAll(current);
+        return existing;
+      }
+    }
+
+    @Override
+    public Set<HttpWarning> accumulateComponent(final Set<HttpWarning> existing, final HttpWarning component) {
+      Set<HttpWarning> result;
+      if (existing == null) {
+        result = new THashSet<>(2);
+      } else {
+        result = existing;
+      }
+      result.add(component);
+      return result;
+    }
+
+    @Override
+    public boolean pushOnClose() {
+      return true;
+    }
+  }
+
+  /**
+   * Server timing metrics of the current execution context, (server phases, and downstream call timings)
+   * written in the Server-Timing response header and in the request log.
+   */
+  public static final ServerTimingsTag SERVER_TIMINGS = new ServerTimingsTag();
+
+  /**
+   * Accumulates up to MAX_METRICS metrics per context, (the Server-Timing header size needs to stay reasonable)
+   * the rest are dropped.
+   * The accumulated lists are immutable, (copy on write) every accumulation creates a new list,
+   * so that the context timings can be iterated while child contexts push their timings on close.
+   */
+  public static final class ServerTimingsTag
+          implements Tag<List<ServerTiming.ServerTimingMetric>, ServerTiming.ServerTimingMetric> {
+
+    private static final int MAX_METRICS = Integer.getInteger("spf4j.http.maxServerTimingMetrics", 64);
+
+    @Override
+    public String toString() {
+      return "ST";
+    }
+
+    @Override
+    public List<ServerTiming.ServerTimingMetric> accumulate(final List<ServerTiming.ServerTimingMetric> existing,
+            final List<ServerTiming.ServerTimingMetric> current) {
+      return append(existing, current);
+    }
+
+    @Override
+    public List<ServerTiming.ServerTimingMetric> accumulateComponent(
+            final List<ServerTiming.ServerTimingMetric> existing, final ServerTiming.ServerTimingMetric component) {
+      return append(existing, Collections.singletonList(component));
+    }
+
+    private static List<ServerTiming.ServerTimingMetric> append(
+            @Nullable final List<ServerTiming.ServerTimingMetric> existing,
+            final List<ServerTiming.ServerTimingMetric> metrics) {
+      int size = existing == null ? 0 : existing.size();
+      int nr = Math.min(metrics.size(), MAX_METRICS - size);
+      if (nr <= 0) {
+        return existing == null ? Collections.emptyList() : existing;
+      }
+      List<ServerTiming.ServerTimingMetric> result = new ArrayList<>(size + nr);
+      if (existing != null) {
+        result.addAll(existing);
+      }
+      result.addAll(metrics.subList(0, nr));
+      return Collections.unmodifiableList(result);
+    }
+
+    @Override
+    public boolean pushOnClose() {
+      return true;
+    }
+  }
+
 }
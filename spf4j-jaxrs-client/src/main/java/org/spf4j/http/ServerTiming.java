@@ -6,6 +6,7 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
@@ -72,6 +73,25 @@ public final class ServerTiming implements JsonWriteable {
       this.parameters = parameters;
     }
 
+    /**
+     * @param micros the duration in microseconds.
+     * @return a metric with the duration in milliseconds, with microsecond precision.
+     */
+    public static ServerTimingMetric ofMicros(final String name, final long micros) {
+      return new ServerTimingMetric(name, micros / 1000.0);
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @return a copy of this metric with the name prefixed. (downstream metrics are rolled up as ds.[name])
+     */
+    public ServerTimingMetric withNamePrefix(final String prefix) {
+      return new ServerTimingMetric(prefix + name, new ArrayList<>(parameters), true);
+    }
+
     public ServerTimingMetric addParameter(final String pname, final String pvalue) {
       this.parameters.add(new ServerTimingParameter(pname, pvalue));
       return this;
@@ -325,13 +345,17 @@ public final class ServerTiming implements JsonWriteable {
     this.metrics = Arrays.asList(metrics);
   }
 
-  private ServerTiming(final List<ServerTimingMetric> metrics) {
+  public ServerTiming(final List<ServerTimingMetric> metrics) {
     if (metrics.isEmpty()) {
       throw new IllegalArgumentException("There must be at least one timing metric: " + metrics);
     }
     this.metrics = metrics;
   }
 
+  public List<ServerTimingMetric> getMetrics() {
+    return Collections.unmodifiableList(metrics);
+  }
+
   @Override
   public void writeJsonTo(final Appendable appendable) throws IOException {
     JsonGenerator gen = Json.FACTORY.createGenerator(new AppendableWriter(appendable));
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2019 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.http.multi;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
+import org.spf4j.concurrent.DefaultExecutor;
+
+/**
+ * Happy eyeballs style connect for the multi url connections.
+ * The preferred url is connected first, if it is not connected within a stagger delay (or fails),
+ * the next one is started, and so on. The first successful connection wins, the others are disconnected.
+ * Hosts that failed recently are tried last.
+ *
+ * @author Zoltan Farkas
+ */
+final class ConnectRace {
+
+  private static final long STAGGER_MILLIS = Long.getLong("spf4j.http.multi.connectStaggerMillis", 250);
+
+  private static final long FAILURE_MEMORY_MILLIS = Long.getLong("spf4j.http.multi.failureMemoryMillis", 30000);
+
+  /** host:port -> last connect failure time millis. */
+  private static final ConcurrentMap<String, Long> FAILED_HOSTS = new ConcurrentHashMap<>();
+
+  /** placeholder winner for races that ended without a winner. */
+  private static final Object NO_WINNER = new Object();
+
+  private ConnectRace() { }
+
+  interface Connector<C extends HttpURLConnection> {
+
+    /**
+     * @param urlIdx the index of the url to open a connection to.
+     * @return a configured connection, not connected yet.
+     */
+    C open(int urlIdx) throws IOException;
+  }
+
+  static final class Winner<C extends HttpURLConnection> {
+
+    private final C connection;
+
+    private final int urlIdx;
+
+    Winner(final C connection, final int urlIdx) {
+      this.connection = connection;
+      this.urlIdx = urlIdx;
+    }
+
+    C getConnection() {
+      return connection;
+    }
+
+    int getUrlIdx() {
+      return urlIdx;
+    }
+
+  }
+
+  private static final class Attempt<C extends HttpURLConnection> {
+
+    private final C connection;
+
+    private final int urlIdx;
+
+    @Nullable
+    private final IOException exception;
+
+    Attempt(final C connection, final int urlIdx, @Nullable final IOException exception) {
+      this.connection = connection;
+      this.urlIdx = urlIdx;
+      this.exception = exception;
+    }
+
+  }
+
+  /**
+   * @return the url indexes in the order they are to be attempted, starting with choice,
+   * with the recently failed hosts last.
+   */
+  static int[] order(final URL[] urls, final int choice) {
+    int n = urls.length;
+    int[] result = new int[n];
+    int first = 0;
+    int last = n - 1;
+    long failedSince = System.currentTimeMillis() - FAILURE_MEMORY_MILLIS;
+    for (int i = 0; i < n; i++) {
+      int idx = (choice + i) % n;
+      Long failed = FAILED_HOSTS.get(hostKey(urls[idx]));
+      if (failed != null && failed > failedSince) {
+        result[last--] = idx;
+      } else {
+        result[first++] = idx;
+      }
+    }
+    // the recently failed ones were added in reverse order.
+    for (int i = first, j = n - 1; i < j; i++, j--) {
+      int tmp = result[i];
+      result[i] = result[j];
+      result[j] = tmp;
+    }
+    return result;
+  }
+
+  static <C extends HttpURLConnection> Winner<C> connect(final URL[] urls, final int choice,
+          final Connector<C> connector) throws IOException {
+    int[] order = order(urls, choice);
+    if (order.length == 1) {
+      C conn = connector.open(order[0]);
+      try {
+        conn.connect();
+      } catch (IOException ex) {
+        failed(urls[order[0]]);
+        throw ex;
+      }
+      return new Winner<>(conn, order[0]);
+    }
+    BlockingQueue<Attempt<C>> results = new LinkedBlockingQueue<>();
+    AtomicReference<Object> winner = new AtomicReference<>();
+    int launched = 0;
+    int finished = 0;
+    IOException failures = null;
+    try {
+      launch(connector, order[launched++], results, winner);
+      while (true) {
+        Attempt<C> attempt = launched < order.length
+                ? results.poll(STAGGER_MILLIS, TimeUnit.MILLISECONDS) : results.take();
+        if (attempt == null) {
+          // not connected within the stagger delay, start the next one.
+          launch(connector, order[launched++], results, winner);
+          continue;
+        }
+        finished++;
+        if (attempt.exception == null) {
+          winner.set(attempt.connection);
+          FAILED_HOSTS.remove(hostKey(urls[attempt.urlIdx]));
+          return new Winner<>(attempt.connection, attempt.urlIdx);
+        }
+        failed(urls[attempt.urlIdx]);
+        if (failures == null) {
+          failures = attempt.exception;
+        } else {
+          failures.addSuppressed(attempt.exception);
+        }
+        if (finished >= order.length) {
+          throw failures;
+        }
+        if (launched < order.length) {
+          launch(connector, order[launched++], results, winner);
+        }
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      InterruptedIOException iex = new InterruptedIOException("Interrupted while connecting to " + urls[choice]);
+      iex.initCause(ex);
+      throw iex;
+    } finally {
+      // the race is over, disconnect the losers, the late ones will disconnect themselves.
+      winner.compareAndSet(null, NO_WINNER);
+      Object won = winner.get();
+      Attempt<C> attempt;
+      while ((attempt = results.poll()) != null) {
+        if (attempt.exception == null && attempt.connection != won) {
+          attempt.connection.disconnect();
+        }
+      }
+    }
+  }
+
+  private static <C extends HttpURLConnection> void launch(final Connector<C> connector, final int urlIdx,
+          final BlockingQueue<Attempt<C>> results, final AtomicReference<Object> winner) throws IOException {
+    C conn = connector.open(urlIdx);
+    DefaultExecutor.INSTANCE.execute(() -> {
+      IOException exception = null;
+      try {
+        conn.connect();
+      } catch (IOException ex) {
+        exception = ex;
+      } catch (RuntimeException ex) {
+        exception = new IOException("Failed to connect " + conn, ex);
+      }
+      results.add(new Attempt<>(conn, urlIdx, exception));
+      Object won = winner.get();
+      if (exception == null && won != null && won != conn) {
+        conn.disconnect();
+      }
+    });
+  }
+
+  static void failed(final URL url) {
+    FAILED_HOSTS.put(hostKey(url), System.currentTimeMillis());
+  }
+
+  private static String hostKey(final URL url) {
+    return url.getHost() + ':' + url.getPort();
+  }
+
+}
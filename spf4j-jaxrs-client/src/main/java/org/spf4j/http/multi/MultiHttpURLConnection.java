@@ -57,52 +57,49 @@ public final class MultiHttpURLConnection extends HttpURLConnection {
     isConnected = false;
   }
 
+  /**
+   * Connects to the first responsive url, see {@link ConnectRace}.
+   */
   @Override
   public synchronized void connect() throws IOException {
     if (!isConnected) {
-      connect(0, null);
+      ConnectRace.Winner<HttpURLConnection> winner = ConnectRace.connect(urls, choice % urls.length, this::open);
+      current = winner.getConnection();
+      choice = winner.getUrlIdx();
       isConnected = true;
     }
   }
 
-
-  private void connect(final int attempt, final IOException ex) throws IOException {
-    if (attempt >= urls.length) {
-      if (ex != null) {
-        throw ex;
-      } else {
-        throw new IllegalStateException("Illegal state " + this);
+  /**
+   * @return a connection to urls[urlIdx], with this connection's settings.
+   */
+  private HttpURLConnection open(final int urlIdx) throws IOException {
+    HttpURLConnection conn = urlIdx == choice % urls.length ? current
+            : (HttpURLConnection) urls[urlIdx].openConnection();
+    conn.setConnectTimeout(super.getConnectTimeout());
+    conn.setReadTimeout(super.getReadTimeout());
+    Map<String, List<String>> requestProperties = super.getRequestProperties();
+    for (Map.Entry<String, List<String>> entry : requestProperties.entrySet()) {
+      String key = entry.getKey();
+      for (String val : entry.getValue()) {
+        conn.addRequestProperty(key, val);
       }
     }
-    try {
-      current.setConnectTimeout(super.getConnectTimeout());
-      current.setReadTimeout(super.getReadTimeout());
-      Map<String, List<String>> requestProperties = super.getRequestProperties();
-      for (Map.Entry<String, List<String>> entry : requestProperties.entrySet()) {
-        String key = entry.getKey();
-        for (String val : entry.getValue()) {
-          current.addRequestProperty(key, val);
-        }
-      }
-      if (this.chunkLength > 0) {
-        current.setChunkedStreamingMode(this.chunkLength);
-      }
-      if (this.fixedContentLengthLong >= 0L) {
-        current.setFixedLengthStreamingMode(this.fixedContentLengthLong);
-      }
-      current.setRequestMethod(super.getRequestMethod());
-      current.setInstanceFollowRedirects(super.getInstanceFollowRedirects());
-      current.setDoInput(super.getDoInput());
-      current.setDoOutput(super.getDoOutput());
-      current.setIfModifiedSince(super.getIfModifiedSince());
-      current.setDefaultUseCaches(super.getDefaultUseCaches());
-      current.setUseCaches(super.getUseCaches());
-      current.setAllowUserInteraction(super.getAllowUserInteraction());
-      current.connect();
-    } catch (IOException e) {
-       nextUrl();
-       connect(attempt + 1, e);
+    if (this.chunkLength > 0) {
+      conn.setChunkedStreamingMode(this.chunkLength);
+    }
+    if (this.fixedContentLengthLong >= 0L) {
+      conn.setFixedLengthStreamingMode(this.fixedContentLengthLong);
     }
+    conn.setRequestMethod(super.getRequestMethod());
+    conn.setInstanceFollowRedirects(super.getInstanceFollowRedirects());
+    conn.setDoInput(super.getDoInput());
+    conn.setDoOutput(super.getDoOutput());
+    conn.setIfModifiedSince(super.getIfModifiedSince());
+    conn.setDefaultUseCaches(super.getDefaultUseCaches());
+    conn.setUseCaches(super.getUseCaches());
+    conn.setAllowUserInteraction(super.getAllowUserInteraction());
+    return conn;
   }
 
   public synchronized void nextUrl() throws IOException {
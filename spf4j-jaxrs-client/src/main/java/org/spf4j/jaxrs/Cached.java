@@ -0,0 +1,46 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.NameBinding;
+
+/**
+ * Mark GET endpoints (method or class level) whose responses can be cached by the server.
+ * Responses are cached per request path + query + the values of the varyOn request headers,
+ * concurrent requests for the same response will wait for a single computation.
+ * If a response depends on the caller identity, add the relevant header (Authorization) to varyOn.
+ * @author Zoltan Farkas
+ */
+@NameBinding
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(value = RetentionPolicy.RUNTIME)
+public @interface Cached {
+
+  /** the time to live of a cached response */
+  long ttl();
+
+  /** the ttl unit, defaults to seconds */
+  TimeUnit unit() default TimeUnit.SECONDS;
+
+  /** the request headers the response depends on, the negotiated media type and schema depend on Accept */
+  String[] varyOn() default {"Accept"};
+
+}
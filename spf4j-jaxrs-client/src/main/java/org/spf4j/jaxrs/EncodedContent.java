@@ -0,0 +1,60 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.IOException;
+import java.io.OutputStream;
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * Already encoded (compressed) content. This allows serving pre-compressed responses,
+ * the Content-Encoding header will be set by {@link org.spf4j.jaxrs.common.providers.EncodedContentInterceptor}
+ * in a way that the registered content encoders will not encode the content again.
+ *
+ * @author Zoltan Farkas
+ */
+public final class EncodedContent implements StreamingOutput {
+
+  private final byte[] content;
+
+  private final String contentEncoding;
+
+  @SuppressFBWarnings("EI_EXPOSE_REP2")
+  public EncodedContent(final byte[] content, final String contentEncoding) {
+    this.content = content;
+    this.contentEncoding = contentEncoding;
+  }
+
+  public String getContentEncoding() {
+    return contentEncoding;
+  }
+
+  public int getLength() {
+    return content.length;
+  }
+
+  @Override
+  public void write(final OutputStream output) throws IOException {
+    output.write(content);
+  }
+
+  @Override
+  public String toString() {
+    return "EncodedContent{" + "contentEncoding=" + contentEncoding + ", length=" + content.length + '}';
+  }
+
+}
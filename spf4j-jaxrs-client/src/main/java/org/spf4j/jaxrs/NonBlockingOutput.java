@@ -0,0 +1,53 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Implemented by entity output streams that can write content without blocking the writing thread.
+ * A message body writer that can produce its content in increments can hand it over,
+ * and the content will be pulled from I/O threads as the client is ready to receive it.
+ *
+ * @author Zoltan Farkas
+ */
+public interface NonBlockingOutput {
+
+  /**
+   * Content that can be written in increments.
+   */
+  interface Content extends Closeable {
+
+    /**
+     * Write content until everything is written or until canContinue returns false.
+     * @param canContinue checked after every increment, will return false when the output buffers are full.
+     * @return true if all the content has been written.
+     */
+    boolean write(BooleanSupplier canContinue) throws IOException;
+
+  }
+
+  /**
+   * Take over the writing of the content. The content will be written to this output stream
+   * when the output is ready, and closed when done or on failure.
+   * @param content the content to write.
+   * @return false if non blocking write is not possible, in which case the caller must write the content.
+   */
+  boolean writeNonBlocking(Content content) throws IOException;
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.client;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.spf4j.failsafe.HedgePolicy;
+
+/**
+ * Hedge policy that hedges at an observed latency percentile of the endpoint. (tail at scale)
+ * <p>
+ * Until there are enough latency samples for the endpoint, the fallback policy is used.
+ * The extra load generated by hedges is limited by a {@link Budget}, the budget is charged when a hedge is
+ * actually sent (see {@link Spf4jInvocation}).
+ *
+ * @author Zoltan Farkas
+ */
+public final class AdaptiveHedge implements HedgePolicy {
+
+  private static final int MIN_SAMPLES = Integer.getInteger("spf4j.jaxrs.client.hedgeMinSamples", 100);
+
+  private static final long MIN_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(
+          Long.getLong("spf4j.jaxrs.client.hedgeMinDelayMillis", 1));
+
+  private final LatencySketch latencies;
+
+  private final double percentile;
+
+  private final int maxHedges;
+
+  private final Budget budget;
+
+  private final HedgePolicy fallback;
+
+  public AdaptiveHedge(final LatencySketch latencies, final double percentile, final int maxHedges,
+          final Budget budget, final HedgePolicy fallback) {
+    this.latencies = latencies;
+    this.percentile = percentile;
+    this.maxHedges = maxHedges;
+    this.budget = budget;
+    this.fallback = fallback;
+  }
+
+  @Override
+  public long getHedgeDelay(final long startTimeNanos, final long deadlineNanos) {
+    if (latencies.getCount() < MIN_SAMPLES) {
+      return fallback.getHedgeDelay(startTimeNanos, deadlineNanos);
+    }
+    return Math.max(MIN_DELAY_NANOS, TimeUnit.MICROSECONDS.toNanos(latencies.getPercentile(percentile)));
+  }
+
+  @Override
+  public int getMaxHedges() {
+    if (latencies.getCount() < MIN_SAMPLES) {
+      return fallback.getMaxHedges();
+    }
+    budget.deposit();
+    return budget.hasTokens(maxHedges) ? maxHedges : 0;
+  }
+
+  @Override
+  public String toString() {
+    return "AdaptiveHedge{" + "latencies=" + latencies + ", percentile=" + percentile + ", maxHedges="
+            + maxHedges + ", budget=" + budget + '}';
+  }
+
+  /**
+   * A token bucket limiting the extra load generated by hedges to a ratio of the requests.
+   * <p>
+   * Every request deposits ratio tokens, and every hedge sent takes a token, which keeps the hedges
+   * under ratio of the requests. A hedge is decided when the request starts, if there are tokens available,
+   * but it is sent (and charged) only if the request takes longer than the hedge delay.
+   * Concurrent requests can overdraw the bucket, up to maxTokens of debt.
+   * Tokens are stored as millis of tokens.
+   */
+  public static final class Budget {
+
+    private final double ratio;
+
+    private final long maxTokens;
+
+    private final AtomicLong tokens;
+
+    /**
+     * @param ratio the maximum extra load ratio. (0.05 = 5%)
+     * @param maxTokens the maximum tokens that can be accumulated. (max hedge burst)
+     */
+    public Budget(final double ratio, final int maxTokens) {
+      this.ratio = ratio;
+      this.maxTokens = maxTokens * 1000L;
+      this.tokens = new AtomicLong(this.maxTokens);
+    }
+
+    void deposit() {
+      long amount = (long) (1000 * ratio);
+      long current;
+      do {
+        current = tokens.get();
+        if (current >= maxTokens) {
+          return;
+        }
+      } while (!tokens.compareAndSet(current, Math.min(maxTokens, current + amount)));
+    }
+
+    boolean hasTokens(final int nrTokens) {
+      return tokens.get() >= nrTokens * 1000L;
+    }
+
+    /**
+     * Take a token for a hedge that is sent.
+     */
+    void charge() {
+      long current;
+      do {
+        current = tokens.get();
+        if (current <= -maxTokens) {
+          return;
+        }
+      } while (!tokens.compareAndSet(current, current - 1000));
+    }
+
+    @Override
+    public String toString() {
+      return "Budget{" + "ratio=" + ratio + ", tokens=" + (tokens.get() / 1000d) + '}';
+    }
+
+  }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.client;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Per endpoint values (latency sketches, metrics...), for a bounded number of endpoints.
+ * Once maxEndpoints are tracked, new endpoints share the value of a coarser key,
+ * (like method + host + port instead of method + host + port + path) so that the memory used stays bounded
+ * with an unbounded number of endpoint names.
+ *
+ * @author Zoltan Farkas
+ */
+@ParametersAreNonnullByDefault
+public final class BoundedEndpointMap<V> {
+
+  private final ConcurrentMap<String, V> values;
+
+  private final int maxEndpoints;
+
+  private final UnaryOperator<String> coarserKey;
+
+  private final Function<String, V> factory;
+
+  /**
+   * @param maxEndpoints the maximum number of distinct endpoints tracked.
+   * @param coarserKey returns the coarser key of an endpoint, used when maxEndpoints are tracked.
+   * @param factory creates the value of an endpoint. (or coarser key)
+   */
+  public BoundedEndpointMap(final int maxEndpoints, final UnaryOperator<String> coarserKey,
+          final Function<String, V> factory) {
+    this.values = new ConcurrentHashMap<>();
+    this.maxEndpoints = maxEndpoints;
+    this.coarserKey = coarserKey;
+    this.factory = factory;
+  }
+
+  /**
+   * @param endpoint the endpoint name.
+   * @return the value of the endpoint, or the value of its coarser key if maxEndpoints are tracked.
+   */
+  public V get(final String endpoint) {
+    V result = values.get(endpoint);
+    if (result != null) {
+      return result;
+    }
+    if (values.size() >= maxEndpoints) {
+      return values.computeIfAbsent(coarserKey.apply(endpoint), factory);
+    }
+    return values.computeIfAbsent(endpoint, factory);
+  }
+
+  /**
+   * @return a coarser key function, that truncates the key at the nth occurrence of a character.
+   * the key is not changed if it has less occurrences.
+   */
+  public static UnaryOperator<String> truncateAt(final char c, final int nth) {
+    return key -> {
+      int idx = -1;
+      for (int i = 0; i < nth; i++) {
+        idx = key.indexOf(c, idx + 1);
+        if (idx < 0) {
+          return key;
+        }
+      }
+      return key.substring(0, idx);
+    };
+  }
+
+  public int size() {
+    return values.size();
+  }
+
+  @Override
+  public String toString() {
+    return "BoundedEndpointMap{" + "size=" + values.size() + ", maxEndpoints=" + maxEndpoints + '}';
+  }
+
+}
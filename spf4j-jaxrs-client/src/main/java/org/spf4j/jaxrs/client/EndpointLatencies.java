@@ -0,0 +1,50 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.client;
+
+/**
+ * Per endpoint (method + host + port + path) observed latencies of a client.
+ * The number of tracked endpoints is bounded, beyond that, endpoints are aggregated per method + host + port.
+ *
+ * @author Zoltan Farkas
+ */
+public final class EndpointLatencies {
+
+  private final BoundedEndpointMap<LatencySketch> latencies;
+
+  public EndpointLatencies() {
+    this(Integer.getInteger("spf4j.jaxrs.client.maxTrackedEndpoints", 1000));
+  }
+
+  public EndpointLatencies(final int maxEndpoints) {
+    this.latencies = new BoundedEndpointMap<>(maxEndpoints, BoundedEndpointMap.truncateAt('/', 2),
+            k -> new LatencySketch());
+  }
+
+  /**
+   * @param endpoint the endpoint name: method/host:port/path. (see Spf4jInvocation.getName)
+   * @return the latency sketch of the endpoint.
+   */
+  public LatencySketch get(final String endpoint) {
+    return latencies.get(endpoint);
+  }
+
+  @Override
+  public String toString() {
+    return "EndpointLatencies{" + latencies + '}';
+  }
+
+}
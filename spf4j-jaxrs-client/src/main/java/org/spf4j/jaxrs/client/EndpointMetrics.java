@@ -0,0 +1,222 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.client;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.Map;
+import java.util.function.LongConsumer;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import org.spf4j.perf.MeasurementRecorder;
+import org.spf4j.perf.MeasurementRecorderSource;
+import org.spf4j.perf.impl.RecorderFactory;
+
+/**
+ * Client side per endpoint (method/host:port/path template, see Spf4jInvocation.getName) metrics,
+ * recorded in the spf4j metrics store: (visible via the metrics actuator endpoint and the prometheus output)
+ * <ul>
+ * <li>http.client.attemptTime - the latency of every attempt (microSecond).</li>
+ * <li>http.client.execTime - the overall latency of a call, including retries and hedges (microSecond).</li>
+ * <li>http.client.retries, http.client.hedges, http.client.hedgeWins - the retry, hedge, and successful hedge counts.
+ * </li>
+ * <li>http.client.responses - the attempt count per endpoint + status class (2xx, 4xx, 5xx...,
+ * noResponse for the attempts that did not get a http response).</li>
+ * <li>http.client.cacheHits - the attempts served from the http cache, these are not recorded in the metrics above.
+ * </li>
+ * </ul>
+ * The resolved recorders of the endpoints are kept per client, (see {@link Registry}) like the endpoint latencies,
+ * the metrics store (and the recorder sources) are JVM global, clients calling the same endpoint record to
+ * the same metrics.
+ *
+ * @author Zoltan Farkas
+ */
+public final class EndpointMetrics {
+
+  public static final String ATTEMPT_TIME = "http.client.attemptTime";
+
+  public static final String EXEC_TIME = "http.client.execTime";
+
+  public static final String RETRIES = "http.client.retries";
+
+  public static final String HEDGES = "http.client.hedges";
+
+  public static final String HEDGE_WINS = "http.client.hedgeWins";
+
+  public static final String RESPONSES = "http.client.responses";
+
+  public static final String CACHE_HITS = "http.client.cacheHits";
+
+  private static final String[] STATUS_CLASSES = {"noResponse", "1xx", "2xx", "3xx", "4xx", "5xx"};
+
+  private final String endpoint;
+
+  private final LongConsumer attemptTime;
+
+  private final LongConsumer execTime;
+
+  private final LongConsumer retries;
+
+  private final LongConsumer hedges;
+
+  private final LongConsumer hedgeWins;
+
+  private final LongConsumer cacheHits;
+
+  /** recorders per status class, index = status / 100, 0 for no response. */
+  private final LongConsumer[] responses;
+
+  private EndpointMetrics(final String endpoint, final Recorders recorders) {
+    this.endpoint = endpoint;
+    this.attemptTime = recorders.get(ATTEMPT_TIME, endpoint);
+    this.execTime = recorders.get(EXEC_TIME, endpoint);
+    this.retries = recorders.get(RETRIES, endpoint);
+    this.hedges = recorders.get(HEDGES, endpoint);
+    this.hedgeWins = recorders.get(HEDGE_WINS, endpoint);
+    this.cacheHits = recorders.get(CACHE_HITS, endpoint);
+    this.responses = new LongConsumer[STATUS_CLASSES.length];
+    for (int i = 0; i < STATUS_CLASSES.length; i++) {
+      responses[i] = recorders.get(RESPONSES, endpoint + ' ' + STATUS_CLASSES[i]);
+    }
+  }
+
+  /**
+   * @param ex the exception an attempt failed with.
+   * @return the http status of the exception, or -1 if there was no http response.
+   */
+  public static int getStatus(final Exception ex) {
+    if (ex instanceof WebApplicationException) {
+      Response response = ((WebApplicationException) ex).getResponse();
+      if (response != null) {
+        return response.getStatus();
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @param micros the attempt latency.
+   * @param status the attempt http status, -1 if there was no http response.
+   */
+  public void recordAttempt(final long micros, final int status) {
+    attemptTime.accept(micros);
+    int statusClass = status / 100;
+    responses[statusClass > 0 && statusClass < responses.length ? statusClass : 0].accept(1);
+  }
+
+  public void recordExecTime(final long micros) {
+    execTime.accept(micros);
+  }
+
+  public void recordRetry() {
+    retries.accept(1);
+  }
+
+  public void recordHedge() {
+    hedges.accept(1);
+  }
+
+  public void recordHedgeWin() {
+    hedgeWins.accept(1);
+  }
+
+  public void recordCacheHit() {
+    cacheHits.accept(1);
+  }
+
+  @Override
+  public String toString() {
+    return "EndpointMetrics{" + "endpoint=" + endpoint + '}';
+  }
+
+  /**
+   * Resolves the recorder of a metric, for an endpoint.
+   */
+  @FunctionalInterface
+  public interface Recorders {
+
+    /**
+     * @param metric the metric name.
+     * @param endpoint the endpoint name (+ status class for the responses metric).
+     * @return the recorder.
+     */
+    LongConsumer get(String metric, String endpoint);
+  }
+
+  /**
+   * The recorders of the spf4j metrics store.
+   */
+  private static final class StoreRecorders implements Recorders {
+
+    private static final Map<String, MeasurementRecorderSource> SOURCES
+            = ImmutableMap.<String, MeasurementRecorderSource>builder()
+            .put(ATTEMPT_TIME, RecorderFactory.createScalableQuantizedRecorderSource(ATTEMPT_TIME, "microSecond",
+                      60000, 1000, 0, 6, 10))
+            .put(EXEC_TIME, RecorderFactory.createScalableQuantizedRecorderSource(EXEC_TIME, "microSecond",
+                      60000, 1000, 0, 6, 10))
+            .put(RETRIES, RecorderFactory.createScalableCountingRecorderSource(RETRIES, "count", 60000))
+            .put(HEDGES, RecorderFactory.createScalableCountingRecorderSource(HEDGES, "count", 60000))
+            .put(HEDGE_WINS, RecorderFactory.createScalableCountingRecorderSource(HEDGE_WINS, "count", 60000))
+            .put(RESPONSES, RecorderFactory.createScalableCountingRecorderSource(RESPONSES, "count", 60000))
+            .put(CACHE_HITS, RecorderFactory.createScalableCountingRecorderSource(CACHE_HITS, "count", 60000))
+            .build();
+
+    private static final StoreRecorders INSTANCE = new StoreRecorders();
+
+    @Override
+    public LongConsumer get(final String metric, final String endpoint) {
+      MeasurementRecorder recorder = SOURCES.get(metric).getRecorder(endpoint);
+      return recorder::record;
+    }
+
+  }
+
+  /**
+   * The endpoint metrics of a client, the number of tracked endpoints is bounded,
+   * beyond that, endpoints are aggregated per method + host + port.
+   */
+  public static final class Registry {
+
+    private final BoundedEndpointMap<EndpointMetrics> endpoints;
+
+    public Registry() {
+      this(Integer.getInteger("spf4j.jaxrs.client.maxTrackedEndpoints", 1000), StoreRecorders.INSTANCE);
+    }
+
+    /**
+     * @param maxEndpoints the maximum number of tracked endpoints.
+     * @param recorders the metric recorders.
+     */
+    public Registry(final int maxEndpoints, final Recorders recorders) {
+      this.endpoints = new BoundedEndpointMap<>(maxEndpoints, BoundedEndpointMap.truncateAt('/', 2),
+              endpoint -> new EndpointMetrics(endpoint, recorders));
+    }
+
+    /**
+     * @param endpoint the endpoint name: method/host:port/path template.
+     * @return the metrics of the endpoint.
+     */
+    public EndpointMetrics get(final String endpoint) {
+      return endpoints.get(endpoint);
+    }
+
+    @Override
+    public String toString() {
+      return "Registry{" + endpoints + '}';
+    }
+
+  }
+
+}
@@ -0,0 +1,624 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.client;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Client side HTTP cache storage, used by {@link org.spf4j.jaxrs.client.providers.HttpCacheClientFilter}.
+ * <p>
+ * Responses are cached by URI + Accept header + credentials (Authorization, Cookie), in memory
+ * (bounded by total content size), and optionally on disk (bounded by total file size), where they survive restarts.
+ * A cached response is served only to requests that match the request header values it Varies on,
+ * responses with Vary: * are not cached.
+ * Freshness is driven by the response Cache-Control max-age and stale-while-revalidate directives,
+ * responses with an ETag are kept after they expire so that they can be revalidated with If-None-Match.
+ * Concurrent misses for the same key are coalesced into a single request (flight), the request that started it
+ * (the leader) is identified by the {@link #FLIGHT_TOKEN_PROP} request property, that is preserved across retries.
+ *
+ * @author Zoltan Farkas
+ */
+@ParametersAreNonnullByDefault
+public final class HttpCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(HttpCache.class);
+
+  /** the request property that identifies the flight leader, set it to the same object for all retries */
+  public static final String FLIGHT_TOKEN_PROP = "spf4j.httpCache.flightToken";
+
+  private static final int DISK_FORMAT_VERSION = 2;
+
+  private final Cache<String, Entry> entries;
+
+  private final ConcurrentMap<String, Flight> flights;
+
+  private final int maxEntryBytes;
+
+  @Nullable
+  private final Path diskFolder;
+
+  private final long maxDiskBytes;
+
+  private final AtomicLong diskBytes;
+
+  /**
+   * @param maxBytes the maximum total content size of the in memory cached responses.
+   * @param maxEntryBytes responses larger than this are not cached.
+   */
+  public HttpCache(final long maxBytes, final int maxEntryBytes) {
+    this(maxBytes, maxEntryBytes, null);
+  }
+
+  /**
+   * @param maxBytes the maximum total content size of the in memory cached responses.
+   * @param maxEntryBytes responses larger than this are not cached.
+   * @param diskFolder folder to persist cached responses to, null for in memory caching only.
+   * the files in the folder are bounded to maxBytes as well.
+   */
+  public HttpCache(final long maxBytes, final int maxEntryBytes, @Nullable final Path diskFolder) {
+    this(maxBytes, maxEntryBytes, diskFolder, maxBytes);
+  }
+
+  /**
+   * @param maxBytes the maximum total content size of the in memory cached responses.
+   * @param maxEntryBytes responses larger than this are not cached.
+   * @param diskFolder folder to persist cached responses to, null for in memory caching only.
+   * @param maxDiskBytes the maximum total size of the files in diskFolder, the least recently written are evicted.
+   */
+  public HttpCache(final long maxBytes, final int maxEntryBytes, @Nullable final Path diskFolder,
+          final long maxDiskBytes) {
+    this.entries = CacheBuilder.newBuilder()
+            .maximumWeight(maxBytes)
+            .weigher((String k, Entry v) -> k.length() + v.content.length)
+            .build();
+    this.flights = new ConcurrentHashMap<>();
+    this.maxEntryBytes = maxEntryBytes;
+    this.diskFolder = diskFolder;
+    this.maxDiskBytes = maxDiskBytes;
+    this.diskBytes = new AtomicLong(diskFolder == null ? 0 : diskUsage(diskFolder));
+  }
+
+  public static String key(final URI uri, @Nullable final String accept) {
+    return accept == null ? uri.toString() : uri.toString() + '\n' + accept;
+  }
+
+  /**
+   * @param credentials the request credentials (Authorization, Cookie headers), only a hash of them is part of the key.
+   */
+  public static String key(final URI uri, @Nullable final String accept, @Nullable final String credentials) {
+    String key = key(uri, accept);
+    return credentials == null ? key
+            : key + '\n' + Hashing.murmur3_128().hashString(credentials, StandardCharsets.UTF_8).toString();
+  }
+
+  public int getMaxEntryBytes() {
+    return maxEntryBytes;
+  }
+
+  @Nullable
+  public Entry get(final String key) {
+    Entry result = entries.getIfPresent(key);
+    if (result == null && diskFolder != null) {
+      result = readFromDisk(key);
+      if (result != null) {
+        entries.put(key, result);
+      }
+    }
+    return result;
+  }
+
+  public void put(final String key, final Entry entry) {
+    entries.put(key, entry);
+    if (diskFolder != null) {
+      writeToDisk(key, entry);
+    }
+  }
+
+  /**
+   * Join the flight for key, or start one if there is none in progress.
+   * A flight started with the same token is returned as well (the request is a retry of the leader).
+   */
+  public Flight joinFlight(final String key, final Object token) {
+    Flight flight = new Flight(token);
+    Flight existing = flights.putIfAbsent(key, flight);
+    return existing == null ? flight : existing;
+  }
+
+  /**
+   * complete the flight, all waiting requests will be served the result, or will go to the network if null.
+   * Must be invoked only by the leader.
+   */
+  public void endFlight(final String key, final Flight flight, @Nullable final Entry result) {
+    flights.remove(key, flight);
+    flight.complete(result);
+  }
+
+  /**
+   * Complete the flights started with token. (the request failed before a response)
+   */
+  public void abandonFlights(final Object token) {
+    for (Map.Entry<String, Flight> entry : flights.entrySet()) {
+      Flight flight = entry.getValue();
+      if (flight.isLeader(token)) {
+        endFlight(entry.getKey(), flight, null);
+      }
+    }
+  }
+
+  private Path diskPath(final String key) {
+    return diskFolder.resolve(Hashing.murmur3_128().hashString(key, StandardCharsets.UTF_8).toString());
+  }
+
+  @Nullable
+  private Entry readFromDisk(final String key) {
+    Path path = diskPath(key);
+    try (DataInputStream dis = new DataInputStream(Files.newInputStream(path))) {
+      if (dis.readInt() != DISK_FORMAT_VERSION || !key.equals(dis.readUTF())) {
+        return null;
+      }
+      Entry entry = Entry.readFrom(dis);
+      if (entry.etag == null && !entry.isServable(System.currentTimeMillis())) {
+        Files.deleteIfExists(path);
+        return null;
+      }
+      return entry;
+    } catch (NoSuchFileException ex) {
+      return null;
+    } catch (IOException | RuntimeException ex) {
+      LOG.warn("Unable to read cached response for {} from {}", key, path, ex);
+      return null;
+    }
+  }
+
+  private void writeToDisk(final String key, final Entry entry) {
+    Path path = diskPath(key);
+    Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+    try {
+      try (DataOutputStream dos = new DataOutputStream(Files.newOutputStream(tmp))) {
+        dos.writeInt(DISK_FORMAT_VERSION);
+        dos.writeUTF(key);
+        entry.writeTo(dos);
+      }
+      long size = Files.size(tmp);
+      long replaced = Files.exists(path) ? Files.size(path) : 0;
+      Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      if (diskBytes.addAndGet(size - replaced) > maxDiskBytes) {
+        evictFromDisk();
+      }
+    } catch (IOException | RuntimeException ex) {
+      LOG.warn("Unable to persist cached response for {} to {}", key, path, ex);
+    }
+  }
+
+  /**
+   * Delete the least recently written files until the folder size is under 3/4 of maxDiskBytes.
+   */
+  private synchronized void evictFromDisk() {
+    if (diskBytes.get() <= maxDiskBytes) {
+      return; // evicted by somebody else.
+    }
+    List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(diskFolder)) {
+      for (Path file : stream) {
+        files.add(file);
+      }
+    } catch (IOException ex) {
+      LOG.warn("Unable to list {}", diskFolder, ex);
+      return;
+    }
+    Map<Path, FileTime> mtimes = new HashMap<>(files.size() + files.size() / 3);
+    long total = 0;
+    for (Path file : files) {
+      try {
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        mtimes.put(file, attrs.lastModifiedTime());
+        total += attrs.size();
+      } catch (IOException ex) {
+        mtimes.put(file, FileTime.fromMillis(0));
+      }
+    }
+    files.sort(Comparator.comparing(mtimes::get));
+    long target = maxDiskBytes / 4 * 3;
+    for (Path file : files) {
+      if (total <= target) {
+        break;
+      }
+      try {
+        long size = Files.size(file);
+        Files.delete(file);
+        total -= size;
+      } catch (IOException ex) {
+        LOG.debug("Unable to evict {}", file, ex);
+      }
+    }
+    diskBytes.set(total);
+  }
+
+  private static long diskUsage(final Path folder) {
+    long result = 0;
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+      for (Path file : stream) {
+        result += Files.size(file);
+      }
+    } catch (IOException ex) {
+      LOG.warn("Unable to compute the size of {}", folder, ex);
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "HttpCache{" + "size=" + entries.size() + ", flights=" + flights.size()
+            + ", maxEntryBytes=" + maxEntryBytes + ", diskFolder=" + diskFolder + ", diskBytes=" + diskBytes + '}';
+  }
+
+  /**
+   * A request in progress for a key, that other requests for the same key can wait for.
+   */
+  public static final class Flight extends CompletableFuture<Entry> {
+
+    private final Object token;
+
+    Flight(final Object token) {
+      this.token = token;
+    }
+
+    public boolean isLeader(final Object requestToken) {
+      return token == requestToken;
+    }
+
+  }
+
+  /**
+   * A cached response.
+   */
+  public static final class Entry {
+
+    private final byte[] content;
+
+    private final MultivaluedMap<String, String> headers;
+
+    /** the values of the request headers the response Varies on */
+    private final Map<String, String> vary;
+
+    @Nullable
+    private final String etag;
+
+    /** epoch millis of when the response was received (or revalidated) */
+    private final long storedMillis;
+
+    private final long maxAgeMillis;
+
+    private final long staleWhileRevalidateMillis;
+
+    private final AtomicBoolean revalidating;
+
+    private Entry(final byte[] content, final MultivaluedMap<String, String> headers,
+            final Map<String, String> vary, @Nullable final String etag,
+            final long storedMillis, final long maxAgeMillis, final long staleWhileRevalidateMillis) {
+      this.content = content;
+      this.headers = headers;
+      this.vary = vary;
+      this.etag = etag;
+      this.storedMillis = storedMillis;
+      this.maxAgeMillis = maxAgeMillis;
+      this.staleWhileRevalidateMillis = staleWhileRevalidateMillis;
+      this.revalidating = new AtomicBoolean();
+    }
+
+    /**
+     * @param responseHeaders the response headers.
+     * @return true if a response with these headers can be cached.
+     */
+    public static boolean isCacheable(final MultivaluedMap<String, String> responseHeaders) {
+      long[] cc = parseCacheControl(responseHeaders.getFirst(HttpHeaders.CACHE_CONTROL));
+      return cc != null && (cc[0] > 0 || responseHeaders.getFirst(HttpHeaders.ETAG) != null)
+              && varyNames(responseHeaders) != null;
+    }
+
+    /**
+     * @return the cache entry, or null if the response is not cacheable.
+     */
+    @Nullable
+    public static Entry create(final byte[] content, final MultivaluedMap<String, String> responseHeaders,
+            final long nowMillis) {
+      return create(content, responseHeaders, h -> null, nowMillis);
+    }
+
+    /**
+     * @param requestHeaders the request header values by name, used for the Vary response header.
+     * @return the cache entry, or null if the response is not cacheable.
+     */
+    @Nullable
+    public static Entry create(final byte[] content, final MultivaluedMap<String, String> responseHeaders,
+            final Function<String, String> requestHeaders, final long nowMillis) {
+      long[] cc = parseCacheControl(responseHeaders.getFirst(HttpHeaders.CACHE_CONTROL));
+      String etag = responseHeaders.getFirst(HttpHeaders.ETAG);
+      if (cc == null || (cc[0] <= 0 && etag == null)) {
+        return null;
+      }
+      List<String> varyNames = varyNames(responseHeaders);
+      if (varyNames == null) {
+        return null;
+      }
+      Map<String, String> vary;
+      if (varyNames.isEmpty()) {
+        vary = Collections.emptyMap();
+      } else {
+        vary = new HashMap<>(varyNames.size() + varyNames.size() / 3 + 1);
+        for (String name : varyNames) {
+          String value = requestHeaders.apply(name);
+          vary.put(name, value == null ? "" : value);
+        }
+      }
+      MultivaluedMap<String, String> headers = new MultivaluedHashMap<>(responseHeaders.size() + 2);
+      for (Map.Entry<String, List<String>> header : responseHeaders.entrySet()) {
+        String name = header.getKey();
+        if (!isHopByHop(name)) {
+          headers.put(name, header.getValue());
+        }
+      }
+      return new Entry(content, headers, vary, etag, nowMillis, cc[0], cc[1]);
+    }
+
+    /**
+     * @return the lower case header names of the Vary response header, null if it is *.
+     */
+    @Nullable
+    private static List<String> varyNames(final MultivaluedMap<String, String> responseHeaders) {
+      List<String> values = responseHeaders.get(HttpHeaders.VARY);
+      if (values == null || values.isEmpty()) {
+        return Collections.emptyList();
+      }
+      List<String> result = new ArrayList<>(2);
+      for (String value : values) {
+        for (String name : value.split(",")) {
+          String n = name.trim().toLowerCase(Locale.US);
+          if ("*".equals(n)) {
+            return null;
+          }
+          if (!n.isEmpty()) {
+            result.add(n);
+          }
+        }
+      }
+      return result;
+    }
+
+    /**
+     * @param requestHeaders the request header values by name.
+     * @return true if this response can be served to the request. (the Vary request header values match)
+     */
+    public boolean matches(final Function<String, String> requestHeaders) {
+      for (Map.Entry<String, String> entry : vary.entrySet()) {
+        String value = requestHeaders.apply(entry.getKey());
+        if (!entry.getValue().equals(value == null ? "" : value)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * @param notModifiedHeaders the headers of the 304 (Not Modified) revalidation response.
+     * @return the refreshed entry.
+     */
+    public Entry revalidated(final MultivaluedMap<String, String> notModifiedHeaders, final long nowMillis) {
+      MultivaluedMap<String, String> newHeaders = new MultivaluedHashMap<>(headers);
+      for (Map.Entry<String, List<String>> header : notModifiedHeaders.entrySet()) {
+        String name = header.getKey();
+        if (!isHopByHop(name)) {
+          newHeaders.put(name, header.getValue());
+        }
+      }
+      long[] cc = parseCacheControl(newHeaders.getFirst(HttpHeaders.CACHE_CONTROL));
+      if (cc == null) {
+        cc = new long[] {0, 0};
+      }
+      return new Entry(content, newHeaders, vary, etag, nowMillis, cc[0], cc[1]);
+    }
+
+    public boolean isFresh(final long nowMillis) {
+      return nowMillis - storedMillis < maxAgeMillis;
+    }
+
+    /**
+     * @return true if fresh, or stale within the stale-while-revalidate window.
+     */
+    public boolean isServable(final long nowMillis) {
+      return nowMillis - storedMillis < maxAgeMillis + staleWhileRevalidateMillis;
+    }
+
+    /**
+     * @return true if the caller should start a revalidation, false if one is already in progress.
+     * The caller must invoke endRevalidation when done.
+     */
+    public boolean startRevalidation() {
+      return revalidating.compareAndSet(false, true);
+    }
+
+    public void endRevalidation() {
+      revalidating.set(false);
+    }
+
+    @Nullable
+    public String getEtag() {
+      return etag;
+    }
+
+    public MultivaluedMap<String, String> getHeaders() {
+      return headers;
+    }
+
+    public InputStream getContentStream() {
+      return new ByteArrayInputStream(content);
+    }
+
+    public Response toResponse(final long nowMillis) {
+      Response.ResponseBuilder rb = Response.ok();
+      for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+        String name = header.getKey();
+        for (String value : header.getValue()) {
+          rb.header(name, value);
+        }
+      }
+      rb.header("Age", Math.max(0, (nowMillis - storedMillis) / 1000));
+      // an InputStream entity is handed over by Jersey as is, without going through a MessageBodyWriter.
+      return rb.entity(getContentStream()).build();
+    }
+
+    private static boolean isHopByHop(final String name) {
+      return "Connection".equalsIgnoreCase(name) || "Transfer-Encoding".equalsIgnoreCase(name)
+              || "Keep-Alive".equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)
+              || "Age".equalsIgnoreCase(name);
+    }
+
+    /**
+     * @return {max-age millis, stale-while-revalidate millis}, or null if the response must not be stored.
+     */
+    @Nullable
+    @SuppressFBWarnings("PZLA_PREFER_ZERO_LENGTH_ARRAYS")
+    static long[] parseCacheControl(@Nullable final String cacheControl) {
+      long maxAge = 0;
+      long swr = 0;
+      if (cacheControl == null) {
+        return new long[] {maxAge, swr};
+      }
+      for (String directive : cacheControl.split(",")) {
+        String d = directive.trim().toLowerCase(Locale.US);
+        try {
+          if ("no-store".equals(d)) {
+            return null;
+          } else if ("no-cache".equals(d) || d.startsWith("no-cache=")) {
+            maxAge = Long.MIN_VALUE;
+          } else if (d.startsWith("max-age=")) {
+            if (maxAge != Long.MIN_VALUE) {
+              maxAge = Long.parseLong(unquote(d.substring(8))) * 1000;
+            }
+          } else if (d.startsWith("stale-while-revalidate=")) {
+            swr = Long.parseLong(unquote(d.substring(23))) * 1000;
+          }
+        } catch (NumberFormatException ex) {
+          LOG.debug("Ignoring invalid Cache-Control directive {}", directive, ex);
+        }
+      }
+      if (maxAge == Long.MIN_VALUE) { // no-cache, must always be revalidated.
+        return new long[] {0, 0};
+      }
+      return new long[] {maxAge, swr};
+    }
+
+    private static String unquote(final String value) {
+      if (value.length() >= 2 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"') {
+        return value.substring(1, value.length() - 1);
+      }
+      return value;
+    }
+
+    void writeTo(final DataOutputStream dos) throws IOException {
+      dos.writeLong(storedMillis);
+      dos.writeLong(maxAgeMillis);
+      dos.writeLong(staleWhileRevalidateMillis);
+      dos.writeUTF(etag == null ? "" : etag);
+      dos.writeInt(headers.size());
+      for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+        dos.writeUTF(header.getKey());
+        List<String> values = header.getValue();
+        dos.writeInt(values.size());
+        for (String value : values) {
+          dos.writeUTF(value);
+        }
+      }
+      dos.writeInt(vary.size());
+      for (Map.Entry<String, String> entry : vary.entrySet()) {
+        dos.writeUTF(entry.getKey());
+        dos.writeUTF(entry.getValue());
+      }
+      dos.writeInt(content.length);
+      dos.write(content);
+    }
+
+    static Entry readFrom(final DataInputStream dis) throws IOException {
+      long stored = dis.readLong();
+      long maxAge = dis.readLong();
+      long swr = dis.readLong();
+      String etag = dis.readUTF();
+      int nrHeaders = dis.readInt();
+      MultivaluedMap<String, String> headers = new MultivaluedHashMap<>(nrHeaders + 2);
+      for (int i = 0; i < nrHeaders; i++) {
+        String name = dis.readUTF();
+        int nrValues = dis.readInt();
+        for (int j = 0; j < nrValues; j++) {
+          headers.add(name, dis.readUTF());
+        }
+      }
+      int nrVary = dis.readInt();
+      Map<String, String> vary = nrVary == 0 ? Collections.emptyMap() : new HashMap<>(nrVary + nrVary / 3 + 1);
+      for (int i = 0; i < nrVary; i++) {
+        vary.put(dis.readUTF(), dis.readUTF());
+      }
+      byte[] content = new byte[dis.readInt()];
+      dis.readFully(content);
+      return new Entry(content, headers, vary, etag.isEmpty() ? null : etag, stored, maxAge, swr);
+    }
+
+    @Override
+    public String toString() {
+      return "Entry{" + "length=" + content.length + ", etag=" + etag + ", storedMillis=" + storedMillis
+              + ", maxAgeMillis=" + maxAgeMillis + ", staleWhileRevalidateMillis=" + staleWhileRevalidateMillis + '}';
+    }
+
+  }
+
+}
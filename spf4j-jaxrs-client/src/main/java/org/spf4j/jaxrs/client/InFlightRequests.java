@@ -0,0 +1,196 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.client;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.reflect.TypeToken;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.apache.avro.generic.GenericContainer;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.specific.SpecificRecord;
+import org.spf4j.base.Throwables;
+import org.spf4j.base.TimeSource;
+import org.spf4j.base.UncheckedTimeoutException;
+import org.spf4j.perf.MeasurementRecorder;
+import org.spf4j.perf.impl.RecorderFactory;
+
+/**
+ * In flight request deduplication: concurrent identical requests (same request key and response type)
+ * share one call, the first caller executes it, the others wait for its result, each up to its own deadline.
+ * If the shared call times out (the first caller's deadline), the callers that still have time
+ * execute the call themselves.
+ * Only immutable results (strings, boxed primitives, enums...) and Avro records are shared, every waiting caller
+ * gets its own deep copy of a (mutable) Avro record. All other results (Response, InputStream, Reader, streams,
+ * iterables, collections, beans... see {@link #isShareable(Type)}) are never shared, these calls are always executed.
+ * Deduplicated requests are counted in the spf4j.jaxrs.client.dedupedRequests metric.
+ *
+ * @author Zoltan Farkas
+ */
+public final class InFlightRequests {
+
+  private static final MeasurementRecorder DEDUPED_REC = RecorderFactory.createScalableSimpleCountingRecorder(
+          "spf4j.jaxrs.client.dedupedRequests", "count", 60000);
+
+  private static final Set<Class<?>> IMMUTABLE_TYPES = ImmutableSet.of(String.class, Boolean.class,
+          Character.class, Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class,
+          BigInteger.class, BigDecimal.class, UUID.class, Instant.class, Duration.class, LocalDate.class);
+
+  private final ConcurrentMap<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+  /**
+   * @param requestKey the request key. (method, URI, headers)
+   * @param responseType the response type.
+   * @param deadlineNanos the caller deadline.
+   * @param call the call to execute.
+   * @return the call result, shared with the concurrent identical calls.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T invoke(final String requestKey, final Type responseType, final long deadlineNanos,
+          final Supplier<T> call) {
+    if (!isShareable(responseType)) {
+      return call.get();
+    }
+    Key key = new Key(requestKey, responseType);
+    CompletableFuture<Object> flight = new CompletableFuture<>();
+    CompletableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+    if (existing == null) {
+      try {
+        T result = call.get();
+        // the waiting callers copy a private snapshot, the caller might modify its result while they do.
+        flight.complete(copy(result));
+        return result;
+      } catch (RuntimeException | Error ex) {
+        flight.completeExceptionally(ex);
+        throw ex;
+      } finally {
+        inFlight.remove(key, flight);
+      }
+    }
+    DEDUPED_REC.record(1);
+    try {
+      return (T) copy(existing.get(deadlineNanos - TimeSource.nanoTime(), TimeUnit.NANOSECONDS));
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(ex);
+    } catch (TimeoutException ex) {
+      throw new UncheckedTimeoutException(ex);
+    } catch (ExecutionException ex) {
+      Throwable cause = ex.getCause();
+      if (TimeSource.nanoTime() < deadlineNanos && Throwables.firstCause(cause,
+              (x) -> x instanceof TimeoutException || x instanceof UncheckedTimeoutException) != null) {
+        // the shared call ran out of (the first caller's) time, but we still have time.
+        return call.get();
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new RuntimeException(cause);
+    }
+  }
+
+  /**
+   * @return true if a response of this type can be shared between callers: immutable values, and Avro records
+   * (which are deep copied for every waiting caller). Results that can be consumed only once (closeables like
+   * Response, InputStream, Reader, Stream, iterators and iterables) and other mutable objects are not shareable.
+   */
+  public static boolean isShareable(final Type responseType) {
+    Class<?> rawType = TypeToken.of(responseType).getRawType();
+    if (rawType.isPrimitive() || rawType.isEnum() || IMMUTABLE_TYPES.contains(rawType)) {
+      return true;
+    }
+    return GenericContainer.class.isAssignableFrom(rawType) && !Iterable.class.isAssignableFrom(rawType)
+            && !AutoCloseable.class.isAssignableFrom(rawType);
+  }
+
+  /**
+   * @return the value to hand to a waiting caller, Avro records are mutable, every caller gets its own copy.
+   */
+  @Nullable
+  private static Object copy(@Nullable final Object value) {
+    if (value instanceof SpecificRecord) {
+      return SpecificData.get().deepCopy(((SpecificRecord) value).getSchema(), value);
+    } else if (value instanceof GenericContainer) {
+      return GenericData.get().deepCopy(((GenericContainer) value).getSchema(), value);
+    } else {
+      return value;
+    }
+  }
+
+  /**
+   * @return the number of callers waiting for the in flight request, -1 if there is no such request in flight.
+   */
+  @VisibleForTesting
+  int nrWaiting(final String requestKey, final Type responseType) {
+    CompletableFuture<Object> flight = inFlight.get(new Key(requestKey, responseType));
+    return flight == null ? -1 : flight.getNumberOfDependents();
+  }
+
+  @Override
+  public String toString() {
+    return "InFlightRequests{" + "nrInFlight=" + inFlight.size() + '}';
+  }
+
+  private static final class Key {
+
+    private final String requestKey;
+
+    private final Type responseType;
+
+    Key(final String requestKey, final Type responseType) {
+      this.requestKey = requestKey;
+      this.responseType = responseType;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * requestKey.hashCode() + responseType.hashCode();
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return requestKey.equals(other.requestKey) && responseType.equals(other.responseType);
+    }
+
+  }
+
+}
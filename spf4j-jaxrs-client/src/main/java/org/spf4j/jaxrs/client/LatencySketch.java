@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.client;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A decaying, log linear bucketed (HDR histogram like) latency sketch.
+ * Every power of 2 is split into 8 sub-buckets, this gives a relative error under 12.5%,
+ * with a fixed, small footprint. The counts are halved every DECAY_COUNT records,
+ * so that the sketch reflects recent latencies.
+ * Updates are not atomic across buckets, which is fine for an estimate.
+ *
+ * @author Zoltan Farkas
+ */
+public final class LatencySketch {
+
+  private static final int SUB_BUCKET_BITS = 3;
+
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  /** up to 2^40 micros (~12 days) */
+  private static final int NR_BUCKETS = (40 - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+  private static final int DECAY_COUNT = 2048;
+
+  private final AtomicLongArray buckets;
+
+  private final AtomicInteger count;
+
+  public LatencySketch() {
+    this.buckets = new AtomicLongArray(NR_BUCKETS);
+    this.count = new AtomicInteger();
+  }
+
+  static int bucket(final long micros) {
+    if (micros < SUB_BUCKETS) {
+      return (int) Math.max(0, micros);
+    }
+    int exp = 63 - Long.numberOfLeadingZeros(micros);
+    int sub = (int) (micros >> (exp - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return Math.min(NR_BUCKETS - 1, (exp - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub);
+  }
+
+  static long lowerBound(final int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int exp = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    int sub = bucket % SUB_BUCKETS;
+    return (long) (SUB_BUCKETS + sub) << (exp - SUB_BUCKET_BITS);
+  }
+
+  public void record(final long micros) {
+    buckets.incrementAndGet(bucket(micros));
+    if (count.incrementAndGet() == DECAY_COUNT) {
+      long total = 0;
+      for (int i = 0; i < NR_BUCKETS; i++) {
+        long val = buckets.get(i) / 2;
+        buckets.set(i, val);
+        total += val;
+      }
+      count.set((int) total);
+    }
+  }
+
+  public int getCount() {
+    return count.get();
+  }
+
+  /**
+   * @param percentile the percentile (0 - 1).
+   * @return the upper bound (micros) of the bucket containing the percentile.
+   */
+  public long getPercentile(final double percentile) {
+    int bucket = percentileBucket(percentile);
+    return bucket < 0 ? Long.MAX_VALUE : lowerBound(bucket + 1);
+  }
+
+  /**
+   * @param percentile the percentile (0 - 1).
+   * @return the lower bound (micros) of the bucket containing the percentile, for conservative estimates.
+   * (like load shedding)
+   */
+  public long getPercentileLowerBound(final double percentile) {
+    int bucket = percentileBucket(percentile);
+    return bucket < 0 ? Long.MAX_VALUE : lowerBound(bucket);
+  }
+
+  /**
+   * @return the bucket containing the percentile, -1 if none.
+   */
+  private int percentileBucket(final double percentile) {
+    long total = 0;
+    for (int i = 0; i < NR_BUCKETS; i++) {
+      total += buckets.get(i);
+    }
+    long target = (long) Math.ceil(total * percentile);
+    long acc = 0;
+    for (int i = 0; i < NR_BUCKETS; i++) {
+      acc += buckets.get(i);
+      if (acc >= target) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public String toString() {
+    return "LatencySketch{" + "count=" + count + ", p50=" + getPercentile(0.5)
+            + ", p99=" + getPercentile(0.99) + '}';
+  }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.client;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import javax.ws.rs.core.Response;
+import org.spf4j.base.ExecutionContext;
+import org.spf4j.base.ExecutionContexts;
+import org.spf4j.base.TimeSource;
+import org.spf4j.http.RequestContextTags;
+
+/**
+ * A call, that records the outcomes of its attempts (every invocation of call is an attempt):
+ * the successful attempt latencies for the endpoint (used for adaptive hedging), the destination
+ * failures/successes for the retry budget, and the endpoint attempt metrics. (latency, status class, retries, hedges)
+ * An attempt started while another attempt of the same call is in flight is a hedge, otherwise a retry.
+ * Attempts served from the http cache (see {@link RequestContextTags#HTTP_CACHE_HIT}) are only counted as cache hits,
+ * they say nothing about the endpoint latency or health.
+ *
+ * @author Zoltan Farkas
+ */
+final class ObservedCall<T> implements Callable<T> {
+
+  private final Callable<T> what;
+
+  private final EndpointMetrics metrics;
+
+  private final LatencySketch latencies;
+
+  @Nullable
+  private final RetryBudget retryBudget;
+
+  @Nullable
+  private final AdaptiveHedge.Budget hedgeBudget;
+
+  private final AtomicInteger attempts;
+
+  private final AtomicInteger inFlight;
+
+  private final AtomicBoolean done;
+
+  ObservedCall(final Callable<T> what, final EndpointMetrics metrics, final LatencySketch latencies,
+          @Nullable final RetryBudget retryBudget, @Nullable final AdaptiveHedge.Budget hedgeBudget) {
+    this.what = what;
+    this.metrics = metrics;
+    this.latencies = latencies;
+    this.retryBudget = retryBudget;
+    this.hedgeBudget = hedgeBudget;
+    this.attempts = new AtomicInteger();
+    this.inFlight = new AtomicInteger();
+    this.done = new AtomicBoolean();
+  }
+
+  @Override
+  public T call() throws Exception {
+    boolean hedge = false;
+    if (attempts.getAndIncrement() > 0) {
+      if (inFlight.get() > 0) {
+        hedge = true;
+        metrics.recordHedge();
+        if (hedgeBudget != null) {
+          hedgeBudget.charge();
+        }
+      } else {
+        metrics.recordRetry();
+      }
+    }
+    ExecutionContext ctx = ExecutionContexts.current();
+    if (ctx != null) {
+      // this is the attempt context, the http cache filter will flag a hit on it.
+      ctx.put(RequestContextTags.HTTP_CACHE_HIT, Boolean.FALSE);
+    }
+    inFlight.incrementAndGet();
+    long startNanos = TimeSource.nanoTime();
+    T result;
+    try {
+      result = what.call();
+    } catch (Exception ex) {
+      metrics.recordAttempt(TimeUnit.NANOSECONDS.toMicros(TimeSource.nanoTime() - startNanos),
+              EndpointMetrics.getStatus(ex));
+      if (retryBudget != null && RetryBudget.isFailure(ex)) {
+        retryBudget.onFailure();
+      }
+      throw ex;
+    } finally {
+      inFlight.decrementAndGet();
+    }
+    if (ctx != null && Boolean.TRUE.equals(ctx.get(RequestContextTags.HTTP_CACHE_HIT))) {
+      done.set(true);
+      metrics.recordCacheHit();
+      return result;
+    }
+    long micros = TimeUnit.NANOSECONDS.toMicros(TimeSource.nanoTime() - startNanos);
+    int status = result instanceof Response ? ((Response) result).getStatus() : 200;
+    metrics.recordAttempt(micros, status);
+    if (retryBudget != null) {
+      if (RetryBudget.isFailure(status)) {
+        retryBudget.onFailure();
+      } else {
+        retryBudget.onSuccess();
+      }
+    }
+    if (done.compareAndSet(false, true) && hedge) {
+      metrics.recordHedgeWin();
+    }
+    latencies.record(micros);
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "ObservedCall{" + "what=" + what + ", attempts=" + attempts + '}';
+  }
+
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.client;
+
+import java.net.URI;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.spf4j.base.ExecutionContext;
+import org.spf4j.base.ExecutionContexts;
+import org.spf4j.failsafe.PartialResultRetryPredicate;
+import org.spf4j.failsafe.PartialTypedExceptionRetryPredicate;
+import org.spf4j.failsafe.RetryDecision;
+import org.spf4j.failsafe.RetryPolicy;
+import org.spf4j.http.HttpWarning;
+import org.spf4j.http.RequestContextTags;
+import org.spf4j.perf.MeasurementRecorder;
+import org.spf4j.perf.impl.RecorderFactory;
+
+/**
+ * Per destination (host:port) retry budget, (retry throttling as in gRPC)
+ * <p>
+ * Every destination has a token bucket with maxTokens tokens, a failure (5xx, 429, or no response)
+ * takes a token, a success adds tokenRatio tokens. Retries are allowed only while the bucket is more than half full.
+ * This way retries help with isolated failures, but stop when a destination is failing,
+ * instead of multiplying the load on it by the retry count.
+ * Retries denied by the budget are recorded in the spf4j.jaxrs.client.retryBudgetExhausted metric,
+ * and as a HttpWarning in the current execution context.
+ *
+ * @author Zoltan Farkas
+ */
+public final class RetryBudget {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RetryBudget.class);
+
+  private static final MeasurementRecorder EXHAUSTED_REC = RecorderFactory.createScalableSimpleCountingRecorder(
+          "spf4j.jaxrs.client.retryBudgetExhausted", "count", 60000);
+
+  private final String destination;
+
+  /** milli tokens */
+  private final int maxTokens;
+
+  /** milli tokens */
+  private final int tokenRatio;
+
+  /** milli tokens */
+  private final AtomicInteger tokens;
+
+  public RetryBudget(final String destination, final int maxTokens, final double tokenRatio) {
+    this.destination = destination;
+    this.maxTokens = maxTokens * 1000;
+    this.tokenRatio = (int) (tokenRatio * 1000);
+    this.tokens = new AtomicInteger(this.maxTokens);
+  }
+
+  public static String destination(final URI uri) {
+    return uri.getHost() + ':' + uri.getPort();
+  }
+
+  public void onSuccess() {
+    int current;
+    do {
+      current = tokens.get();
+      if (current >= maxTokens) {
+        return;
+      }
+    } while (!tokens.compareAndSet(current, Math.min(maxTokens, current + tokenRatio)));
+  }
+
+  public void onFailure() {
+    int current;
+    do {
+      current = tokens.get();
+      if (current <= 0) {
+        return;
+      }
+    } while (!tokens.compareAndSet(current, Math.max(0, current - 1000)));
+  }
+
+  public boolean canRetry() {
+    return tokens.get() > maxTokens / 2;
+  }
+
+  /**
+   * @return true if the exception is a failure of the destination (as opposed to a client error).
+   */
+  public static boolean isFailure(final Exception ex) {
+    WebApplicationException wex = org.spf4j.base.Throwables.first(ex, WebApplicationException.class);
+    if (wex == null) {
+      return true;
+    }
+    return isFailure(wex.getResponse().getStatus());
+  }
+
+  public static boolean isFailure(final int status) {
+    return status >= 500 || status == 429;
+  }
+
+  /**
+   * @return abort if the budget does not allow a retry, null (no decision) otherwise.
+   */
+  @Nullable
+  <T, C extends Callable<? extends T>> RetryDecision<T, C> getDecision() {
+    if (canRetry()) {
+      return null;
+    }
+    EXHAUSTED_REC.record(1);
+    LOG.debug("Retry budget exhausted for {}", destination);
+    ExecutionContext ctx = ExecutionContexts.current();
+    if (ctx != null) {
+      ctx.accumulateComponent(RequestContextTags.HTTP_WARNINGS, new HttpWarning(HttpWarning.MISCELLANEOUS,
+              "spf4j-client", "Retry budget exhausted for " + destination));
+    }
+    return RetryDecision.abort();
+  }
+
+  /**
+   * Add the retry budget predicates to a retry policy builder, they need to be the first predicates.
+   */
+  public <T extends RetryPolicy.Builder> T addTo(final T builder) {
+    return (T) builder
+            .withExceptionPartialPredicate(Exception.class, new ExceptionPredicate(this))
+            .withResultPartialPredicate(Response.class, new ResultPredicate(this));
+  }
+
+  @Override
+  public String toString() {
+    return "RetryBudget{" + "destination=" + destination + ", tokens=" + (tokens.get() / 1000d)
+            + ", maxTokens=" + (maxTokens / 1000) + '}';
+  }
+
+  private static final class ExceptionPredicate
+          implements PartialTypedExceptionRetryPredicate<Object, Callable<? extends Object>, Exception> {
+
+    private final RetryBudget budget;
+
+    ExceptionPredicate(final RetryBudget budget) {
+      this.budget = budget;
+    }
+
+    @Override
+    @Nullable
+    public RetryDecision<Object, Callable<? extends Object>> getExceptionDecision(
+            final Exception ex, final Callable<? extends Object> c) {
+      if (!isFailure(ex)) {
+        return null;
+      }
+      return budget.getDecision();
+    }
+
+  }
+
+  private static final class ResultPredicate implements PartialResultRetryPredicate<Response, Callable<Response>> {
+
+    private final RetryBudget budget;
+
+    ResultPredicate(final RetryBudget budget) {
+      this.budget = budget;
+    }
+
+    @Override
+    @Nullable
+    public RetryDecision<Response, Callable<Response>> getDecision(final Response value,
+            final Callable<Response> what) {
+      if (!isFailure(value.getStatus())) {
+        return null;
+      }
+      return budget.getDecision();
+    }
+
+  }
+
+  /**
+   * The retry budgets of a client, per destination.
+   */
+  public static final class Registry {
+
+    private final ConcurrentMap<String, RetryBudget> budgets;
+
+    private final int maxTokens;
+
+    private final double tokenRatio;
+
+    /**
+     * @param maxTokens the bucket size, 0 disables the retry budget.
+     * @param tokenRatio the number of tokens a success adds.
+     */
+    public Registry(final int maxTokens, final double tokenRatio) {
+      this.budgets = new ConcurrentHashMap<>();
+      this.maxTokens = maxTokens;
+      this.tokenRatio = tokenRatio;
+    }
+
+    /**
+     * @return the retry budget for the destination, or null if retry budgets are disabled.
+     */
+    @Nullable
+    public RetryBudget get(final String destination) {
+      if (maxTokens <= 0) {
+        return null;
+      }
+      return budgets.computeIfAbsent(destination, d -> new RetryBudget(d, maxTokens, tokenRatio));
+    }
+
+    @Override
+    public String toString() {
+      return "Registry{" + "nrDestinations=" + budgets.size() + ", maxTokens=" + maxTokens
+              + ", tokenRatio=" + tokenRatio + '}';
+    }
+
+  }
+
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.client;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.spf4j.base.ExecutionContext;
+import org.spf4j.base.ExecutionContexts;
+import org.spf4j.base.TimeSource;
+import org.spf4j.concurrent.CustomThreadFactory;
+import org.spf4j.perf.MeasurementRecorder;
+import org.spf4j.perf.impl.RecorderFactory;
+
+/**
+ * Shadow traffic dispatcher, isolated from the primary request path:
+ * <ul>
+ * <li>Shadow requests run on their own bounded executor (maxConcurrency threads), when all the threads are busy
+ * the shadow request is dropped, never queued. (counted in the spf4j.jaxrs.client.shadowDropped metric)</li>
+ * <li>They are fire and forget plain invocations, running in a detached child of the primary request execution
+ * context, with their own deadline (the attempt timeout), no retries, no hedging, no exception mapping.</li>
+ * <li>Response bodies are drained without deserialization, and optionally hashed (murmur3_128, logged at debug
+ * together with the status) to allow diffing against the primary.</li>
+ * <li>The shadow destination URIs are cached, not re-built for every request.</li>
+ * <li>Shadow traffic is disabled by default, and {@link #close()} (invoked when the client is closed)
+ * shuts down the shadow executor, shadow requests dispatched after are dropped.</li>
+ * </ul>
+ *
+ * @author Zoltan Farkas
+ */
+public final class ShadowTraffic implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ShadowTraffic.class);
+
+  private static final MeasurementRecorder DROPPED_REC = RecorderFactory.createScalableSimpleCountingRecorder(
+          "spf4j.jaxrs.client.shadowDropped", "count", 60000);
+
+  private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[8192]);
+
+  private final ThreadPoolExecutor executor;
+
+  private final boolean hashBodies;
+
+  private final Cache<ShadowKey, URI> uris;
+
+  /**
+   * @param maxConcurrency the maximum number of concurrent shadow requests.
+   * @param hashBodies hash the shadow response bodies.
+   */
+  public ShadowTraffic(final int maxConcurrency, final boolean hashBodies) {
+    this.executor = new ThreadPoolExecutor(0, maxConcurrency, 60, TimeUnit.SECONDS,
+            new SynchronousQueue<>(), new CustomThreadFactory("spf4j-shadow", true, Thread.NORM_PRIORITY));
+    this.hashBodies = hashBodies;
+    this.uris = CacheBuilder.newBuilder().maximumSize(1000).build();
+  }
+
+  /**
+   * @return the uri with the host replaced by the shadow destination.
+   */
+  URI shadowUri(final URI uri, final String destination) {
+    ShadowKey key = new ShadowKey(uri, destination);
+    URI result = uris.getIfPresent(key);
+    if (result == null) {
+      result = UriBuilder.fromUri(uri).host(destination).build();
+      uris.put(key, result);
+    }
+    return result;
+  }
+
+  /**
+   * Dispatch a shadow request, or drop it if there is no capacity.
+   * @param name the endpoint name.
+   * @param invocation the shadow invocation.
+   * @param timeoutNanos the shadow request timeout.
+   */
+  void dispatch(final String name, final Invocation invocation, final long timeoutNanos) {
+    ExecutionContext parent = ExecutionContexts.current();
+    long startNanos = TimeSource.nanoTime();
+    try {
+      executor.execute(() -> run(name, invocation, parent, startNanos, startNanos + timeoutNanos));
+    } catch (RejectedExecutionException ex) {
+      DROPPED_REC.record(1);
+      LOG.debug("Dropped shadow request {}", name);
+    }
+  }
+
+  private void run(final String name, final Invocation invocation, @Nullable final ExecutionContext parent,
+          final long startNanos, final long deadlineNanos) {
+    ExecutionContext ctx = ExecutionContexts.createDetached(name, parent, startNanos, deadlineNanos);
+    ctx.attach();
+    try (Response resp = invocation.invoke()) {
+      String hash = resp.hasEntity() ? drain(resp.readEntity(InputStream.class)) : null;
+      LOG.debug("Shadow {} done, status={}, hash={}", name, resp.getStatus(), hash);
+    } catch (IOException | RuntimeException ex) {
+      LOG.debug("Shadow {} failed", name, ex);
+    } finally {
+      ctx.close();
+    }
+  }
+
+  /**
+   * Shuts down the shadow executor, the in progress shadow requests are allowed to complete.
+   */
+  @Override
+  public void close() {
+    executor.shutdown();
+  }
+
+  boolean isClosed() {
+    return executor.isShutdown();
+  }
+
+  @Nullable
+  private String drain(final InputStream is) throws IOException {
+    byte[] buffer = BUFFER.get();
+    Hasher hasher = hashBodies ? Hashing.murmur3_128().newHasher() : null;
+    try (InputStream in = is) {
+      int nr;
+      while ((nr = in.read(buffer)) >= 0) {
+        if (hasher != null) {
+          hasher.putBytes(buffer, 0, nr);
+        }
+      }
+    }
+    return hasher == null ? null : hasher.hash().toString();
+  }
+
+  @Override
+  public String toString() {
+    return "ShadowTraffic{" + "executor=" + executor + ", hashBodies=" + hashBodies + '}';
+  }
+
+  private static final class ShadowKey {
+
+    private final URI uri;
+
+    private final String destination;
+
+    ShadowKey(final URI uri, final String destination) {
+      this.uri = uri;
+      this.destination = destination;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * uri.hashCode() + destination.hashCode();
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof ShadowKey)) {
+        return false;
+      }
+      ShadowKey other = (ShadowKey) obj;
+      return uri.equals(other.uri) && destination.equals(other.destination);
+    }
+
+  }
+
+}
@@ -1,6 +1,7 @@
 package org.spf4j.jaxrs.client;
 
 import com.google.common.base.Ascii;
+import com.google.common.collect.ImmutableMap;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
@@ -24,7 +25,10 @@ import java.util.concurrent.ThreadLocalRandom;
 import javax.annotation.Nullable;
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLContext;
+import javax.ws.rs.Priorities;
 import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.client.ClientResponseFilter;
 import javax.ws.rs.core.Configuration;
 import javax.ws.rs.core.Link;
 import javax.ws.rs.core.UriBuilder;
@@ -37,6 +41,9 @@ import org.glassfish.jersey.client.HttpUrlConnectorProvider;
 import org.spf4j.base.Arrays;
 import org.spf4j.failsafe.concurrent.DefaultFailSafeExecutor;
 import org.spf4j.failsafe.concurrent.FailSafeExecutor;
+import org.spf4j.jaxrs.Utils;
+import org.spf4j.jaxrs.client.providers.HttpCacheClientFilter;
+import org.spf4j.jaxrs.client.providers.ShadowTrafficClientFilter;
 import org.spf4j.jaxrs.common.providers.ProviderUtils;
 
 /**
@@ -63,6 +70,22 @@ public final class Spf4JClient implements Client {
 
   private final EndpointPoliciesConfig endpointConfig;
 
+  @Nullable
+  private volatile HttpCache httpCache;
+
+  private final EndpointLatencies endpointLatencies;
+
+  private final AdaptiveHedge.Budget hedgeBudget;
+
+  private final RetryBudget.Registry retryBudgets;
+
+  private final EndpointMetrics.Registry endpointMetrics;
+
+  @Nullable
+  private final ShadowTraffic shadowTraffic;
+
+  private final InFlightRequests inFlightRequests;
+
   Spf4JClient(final Client cl) {
     this(cl, DefaultFailSafeExecutor.instance(),
             DefaultClientExceptionMapper.INSTANCE, SchemaResolver.NONE);
@@ -80,11 +103,41 @@ public final class Spf4JClient implements Client {
     this(cl, fsExec, exceptionMapper, new EndpointPoliciesConfig(cl.getConfiguration(), resolver));
   }
 
-  @SuppressWarnings("unchecked")
   Spf4JClient(final Client cl,
           final FailSafeExecutor fsExec,
           final ClientExceptionMapper exceptionMapper,
           final EndpointPoliciesConfig endpointConfig) {
+    this(cl, fsExec, exceptionMapper, endpointConfig, new EndpointLatencies(),
+            new AdaptiveHedge.Budget(getDoubleConfigValue(cl.getConfiguration(),
+                    Spf4jClientProperties.HEDGE_BUDGET, 0.05), 100),
+            new RetryBudget.Registry(
+                    Utils.getIntConfigValue(cl.getConfiguration(), Spf4jClientProperties.RETRY_BUDGET_TOKENS, 10),
+                    getDoubleConfigValue(cl.getConfiguration(), Spf4jClientProperties.RETRY_BUDGET_RATIO, 0.1)),
+            newShadowTraffic(cl.getConfiguration()), new EndpointMetrics.Registry());
+    if (shadowTraffic != null && !cl.getConfiguration().isRegistered(ShadowTrafficClientFilter.class)) {
+      cl.register(new ShadowTrafficClientFilter());
+    }
+  }
+
+  @Nullable
+  private static ShadowTraffic newShadowTraffic(final Configuration config) {
+    int maxConcurrency = Utils.getIntConfigValue(config, Spf4jClientProperties.SHADOW_MAX_CONCURRENCY, 0);
+    if (maxConcurrency <= 0) {
+      return null;
+    }
+    return new ShadowTraffic(maxConcurrency, getBooleanConfigValue(config, Spf4jClientProperties.SHADOW_HASH));
+  }
+
+  @SuppressWarnings("unchecked")
+  private Spf4JClient(final Client cl,
+          final FailSafeExecutor fsExec,
+          final ClientExceptionMapper exceptionMapper,
+          final EndpointPoliciesConfig endpointConfig,
+          final EndpointLatencies endpointLatencies,
+          final AdaptiveHedge.Budget hedgeBudget,
+          final RetryBudget.Registry retryBudgets,
+          @Nullable final ShadowTraffic shadowTraffic,
+          final EndpointMetrics.Registry endpointMetrics) {
     this.cl = cl;
     ClientConfig configuration = (ClientConfig) cl.getConfiguration();
     HttpUrlConnectorProvider httpUrlConnectorProvider = new HttpUrlConnectorProvider();
@@ -93,6 +146,30 @@ public final class Spf4JClient implements Client {
     this.executor = fsExec;
     this.exceptionMapper = exceptionMapper;
     this.endpointConfig = endpointConfig;
+    this.endpointLatencies = endpointLatencies;
+    this.hedgeBudget = hedgeBudget;
+    this.retryBudgets = retryBudgets;
+    this.shadowTraffic = shadowTraffic;
+    this.endpointMetrics = endpointMetrics;
+    this.inFlightRequests = new InFlightRequests();
+  }
+
+  private static boolean getBooleanConfigValue(final Configuration config, final String cfgKey) {
+    Object val = config.getProperty(cfgKey);
+    if (val != null) {
+      return Boolean.parseBoolean(val.toString());
+    }
+    return Boolean.getBoolean(cfgKey);
+  }
+
+  private static double getDoubleConfigValue(final Configuration config, final String cfgKey,
+          final double defaultValue) {
+    Number nr = (Number) config.getProperty(cfgKey);
+    if (nr != null) {
+      return nr.doubleValue();
+    }
+    String val = System.getProperty(cfgKey);
+    return val == null ? defaultValue : Double.parseDouble(val);
   }
 
   public static Spf4JClient create(final Client cl) {
@@ -106,6 +183,70 @@ public final class Spf4JClient implements Client {
     return endpointConfig;
   }
 
+  /**
+   * Enable client side http caching of GET responses. (honoring Cache-Control, ETag and Vary)
+   * The request filter runs after the authentication header decorators, the response filter
+   * after all the other response filters.
+   * @param cache the cache to use.
+   * @return this client.
+   */
+  public Spf4JClient withHttpCache(final HttpCache cache) {
+    cl.register(new HttpCacheClientFilter(cache), ImmutableMap.<Class<?>, Integer>of(
+            ClientRequestFilter.class, Priorities.HEADER_DECORATOR + 100,
+            ClientResponseFilter.class, Priorities.AUTHENTICATION - 100));
+    this.httpCache = cache;
+    return this;
+  }
+
+  @Nullable
+  public HttpCache getHttpCache() {
+    return httpCache;
+  }
+
+  /**
+   * @return the observed (successful attempt) latencies per endpoint.
+   */
+  public EndpointLatencies getEndpointLatencies() {
+    return endpointLatencies;
+  }
+
+  /**
+   * @return the budget that limits the extra load adaptive hedging can generate.
+   */
+  public AdaptiveHedge.Budget getHedgeBudget() {
+    return hedgeBudget;
+  }
+
+  /**
+   * @return the per destination retry budgets.
+   */
+  public RetryBudget.Registry getRetryBudgets() {
+    return retryBudgets;
+  }
+
+  /**
+   * @return the per endpoint metrics. (attempt and call latencies, retries, hedges, responses)
+   */
+  public EndpointMetrics.Registry getEndpointMetrics() {
+    return endpointMetrics;
+  }
+
+  /**
+   * @return the shadow traffic dispatcher, null if shadow traffic is not enabled.
+   * (see {@link Spf4jClientProperties#SHADOW_MAX_CONCURRENCY})
+   */
+  @Nullable
+  public ShadowTraffic getShadowTraffic() {
+    return shadowTraffic;
+  }
+
+  /**
+   * @return the in flight requests, for deduplication.
+   */
+  public InFlightRequests getInFlightRequests() {
+    return inFlightRequests;
+  }
+
   public ClientExceptionMapper getExceptionMapper() {
     return exceptionMapper;
   }
@@ -216,12 +357,32 @@ public final class Spf4JClient implements Client {
   }
 
   public Spf4JClient withExceptionMapper(final ClientExceptionMapper pexceptionMapper) {
-    return new Spf4JClient(cl, executor, pexceptionMapper, this.endpointConfig);
+    Spf4JClient result = new Spf4JClient(cl, executor, pexceptionMapper, this.endpointConfig,
+            this.endpointLatencies, this.hedgeBudget, this.retryBudgets, this.shadowTraffic, this.endpointMetrics);
+    result.httpCache = this.httpCache;
+    return result;
+  }
+
+  /**
+   * @param metrics the endpoint metrics registry to record to.
+   * @return a client recording the endpoint metrics to the registry.
+   */
+  public Spf4JClient withEndpointMetrics(final EndpointMetrics.Registry metrics) {
+    Spf4JClient result = new Spf4JClient(cl, executor, exceptionMapper, this.endpointConfig,
+            this.endpointLatencies, this.hedgeBudget, this.retryBudgets, this.shadowTraffic, metrics);
+    result.httpCache = this.httpCache;
+    return result;
   }
 
   @Override
   public void close() {
-    cl.close();
+    try {
+      cl.close();
+    } finally {
+      if (shadowTraffic != null) {
+        shadowTraffic.close();
+      }
+    }
   }
 
   @Override
@@ -12,4 +12,28 @@ public final class Spf4jClientProperties {
 
   public static final String TIMEOUT_NANOS = "spf4j.j.c.timeout-ns";
 
+  /** the observed latency percentile to hedge at (0 - 1), not set = no adaptive hedging. */
+  public static final String HEDGE_PERCENTILE = "spf4j.j.c.hedge-percentile";
+
+  /** the maximum extra load ratio hedges can generate, default 0.05 (5%). */
+  public static final String HEDGE_BUDGET = "spf4j.j.c.hedge-budget";
+
+  /** the per destination retry budget size (tokens), default 10, 0 disables retry budgets. */
+  public static final String RETRY_BUDGET_TOKENS = "spf4j.j.c.retry-budget-tokens";
+
+  /** the tokens a successful request adds to its destination retry budget, default 0.1. */
+  public static final String RETRY_BUDGET_RATIO = "spf4j.j.c.retry-budget-ratio";
+
+  /**
+   * the maximum number of concurrent shadow requests, shadow requests over it are dropped.
+   * default 0, shadow traffic is disabled (no shadow executor, no shadow filter) unless this is set to &gt; 0.
+   */
+  public static final String SHADOW_MAX_CONCURRENCY = "spf4j.j.c.shadow-max-concurrency";
+
+  /** hash the shadow response bodies (logged at debug), default false. */
+  public static final String SHADOW_HASH = "spf4j.j.c.shadow-hash";
+
+  /** deduplicate identical concurrent GETs, default false. (see Spf4jInvocationBuilder.withDeduplication) */
+  public static final String DEDUPLICATE_GETS = "spf4j.j.c.dedup-gets";
+
 }
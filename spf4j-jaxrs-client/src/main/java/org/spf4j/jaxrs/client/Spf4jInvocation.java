@@ -3,8 +3,6 @@ package org.spf4j.jaxrs.client;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.lang.reflect.Type;
 import java.net.URI;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
@@ -12,6 +10,8 @@ import java.util.concurrent.Future;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import javax.annotation.Nullable;
 import javax.ws.rs.ServiceUnavailableException;
 import javax.ws.rs.client.Invocation;
 import javax.ws.rs.client.InvocationCallback;
@@ -26,6 +26,9 @@ import org.spf4j.base.UncheckedTimeoutException;
 import org.spf4j.base.Wrapper;
 import org.spf4j.concurrent.ContextPropagatingCompletableFuture;
 import org.spf4j.failsafe.AsyncRetryExecutor;
+import org.spf4j.http.RequestContextTags;
+import org.spf4j.jaxrs.client.providers.SchemaFingerprintClientFilter;
+import org.spf4j.jaxrs.common.providers.avro.UnknownSchemaFingerprintException;
 import org.spf4j.service.avro.DestinationTraffic;
 import org.spf4j.service.avro.HttpExecutionPolicy;
 
@@ -41,16 +44,39 @@ public final class Spf4jInvocation implements Invocation, Wrapper<Invocation> {
   private final Spf4jWebTarget target;
   private final HttpExecutionPolicy execPolicy;
   private final String method;
+  /** true if the response can be served from the http cache. */
+  private final boolean cached;
+  /** builds the shadow invocations (same request, different URI), null if no shadow traffic. */
+  @Nullable
+  private final Function<URI, Invocation> shadowFactory;
+  /** the in flight deduplication key, null if not deduplicated. */
+  @Nullable
+  private final String dedupKey;
+  /** the budget charged for the hedges sent, null if not adaptively hedged. */
+  @Nullable
+  private final AdaptiveHedge.Budget hedgeBudget;
 
-  @SuppressFBWarnings("EI_EXPOSE_REP2")
   public Spf4jInvocation(final Invocation invocation, final HttpExecutionPolicy execPolicy,
           final AsyncRetryExecutor<Object, HttpCallable<?>> aexecutor,
           final Spf4jWebTarget target, final String method) {
+    this(invocation, execPolicy, aexecutor, target, method, false, null, null, null);
+  }
+
+  @SuppressFBWarnings("EI_EXPOSE_REP2")
+  public Spf4jInvocation(final Invocation invocation, final HttpExecutionPolicy execPolicy,
+          final AsyncRetryExecutor<Object, HttpCallable<?>> aexecutor,
+          final Spf4jWebTarget target, final String method, final boolean cached,
+          @Nullable final Function<URI, Invocation> shadowFactory, @Nullable final String dedupKey,
+          @Nullable final AdaptiveHedge.Budget hedgeBudget) {
     this.invocation = invocation;
     this.target = target;
     this.method = method;
     this.execPolicy = execPolicy;
     this.aexecutor = aexecutor;
+    this.cached = cached;
+    this.shadowFactory = shadowFactory;
+    this.dedupKey = dedupKey;
+    this.hedgeBudget = hedgeBudget;
   }
 
 
@@ -67,9 +93,16 @@ public final class Spf4jInvocation implements Invocation, Wrapper<Invocation> {
     return target;
   }
 
+  /**
+   * @return the endpoint name: method/host:port/path template.
+   */
   public String getName() {
+    return getName(method, target);
+  }
+
+  static String getName(final String method, final Spf4jWebTarget target) {
     URI uri = target.getUri();
-    return method + '/' + uri.getHost() + ':' + uri.getPort() + uri.getPath();
+    return method + '/' + uri.getHost() + ':' + uri.getPort() + target.getPathTemplate();
   }
 
   @Override
@@ -78,34 +111,15 @@ public final class Spf4jInvocation implements Invocation, Wrapper<Invocation> {
     if (invc == invocation) {
       return this;
     } else {
-      return new Spf4jInvocation(invc, execPolicy, aexecutor, target, method);
+      return new Spf4jInvocation(invc, execPolicy, aexecutor, target, method, cached, shadowFactory,
+              dedupKey, hedgeBudget);
     }
   }
 
-  private static class HttpInvocations<T> {
-    private final HttpCallable<T> primaryCall;
-    private final List<HttpCallable<T>> backgroundCalls;
-
-    HttpInvocations(final HttpCallable<T> primaryCall, final List<HttpCallable<T>> backgroundCalls) {
-      this.primaryCall = primaryCall;
-      this.backgroundCalls = backgroundCalls;
-    }
-
-    public HttpCallable<T> getPrimaryCall() {
-      return primaryCall;
-    }
-
-    public List<HttpCallable<T>> getBackgroundCalls() {
-      return backgroundCalls;
-    }
-
-
-  }
-
   @SuppressFBWarnings({ "PREDICTABLE_RANDOM", "PRMC_POSSIBLY_REDUNDANT_METHOD_CALLS" })
-  <T> HttpInvocations<T> createCall(final ExecutionContext current, final Callable<T> what) {
+  <T> HttpCallable<T> createCall(final ExecutionContext current, final String name, final Callable<T> what) {
     if (execPolicy.getCircuitBreaker()) {
-      throw new ServiceUnavailableException("Circuit breaker active: " + getName());
+      throw new ServiceUnavailableException("Circuit breaker active: " + name);
     }
     long nanoTime = TimeSource.nanoTime();
     long deadlineNanos = ExecutionContexts.computeDeadline(current,
@@ -122,42 +136,66 @@ public final class Spf4jInvocation implements Invocation, Wrapper<Invocation> {
         }
       }
     }
-    HttpCallable<T> primary = HttpCallable.invocationHandler(current, what, getName(),
+    HttpCallable<T> primary = HttpCallable.invocationHandler(current, observed(name, what), name,
             uri,
             this.method,
             this.target.getClient().getExceptionMapper(),
             nanoTime,
             deadlineNanos, execPolicy.getAttemptTimeout().toNanos());
-    List<DestinationTraffic> shadow =  execPolicy.getShadowTraffic();
-    if (shadow.isEmpty()) {
-      return new HttpInvocations(primary, Collections.EMPTY_LIST);
-    } else {
+    List<DestinationTraffic> shadow = execPolicy.getShadowTraffic();
+    ShadowTraffic shadowTraffic = this.target.getClient().getShadowTraffic();
+    if (!shadow.isEmpty() && shadowFactory != null && shadowTraffic != null) {
       if (rnd < 0) {
         rnd = ThreadLocalRandom.current().nextDouble();
       }
-      List<HttpCallable<T>> shadowInvocations = new ArrayList<>(shadow.size());
       for (DestinationTraffic destination : shadow) {
         if (rnd < destination.getRatio()) {
-          HttpCallable<T> shCall = HttpCallable.invocationHandler(current, what, getName(),
-                  UriBuilder.fromUri(uri).host(destination.getDestination()).build(),
-                  this.method,
-                  this.target.getClient().getExceptionMapper(),
-                  nanoTime,
-                  deadlineNanos, execPolicy.getAttemptTimeout().toNanos());
-          shadowInvocations.add(shCall);
+          shadowTraffic.dispatch(name,
+                  shadowFactory.apply(shadowTraffic.shadowUri(uri, destination.getDestination())),
+                  execPolicy.getAttemptTimeout().toNanos());
         }
       }
-      return new HttpInvocations<>(primary, shadowInvocations);
     }
+    return primary;
   }
 
-  private <T> T invoke(final Callable<T> what) {
-    ExecutionContext current = ExecutionContexts.current();
-    HttpInvocations<T> hc = createCall(current, what);
-    HttpCallable<T> pc = hc.getPrimaryCall();
-    for (HttpCallable<T> call : hc.getBackgroundCalls()) {
-      submit(current, call);
+  /**
+   * @return the cache aware callable, all attempts (retries) carry the same single flight token.
+   */
+  private <T> Callable<T> cacheAware(final Callable<T> what) {
+    if (!cached) {
+      return what;
+    }
+    HttpCache cache = target.getClient().getHttpCache();
+    if (cache == null) {
+      return what;
     }
+    Object token = new Object();
+    invocation.property(HttpCache.FLIGHT_TOKEN_PROP, token);
+    return () -> {
+      try {
+        return what.call();
+      } finally {
+        // when the request fails there is no response to complete the single flight with.
+        cache.abandonFlights(token);
+      }
+    };
+  }
+
+  /**
+   * @return callable that records the attempt outcomes. (see {@link ObservedCall})
+   */
+  private <T> Callable<T> observed(final String name, final Callable<T> what) {
+    Spf4JClient client = target.getClient();
+    return new ObservedCall<>(what, client.getEndpointMetrics().get(name), client.getEndpointLatencies().get(name),
+            client.getRetryBudgets().get(RetryBudget.destination(target.getUri())), hedgeBudget);
+  }
+
+  private <T> T invoke(final Callable<T> pwhat) {
+    Callable<T> what = cacheAware(pwhat);
+    ExecutionContext current = ExecutionContexts.current();
+    String name = getName();
+    HttpCallable<T> pc = createCall(current, name, what);
     try {
       return aexecutor.call(pc,
                RuntimeException.class, pc.getStartNanos(), pc.getDeadlineNanos());
@@ -166,17 +204,22 @@ public final class Spf4jInvocation implements Invocation, Wrapper<Invocation> {
       throw new RuntimeException(ex);
     } catch (TimeoutException ex) {
       throw new UncheckedTimeoutException(ex);
+    } finally {
+      target.getClient().getEndpointMetrics().get(name).recordExecTime(
+              TimeUnit.NANOSECONDS.toMicros(TimeSource.nanoTime() - pc.getStartNanos()));
     }
   }
 
-  <T> CompletableFuture<T> submit(final Callable<T> what) {
+  <T> CompletableFuture<T> submit(final Callable<T> pwhat) {
+    Callable<T> what = cacheAware(pwhat);
     ExecutionContext current = ExecutionContexts.current();
-    HttpInvocations<T> hc = createCall(current, what);
-    HttpCallable<T> pc = hc.getPrimaryCall();
-    for (HttpCallable<T> call : hc.getBackgroundCalls()) {
-      submit(current, call);
-    }
-    return submit(current, pc);
+    String name = getName();
+    HttpCallable<T> pc = createCall(current, name, what);
+    CompletableFuture<T> result = submit(current, pc);
+    EndpointMetrics metrics = target.getClient().getEndpointMetrics().get(name);
+    result.whenComplete((r, t) -> metrics.recordExecTime(
+            TimeUnit.NANOSECONDS.toMicros(TimeSource.nanoTime() - pc.getStartNanos())));
+    return result;
   }
 
   private <T> CompletableFuture<T> submit(final ExecutionContext current, final HttpCallable<T> pc) {
@@ -191,12 +234,42 @@ public final class Spf4jInvocation implements Invocation, Wrapper<Invocation> {
 
   @Override
   public <T> T invoke(final Class<T> responseType) {
-    return invoke(() -> invocation.invoke(responseType));
+    return invoke(fullSchemaFallback(inv -> inv.invoke(responseType)), responseType);
   }
 
   @Override
   public <T> T invoke(final GenericType<T> responseType) {
-    return invoke(() -> invocation.invoke(responseType));
+    return invoke(fullSchemaFallback(inv -> inv.invoke(responseType)), responseType.getType());
+  }
+
+  /**
+   * @return a callable that repeats the call asking for the full schema, when the response schema fingerprint
+   * cannot be resolved. (see {@link SchemaFingerprintClientFilter})
+   * The full schema is requested via the attempt execution context, the invocation is shared by all attempts.
+   */
+  private <T> Callable<T> fullSchemaFallback(final Function<Invocation, T> call) {
+    return () -> {
+      try {
+        return call.apply(invocation);
+      } catch (RuntimeException ex) {
+        ExecutionContext ctx = ExecutionContexts.current();
+        if (ctx == null || UnknownSchemaFingerprintException.fromCausalChain(ex) == null) {
+          throw ex;
+        }
+        ctx.put(RequestContextTags.FULL_AVRO_SCHEMA, Boolean.TRUE);
+        return call.apply(invocation);
+      }
+    };
+  }
+
+  private <T> T invoke(final Callable<T> what, final Type responseType) {
+    if (dedupKey == null) {
+      return invoke(what);
+    }
+    long deadlineNanos = ExecutionContexts.computeDeadline(ExecutionContexts.current(),
+            execPolicy.getOverallTimeout().toNanos(), TimeUnit.NANOSECONDS);
+    return target.getClient().getInFlightRequests().invoke(dedupKey, responseType, deadlineNanos,
+            () -> invoke(what));
   }
 
   @Override
@@ -206,12 +279,12 @@ public final class Spf4jInvocation implements Invocation, Wrapper<Invocation> {
 
   @Override
   public <T> Future<T> submit(final Class<T> responseType) {
-    return submit(() -> invocation.invoke(responseType));
+    return submit(fullSchemaFallback(inv -> inv.invoke(responseType)));
   }
 
   @Override
   public <T> Future<T> submit(final GenericType<T> responseType) {
-    return submit(() -> invocation.invoke(responseType));
+    return submit(fullSchemaFallback(inv -> inv.invoke(responseType)));
   }
 
   @Override
@@ -241,9 +314,10 @@ public final class Spf4jInvocation implements Invocation, Wrapper<Invocation> {
         }
       });
     } else {
+      Callable<T> call = fullSchemaFallback(inv -> inv.invoke(new GenericType<>(callbackParamType)));
       return (Future<T>) submit(() -> {
         try {
-          T resp = invocation.invoke(new GenericType<>(callbackParamType));
+          T resp = call.call();
           callback.completed(resp);
           return resp;
         } catch (Throwable t) {
@@ -265,7 +339,7 @@ public final class Spf4jInvocation implements Invocation, Wrapper<Invocation> {
   public String toString() {
     return "Spf4jInvocation{" + "invocation=" + invocation + ", aexecutor="
             + aexecutor + ", target=" + target + ", execPOlicy=" + this.execPolicy
-            + ", method=" + method + '}';
+            + ", method=" + method + ", cached=" + cached + ", dedupKey=" + dedupKey + '}';
   }
 
 }
@@ -7,14 +7,19 @@ import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
 import javax.ws.rs.HttpMethod;
 import javax.ws.rs.client.CompletionStageRxInvoker;
 import javax.ws.rs.client.Entity;
@@ -23,6 +28,7 @@ import javax.ws.rs.client.RxInvoker;
 import javax.ws.rs.core.CacheControl;
 import javax.ws.rs.core.Cookie;
 import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedHashMap;
 import javax.ws.rs.core.MultivaluedMap;
@@ -36,6 +42,7 @@ import org.spf4j.failsafe.avro.RetryPolicy;
 import org.spf4j.failsafe.avro.TimeoutRelativeHedgePolicy;
 import org.spf4j.failsafe.concurrent.FailSafeExecutor;
 import org.spf4j.jaxrs.Utils;
+import org.spf4j.jaxrs.client.providers.ShadowTrafficClientFilter;
 import org.spf4j.service.avro.HttpExecutionPolicy;
 
 /**
@@ -46,6 +53,9 @@ public final class Spf4jInvocationBuilder implements Invocation.Builder {
 
 
   private static final String UTF8 = StandardCharsets.UTF_8.name();
+
+  private static final AtomicBoolean SHADOW_DISABLED_WARNED = new AtomicBoolean();
+
   private final Spf4JClient client;
   private final Invocation.Builder ib;
   private final Spf4jWebTarget target;
@@ -56,6 +66,25 @@ public final class Spf4jInvocationBuilder implements Invocation.Builder {
 
   private boolean addDefaultRetryPolicies;
 
+  /** the observed latency percentile to hedge at, null for no adaptive hedging. */
+  @Nullable
+  private Double hedgePercentile;
+
+  /** hedging enabled/disabled for this request, null for the default: only GET, HEAD and OPTIONS are hedged. */
+  @Nullable
+  private Boolean hedging;
+
+  /** the Accept header value, (as jersey will join it) tracked for the http cache key. */
+  @Nullable
+  private String accept;
+
+  /** deduplicate identical concurrent GETs. */
+  private boolean deduplicate;
+
+  /** the headers set via this builder, (name=value lines) tracked for the in flight request deduplication key. */
+  @Nullable
+  private StringBuilder headersKey;
+
   public Spf4jInvocationBuilder(final Spf4JClient client, final Invocation.Builder ib,
           final FailSafeExecutor executor,
           final Spf4jWebTarget target) {
@@ -76,6 +105,16 @@ public final class Spf4jInvocationBuilder implements Invocation.Builder {
       this.execPolicyBuilder.setOverallTimeout(defaultOverallTimeout);
       this.execPolicyBuilder.setAttemptTimeout(defaultOverallTimeout);
     }
+    Object dedup = client.getConfiguration().getProperty(Spf4jClientProperties.DEDUPLICATE_GETS);
+    this.deduplicate = dedup == null ? Boolean.getBoolean(Spf4jClientProperties.DEDUPLICATE_GETS)
+            : Boolean.parseBoolean(dedup.toString());
+    Number hedgePct = (Number) client.getConfiguration().getProperty(Spf4jClientProperties.HEDGE_PERCENTILE);
+    if (hedgePct != null) {
+      this.hedgePercentile = hedgePct.doubleValue();
+    } else {
+      String hedgePctStr = System.getProperty(Spf4jClientProperties.HEDGE_PERCENTILE);
+      this.hedgePercentile = hedgePctStr == null ? null : Double.valueOf(hedgePctStr);
+    }
   }
 
   public Spf4jWebTarget getTarget() {
@@ -168,6 +207,43 @@ public final class Spf4jInvocationBuilder implements Invocation.Builder {
     return this;
   }
 
+  /**
+   * Hedge at the observed latency percentile of the endpoint, within the client hedge budget.
+   * The hedge policy (if any) is used until there is enough latency data for the endpoint.
+   * @param percentile the latency percentile to hedge at. (0.95 for example)
+   * @return this builder.
+   */
+  public Spf4jInvocationBuilder withAdaptiveHedge(final double percentile) {
+    this.hedgePercentile = percentile;
+    return this;
+  }
+
+  /**
+   * Enable/disable hedging (duplicate attempts sent while the previous one is in flight) for this request.
+   * By default only GET, HEAD and OPTIONS requests are hedged, enable it only for idempotent requests.
+   * @param phedging enable/disable.
+   * @return this builder.
+   */
+  public Spf4jInvocationBuilder withHedging(final boolean phedging) {
+    this.hedging = phedging;
+    return this;
+  }
+
+  /**
+   * Deduplicate identical concurrent GETs (same URI, headers set via this builder, and response type):
+   * one network call is shared between the concurrent callers, each waiting up to its own deadline.
+   * Headers added by client filters (like a delegated Authorization) are not part of the key,
+   * only enable this for requests where the response does not depend on them.
+   * Only the synchronous invocations with a shareable response type are deduplicated,
+   * (immutable values and Avro records, not Response, InputStream, collections... see InFlightRequests.isShareable)
+   * @param pdeduplicate enable/disable. (default: the spf4j.j.c.dedup-gets client property)
+   * @return this builder.
+   */
+  public Spf4jInvocationBuilder withDeduplication(final boolean pdeduplicate) {
+    this.deduplicate = pdeduplicate;
+    return this;
+  }
+
   public Spf4jInvocationBuilder withRetryPolicy(final RetryPolicy policy) {
     this.execPolicyBuilder.setRetryPolicy(policy);
     return this;
@@ -180,8 +256,18 @@ public final class Spf4jInvocationBuilder implements Invocation.Builder {
 
   public AsyncRetryExecutor<Object, HttpCallable<?>> buildExecutor(final HttpExecutionPolicy policy,
           final FailSafeExecutor exec) {
+    return buildExecutor(policy, exec, null);
+  }
+
+  private AsyncRetryExecutor<Object, HttpCallable<?>> buildExecutor(final HttpExecutionPolicy policy,
+          final FailSafeExecutor exec, @Nullable final String method) {
     org.spf4j.failsafe.RetryPolicy.Builder<Object, HttpCallable<?>> builder
             = org.spf4j.failsafe.RetryPolicy.newBuilder();
+    RetryBudget retryBudget = client.getRetryBudgets().get(RetryBudget.destination(target.getUri()));
+    if (retryBudget != null) {
+      // first, so that it can veto the retries of the other predicates.
+      retryBudget.addTo(builder);
+    }
     RetryPolicy retryPolicy = policy.getRetryPolicy();
     if (retryPolicy != null) {
       try {
@@ -195,51 +281,134 @@ public final class Spf4jInvocationBuilder implements Invocation.Builder {
     if (addDefaultRetryPolicies) {
       Utils.addDefaultRetryPredicated(builder);
     }
+    if (!isHedged(method)) {
+      return org.spf4j.failsafe.RetryPolicy.async(c -> builder.build(), c -> HedgePolicy.NONE, exec);
+    }
     TimeoutRelativeHedgePolicy trp = policy.getHedgePolicy();
+    if (hedgePercentile != null && method != null) {
+      LatencySketch latencies = client.getEndpointLatencies().get(
+              Spf4jInvocation.getName(method, target));
+      HedgePolicy hedge = new AdaptiveHedge(latencies, hedgePercentile, 1, client.getHedgeBudget(),
+              trp == null ? HedgePolicy.NONE : new TimeoutRelativeHedge(trp));
+      return org.spf4j.failsafe.RetryPolicy.async(c -> builder.build(), c -> hedge, exec);
+    }
     return org.spf4j.failsafe.RetryPolicy.async(c -> builder.build(),
            trp == null ? c -> HedgePolicy.NONE : c -> new TimeoutRelativeHedge(trp), exec);
   }
 
+  /**
+   * @param method the http method, null if not known. (executor built for an arbitrary method)
+   */
+  private boolean isHedged(@Nullable final String method) {
+    if (hedging != null) {
+      return hedging;
+    }
+    return method == null || HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method)
+            || HttpMethod.OPTIONS.equals(method);
+  }
+
+  /**
+   * @return the budget the hedges of this request are charged to, null if not adaptively hedged.
+   */
+  @Nullable
+  private AdaptiveHedge.Budget hedgeBudget(final String method) {
+    return hedgePercentile != null && isHedged(method) ? client.getHedgeBudget() : null;
+  }
+
+  private boolean isCached(final String method) {
+    return client.getHttpCache() != null && HttpMethod.GET.equals(method);
+  }
+
+  private void trackAccept(final String value) {
+    accept = accept == null ? value : accept + ',' + value;
+  }
+
+  @Nullable
+  private String dedupKey(final String method) {
+    if (!deduplicate || !HttpMethod.GET.equals(method)) {
+      return null;
+    }
+    String uriAccept = HttpCache.key(target.getUri(), accept);
+    return headersKey == null ? uriAccept : uriAccept + '\n' + headersKey;
+  }
+
+  private void trackHeader(final String name, @Nullable final Object value) {
+    if (headersKey == null) {
+      headersKey = new StringBuilder(64);
+    }
+    headersKey.append(name).append('=').append(value).append('\n');
+  }
+
+  /**
+   * @return the shadow invocation factory, null if there is no shadow traffic configured,
+   * or if shadow traffic is not enabled for the client.
+   */
+  @Nullable
+  private Function<URI, Invocation> shadowFactory(final HttpExecutionPolicy execPolicy,
+          final Supplier<Invocation> invocation) {
+    if (execPolicy.getShadowTraffic().isEmpty()) {
+      return null;
+    }
+    if (client.getShadowTraffic() == null) {
+      if (!SHADOW_DISABLED_WARNED.getAndSet(true)) {
+        Logger log = Logger.getLogger(Spf4jInvocation.class.getName());
+        log.log(Level.WARNING, "Shadow traffic configured in {0} but not enabled, see {1}",
+                new Object[]{execPolicy, Spf4jClientProperties.SHADOW_MAX_CONCURRENCY});
+      }
+      return null;
+    }
+    return uri -> invocation.get().property(ShadowTrafficClientFilter.SHADOW_URI_PROP, uri);
+  }
+
   @Override
   public Spf4jInvocation build(final String method) {
     HttpExecutionPolicy execPolicy = getExecPolicy(method);
-    return new Spf4jInvocation(ib.build(method), execPolicy, buildExecutor(execPolicy, executor), this.target,
-            method);
+    return new Spf4jInvocation(ib.build(method), execPolicy, buildExecutor(execPolicy, executor, method),
+            this.target, method, isCached(method), shadowFactory(execPolicy, () -> ib.build(method)),
+            dedupKey(method), hedgeBudget(method));
   }
 
   @Override
   public Spf4jInvocation build(final String method, final Entity<?> entity) {
     HttpExecutionPolicy execPolicy = getExecPolicy(method);
     return new Spf4jInvocation(ib.build(method, entity), execPolicy,
-            buildExecutor(execPolicy, executor), this.target, method);
+            buildExecutor(execPolicy, executor, method), this.target, method, false,
+            shadowFactory(execPolicy, () -> ib.build(method, entity)), null, hedgeBudget(method));
   }
 
   @Override
   public Spf4jInvocation buildGet() {
     HttpExecutionPolicy execPolicy = getExecPolicy(HttpMethod.GET);
     return new Spf4jInvocation(ib.buildGet(), execPolicy,
-            buildExecutor(execPolicy, executor), this.target, HttpMethod.GET);
+            buildExecutor(execPolicy, executor, HttpMethod.GET), this.target, HttpMethod.GET, isCached(HttpMethod.GET),
+            shadowFactory(execPolicy, ib::buildGet), dedupKey(HttpMethod.GET), hedgeBudget(HttpMethod.GET));
   }
 
   @Override
   public Spf4jInvocation buildDelete() {
     HttpExecutionPolicy execPolicy = getExecPolicy(HttpMethod.DELETE);
     return new Spf4jInvocation(ib.buildDelete(), execPolicy,
-            buildExecutor(execPolicy, executor), this.target, HttpMethod.DELETE);
+            buildExecutor(execPolicy, executor, HttpMethod.DELETE), this.target, HttpMethod.DELETE, false,
+            shadowFactory(execPolicy, ib::buildDelete), null,
+            hedgeBudget(HttpMethod.DELETE));
   }
 
   @Override
   public Spf4jInvocation buildPost(final Entity<?> entity) {
     HttpExecutionPolicy execPolicy = getExecPolicy(HttpMethod.POST);
     return new Spf4jInvocation(ib.buildPost(entity), execPolicy,
-            buildExecutor(execPolicy, executor), this.target, HttpMethod.POST);
+            buildExecutor(execPolicy, executor, HttpMethod.POST), this.target, HttpMethod.POST, false,
+            shadowFactory(execPolicy, () -> ib.buildPost(entity)), null,
+            hedgeBudget(HttpMethod.POST));
   }
 
   @Override
   public Spf4jInvocation buildPut(final Entity<?> entity) {
     HttpExecutionPolicy execPolicy = getExecPolicy(HttpMethod.PUT);
     return new Spf4jInvocation(ib.buildPut(entity), execPolicy,
-            buildExecutor(execPolicy, executor), this.target, HttpMethod.PUT);
+            buildExecutor(execPolicy, executor, HttpMethod.PUT), this.target, HttpMethod.PUT, false,
+            shadowFactory(execPolicy, () -> ib.buildPut(entity)), null,
+            hedgeBudget(HttpMethod.PUT));
   }
 
   @Override
@@ -251,6 +420,7 @@ public final class Spf4jInvocationBuilder implements Invocation.Builder {
   public Invocation.Builder accept(final String... mediaTypes) {
     Invocation.Builder builder = ib.accept(mediaTypes);
     if (builder == ib) {
+      trackAccept(String.join(",", mediaTypes));
       return this;
     } else {
       return new Spf4jInvocationBuilder(client, builder, executor, target);
@@ -261,6 +431,9 @@ public final class Spf4jInvocationBuilder implements Invocation.Builder {
   public Invocation.Builder accept(final MediaType... mediaTypes) {
     Invocation.Builder builder = ib.accept(mediaTypes);
     if (builder == ib) {
+      for (MediaType mt : mediaTypes) {
+        trackAccept(mt.toString());
+      }
       return this;
     } else {
       return new Spf4jInvocationBuilder(client, builder, executor, target);
@@ -271,6 +444,7 @@ public final class Spf4jInvocationBuilder implements Invocation.Builder {
   public Invocation.Builder acceptLanguage(final Locale... locales) {
     Invocation.Builder builder = ib.acceptLanguage(locales);
     if (builder == ib) {
+      trackHeader(HttpHeaders.ACCEPT_LANGUAGE, Arrays.toString(locales));
       return this;
     } else {
       return new Spf4jInvocationBuilder(client, builder, executor, target);
@@ -281,6 +455,7 @@ public final class Spf4jInvocationBuilder implements Invocation.Builder {
   public Invocation.Builder acceptLanguage(final String... locales) {
     Invocation.Builder builder = ib.acceptLanguage(locales);
     if (builder == ib) {
+      trackHeader(HttpHeaders.ACCEPT_LANGUAGE, String.join(",", locales));
       return this;
     } else {
       return new Spf4jInvocationBuilder(client, builder, executor, target);
@@ -291,6 +466,7 @@ public final class Spf4jInvocationBuilder implements Invocation.Builder {
   public Invocation.Builder acceptEncoding(final String... encodings) {
     Invocation.Builder builder = ib.acceptEncoding(encodings);
     if (builder == ib) {
+      trackHeader(HttpHeaders.ACCEPT_ENCODING, String.join(",", encodings));
       return this;
     } else {
       return new Spf4jInvocationBuilder(client, builder, executor, target);
@@ -301,6 +477,7 @@ public final class Spf4jInvocationBuilder implements Invocation.Builder {
   public Invocation.Builder cookie(final Cookie cookie) {
     Invocation.Builder builder = ib.cookie(cookie);
     if (builder == ib) {
+      trackHeader(HttpHeaders.COOKIE, cookie);
       return this;
     } else {
       return new Spf4jInvocationBuilder(client, builder, executor, target);
@@ -311,6 +488,7 @@ public final class Spf4jInvocationBuilder implements Invocation.Builder {
   public Invocation.Builder cookie(final String name, final String value) {
     Invocation.Builder builder = ib.cookie(name, value);
     if (builder == ib) {
+      trackHeader(HttpHeaders.COOKIE, name + '=' + value);
       return this;
     } else {
       return new Spf4jInvocationBuilder(client, builder, executor, target);
@@ -321,6 +499,7 @@ public final class Spf4jInvocationBuilder implements Invocation.Builder {
   public Invocation.Builder cacheControl(final CacheControl cacheControl) {
     Invocation.Builder builder = ib.cacheControl(cacheControl);
     if (builder == ib) {
+      trackHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
       return this;
     } else {
       return new Spf4jInvocationBuilder(client, builder, executor, target);
@@ -329,9 +508,17 @@ public final class Spf4jInvocationBuilder implements Invocation.Builder {
 
   @Override
   public Invocation.Builder header(final String name, final Object value) {
-    Invocation.Builder builder = ib.header(name, Spf4JClient.convert(
-            Spf4JClient.getParamConverters(this.getTarget().getConfiguration()), value));
+    Object cValue = Spf4JClient.convert(Spf4JClient.getParamConverters(this.getTarget().getConfiguration()), value);
+    Invocation.Builder builder = ib.header(name, cValue);
     if (builder == ib) {
+      trackHeader(name, cValue);
+      if (HttpHeaders.ACCEPT.equalsIgnoreCase(name)) {
+        if (cValue == null) {
+          accept = null;
+        } else {
+          trackAccept(cValue.toString());
+        }
+      }
       return this;
     } else {
       return new Spf4jInvocationBuilder(client, builder, executor, target);
@@ -355,6 +542,17 @@ public final class Spf4jInvocationBuilder implements Invocation.Builder {
     }
     Invocation.Builder builder = ib.headers(map == null ? headers : map);
     if (builder == ib) {
+      headersKey = null;
+      for (Map.Entry<String, List<Object>> entry : headers.entrySet()) {
+        trackHeader(entry.getKey(), entry.getValue());
+      }
+      accept = null;
+      List<Object> acceptValues = headers.get(HttpHeaders.ACCEPT);
+      if (acceptValues != null) {
+        for (Object value : acceptValues) {
+          trackAccept(value.toString());
+        }
+      }
       return this;
     } else {
       return new Spf4jInvocationBuilder(client, builder, executor, target);
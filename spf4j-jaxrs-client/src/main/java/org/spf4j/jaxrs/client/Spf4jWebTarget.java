@@ -2,6 +2,7 @@ package org.spf4j.jaxrs.client;
 
 import java.net.URI;
 import java.util.Map;
+import javax.annotation.Nullable;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.Configuration;
 import javax.ws.rs.core.MediaType;
@@ -19,11 +20,50 @@ public final class Spf4jWebTarget implements WebTarget {
 
   private final Spf4JClient client;
 
+  /** the path template (before template resolution), lazily computed. */
+  @Nullable
+  private String pathTemplate;
+
   public Spf4jWebTarget(final Spf4JClient client,
           final WebTarget tg, final FailSafeExecutor executor) {
+    this(client, tg, executor, null);
+  }
+
+  private Spf4jWebTarget(final Spf4JClient client,
+          final WebTarget tg, final FailSafeExecutor executor, @Nullable final String pathTemplate) {
     this.tg = tg;
     this.client = client;
     this.executor = executor;
+    this.pathTemplate = pathTemplate;
+  }
+
+  /**
+   * @return the path template of this target, before template resolution.
+   * (/users/{id} for target.path("users/{id}").resolveTemplate("id", 1), the route used for the client metrics)
+   */
+  public String getPathTemplate() {
+    String result = pathTemplate;
+    if (result == null) {
+      result = toPathTemplate(tg.getUriBuilder().toTemplate());
+      pathTemplate = result;
+    }
+    return result;
+  }
+
+  static String toPathTemplate(final String uriTemplate) {
+    int schemeIdx = uriTemplate.indexOf("://");
+    int from = schemeIdx < 0 ? 0 : uriTemplate.indexOf('/', schemeIdx + 3);
+    if (from < 0) {
+      return "";
+    }
+    int to = uriTemplate.indexOf('?', from);
+    if (to < 0) {
+      to = uriTemplate.indexOf('#', from);
+      if (to < 0) {
+        return uriTemplate.substring(from);
+      }
+    }
+    return uriTemplate.substring(from, to);
   }
 
   public Spf4JClient getClient() {
@@ -47,17 +87,18 @@ public final class Spf4jWebTarget implements WebTarget {
 
   @Override
   public Spf4jWebTarget resolveTemplate(final String name, final Object value) {
-    return new Spf4jWebTarget(client, tg.resolveTemplate(name, value), executor);
+    return new Spf4jWebTarget(client, tg.resolveTemplate(name, value), executor, getPathTemplate());
   }
 
   @Override
   public Spf4jWebTarget resolveTemplate(final String name, final Object value, final boolean encodeSlashInPath) {
-    return new Spf4jWebTarget(client, tg.resolveTemplate(name, value, encodeSlashInPath), executor);
+    return new Spf4jWebTarget(client, tg.resolveTemplate(name, value, encodeSlashInPath), executor,
+            getPathTemplate());
   }
 
   @Override
   public Spf4jWebTarget resolveTemplateFromEncoded(final String name, final Object value) {
-    return new Spf4jWebTarget(client, tg.resolveTemplateFromEncoded(name, value), executor);
+    return new Spf4jWebTarget(client, tg.resolveTemplateFromEncoded(name, value), executor, getPathTemplate());
   }
 
   @Override
@@ -65,7 +106,7 @@ public final class Spf4jWebTarget implements WebTarget {
     if (templateValues.isEmpty()) {
       return this;
     }
-    return new Spf4jWebTarget(client, tg.resolveTemplates(templateValues), executor);
+    return new Spf4jWebTarget(client, tg.resolveTemplates(templateValues), executor, getPathTemplate());
   }
 
   @Override
@@ -73,7 +114,8 @@ public final class Spf4jWebTarget implements WebTarget {
     if (templateValues.isEmpty()) {
       return this;
     }
-    return new Spf4jWebTarget(client, tg.resolveTemplates(templateValues, encodeSlashInPath), executor);
+    return new Spf4jWebTarget(client, tg.resolveTemplates(templateValues, encodeSlashInPath), executor,
+            getPathTemplate());
   }
 
   @Override
@@ -81,7 +123,7 @@ public final class Spf4jWebTarget implements WebTarget {
     if (templateValues.isEmpty()) {
       return this;
     }
-    return new Spf4jWebTarget(client, tg.resolveTemplatesFromEncoded(templateValues), executor);
+    return new Spf4jWebTarget(client, tg.resolveTemplatesFromEncoded(templateValues), executor, getPathTemplate());
   }
 
   @Override
@@ -95,7 +137,7 @@ public final class Spf4jWebTarget implements WebTarget {
   public Spf4jWebTarget queryParam(final String name, final Object... values) {
     return new Spf4jWebTarget(client, tg.queryParam(name,
             Spf4JClient.convert(Spf4JClient.getParamConverters(getConfiguration()), values)),
-            executor);
+            executor, pathTemplate);
   }
 
   @Override
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.client.providers;
+
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+import org.glassfish.jersey.client.ClientProperties;
+import org.spf4j.jaxrs.common.providers.encoding.ContentCodec;
+import org.spf4j.jaxrs.common.providers.encoding.ContentCodecs;
+
+/**
+ * Client filter that advertises the content codings we can decode (Accept-Encoding),
+ * and if the {@link ClientProperties#USE_ENCODING} property is set, will encode request entities with it.
+ * (replaces jersey EncodingFilter, works together with the ContentCodecInterceptor)
+ *
+ * @author Zoltan Farkas
+ */
+@Priority(Priorities.HEADER_DECORATOR)
+@Provider
+public final class AcceptEncodingClientFilter implements ClientRequestFilter {
+
+  private final ContentCodecs codecs;
+
+  public AcceptEncodingClientFilter() {
+    this(ContentCodecs.getDefault());
+  }
+
+  public AcceptEncodingClientFilter(final ContentCodecs codecs) {
+    this.codecs = codecs;
+  }
+
+  @Override
+  public void filter(final ClientRequestContext request) {
+    MultivaluedMap<String, Object> headers = request.getHeaders();
+    if (!headers.containsKey(HttpHeaders.ACCEPT_ENCODING)) {
+      String acceptEncoding = codecs.getAcceptEncoding();
+      if (!acceptEncoding.isEmpty()) {
+        headers.putSingle(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+      }
+    }
+    if (request.hasEntity() && !headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+      Object useEncoding = request.getConfiguration().getProperty(ClientProperties.USE_ENCODING);
+      if (useEncoding != null) {
+        ContentCodec codec = codecs.getEncoder(useEncoding.toString());
+        if (codec != null) {
+          headers.putSingle(HttpHeaders.CONTENT_ENCODING, codec.getName());
+        }
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "AcceptEncodingClientFilter{" + "codecs=" + codecs + '}';
+  }
+
+}
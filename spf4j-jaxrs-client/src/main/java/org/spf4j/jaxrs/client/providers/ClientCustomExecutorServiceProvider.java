@@ -6,6 +6,7 @@ import javax.ws.rs.ext.Provider;
 import org.glassfish.jersey.client.ClientAsyncExecutor;
 import org.spf4j.jaxrs.Utils;
 import org.spf4j.jaxrs.common.executors.CustomExecutorServiceProvider;
+import org.spf4j.jaxrs.common.executors.ExecutorStrategy;
 
 /**
  * @author Zoltan Farkas
@@ -20,7 +21,9 @@ public final class ClientCustomExecutorServiceProvider extends CustomExecutorSer
             Utils.getIntConfigValue(cfg, "jersey.client.exec.maxSize", 256),
             Utils.getIntConfigValue(cfg, "jersey.client.exec.maxIdleMIllis", 120000),
             Utils.getIntConfigValue(cfg, "jersey.cleanShutdownWaitMillis", 300000),
-            Utils.getStringConfigValue(cfg, "jersey.client.exec.name", "clt-masync"));
+            Utils.getStringConfigValue(cfg, "jersey.client.exec.name", "clt-masync"),
+            ExecutorStrategy.valueOf(Utils.getStringConfigValue(cfg, "jersey.client.exec.strategy", "LIFO")),
+            Utils.getIntConfigValue(cfg, "jersey.client.exec.queueSize", 1024));
   }
 
 
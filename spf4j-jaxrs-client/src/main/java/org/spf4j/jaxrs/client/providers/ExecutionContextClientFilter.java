@@ -28,6 +28,8 @@ import org.spf4j.base.TimeSource;
 import org.spf4j.http.DeadlineProtocol;
 import org.spf4j.http.Headers;
 import org.spf4j.http.HttpWarning;
+import org.spf4j.http.RequestContextTags;
+import org.spf4j.http.ServerTiming;
 import org.spf4j.log.ExecContextLogger;
 import org.spf4j.log.LogAttribute;
 
@@ -86,20 +88,45 @@ public final class ExecutionContextClientFilter implements ClientRequestFilter,
   @SuppressFBWarnings("PRMC_POSSIBLY_REDUNDANT_METHOD_CALLS")
   public void filter(final ClientRequestContext requestContext, final ClientResponseContext responseContext)
           throws IOException {
+    ExecutionContext reqCtx = ExecutionContexts.current();
+    long execTimeNanos = TimeSource.nanoTime() - reqCtx.getStartTimeNanos();
+    addServerTimings(reqCtx, requestContext, responseContext, execTimeNanos);
     List<String> warnings = responseContext.getHeaders().get(Headers.WARNING);
     if (warnings != null && !warnings.isEmpty()) {
       List<HttpWarning> pws = warnings.stream().map((w) ->  HttpWarning.parse(w))
               .collect(Collectors.toCollection(() -> new ArrayList<>(warnings.size())));
-      ExecutionContext reqCtx = ExecutionContexts.current();
       LOG.warn("Done {}", requestContext.getUri(),
         LogAttribute.of("warnings", pws),
         LogAttribute.value("httpStatus", responseContext.getStatus()),
-        LogAttribute.execTimeMicros(TimeSource.nanoTime() - reqCtx.getStartTimeNanos(), TimeUnit.NANOSECONDS));
+        LogAttribute.execTimeMicros(execTimeNanos, TimeUnit.NANOSECONDS));
     } else if (LOG.isDebugEnabled()) {
-      ExecutionContext reqCtx = ExecutionContexts.current();
       LOG.debug("Done {}", requestContext.getUri(),
         LogAttribute.value("httpStatus", responseContext.getStatus()),
-        LogAttribute.execTimeMicros(TimeSource.nanoTime() - reqCtx.getStartTimeNanos(), TimeUnit.NANOSECONDS));
+        LogAttribute.execTimeMicros(execTimeNanos, TimeUnit.NANOSECONDS));
+    }
+  }
+
+  /**
+   * Attach the downstream call time (downstream;dur=..;desc=host), and the downstream Server-Timing metrics
+   * (prefixed with ds.) to the current context, they roll up into the caller's Server-Timing and request log.
+   */
+  private static void addServerTimings(final ExecutionContext reqCtx, final ClientRequestContext requestContext,
+          final ClientResponseContext responseContext, final long execTimeNanos) {
+    reqCtx.accumulateComponent(RequestContextTags.SERVER_TIMINGS,
+            new ServerTiming.ServerTimingMetric("downstream", TimeUnit.NANOSECONDS.toMicros(execTimeNanos) / 1000.0,
+                    requestContext.getUri().getHost()));
+    List<String> timings = responseContext.getHeaders().get(Headers.SERVER_TIMING);
+    if (timings == null) {
+      return;
+    }
+    for (String timing : timings) {
+      try {
+        for (ServerTiming.ServerTimingMetric metric : ServerTiming.parse(timing).getMetrics()) {
+          reqCtx.accumulateComponent(RequestContextTags.SERVER_TIMINGS, metric.withNamePrefix("ds."));
+        }
+      } catch (IllegalArgumentException ex) {
+        LOG.debug("Invalid Server-Timing header {}", timing, ex);
+      }
     }
   }
 
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.client.providers;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.annotation.Nullable;
+import javax.annotation.Priority;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.client.ClientResponseFilter;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.client.InvocationCallback;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.spf4j.base.ExecutionContext;
+import org.spf4j.base.ExecutionContexts;
+import org.spf4j.base.TimeSource;
+import org.spf4j.http.RequestContextTags;
+import org.spf4j.jaxrs.client.HttpCache;
+import org.spf4j.jaxrs.client.Spf4jClientProperties;
+
+/**
+ * Client side HTTP cache filter for GET requests. (see {@link HttpCache})
+ * <ul>
+ * <li>Fresh responses, and stale responses within their stale-while-revalidate window, are served from the cache,
+ * in the later case a background revalidation is triggered.</li>
+ * <li>Expired responses with an ETag are revalidated with If-None-Match, a 304 is served from the cache.</li>
+ * <li>Concurrent misses for the same URI + Accept + credentials wait for the first request (single flight),
+ * up until their deadline.</li>
+ * </ul>
+ * The request filter runs after the header decorators, (the cache key includes the credentials added by the
+ * authentication filters), and the response filter should run after all the other response filters.
+ * (see {@link org.spf4j.jaxrs.client.Spf4JClient#withHttpCache(HttpCache)})
+ * Requests with Cache-Control: no-cache, and shadow requests are not served from the cache.
+ *
+ * @author Zoltan Farkas
+ */
+@Priority(Priorities.HEADER_DECORATOR + 100)
+public final class HttpCacheClientFilter implements ClientRequestFilter, ClientResponseFilter {
+
+  private static final Logger LOG = LoggerFactory.getLogger(HttpCacheClientFilter.class);
+
+  private static final String KEY_PROP = "spf4j.httpCache.key";
+
+  private static final String FLIGHT_PROP = "spf4j.httpCache.flight";
+
+  private static final String ENTRY_PROP = "spf4j.httpCache.entry";
+
+  private static final String REVALIDATE_PROP = "spf4j.httpCache.revalidate";
+
+  private static final long DEFAULT_WAIT_NANOS = Long.getLong(Spf4jClientProperties.TIMEOUT_NANOS, 30000000000L);
+
+  private final HttpCache cache;
+
+  public HttpCacheClientFilter(final HttpCache cache) {
+    this.cache = cache;
+  }
+
+  @Override
+  public void filter(final ClientRequestContext request) {
+    if (!HttpMethod.GET.equals(request.getMethod())
+            || request.getProperty(ShadowTrafficClientFilter.SHADOW_URI_PROP) != null) {
+      return;
+    }
+    String key = HttpCache.key(request.getUri(), request.getHeaderString(HttpHeaders.ACCEPT),
+            credentials(request));
+    HttpCache.Entry revalidate = (HttpCache.Entry) request.getProperty(REVALIDATE_PROP);
+    if (revalidate != null) {
+      request.setProperty(KEY_PROP, key);
+      if (revalidate.getEtag() != null) {
+        request.setProperty(ENTRY_PROP, revalidate);
+        request.getHeaders().putSingle(HttpHeaders.IF_NONE_MATCH, revalidate.getEtag());
+      }
+      return;
+    }
+    HttpCache.Entry entry = null;
+    if (!isNoCache(request.getHeaderString(HttpHeaders.CACHE_CONTROL))) {
+      entry = cache.get(key);
+      if (entry != null && !entry.matches(request::getHeaderString)) {
+        entry = null; // a different variant.
+      }
+      long now = System.currentTimeMillis();
+      if (entry != null) {
+        if (entry.isFresh(now)) {
+          abortWithCached(request, entry.toResponse(now));
+          return;
+        }
+        if (entry.isServable(now)) {
+          revalidate(request, entry);
+          abortWithCached(request, entry.toResponse(now));
+          return;
+        }
+      }
+      Object token = request.getProperty(HttpCache.FLIGHT_TOKEN_PROP);
+      if (token == null) {
+        token = new Object();
+        request.setProperty(HttpCache.FLIGHT_TOKEN_PROP, token);
+      }
+      HttpCache.Flight flight = cache.joinFlight(key, token);
+      if (!flight.isLeader(token)) {
+        HttpCache.Entry result = await(flight);
+        if (result != null && result.matches(request::getHeaderString)) {
+          abortWithCached(request, result.toResponse(System.currentTimeMillis()));
+          return;
+        }
+      } else {
+        request.setProperty(FLIGHT_PROP, flight);
+      }
+    }
+    request.setProperty(KEY_PROP, key);
+    if (entry != null && entry.getEtag() != null) {
+      request.setProperty(ENTRY_PROP, entry);
+      request.getHeaders().putSingle(HttpHeaders.IF_NONE_MATCH, entry.getEtag());
+    }
+  }
+
+  @Override
+  public void filter(final ClientRequestContext request, final ClientResponseContext response) throws IOException {
+    String key = (String) request.getProperty(KEY_PROP);
+    if (key == null) {
+      return;
+    }
+    HttpCache.Flight flight = (HttpCache.Flight) request.getProperty(FLIGHT_PROP);
+    HttpCache.Entry entry = (HttpCache.Entry) request.getProperty(ENTRY_PROP);
+    HttpCache.Entry result = null;
+    try {
+      int status = response.getStatus();
+      long now = System.currentTimeMillis();
+      if (status == Response.Status.NOT_MODIFIED.getStatusCode() && entry != null) {
+        result = entry.revalidated(response.getHeaders(), now);
+        cache.put(key, result);
+        response.setStatus(Response.Status.OK.getStatusCode());
+        MultivaluedMap<String, String> headers = response.getHeaders();
+        for (Map.Entry<String, List<String>> header : result.getHeaders().entrySet()) {
+          headers.put(header.getKey(), header.getValue());
+        }
+        response.setEntityStream(result.getContentStream());
+      } else if (status == Response.Status.OK.getStatusCode()) {
+        result = store(key, request, response, now);
+      }
+    } finally {
+      if (flight != null) {
+        cache.endFlight(key, flight, result);
+      }
+    }
+  }
+
+  @Nullable
+  @SuppressWarnings("checkstyle:InnerAssignment")
+  private HttpCache.Entry store(final String key, final ClientRequestContext request,
+          final ClientResponseContext response, final long now) throws IOException {
+    MultivaluedMap<String, String> headers = response.getHeaders();
+    int maxBytes = cache.getMaxEntryBytes();
+    if (!HttpCache.Entry.isCacheable(headers) || response.getLength() > maxBytes || !response.hasEntity()) {
+      return null;
+    }
+    InputStream is = response.getEntityStream();
+    byte[] buffer = new byte[response.getLength() >= 0 ? response.getLength() + 1 : Math.min(maxBytes + 1, 8192)];
+    int size = 0;
+    int read;
+    while ((read = is.read(buffer, size, buffer.length - size)) >= 0) {
+      size += read;
+      if (size == buffer.length) {
+        if (size > maxBytes) {
+          // too large, pass through what we read so far + the rest.
+          response.setEntityStream(new SequenceInputStream(new ByteArrayInputStream(buffer, 0, size), is));
+          return null;
+        }
+        buffer = Arrays.copyOf(buffer, Math.min(maxBytes + 1, size * 2));
+      }
+    }
+    is.close();
+    byte[] content = size == buffer.length ? buffer : Arrays.copyOf(buffer, size);
+    response.setEntityStream(new ByteArrayInputStream(content));
+    HttpCache.Entry result = HttpCache.Entry.create(content, headers, request::getHeaderString, now);
+    if (result != null) {
+      cache.put(key, result);
+    }
+    return result;
+  }
+
+  /**
+   * Wait for the in progress request for the same key.
+   * @return the result of the in progress request or null if it failed (the caller will go to the network).
+   */
+  @Nullable
+  private HttpCache.Entry await(final HttpCache.Flight flight) {
+    ExecutionContext ctx = ExecutionContexts.current();
+    long waitNanos = ctx == null ? DEFAULT_WAIT_NANOS : ctx.getDeadlineNanos() - TimeSource.nanoTime();
+    try {
+      return flight.get(waitNanos, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (ExecutionException ex) {
+      return null;
+    } catch (TimeoutException ex) {
+      // only the leader ends its flight, this request goes to the network.
+      return null;
+    }
+  }
+
+  /**
+   * Serve the request from the cache, flagging the call attempt as a cache hit. (see RequestContextTags.HTTP_CACHE_HIT)
+   */
+  private static void abortWithCached(final ClientRequestContext request, final Response response) {
+    ExecutionContext ctx = ExecutionContexts.current();
+    if (ctx != null) {
+      ctx.put(RequestContextTags.HTTP_CACHE_HIT, Boolean.TRUE);
+    }
+    request.abortWith(response);
+  }
+
+  private static void revalidate(final ClientRequestContext request, final HttpCache.Entry entry) {
+    if (!entry.startRevalidation()) {
+      return;
+    }
+    Invocation.Builder builder = request.getClient().target(request.getUri()).request();
+    for (Map.Entry<String, List<Object>> header : request.getHeaders().entrySet()) {
+      String name = header.getKey();
+      for (Object value : header.getValue()) {
+        builder.header(name, value);
+      }
+    }
+    builder.property(REVALIDATE_PROP, entry).async().get(new InvocationCallback<Response>() {
+      @Override
+      public void completed(final Response response) {
+        // the response filter has updated the cache.
+        entry.endRevalidation();
+        response.close();
+      }
+
+      @Override
+      public void failed(final Throwable throwable) {
+        entry.endRevalidation();
+        LOG.debug("Failed to revalidate {}", request.getUri(), throwable);
+      }
+    });
+  }
+
+  /**
+   * @return the request credentials, that are part of the cache key.
+   */
+  @Nullable
+  private static String credentials(final ClientRequestContext request) {
+    String authorization = request.getHeaderString(HttpHeaders.AUTHORIZATION);
+    String cookie = request.getHeaderString(HttpHeaders.COOKIE);
+    if (authorization == null) {
+      return cookie;
+    }
+    return cookie == null ? authorization : authorization + '\n' + cookie;
+  }
+
+  private static boolean isNoCache(@Nullable final String cacheControl) {
+    return cacheControl != null && cacheControl.contains("no-cache");
+  }
+
+  @Override
+  public String toString() {
+    return "HttpCacheClientFilter{" + "cache=" + cache + '}';
+  }
+
+}
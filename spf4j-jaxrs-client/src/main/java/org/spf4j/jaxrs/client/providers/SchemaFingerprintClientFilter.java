@@ -0,0 +1,184 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.client.providers;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.client.ClientResponseFilter;
+import javax.ws.rs.client.InvocationCallback;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Link;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.UriBuilder;
+import org.apache.avro.Schema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.spf4j.base.ExecutionContext;
+import org.spf4j.base.ExecutionContexts;
+import org.spf4j.http.RequestContextTags;
+import org.spf4j.jaxrs.common.providers.avro.FingerprintSchemaProtocol;
+import org.spf4j.jaxrs.common.providers.avro.SchemaFingerprints;
+
+/**
+ * Client filter that:
+ * <ul>
+ * <li>declares the support for schema fingerprints in the accepted avro media types,
+ * unless the {@link #FULL_SCHEMA_PROPERTY} request property, or the {@link RequestContextTags#FULL_AVRO_SCHEMA}
+ * tag of the current (attempt) execution context is true.</li>
+ * <li>learns the unknown schema fingerprints of responses, from the schema fingerprint endpoint of the server
+ * that sent them. The endpoint is the {@link #SCHEMA_FINGERPRINTS_REL} link of the response, (relative to the
+ * request uri, so that it works for services behind a path prefix) or if the server does not send it,
+ * {scheme}://{host}:{port}/{schemaPath}/. The schema is fetched asynchronously, and is only registered if its
+ * fingerprint matches. The response with the unknown fingerprint will fail with a
+ * {@link org.spf4j.jaxrs.common.providers.avro.UnknownSchemaFingerprintException} when read,
+ * and the call is repeated asking for the full schema. (see {@link org.spf4j.jaxrs.client.Spf4jInvocation})</li>
+ * </ul>
+ * To be used together with the {@link FingerprintSchemaProtocol}.
+ *
+ * @author Zoltan Farkas
+ */
+@Priority(Priorities.HEADER_DECORATOR)
+public final class SchemaFingerprintClientFilter implements ClientRequestFilter, ClientResponseFilter {
+
+  /** request property, when true the full schema is requested instead of the fingerprint. */
+  public static final String FULL_SCHEMA_PROPERTY = "spf4j.avro.fullSchema";
+
+  /** the relation of the response link to the schema fingerprint endpoint. */
+  public static final String SCHEMA_FINGERPRINTS_REL = "avscfp";
+
+  private static final Logger LOG = LoggerFactory.getLogger(SchemaFingerprintClientFilter.class);
+
+  private final SchemaFingerprints fingerprints;
+
+  private final String schemaPath;
+
+  /** the fingerprints that are being fetched. */
+  private final Set<Long> fetching;
+
+  public SchemaFingerprintClientFilter() {
+    this(SchemaFingerprints.getDefault(), "avro/schemas/fingerprints");
+  }
+
+  public SchemaFingerprintClientFilter(final SchemaFingerprints fingerprints, final String schemaPath) {
+    this.fingerprints = fingerprints;
+    this.schemaPath = schemaPath;
+    this.fetching = ConcurrentHashMap.newKeySet();
+  }
+
+  @Override
+  public void filter(final ClientRequestContext request) {
+    if (Boolean.TRUE.equals(request.getProperty(FULL_SCHEMA_PROPERTY)) || isFullSchemaRequested()) {
+      return;
+    }
+    List<MediaType> acceptable = request.getAcceptableMediaTypes();
+    List<Object> result = null;
+    for (int i = 0, l = acceptable.size(); i < l; i++) {
+      MediaType mt = acceptable.get(i);
+      if (isAvro(mt)) {
+        if (result == null) {
+          result = new ArrayList<>(acceptable.subList(0, i));
+        }
+        result.add(FingerprintSchemaProtocol.accepting(mt));
+      } else if (result != null) {
+        result.add(mt);
+      }
+    }
+    if (result != null) {
+      request.getHeaders().put(HttpHeaders.ACCEPT, result);
+    }
+  }
+
+  @Override
+  public void filter(final ClientRequestContext request, final ClientResponseContext response) {
+    MediaType mediaType = response.getMediaType();
+    if (mediaType == null) {
+      return;
+    }
+    String fpStr = mediaType.getParameters().get(FingerprintSchemaProtocol.CONTENT_TYPE_AVRO_SCHEMA_FP_PARAM);
+    if (fpStr == null || FingerprintSchemaProtocol.ANY.equals(fpStr)) {
+      return;
+    }
+    long fp;
+    try {
+      fp = SchemaFingerprints.parse(fpStr);
+    } catch (NumberFormatException ex) {
+      return; // will be reported when the entity is read.
+    }
+    if (fingerprints.get(fp) != null || !fetching.add(fp)) {
+      return;
+    }
+    URI schemaUri = getSchemaUri(request.getUri(), response.getLink(SCHEMA_FINGERPRINTS_REL), fpStr);
+    request.getClient().target(schemaUri).request("application/avsc+json").async()
+            .get(new InvocationCallback<Schema>() {
+              @Override
+              public void completed(final Schema schema) {
+                try {
+                  long schemaFp = SchemaFingerprints.compute(schema);
+                  if (schemaFp == fp) {
+                    fingerprints.intern(fp, schema);
+                  } else {
+                    LOG.warn("Schema from {} has fingerprint {}, rejected", schemaUri,
+                            SchemaFingerprints.toString(schemaFp));
+                  }
+                } finally {
+                  fetching.remove(fp);
+                }
+              }
+
+              @Override
+              public void failed(final Throwable throwable) {
+                fetching.remove(fp);
+                LOG.warn("Unable to resolve schema fingerprint {} from {}", fpStr, schemaUri, throwable);
+              }
+            });
+  }
+
+  private URI getSchemaUri(final URI requestUri, @Nullable final Link link, final String fpStr) {
+    if (link != null) {
+      return requestUri.resolve(link.getUri()).resolve(fpStr);
+    }
+    return UriBuilder.fromUri(requestUri).replacePath(schemaPath).path(fpStr)
+            .replaceQuery(null).fragment(null).build();
+  }
+
+  private static boolean isFullSchemaRequested() {
+    ExecutionContext ctx = ExecutionContexts.current();
+    return ctx != null && Boolean.TRUE.equals(ctx.get(RequestContextTags.FULL_AVRO_SCHEMA));
+  }
+
+  private static boolean isAvro(final MediaType mt) {
+    if (mt.getSubtype().contains("avro")) {
+      return true;
+    }
+    String fmt = mt.getParameters().get("fmt");
+    return fmt != null && fmt.startsWith("avro");
+  }
+
+  @Override
+  public String toString() {
+    return "SchemaFingerprintClientFilter{" + "fingerprints=" + fingerprints + ", schemaPath=" + schemaPath + '}';
+  }
+
+}
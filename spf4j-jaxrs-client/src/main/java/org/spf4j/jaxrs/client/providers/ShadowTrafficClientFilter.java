@@ -0,0 +1,49 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.client.providers;
+
+import java.net.URI;
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+
+/**
+ * Sends shadow requests to their shadow destination. (see {@link org.spf4j.jaxrs.client.ShadowTraffic})
+ * A shadow invocation is built like the primary one, with the destination URI in the
+ * {@link #SHADOW_URI_PROP} property, this filter runs first, so that all the other filters see the shadow URI.
+ *
+ * @author Zoltan Farkas
+ */
+@Priority(Priorities.AUTHENTICATION - 200)
+public final class ShadowTrafficClientFilter implements ClientRequestFilter {
+
+  public static final String SHADOW_URI_PROP = "spf4j.shadow.uri";
+
+  @Override
+  public void filter(final ClientRequestContext request) {
+    URI uri = (URI) request.getProperty(SHADOW_URI_PROP);
+    if (uri != null) {
+      request.setUri(uri);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "ShadowTrafficClientFilter{}";
+  }
+
+}
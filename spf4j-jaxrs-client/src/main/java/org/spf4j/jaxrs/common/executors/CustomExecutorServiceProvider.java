@@ -2,9 +2,12 @@ package org.spf4j.jaxrs.common.executors;
 
 import java.util.List;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
 import org.glassfish.jersey.spi.ExecutorServiceProvider;
 import org.spf4j.base.Threads;
 import org.spf4j.concurrent.ContextPropagatingExecutorService;
@@ -25,13 +28,29 @@ public class CustomExecutorServiceProvider implements ExecutorServiceProvider {
 
   private final String executorName;
 
+  private final ExecutorStrategy strategy;
+
+  private final int queueSize;
+
   public CustomExecutorServiceProvider(final int coreSize, final int maxSize, final int idleMillis,
           final int cleanShutdownWaitMillis, final String executorName) {
+    this(coreSize, maxSize, idleMillis, cleanShutdownWaitMillis, executorName, ExecutorStrategy.LIFO, 0);
+  }
+
+  /**
+   * @param strategy the type of executor to build.
+   * @param queueSize the task queue size limit, used by the BOUNDED strategy.
+   */
+  public CustomExecutorServiceProvider(final int coreSize, final int maxSize, final int idleMillis,
+          final int cleanShutdownWaitMillis, final String executorName,
+          final ExecutorStrategy strategy, final int queueSize) {
     this.coreSize = coreSize;
     this.maxSize = maxSize;
     this.idleMillis = idleMillis;
     this.cleanShutdownWaitMillis = cleanShutdownWaitMillis;
     this.executorName = executorName;
+    this.strategy = strategy;
+    this.queueSize = queueSize;
   }
 
   /**
@@ -40,16 +59,59 @@ public class CustomExecutorServiceProvider implements ExecutorServiceProvider {
   @Override
   public ExecutorService getExecutorService() {
     Logger.getLogger(CustomExecutorServiceProvider.class.getName())
-            .log(Level.FINE, "Starting executor {0}", executorName);
-    return new ContextPropagatingExecutorService(LifoThreadPoolBuilder.newBuilder()
+            .log(Level.FINE, "Starting {0} executor {1}", new Object[] {strategy, executorName});
+    ExecutorService exec;
+    switch (strategy) {
+      case VIRTUAL:
+        exec = newVirtualThreadExecutor();
+        if (exec == null) {
+          Logger.getLogger(CustomExecutorServiceProvider.class.getName())
+                  .log(Level.WARNING, "Virtual threads not available, using LIFO for {0}", executorName);
+          exec = newLifoThreadPool(0);
+        }
+        break;
+      case BOUNDED:
+        exec = newLifoThreadPool(queueSize);
+        break;
+      case LIFO:
+        // the default executor, unchanged.
+        return new ContextPropagatingExecutorService(newLifoThreadPool(0));
+      default:
+        throw new IllegalStateException("Unsupported executor strategy " + strategy);
+    }
+    return new DeadlineAwareExecutorService(new ContextPropagatingExecutorService(exec), executorName);
+  }
+
+  private ExecutorService newLifoThreadPool(final int queueSizeLimit) {
+    return LifoThreadPoolBuilder.newBuilder()
             .withCoreSize(coreSize)
             .withMaxSize(maxSize)
             .withDaemonThreads(true)
             .withMaxIdleTimeMillis(idleMillis)
             .withPoolName(executorName)
-            .withQueueSizeLimit(0)
+            .withQueueSizeLimit(queueSizeLimit)
             .enableJmx()
-            .build());
+            .build();
+  }
+
+  /**
+   * Virtual threads are JDK 21+, and we need to run on older JVMs, so they are created reflectively.
+   * @return a thread per task executor with named virtual threads, or null if virtual threads are not available.
+   */
+  @Nullable
+  private ExecutorService newVirtualThreadExecutor() {
+    try {
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, executorName + '-', 0L);
+      ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+      return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+              .invoke(null, factory);
+    } catch (ReflectiveOperationException ex) {
+      Logger.getLogger(CustomExecutorServiceProvider.class.getName())
+              .log(Level.FINE, "Virtual threads not available", ex);
+      return null;
+    }
   }
 
   /**
@@ -87,7 +149,8 @@ public class CustomExecutorServiceProvider implements ExecutorServiceProvider {
   public String toString() {
     return "CustomExecutorServiceProvider{" + "coreSize=" + coreSize + ", maxSize="
             + maxSize + ", idleMillis=" + idleMillis + ", cleanShutdownWaitMillis="
-            + cleanShutdownWaitMillis + ", executorName=" + executorName + '}';
+            + cleanShutdownWaitMillis + ", executorName=" + executorName + ", strategy=" + strategy
+            + ", queueSize=" + queueSize + '}';
   }
 
 
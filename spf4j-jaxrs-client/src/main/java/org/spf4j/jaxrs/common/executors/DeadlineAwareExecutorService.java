@@ -0,0 +1,113 @@
+package org.spf4j.jaxrs.common.executors;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.spf4j.base.ExecutionContext;
+import org.spf4j.base.ExecutionContexts;
+import org.spf4j.base.TimeSource;
+import org.spf4j.perf.MeasurementRecorder;
+import org.spf4j.perf.impl.RecorderFactory;
+
+/**
+ * Executor service wrapper that drops the tasks whose execution context deadline passed while they were waiting
+ * for execution, and records the pool saturation metrics:
+ * &lt;pool&gt;.inFlight (tasks submitted and not finished, sampled at submission),
+ * &lt;pool&gt;.rejected and &lt;pool&gt;.expired (deadline passed before execution).
+ * Expired tasks submitted via submit/invoke* methods are cancelled, the waiters will see the cancellation.
+ * Expired tasks submitted via execute are still run (logged as warning), since nobody would be notified if dropped
+ * (they can be completion callbacks).
+ * @author Zoltan Farkas
+ */
+final class DeadlineAwareExecutorService extends AbstractExecutorService {
+
+  private static final Logger LOG = Logger.getLogger(DeadlineAwareExecutorService.class.getName());
+
+  private final ExecutorService delegate;
+
+  private final String name;
+
+  private final AtomicInteger inFlight;
+
+  private final MeasurementRecorder inFlightRec;
+
+  private final MeasurementRecorder rejectedRec;
+
+  private final MeasurementRecorder expiredRec;
+
+  DeadlineAwareExecutorService(final ExecutorService delegate, final String name) {
+    this.delegate = delegate;
+    this.name = name;
+    this.inFlight = new AtomicInteger();
+    this.inFlightRec = RecorderFactory.createScalableMinMaxAvgRecorder(name + ".inFlight", "count", 60000);
+    this.rejectedRec = RecorderFactory.createScalableSimpleCountingRecorder(name + ".rejected", "count", 60000);
+    this.expiredRec = RecorderFactory.createScalableSimpleCountingRecorder(name + ".expired", "count", 60000);
+  }
+
+  @Override
+  public void execute(final Runnable command) {
+    ExecutionContext ctx = ExecutionContexts.current();
+    long deadlineNanos = ctx == null ? Long.MAX_VALUE : ctx.getDeadlineNanos();
+    inFlightRec.record(inFlight.incrementAndGet());
+    try {
+      delegate.execute(() -> {
+        try {
+          if (deadlineNanos != Long.MAX_VALUE && TimeSource.nanoTime() - deadlineNanos > 0) {
+            expiredRec.record(1);
+            if (command instanceof Future) {
+              LOG.log(Level.FINE, "Deadline exceeded, cancelling {0}", command);
+              ((Future) command).cancel(false);
+              return;
+            }
+            LOG.log(Level.WARNING, "Deadline exceeded, running anyway {0}", command);
+          }
+          command.run();
+        } finally {
+          inFlight.decrementAndGet();
+        }
+      });
+    } catch (RejectedExecutionException ex) {
+      inFlight.decrementAndGet();
+      rejectedRec.record(1);
+      throw ex;
+    }
+  }
+
+  @Override
+  public void shutdown() {
+    delegate.shutdown();
+  }
+
+  @Override
+  public List<Runnable> shutdownNow() {
+    return delegate.shutdownNow();
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return delegate.isShutdown();
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return delegate.isTerminated();
+  }
+
+  @Override
+  public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+    return delegate.awaitTermination(timeout, unit);
+  }
+
+  @Override
+  public String toString() {
+    return "DeadlineAwareExecutorService{" + "name=" + name + ", inFlight=" + inFlight + ", delegate="
+            + delegate + '}';
+  }
+
+}
@@ -0,0 +1,21 @@
+package org.spf4j.jaxrs.common.executors;
+
+/**
+ * The type of executor a {@link CustomExecutorServiceProvider} builds.
+ * @author Zoltan Farkas
+ */
+public enum ExecutorStrategy {
+  /**
+   * Lifo thread pool, with no queue. Tasks are rejected when all the (max size) threads are busy.
+   */
+  LIFO,
+  /**
+   * Lifo thread pool with a bounded queue. Queued tasks whose execution context deadline
+   * has passed by the time they are picked up are cancelled. (see DeadlineAwareExecutorService)
+   */
+  BOUNDED,
+  /**
+   * One virtual thread per task (JDK 21+), falls back to LIFO on older JVMs.
+   */
+  VIRTUAL
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.common.providers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.ext.ReaderInterceptor;
+import javax.ws.rs.ext.ReaderInterceptorContext;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import org.spf4j.io.LazyOutputStreamWrapper;
+import org.spf4j.jaxrs.common.providers.encoding.ContentCodec;
+import org.spf4j.jaxrs.common.providers.encoding.ContentCodecs;
+
+/**
+ * Encodes the output or decodes the input based on the Content-Encoding header,
+ * with any of the available content codecs (see {@link ContentCodecs}).
+ * The compression level is picked based on the entity media type.
+ * Since encoders can write to the underlying stream on creation (headers),
+ * we use a lazy wrapper to make sure Headers are not being lost.
+ *
+ * This replaces the GZipEncoderDecoder and jersey DeflateEncoder, they should not be registered together.
+ *
+ * @author Zoltan Farkas
+ */
+@Priority(Priorities.ENTITY_CODER)
+public final class ContentCodecInterceptor implements ReaderInterceptor, WriterInterceptor {
+
+  private final ContentCodecs codecs;
+
+  public ContentCodecInterceptor() {
+    this(ContentCodecs.getDefault());
+  }
+
+  public ContentCodecInterceptor(final ContentCodecs codecs) {
+    this.codecs = codecs;
+  }
+
+  @Override
+  public Object aroundReadFrom(final ReaderInterceptorContext context) throws IOException {
+    String contentEncoding = context.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+    if (contentEncoding != null) {
+      ContentCodec codec = codecs.getDecoder(contentEncoding);
+      if (codec != null) {
+        context.setInputStream(codec.decode(context.getInputStream()));
+      }
+    }
+    return context.proceed();
+  }
+
+  @Override
+  public void aroundWriteTo(final WriterInterceptorContext context) throws IOException {
+    Object contentEncoding = context.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+    if (contentEncoding != null) {
+      ContentCodec codec = codecs.getEncoder(contentEncoding.toString());
+      if (codec != null) {
+        int level = codecs.getLevel(codec, context.getMediaType());
+        OutputStream os = context.getOutputStream();
+        context.setOutputStream(new LazyOutputStreamWrapper(() -> {
+          try {
+            return codec.encode(os, level);
+          } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+          }
+        }));
+      }
+    }
+    context.proceed();
+  }
+
+  @Override
+  public String toString() {
+    return "ContentCodecInterceptor{" + "codecs=" + codecs + '}';
+  }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.common.providers;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import org.spf4j.jaxrs.EncodedContent;
+
+/**
+ * Interceptor that runs before the content encoders, and will make sure {@link EncodedContent}
+ * is written as is with the appropriate Content-Encoding header.
+ * The content encoders look at the Content-Encoding header before the entity is written, so we set the header
+ * right before the first byte is written (and before the headers are committed).
+ *
+ * @author Zoltan Farkas
+ */
+@Priority(Priorities.ENTITY_CODER - 1)
+public final class EncodedContentInterceptor implements WriterInterceptor {
+
+  @Override
+  public void aroundWriteTo(final WriterInterceptorContext context) throws IOException {
+    Object entity = context.getEntity();
+    if (entity instanceof EncodedContent) {
+      MultivaluedMap<String, Object> headers = context.getHeaders();
+      headers.remove(HttpHeaders.CONTENT_ENCODING);
+      context.setOutputStream(new EncodingHeaderOutputStream(context.getOutputStream(), headers,
+              ((EncodedContent) entity).getContentEncoding()));
+    }
+    context.proceed();
+  }
+
+  private static final class EncodingHeaderOutputStream extends FilterOutputStream {
+
+    private MultivaluedMap<String, Object> headers;
+
+    private final String contentEncoding;
+
+    EncodingHeaderOutputStream(final OutputStream out, final MultivaluedMap<String, Object> headers,
+            final String contentEncoding) {
+      super(out);
+      this.headers = headers;
+      this.contentEncoding = contentEncoding;
+    }
+
+    private void setHeader() {
+      if (headers != null) {
+        headers.putSingle(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+        headers = null;
+      }
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+      setHeader();
+      out.write(b);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      setHeader();
+      out.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      setHeader();
+      out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      setHeader();
+      out.close();
+    }
+
+  }
+
+}
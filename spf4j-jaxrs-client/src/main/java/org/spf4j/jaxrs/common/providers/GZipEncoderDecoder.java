@@ -19,23 +19,28 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 import javax.annotation.Priority;
 import javax.ws.rs.Priorities;
 import org.glassfish.jersey.spi.ContentEncoder;
 import org.spf4j.io.LazyOutputStreamWrapper;
+import org.spf4j.jaxrs.common.providers.encoding.ContentCodec;
+import org.spf4j.jaxrs.common.providers.encoding.GzipCodec;
 
 /**
  * GZIP encoding support. Interceptor that encodes the output or decodes the input if
  * {@link HttpHeaders#CONTENT_ENCODING Content-Encoding header} value equals to {@code gzip} or {@code x-gzip}.
  * since GZIPOutputStream writes to the underlying stream in the constructor,
  * we have to use a lazy wrapper to make sure Headers are not being lost.
+ * Deflaters/Inflaters are pooled (see {@link GzipCodec}).
+ * {@link ContentCodecInterceptor} supports gzip and more codings, and should not be registered together with this.
  *
  * @author zolyfarkas
  */
 @Priority(Priorities.ENTITY_CODER)
 public final class GZipEncoderDecoder extends ContentEncoder {
+
+    private static final ContentCodec GZIP = new GzipCodec();
+
     /**
      * Initialize GZipEncoder.
      */
@@ -46,14 +51,14 @@ public final class GZipEncoderDecoder extends ContentEncoder {
     @Override
     public InputStream decode(final String contentEncoding, final InputStream encodedStream)
             throws IOException {
-        return new GZIPInputStream(encodedStream);
+        return GZIP.decode(encodedStream);
     }
 
     @Override
     public OutputStream encode(final String contentEncoding, final OutputStream entityStream) {
         return new LazyOutputStreamWrapper(() ->  {
           try {
-            return new GZIPOutputStream(entityStream);
+            return GZIP.encode(entityStream, GZIP.getDefaultLevel());
           } catch (IOException ex) {
             throw new UncheckedIOException(ex);
           }
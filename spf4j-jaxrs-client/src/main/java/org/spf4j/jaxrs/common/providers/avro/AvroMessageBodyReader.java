@@ -31,6 +31,10 @@ public abstract class AvroMessageBodyReader implements MessageBodyReader<Object>
     this.protocol = protocol;
   }
 
+  final SchemaProtocol getProtocol() {
+    return protocol;
+  }
+
   /**
    * @inheritdoc
    */
@@ -65,6 +69,26 @@ public abstract class AvroMessageBodyReader implements MessageBodyReader<Object>
     return new MemorizingBufferedInputStream(pentityStream);
   }
 
+  /**
+   * Prepare the entity stream to decode from, by default: detect the empty entity
+   * and wrap the stream with {@link #wrapInputStream(java.io.InputStream)}.
+   * Overwrite to use the request headers (like Content-Length).
+   * @param entityStream the entity stream.
+   * @param httpHeaders the http headers.
+   * @return the stream to decode from, or null if there is no content.
+   */
+  @Nullable
+  public InputStream getEntityStream(final InputStream entityStream,
+          final MultivaluedMap<String, String> httpHeaders) throws IOException {
+    final PushbackInputStream pentityStream = new PushbackInputStream(entityStream);
+    int read = pentityStream.read();
+    if (read < 0) {
+      return null;
+    }
+    pentityStream.unread(read);
+    return wrapInputStream(pentityStream);
+  }
+
   /**
    * @inheritdoc
    */
@@ -73,16 +97,13 @@ public abstract class AvroMessageBodyReader implements MessageBodyReader<Object>
           final MediaType mediaType, final MultivaluedMap<String, String> httpHeaders,
           final InputStream ientityStream)
           throws IOException {
-    final PushbackInputStream pentityStream = new PushbackInputStream(ientityStream);
-    int read = pentityStream.read();
-    if (read < 0) {
+    InputStream entityStream = getEntityStream(ientityStream, httpHeaders);
+    if (entityStream == null) {
       // Jersey considers null as 204 No content.
       return null;
     }
-    pentityStream.unread(read);
     Schema writerSchema = protocol.deserialize(mediaType, httpHeaders::getFirst, type, genericType);
     Schema readerSchema = MessageBodyRWUtils.getAvroSchemaFromType(type, genericType, annotations);
-    InputStream entityStream = wrapInputStream(pentityStream);
     Decoder decoder = null;
     if (writerSchema == null) {
       DecodedSchema tryDecodeSchema = tryDecodeSchema(readerSchema, entityStream, annotations);
@@ -10,6 +10,7 @@ import javax.inject.Inject;
 import javax.ws.rs.ClientErrorException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.ext.MessageBodyWriter;
 import org.apache.avro.Schema;
 import org.apache.avro.generic.IndexedRecord;
@@ -38,6 +39,7 @@ public abstract class AvroMessageBodyWriter implements MessageBodyWriter<Object>
           final Annotation[] annotations, final MediaType mediaType) {
     return IndexedRecord.class.isAssignableFrom(type) || (type != void.class &&  type != Void.class
             && !OutputStream.class.isAssignableFrom(type)
+            && !StreamingOutput.class.isAssignableFrom(type)
             && !Writer.class.isAssignableFrom(type)  && !Iterable.class.isAssignableFrom(type));
   }
 
@@ -1,29 +1,165 @@
 package org.spf4j.jaxrs.common.providers.avro;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.io.BaseEncoding;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.function.BooleanSupplier;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.ext.Provider;
 import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryDecoder;
 import org.apache.avro.io.Decoder;
 import org.apache.avro.io.DecoderFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.spf4j.io.MemorizingBufferedInputStream;
 
 /**
+ * Binary avro reader, that does not copy the content more than needed:
+ * <ul>
+ * <li>Bodies with a known Content-Length (and no Content-Encoding) up to MAX_REUSED_BUFFER_SIZE are read into
+ * a (thread local, reused) byte array, and decoded directly from it.</li>
+ * <li>Other bodies are decoded from the entity stream, with the decoder buffering.</li>
+ * </ul>
+ * The content is memorized (for error reporting) only when debug logging is enabled for this class.
+ * The decoders are reused.
+ *
  * @author Zoltan Farkas
  */
 @Provider
 @Consumes({"application/octet-stream;fmt=avro", "application/avro"})
 public final class BinaryAvroMessageBodyReader extends AvroMessageBodyReader {
 
+  private static final Logger LOG = LoggerFactory.getLogger(BinaryAvroMessageBodyReader.class);
+
+  /** Bodies up to this size are read into the reused thread local buffer, larger ones are streamed. */
+  private static final int MAX_REUSED_BUFFER_SIZE
+          = Integer.getInteger("spf4j.avro.binaryReader.maxReusedBufferSize", 262144);
+
+  private static final ThreadLocal<byte[]> BUFFER = new ThreadLocal<>();
+
+  private static final ThreadLocal<BinaryDecoder> DECODER = new ThreadLocal<>();
+
+  private final BooleanSupplier memorize;
 
   @Inject
   public BinaryAvroMessageBodyReader(final SchemaProtocol protocol) {
+    this(protocol, LOG::isDebugEnabled);
+  }
+
+  @VisibleForTesting
+  BinaryAvroMessageBodyReader(final SchemaProtocol protocol, final BooleanSupplier memorize) {
     super(protocol);
+    this.memorize = memorize;
+  }
+
+  @Override
+  @Nullable
+  public InputStream getEntityStream(final InputStream entityStream,
+          final MultivaluedMap<String, String> httpHeaders) throws IOException {
+    long contentLength = getContentLength(httpHeaders);
+    if (contentLength == 0) {
+      return null;
+    }
+    if (contentLength > 0 && contentLength <= MAX_REUSED_BUFFER_SIZE) {
+      int length = (int) contentLength;
+      return new ContentInputStream(readFully(entityStream, length), length, memorize.getAsBoolean());
+    }
+    return super.getEntityStream(entityStream, httpHeaders);
+  }
+
+  @Override
+  public InputStream wrapInputStream(final InputStream pentityStream) {
+    return memorize.getAsBoolean() ? new MemorizingBufferedInputStream(pentityStream) : pentityStream;
   }
 
   @Override
   public Decoder getDecoder(final Schema writerSchema, final InputStream is) {
-    return DecoderFactory.get().binaryDecoder(is, null);
+    BinaryDecoder decoder;
+    if (is instanceof ContentInputStream) {
+      ContentInputStream content = (ContentInputStream) is;
+      decoder = DecoderFactory.get().binaryDecoder(content.getBuffer(), 0, content.getLength(), DECODER.get());
+    } else {
+      decoder = DecoderFactory.get().binaryDecoder(is, DECODER.get());
+    }
+    DECODER.set(decoder);
+    return decoder;
+  }
+
+  /**
+   * @return the content length of the (not content encoded) body, -1 if not known.
+   */
+  private static long getContentLength(final MultivaluedMap<String, String> httpHeaders) {
+    String contentLength = httpHeaders.getFirst(HttpHeaders.CONTENT_LENGTH);
+    if (contentLength == null) {
+      return -1;
+    }
+    String contentEncoding = httpHeaders.getFirst(HttpHeaders.CONTENT_ENCODING);
+    if (contentEncoding != null && !"identity".equalsIgnoreCase(contentEncoding)) {
+      // the content length is the length of the encoded content.
+      return -1;
+    }
+    try {
+      return Long.parseLong(contentLength.trim());
+    } catch (NumberFormatException ex) {
+      return -1;
+    }
+  }
+
+  private static byte[] readFully(final InputStream is, final int length) throws IOException {
+    byte[] buffer = getReusedBuffer(length);
+    int at = 0;
+    while (at < length) {
+      int nr = is.read(buffer, at, length - at);
+      if (nr < 0) {
+        throw new EOFException("Expected " + length + " bytes, got only " + at);
+      }
+      at += nr;
+    }
+    return buffer;
+  }
+
+  private static byte[] getReusedBuffer(final int length) {
+    @Nullable byte[] buffer = BUFFER.get();
+    if (buffer == null || buffer.length < length) {
+      buffer = new byte[Math.min(MAX_REUSED_BUFFER_SIZE, Math.max(length, 8192))];
+      BUFFER.set(buffer);
+    }
+    return buffer;
+  }
+
+  /**
+   * The body content, read in the reused buffer. (decoded directly from the buffer)
+   */
+  @VisibleForTesting
+  static final class ContentInputStream extends ByteArrayInputStream {
+
+    private final boolean memorized;
+
+    ContentInputStream(final byte[] buffer, final int length, final boolean memorized) {
+      super(buffer, 0, length);
+      this.memorized = memorized;
+    }
+
+    byte[] getBuffer() {
+      return buf;
+    }
+
+    int getLength() {
+      return count;
+    }
+
+    @Override
+    public String toString() {
+      return count + " bytes" + (memorized ? ": " + BaseEncoding.base16().encode(buf, 0, count) : "");
+    }
   }
 
 }
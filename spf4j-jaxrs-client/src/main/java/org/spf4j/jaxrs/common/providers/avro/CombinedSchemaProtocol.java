@@ -66,7 +66,7 @@ final class CombinedSchemaProtocol implements SchemaProtocol {
 
   @Override
   public MediaType acceptable(final MediaType mediaType, final Schema schema) {
-    return primary.acceptable(mediaType, schema);
+    return primary.acceptable(secondary.acceptable(mediaType, schema), schema);
   }
 
   @Override
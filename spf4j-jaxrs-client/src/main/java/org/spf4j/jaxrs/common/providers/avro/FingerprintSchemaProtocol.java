@@ -0,0 +1,201 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.common.providers.avro;
+
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import javax.annotation.Nullable;
+import javax.ws.rs.ClientErrorException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import org.apache.avro.Schema;
+import org.spf4j.base.Arrays;
+
+/**
+ * Transmits the avro schema as a 64 bit fingerprint in the avscfp Content-Type parameter,
+ * instead of the schema json. (see {@link SchemaFingerprints})
+ *
+ * Fingerprints are sent only to peers that declare they can handle them by having a avscfp parameter in the
+ * accepted media type, (avscfp=* when there is no specific schema requested, see {@link #accepting(MediaType)}),
+ * as such this protocol is meant to be combined with the default protocol:
+ * <code>new FingerprintSchemaProtocol(...).combine(new DefaultSchemaProtocol(resolver))</code>,
+ * which will take care of peers that do not know about fingerprints.
+ *
+ * Unknown fingerprints are resolved by:
+ * <ol>
+ * <li>the schemas we have sent or received before.</li>
+ * <li>the schema of the type we de-serialize into.</li>
+ * <li>the provided resolver.</li>
+ * </ol>
+ * Unresolvable fingerprints fail with {@link UnknownSchemaFingerprintException}.
+ * On the client side {@link org.spf4j.jaxrs.client.providers.SchemaFingerprintClientFilter} declares the support
+ * for fingerprints, and learns the unknown fingerprints from the server that sent them, in the background;
+ * the calls that fail with an unknown fingerprint are repeated asking for the full schema.
+ * (see {@link org.spf4j.jaxrs.client.Spf4jInvocation})
+ *
+ * @author Zoltan Farkas
+ */
+public final class FingerprintSchemaProtocol implements SchemaProtocol {
+
+  public static final String CONTENT_TYPE_AVRO_SCHEMA_FP_PARAM = "avscfp";
+
+  /** avscfp parameter value that declares the support for fingerprints, without requesting a schema. */
+  public static final String ANY = "*";
+
+  private final SchemaFingerprints fingerprints;
+
+  private final LongFunction<Schema> resolver;
+
+  public FingerprintSchemaProtocol() {
+    this(SchemaFingerprints.getDefault(), (fp) -> null);
+  }
+
+  /**
+   * @param fingerprints the schema fingerprint registry.
+   * @param resolver resolves unknown fingerprints, returns null when the fingerprint cannot be resolved.
+   */
+  public FingerprintSchemaProtocol(final SchemaFingerprints fingerprints, final LongFunction<Schema> resolver) {
+    this.fingerprints = fingerprints;
+    this.resolver = resolver;
+  }
+
+  /**
+   * @return the media type declaring support for schema fingerprints.
+   */
+  public static MediaType accepting(final MediaType mediaType) {
+    Map<String, String> xp = mediaType.getParameters();
+    if (xp.containsKey(CONTENT_TYPE_AVRO_SCHEMA_FP_PARAM)
+            || xp.containsKey(DefaultSchemaProtocol.CONTENT_TYPE_AVRO_SCHEMA_PARAM)) {
+      return mediaType;
+    }
+    return withParameter(mediaType, CONTENT_TYPE_AVRO_SCHEMA_FP_PARAM, ANY);
+  }
+
+  @Override
+  @Nullable
+  public Schema deserialize(final MediaType mediaType,
+          final Function<String, String> headers, final Class<?> type, final Type genericType) {
+    String fpStr = mediaType.getParameters().get(CONTENT_TYPE_AVRO_SCHEMA_FP_PARAM);
+    if (fpStr == null || ANY.equals(fpStr)) {
+      return null;
+    }
+    long fp = parse(fpStr);
+    Schema schema = fingerprints.get(fp);
+    if (schema != null) {
+      return schema;
+    }
+    schema = fromType(fp, type, genericType);
+    if (schema != null) {
+      return schema;
+    }
+    return resolve(fp);
+  }
+
+  @Override
+  public void serialize(final MediaType mediaType,
+          final BiConsumer<String, String> headers, final Schema schema) {
+    if (!mediaType.getParameters().containsKey(CONTENT_TYPE_AVRO_SCHEMA_FP_PARAM)) {
+      return; // the peer does not support fingerprints.
+    }
+    Map<String, String> xp = mediaType.getParameters();
+    Map<String, String> parameters = new HashMap<>(xp.size() + 2);
+    parameters.putAll(xp);
+    parameters.remove(DefaultSchemaProtocol.CONTENT_TYPE_AVRO_SCHEMA_PARAM);
+    parameters.put(CONTENT_TYPE_AVRO_SCHEMA_FP_PARAM, SchemaFingerprints.toString(fingerprints.fingerprint(schema)));
+    String type = mediaType.getType();
+    if ("text".equals(type) && !parameters.containsKey(MediaType.CHARSET_PARAMETER)) {
+      // all texts are defaulted to utf8
+      parameters.put(MediaType.CHARSET_PARAMETER, "utf-8");
+    }
+    headers.accept(HttpHeaders.CONTENT_TYPE, new MediaType(type, mediaType.getSubtype(), parameters).toString());
+  }
+
+  @Override
+  @Nullable
+  public Schema getAcceptableSchema(final MediaType acceptedMediaType) {
+    String fpStr = acceptedMediaType.getParameters().get(CONTENT_TYPE_AVRO_SCHEMA_FP_PARAM);
+    if (fpStr == null || ANY.equals(fpStr)) {
+      return null;
+    }
+    return resolve(parse(fpStr));
+  }
+
+  /**
+   * @return the media type requesting the schema by fingerprint, or if the schema is already transmitted
+   * by another protocol (avsc parameter), the media type declaring the support for fingerprints.
+   */
+  @Override
+  public MediaType acceptable(final MediaType mediaType, final Schema schema) {
+    if (mediaType.getParameters().containsKey(DefaultSchemaProtocol.CONTENT_TYPE_AVRO_SCHEMA_PARAM)) {
+      return accepting(mediaType);
+    }
+    return withParameter(mediaType, CONTENT_TYPE_AVRO_SCHEMA_FP_PARAM,
+            SchemaFingerprints.toString(fingerprints.fingerprint(schema)));
+  }
+
+  @Nullable
+  private Schema fromType(final long fp, final Class<?> type, final Type genericType) {
+    Schema schema;
+    try {
+      schema = MessageBodyRWUtils.getAvroSchemaFromType(type, genericType, Arrays.EMPTY_ANNOT_ARRAY);
+    } catch (RuntimeException ex) {
+      // not a type we can infer a schema from (StreamingArrayContent...)
+      return null;
+    }
+    if (schema != null && fingerprints.fingerprint(schema) == fp) {
+      return schema;
+    }
+    return null;
+  }
+
+  private Schema resolve(final long fp) {
+    Schema schema = fingerprints.get(fp);
+    if (schema != null) {
+      return schema;
+    }
+    schema = resolver.apply(fp);
+    if (schema == null) {
+      throw new UnknownSchemaFingerprintException(fp);
+    }
+    return fingerprints.intern(fp, schema);
+  }
+
+  private static long parse(final String fpStr) {
+    try {
+      return SchemaFingerprints.parse(fpStr);
+    } catch (NumberFormatException ex) {
+      throw new ClientErrorException("Invalid schema fingerprint: " + fpStr, 400, ex);
+    }
+  }
+
+  private static MediaType withParameter(final MediaType mediaType, final String name, final String value) {
+    Map<String, String> xp = mediaType.getParameters();
+    Map<String, String> parameters = new HashMap<>(xp.size() + 1);
+    parameters.putAll(xp);
+    parameters.put(name, value);
+    return new MediaType(mediaType.getType(), mediaType.getSubtype(), parameters);
+  }
+
+  @Override
+  public String toString() {
+    return "FingerprintSchemaProtocol{" + "fingerprints=" + fingerprints + ", resolver=" + resolver + '}';
+  }
+
+}
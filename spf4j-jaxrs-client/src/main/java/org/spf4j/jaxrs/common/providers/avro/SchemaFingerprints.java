@@ -0,0 +1,150 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.common.providers.avro;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nullable;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+
+/**
+ * Schema fingerprint (64 bit Rabin, over the schema json served to peers, see {@link #compute(Schema)}) registry.
+ * <ul>
+ * <li>Schema -&gt; fingerprint is cached by schema identity,
+ * the fingerprint of a schema instance is computed once.</li>
+ * <li>fingerprint -&gt; Schema resolves the schemas we have seen (sent or received) to a single (interned) schema
+ * instance. Since avro caches the resolving grammars by schema identity
+ * (see GenericDatumReader.getResolver), the interned instances make the resolution grammars reusable across
+ * requests.</li>
+ * </ul>
+ * The schemas we fingerprint (send) are never evicted while they are in use (weak values), since peers can
+ * ask for them at any time, only the schemas received from peers are bounded.
+ * @author Zoltan Farkas
+ */
+public final class SchemaFingerprints {
+
+  private static final SchemaFingerprints DEFAULT = new SchemaFingerprints(
+          Integer.getInteger("spf4j.jaxrs.schemaFingerprints.maxSize", 10000));
+
+  private final Cache<Schema, Long> fingerprints;
+
+  /** the schemas we have fingerprinted (sent). */
+  private final ConcurrentMap<Long, Schema> local;
+
+  /** the schemas received from peers. */
+  private final ConcurrentMap<Long, Schema> received;
+
+  /**
+   * @param maxSize the maximum number of schemas received from peers to remember.
+   */
+  public SchemaFingerprints(final int maxSize) {
+    this.fingerprints = CacheBuilder.newBuilder().weakKeys().build();
+    Cache<Long, Schema> localCache = CacheBuilder.newBuilder().weakValues().build();
+    this.local = localCache.asMap();
+    Cache<Long, Schema> receivedCache = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+    this.received = receivedCache.asMap();
+  }
+
+  public static SchemaFingerprints getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * @param schema the schema.
+   * @return the fingerprint of the schema. The schema will be resolvable by this fingerprint.
+   */
+  public long fingerprint(final Schema schema) {
+    Long result = fingerprints.getIfPresent(schema);
+    if (result == null) {
+      long fp = compute(schema);
+      result = fp;
+      fingerprints.put(schema, result);
+      local.putIfAbsent(result, schema);
+    }
+    return result;
+  }
+
+  /**
+   * Computes the fingerprint of the schema json as served to peers by {@link SchemaMessageBodyWriter}.
+   * (without doc, java-class, ... properties) The schemas received from peers have the same fingerprint
+   * as the sent ones, which allows to verify them.
+   * @param schema the schema.
+   * @return the 64 bit Rabin fingerprint.
+   */
+  public static long compute(final Schema schema) {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream(256);
+    try {
+      SchemaMessageBodyWriter.writeJson(schema, bos);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    return SchemaNormalization.fingerprint64(bos.toByteArray());
+  }
+
+  /**
+   * @param fingerprint the schema fingerprint.
+   * @return the schema, or null if not known.
+   */
+  @Nullable
+  public Schema get(final long fingerprint) {
+    Schema schema = local.get(fingerprint);
+    if (schema != null) {
+      return schema;
+    }
+    return received.get(fingerprint);
+  }
+
+  /**
+   * Register a schema under a fingerprint.
+   * (the fingerprint is not re-computed, schemas received from peers should be verified with {@link #compute})
+   * @return the schema instance registered for this fingerprint. (this one or a previously registered one)
+   */
+  public Schema intern(final long fingerprint, final Schema schema) {
+    Schema existing = local.get(fingerprint);
+    if (existing != null) {
+      return existing;
+    }
+    existing = received.putIfAbsent(fingerprint, schema);
+    if (existing == null) {
+      fingerprints.put(schema, fingerprint);
+      return schema;
+    }
+    return existing;
+  }
+
+  public static String toString(final long fingerprint) {
+    return Long.toHexString(fingerprint);
+  }
+
+  /**
+   * @param fingerprint hex fingerprint.
+   * @throws NumberFormatException for invalid fingerprints.
+   */
+  public static long parse(final CharSequence fingerprint) {
+    return Long.parseUnsignedLong(fingerprint.toString(), 16);
+  }
+
+  @Override
+  public String toString() {
+    return "SchemaFingerprints{" + "local=" + local.size() + ", received=" + received.size() + '}';
+  }
+
+}
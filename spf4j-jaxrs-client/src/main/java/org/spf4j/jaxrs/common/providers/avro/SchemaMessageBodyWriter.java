@@ -34,9 +34,17 @@ public final class SchemaMessageBodyWriter implements MessageBodyWriter<Schema>
           final Annotation[] annotations, final MediaType mediaType,
           final MultivaluedMap<String, Object> httpHeaders, final OutputStream entityStream)
           throws IOException {
-    JsonGenerator jgen = Json.FACTORY.createGenerator(entityStream);
+    writeJson(t, entityStream);
+  }
+
+  /**
+   * Write the schema json, without the properties that do not matter for serialization.
+   * (see {@link NonSerPropertyFilter})
+   */
+  static void writeJson(final Schema schema, final OutputStream os) throws IOException {
+    JsonGenerator jgen = Json.FACTORY.createGenerator(os);
     jgen = new FilteringGeneratorDelegate(jgen, NonSerPropertyFilter.INSTANCE, true, true);
-    t.toJson(new AvroNamesRefResolver(SchemaResolver.NONE), jgen);
+    schema.toJson(new AvroNamesRefResolver(SchemaResolver.NONE), jgen);
     jgen.flush();
   }
 
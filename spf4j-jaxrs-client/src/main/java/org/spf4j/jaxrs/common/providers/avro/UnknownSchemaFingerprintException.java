@@ -0,0 +1,57 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.common.providers.avro;
+
+import javax.annotation.Nullable;
+import javax.ws.rs.ClientErrorException;
+
+/**
+ * Thrown when a schema fingerprint cannot be resolved. (see {@link FingerprintSchemaProtocol})
+ * On the client side, the request can be repeated asking for the full schema.
+ *
+ * @author Zoltan Farkas
+ */
+public final class UnknownSchemaFingerprintException extends ClientErrorException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final long fingerprint;
+
+  public UnknownSchemaFingerprintException(final long fingerprint) {
+    super("Unknown schema fingerprint: " + SchemaFingerprints.toString(fingerprint), 400);
+    this.fingerprint = fingerprint;
+  }
+
+  public long getFingerprint() {
+    return fingerprint;
+  }
+
+  /**
+   * @return the UnknownSchemaFingerprintException from the causal chain of t, null if there is none.
+   */
+  @Nullable
+  public static UnknownSchemaFingerprintException fromCausalChain(final Throwable t) {
+    Throwable cause = t;
+    while (cause != null) {
+      if (cause instanceof UnknownSchemaFingerprintException) {
+        return (UnknownSchemaFingerprintException) cause;
+      }
+      cause = cause.getCause();
+    }
+    return null;
+  }
+
+}
@@ -102,8 +102,18 @@ public abstract class AvroIterableMessageBodyReader implements MessageBodyReader
     IterableAdaptor result;
     if (readerSchema.getType() == Schema.Type.ARRAY) {
       Schema elementType = writerSchema.getElementType();
-      DatumReader reader = new ReflectDatumReader(elementType, readerSchema.getElementType());
-      result = new IterableAdaptor(pentityStream, new ArrayIterator(decoder, reader), elementType);
+      Schema readerElemSchema = readerSchema.getElementType();
+      DatumReader reader = new ReflectDatumReader(elementType, readerElemSchema);
+      // elements are collected when reading a plain Iterable, they cannot be reused.
+      boolean reuse = type != Iterable.class && ReusingArrayIterator.isReuse(annotations);
+      Schema.Type primitiveType = ReusingArrayIterator.getPrimitiveType(elementType, readerElemSchema);
+      Iterator iterator;
+      if (reuse || primitiveType != null) {
+        iterator = new ReusingArrayIterator(decoder, reader, primitiveType, reuse);
+      } else {
+        iterator = new ArrayIterator(decoder, reader);
+      }
+      result = new IterableAdaptor(pentityStream, iterator, elementType);
     } else if (readerSchema.getType() == Schema.Type.MAP) {
       Schema valueType = writerSchema.getValueType();
       DatumReader reader = new ReflectDatumReader(valueType, readerSchema.getValueType());
@@ -7,6 +7,9 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.function.BooleanSupplier;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.ws.rs.ClientErrorException;
 import javax.ws.rs.core.MediaType;
@@ -21,6 +24,7 @@ import org.spf4j.avro.schema.Schemas;
 import org.spf4j.base.Arrays;
 import org.spf4j.base.avro.AvroContainer;
 import org.spf4j.jaxrs.Buffered;
+import org.spf4j.jaxrs.NonBlockingOutput;
 import org.spf4j.jaxrs.common.providers.avro.SchemaProtocol;
 import org.spf4j.jaxrs.common.providers.avro.MessageBodyRWUtils;
 
@@ -29,6 +33,9 @@ import org.spf4j.jaxrs.common.providers.avro.MessageBodyRWUtils;
  */
 public abstract class AvroIterableMessageBodyWriter implements MessageBodyWriter<Iterable> {
 
+  /** Collections up to this size are always written synchronously. */
+  private static final int SMALL_COLLECTION_SIZE = 256;
+
   private final SchemaProtocol protocol;
 
   @Inject
@@ -96,84 +103,123 @@ public abstract class AvroIterableMessageBodyWriter implements MessageBodyWriter
       }
     }
     Schema acceptedSchema = protocol.getAcceptableSchema(mediaType);
-    if (acceptedSchema == null) {
-      writeDirect(actualSchema, mediaType, httpHeaders, elemSchema, entityStream, t);
-    } else {
-      writeProjected(acceptedSchema, mediaType, httpHeaders, entityStream, t, elemSchema);
-    }
-
-  }
-
-  private void writeDirect(final Schema actualSchema, final MediaType mediaType,
-          final MultivaluedMap<String, Object> httpHeaders, final Schema elemSchema,
-          final OutputStream entityStream, final Iterable t)  {
-    protocol.serialize(mediaType, httpHeaders::putSingle, actualSchema);
+    ArrayContent content;
     try {
-      DatumWriter writer = new ExtendedReflectDatumWriter(elemSchema);
-      Encoder encoder = getEncoder(mediaType, actualSchema, entityStream);
-      int bufferSize;
-      if (t instanceof Buffered) {
-        bufferSize = ((Buffered) t).getElementBufferSize();
+      if (acceptedSchema == null) {
+        protocol.serialize(mediaType, httpHeaders::putSingle, actualSchema);
+        content = new ArrayContent(t, getEncoder(mediaType, actualSchema, entityStream), actualSchema, elemSchema,
+                null);
       } else {
-        bufferSize = 64;
-      }
-
-      try (AvroArrayWriter arrWriter = new AvroArrayWriter(encoder, writer, bufferSize)) {
-        for (Object o : t) {
-          arrWriter.write(o);
-        }
+        protocol.serialize(mediaType, httpHeaders::putSingle, acceptedSchema);
+        content = new ArrayContent(t, getEncoder(mediaType, acceptedSchema, entityStream), acceptedSchema,
+                acceptedSchema.getElementType(), elemSchema);
       }
     } catch (IOException | RuntimeException e) {
+      closeIterable(t);
       throw new RuntimeException("Serialization failed for " + actualSchema.getName(), e);
+    }
+    if (entityStream instanceof NonBlockingOutput && !isSmall(t)
+            && ((NonBlockingOutput) entityStream).writeNonBlocking(content)) {
+      return;
+    }
+    try {
+      content.write(() -> true);
     } finally {
-      if (t instanceof AutoCloseable) {
-        try {
-          ((AutoCloseable) t).close();
-        } catch (Exception ex) {
-          throw new RuntimeException(ex);
-        }
+      content.close();
+    }
+  }
+
+  /**
+   * small collections are written synchronously, it is not worth the extra overhead.
+   */
+  private static boolean isSmall(final Iterable t) {
+    return t instanceof Collection && ((Collection) t).size() <= SMALL_COLLECTION_SIZE;
+  }
+
+  private static void closeIterable(final Iterable t) {
+    if (t instanceof AutoCloseable) {
+      try {
+        ((AutoCloseable) t).close();
+      } catch (Exception ex) {
+        throw new RuntimeException(ex);
       }
     }
   }
 
-  private  void writeProjected(final Schema acceptedSchema,
-          final MediaType mediaType,
-          final MultivaluedMap<String, Object> httpHeaders,
-          final OutputStream entityStream, final Iterable t, final Schema elemSchema) {
-    protocol.serialize(mediaType, httpHeaders::putSingle, acceptedSchema);
-    Schema respElemSchema = acceptedSchema.getElementType();
-    try {
+  /**
+   * The array content, can be written in increments (one element at a time).
+   */
+  private static final class ArrayContent implements NonBlockingOutput.Content {
+
+    private final Iterable iterable;
+
+    private final Iterator it;
+
+    private final AvroArrayWriter arrWriter;
+
+    private final Schema writeSchema;
+
+    private final Schema respElemSchema;
+
+    /** null if no projection is needed */
+    @Nullable
+    private final Schema elemSchema;
+
+    ArrayContent(final Iterable iterable, final Encoder encoder, final Schema writeSchema,
+            final Schema respElemSchema, @Nullable final Schema elemSchema) {
+      this.iterable = iterable;
+      this.writeSchema = writeSchema;
+      this.respElemSchema = respElemSchema;
+      this.elemSchema = elemSchema;
       DatumWriter writer = new ExtendedReflectDatumWriter(respElemSchema);
-      Encoder encoder = getEncoder(mediaType, acceptedSchema, entityStream);
       int bufferSize;
-      if (t instanceof Buffered) {
-        bufferSize = ((Buffered) t).getElementBufferSize();
+      if (iterable instanceof Buffered) {
+        bufferSize = ((Buffered) iterable).getElementBufferSize();
       } else {
         bufferSize = 64;
       }
-      try (AvroArrayWriter arrWriter = new AvroArrayWriter(encoder, writer, bufferSize)) {
-        for (Object o : t) {
-          Object projected;
-          try {
-            projected = Schemas.project(respElemSchema, elemSchema, o);
-          } catch (RuntimeException ex) {
-            throw new ClientErrorException("Requested schema cannot be served: "
-                    + acceptedSchema + "; object=" + o, 400, ex);
+      this.arrWriter = new AvroArrayWriter(encoder, writer, bufferSize);
+      this.it = iterable.iterator();
+    }
+
+    @Override
+    public boolean write(final BooleanSupplier canContinue) {
+      try {
+        while (it.hasNext()) {
+          Object o = it.next();
+          if (elemSchema == null) {
+            arrWriter.write(o);
+          } else {
+            Object projected;
+            try {
+              projected = Schemas.project(respElemSchema, elemSchema, o);
+            } catch (RuntimeException ex) {
+              throw new ClientErrorException("Requested schema cannot be served: "
+                      + writeSchema + "; object=" + o, 400, ex);
+            }
+            arrWriter.write(projected);
+          }
+          if (!canContinue.getAsBoolean()) {
+            return false;
           }
-          arrWriter.write(projected);
-        }
-      }
-    } catch (IOException | RuntimeException e) {
-      throw new RuntimeException("Serialization failed for " + acceptedSchema.getName(), e);
-    } finally {
-      if (t instanceof AutoCloseable) {
-        try {
-          ((AutoCloseable) t).close();
-        } catch (Exception ex) {
-          throw new RuntimeException(ex);
         }
+        arrWriter.close();
+        return true;
+      } catch (IOException | RuntimeException e) {
+        throw new RuntimeException("Serialization failed for " + writeSchema.getName(), e);
       }
     }
+
+    @Override
+    public void close() {
+      closeIterable(iterable);
+    }
+
+    @Override
+    public String toString() {
+      return "ArrayContent{" + "iterable=" + iterable + ", writeSchema=" + writeSchema + '}';
+    }
+
   }
 
-}
\ No newline at end of file
+}
@@ -6,6 +6,7 @@ import java.io.InputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.Iterator;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.ws.rs.core.MediaType;
@@ -101,7 +102,8 @@ public abstract class AvroStreamingMessageBodyReader implements MessageBodyReade
     if (decoder == null) {
       decoder = getDecoder(writerSchema, entityStream);
     }
-    return new StreamingArrayOutputImpl(entityStream, decoder, readerSchema, writerSchema);
+    return new StreamingArrayOutputImpl(entityStream, decoder, readerSchema, writerSchema,
+            ReusingArrayIterator.isReuse(annotations));
   }
 
   private static class StreamingArrayOutputImpl implements StreamingArrayContent {
@@ -110,20 +112,30 @@ public abstract class AvroStreamingMessageBodyReader implements MessageBodyReade
     private final DatumReader reader;
     private final InputStream entityStream;
     private final Schema readerElementSchema;
-
+    @Nullable
+    private final Schema.Type primitiveType;
+    private final boolean reuse;
 
     StreamingArrayOutputImpl(final InputStream entityStream, final Decoder decoder,
-            final Schema readerSchema, final Schema writerSchema) {
+            final Schema readerSchema, final Schema writerSchema, final boolean reuse) {
       this.entityStream = entityStream;
       this.decoder = decoder;
       this.readerElementSchema = readerSchema.getElementType();
-      this.reader = new ReflectDatumReader(writerSchema.getElementType(), this.readerElementSchema);
+      Schema writerElementSchema = writerSchema.getElementType();
+      this.reader = new ReflectDatumReader(writerElementSchema, this.readerElementSchema);
+      this.primitiveType = ReusingArrayIterator.getPrimitiveType(writerElementSchema, readerElementSchema);
+      this.reuse = reuse;
     }
 
     @Override
     public void write(final ArrayWriter output) throws IOException {
       try (ArrayWriter wr = output; InputStream is = entityStream;) {
-        ArrayIterator arrayIterator = new ArrayIterator(decoder, reader);
+        Iterator arrayIterator;
+        if (reuse || primitiveType != null) {
+          arrayIterator = new ReusingArrayIterator(decoder, reader, primitiveType, reuse);
+        } else {
+          arrayIterator = new ArrayIterator(decoder, reader);
+        }
         while (arrayIterator.hasNext()) {
           wr.accept(arrayIterator.next());
         }
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.common.providers.avro.stream;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.annotation.Annotation;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import javax.annotation.Nullable;
+import org.apache.avro.Schema;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.Decoder;
+import org.spf4j.jaxrs.ReuseElements;
+
+/**
+ * Avro array iterator that:
+ * <ul>
+ * <li>Optionally passes the previous element to DatumReader.read(reuse, decoder),
+ * so that records are not allocated for every element.</li>
+ * <li>Reads int/long/float/double elements straight from the decoder, bypassing the datum reader.</li>
+ * </ul>
+ * @author Zoltan Farkas
+ */
+final class ReusingArrayIterator implements Iterator<Object> {
+
+  private final Decoder decoder;
+
+  private final DatumReader reader;
+
+  @Nullable
+  private final Schema.Type primitiveType;
+
+  private final boolean reuse;
+
+  private long blockRemaining;
+
+  private boolean started;
+
+  /** the end of the array was read, the decoder must not be read anymore. */
+  private boolean done;
+
+  @Nullable
+  private Object previous;
+
+  ReusingArrayIterator(final Decoder decoder, final DatumReader reader,
+          @Nullable final Schema.Type primitiveType, final boolean reuse) {
+    this.decoder = decoder;
+    this.reader = reader;
+    this.primitiveType = primitiveType;
+    this.reuse = reuse;
+  }
+
+  static boolean isReuse(final Annotation[] annotations) {
+    for (Annotation annot : annotations) {
+      if (annot.annotationType() == ReuseElements.class) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the primitive number type if elements can be read directly from the decoder, null otherwise.
+   */
+  @Nullable
+  static Schema.Type getPrimitiveType(final Schema writerElemSchema, final Schema readerElemSchema) {
+    Schema.Type type = readerElemSchema.getType();
+    if (type != writerElemSchema.getType() || readerElemSchema.getLogicalType() != null
+            || readerElemSchema.getProp("java-class") != null) {
+      return null;
+    }
+    switch (type) {
+      case INT:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+        return type;
+      default:
+        return null;
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (blockRemaining > 0) {
+      return true;
+    }
+    if (done) {
+      return false;
+    }
+    try {
+      if (started) {
+        blockRemaining = decoder.arrayNext();
+      } else {
+        blockRemaining = decoder.readArrayStart();
+        started = true;
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    if (blockRemaining <= 0) {
+      done = true;
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  public Object next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    blockRemaining--;
+    try {
+      if (primitiveType != null) {
+        return readPrimitive();
+      }
+      Object result = reader.read(reuse ? previous : null, decoder);
+      if (reuse) {
+        previous = result;
+      }
+      return result;
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private Object readPrimitive() throws IOException {
+    switch (primitiveType) {
+      case INT:
+        return decoder.readInt();
+      case LONG:
+        return decoder.readLong();
+      case FLOAT:
+        return decoder.readFloat();
+      case DOUBLE:
+        return decoder.readDouble();
+      default:
+        throw new IllegalStateException("Unsupported " + primitiveType);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "ReusingArrayIterator{" + "reader=" + reader + ", primitiveType=" + primitiveType
+            + ", reuse=" + reuse + '}';
+  }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.common.providers.encoding;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.encoder.BrotliOutputStream;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.brotli.dec.BrotliInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * br content coding (RFC 7932).
+ * Decoding uses the pure java decoder (org.brotli:dec optional dependency),
+ * encoding is available when brotli4j (optional dependency) is in the classpath
+ * and its native library loads and works on this platform. There is no pure java encoder,
+ * without the native library br is only advertised (Accept-Encoding) and decoded, never negotiated for responses.
+ * Level (quality): 0-11.
+ * @author Zoltan Farkas
+ */
+public final class BrotliCodec implements ContentCodec {
+
+  private static final Logger LOG = LoggerFactory.getLogger(BrotliCodec.class);
+
+  private static final boolean CAN_DECODE = isDecoderAvailable();
+
+  private static final boolean CAN_ENCODE = isEncoderAvailable();
+
+  private static boolean isDecoderAvailable() {
+    try {
+      Class.forName("org.brotli.dec.BrotliInputStream", false, BrotliCodec.class.getClassLoader());
+      return true;
+    } catch (ClassNotFoundException | LinkageError ex) {
+      LOG.debug("brotli decoding not available", ex);
+      return false;
+    }
+  }
+
+  private static boolean isEncoderAvailable() {
+    try {
+      Class.forName("com.aayushatharva.brotli4j.Brotli4jLoader", false, BrotliCodec.class.getClassLoader());
+      return Encoding.load() && encoderWorks();
+    } catch (ClassNotFoundException | LinkageError | IOException | RuntimeException ex) {
+      LOG.debug("brotli encoding not available", ex);
+      return false;
+    }
+  }
+
+  /**
+   * A successful load of the native library does not mean it works on this platform,
+   * a probe makes sure we do not negotiate a coding we cannot produce.
+   */
+  private static boolean encoderWorks() throws IOException {
+    byte[] data = "brotli content coding probe".getBytes(StandardCharsets.UTF_8);
+    ByteArrayOutputStream bos = new ByteArrayOutputStream(64);
+    try (OutputStream os = Encoding.encode(bos, 4)) {
+      os.write(data);
+    }
+    if (!CAN_DECODE) {
+      return bos.size() > 0;
+    }
+    ByteArrayOutputStream result = new ByteArrayOutputStream(data.length);
+    try (InputStream is = Decoding.decode(new ByteArrayInputStream(bos.toByteArray()))) {
+      byte[] buff = new byte[64];
+      int r;
+      while ((r = is.read(buff)) >= 0) {
+        result.write(buff, 0, r);
+      }
+    }
+    return Arrays.equals(data, result.toByteArray());
+  }
+
+  @Override
+  public String getName() {
+    return "br";
+  }
+
+  @Override
+  public boolean canEncode() {
+    return CAN_ENCODE;
+  }
+
+  @Override
+  public boolean canDecode() {
+    return CAN_DECODE;
+  }
+
+  @Override
+  public int getDefaultLevel() {
+    return 4;
+  }
+
+  @Override
+  public OutputStream encode(final OutputStream os, final int level) throws IOException {
+    return Encoding.encode(os, level);
+  }
+
+  @Override
+  public InputStream decode(final InputStream is) throws IOException {
+    return Decoding.decode(is);
+  }
+
+  @Override
+  public String toString() {
+    return "BrotliCodec{canEncode=" + CAN_ENCODE + ", canDecode=" + CAN_DECODE + '}';
+  }
+
+  /**
+   * Isolates the references to the optional encoder library, so that this codec can be loaded without it.
+   */
+  private static final class Encoding {
+
+    private Encoding() { }
+
+    static boolean load() {
+      return Brotli4jLoader.isAvailable();
+    }
+
+    static OutputStream encode(final OutputStream os, final int level) throws IOException {
+      return new BrotliOutputStream(os, new Encoder.Parameters().setQuality(level));
+    }
+
+  }
+
+  /**
+   * Isolates the references to the optional decoder library, so that this codec can be loaded without it.
+   */
+  private static final class Decoding {
+
+    private Decoding() { }
+
+    static InputStream decode(final InputStream is) throws IOException {
+      return new BrotliInputStream(is);
+    }
+
+  }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.common.providers.encoding;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * A HTTP content coding (Content-Encoding/Accept-Encoding) implementation.
+ * Implementations are discovered via the ServiceLoader, and are expected to be stateless and thread safe.
+ * Codecs that depend on optional libraries (native or not) should report their availability via
+ * canEncode/canDecode instead of failing to load.
+ *
+ * @author Zoltan Farkas
+ */
+public interface ContentCodec {
+
+  /**
+   * @return the content coding name, as registered with IANA. (gzip, deflate, br, zstd...)
+   */
+  String getName();
+
+  /**
+   * @return alternate names this codec can decode/encode. (x-gzip)
+   */
+  default Set<String> getAliases() {
+    return Collections.emptySet();
+  }
+
+  boolean canEncode();
+
+  boolean canDecode();
+
+  /**
+   * @return the compression level used when not otherwise configured.
+   */
+  int getDefaultLevel();
+
+  /**
+   * @param os the stream to write the encoded content to.
+   * @param level the compression level, codec specific.
+   * @return the stream to write the content to, closing the stream will finish the encoding, and close os.
+   */
+  OutputStream encode(OutputStream os, int level) throws IOException;
+
+  /**
+   * @param is the encoded content.
+   * @return the decoded content, closing the stream will close is.
+   */
+  InputStream decode(InputStream is) throws IOException;
+
+}
@@ -0,0 +1,403 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.common.providers.encoding;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.ws.rs.core.MediaType;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.spi.ConfigProviderResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The set of content codings available, and their configuration:
+ * <ul>
+ * <li>{prefix}.preference - comma separated list of coding names, in server preference order,
+ * used to break Accept-Encoding q-value ties. (default: zstd,br,gzip,deflate)</li>
+ * <li>{prefix}.{coding}.level - the compression level, and per media type overwrites,
+ * like: "6,application/avro=3,text/*=9". (default: the codec default level)</li>
+ * <li>{prefix}.compressible - comma separated list of media types the server will compress. type/* is supported.
+ * </li>
+ * <li>{prefix}.minSize - responses of known size smaller that this will not be compressed. (default: 4096)</li>
+ * </ul>
+ * the default prefix is spf4j.jaxrs.encoding, and the default instance reads the configuration from the
+ * microprofile config. (system properties, environment, classpath properties...)
+ * @author Zoltan Farkas
+ */
+@ParametersAreNonnullByDefault
+public final class ContentCodecs {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ContentCodecs.class);
+
+  public static final String DEFAULT_PREFIX = "spf4j.jaxrs.encoding";
+
+  private static final String DEFAULT_PREFERENCE = "zstd,br,gzip,deflate";
+
+  private static final String DEFAULT_COMPRESSIBLE = "text/*,application/json,application/xml,application/javascript,"
+          + "application/octet-stream,application/avro,application/avro+json,application/avro-x+json";
+
+  private static final int MAX_NEGOTIATION_CACHE_SIZE = 256;
+
+  private final Map<String, ContentCodec> decoders;
+
+  private final Map<String, ContentCodec> encoders;
+
+  /** encoders in preference order. */
+  private final ContentCodec[] preference;
+
+  private final Map<String, Levels> levels;
+
+  private final Set<String> compressible;
+
+  private final int minSize;
+
+  private final String acceptEncoding;
+
+  private final ConcurrentMap<String, Optional<ContentCodec>> negotiationCache;
+
+  private static class Lazy {
+    private static final ContentCodecs DEFAULT = new ContentCodecs(discover(), DEFAULT_PREFIX, defaultConfig());
+
+    private static Function<String, String> defaultConfig() {
+      try {
+        return fromConfig(ConfigProviderResolver.instance().getConfig());
+      } catch (IllegalStateException ex) {
+        LOG.debug("No microprofile config available, using system properties", ex);
+        return System::getProperty;
+      }
+    }
+  }
+
+  /**
+   * @param config the microprofile config.
+   * @return a configuration source function (for the constructor), backed by the config.
+   */
+  public static Function<String, String> fromConfig(final Config config) {
+    return key -> config.getOptionalValue(key, String.class).orElse(null);
+  }
+
+  /**
+   * @param codecs the available codecs, codecs that can neither encode nor decode are ignored.
+   * @param prefix the configuration keys prefix.
+   * @param config the configuration source (see fromConfig).
+   */
+  public ContentCodecs(final Iterable<ContentCodec> codecs, final String prefix,
+          final Function<String, String> config) {
+    this.decoders = new HashMap<>();
+    this.encoders = new HashMap<>();
+    this.levels = new HashMap<>();
+    List<String> preferred = splitList(getConfig(config, prefix + ".preference", DEFAULT_PREFERENCE));
+    List<ContentCodec> encoderList = new ArrayList<>();
+    for (ContentCodec codec : codecs) {
+      if (!codec.canEncode() && !codec.canDecode()) {
+        LOG.debug("Content coding {} not available", codec);
+        continue;
+      }
+      String name = codec.getName().toLowerCase(Locale.US);
+      if (codec.canDecode()) {
+        decoders.putIfAbsent(name, codec);
+        for (String alias : codec.getAliases()) {
+          decoders.putIfAbsent(alias.toLowerCase(Locale.US), codec);
+        }
+      }
+      if (codec.canEncode() && encoders.putIfAbsent(name, codec) == null) {
+        for (String alias : codec.getAliases()) {
+          encoders.putIfAbsent(alias.toLowerCase(Locale.US), codec);
+        }
+        encoderList.add(codec);
+        levels.put(name, Levels.parse(getConfig(config, prefix + '.' + name + ".level", null),
+                codec.getDefaultLevel()));
+      }
+    }
+    encoderList.sort((a, b) -> Integer.compare(preferenceIdx(preferred, a), preferenceIdx(preferred, b)));
+    this.preference = encoderList.toArray(new ContentCodec[encoderList.size()]);
+    this.compressible = new HashSet<>(splitList(getConfig(config, prefix + ".compressible", DEFAULT_COMPRESSIBLE)));
+    this.minSize = Integer.parseInt(getConfig(config, prefix + ".minSize", "4096"));
+    List<String> decodable = new ArrayList<>(decoders.size());
+    for (ContentCodec codec : encoderList) {
+      if (codec.canDecode()) {
+        decodable.add(codec.getName());
+      }
+    }
+    for (ContentCodec codec : new HashSet<>(decoders.values())) {
+      if (!decodable.contains(codec.getName())) {
+        decodable.add(codec.getName());
+      }
+    }
+    this.acceptEncoding = String.join(", ", decodable);
+    this.negotiationCache = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * @return the codecs discovered via the ServiceLoader, (codecs that fail to load are skipped).
+   */
+  public static List<ContentCodec> discover() {
+    List<ContentCodec> result = new ArrayList<>(4);
+    Iterator<ContentCodec> it = ServiceLoader.load(ContentCodec.class, ContentCodecs.class.getClassLoader())
+            .iterator();
+    while (true) {
+      try {
+        if (!it.hasNext()) {
+          break;
+        }
+        result.add(it.next());
+      } catch (ServiceConfigurationError | LinkageError ex) {
+        LOG.warn("Cannot load content codec", ex);
+      }
+    }
+    return result;
+  }
+
+  public static ContentCodecs getDefault() {
+    return Lazy.DEFAULT;
+  }
+
+  private static int preferenceIdx(final List<String> preferred, final ContentCodec codec) {
+    int idx = preferred.indexOf(codec.getName());
+    return idx < 0 ? Integer.MAX_VALUE : idx;
+  }
+
+  private static String getConfig(final Function<String, String> config, final String key,
+          @Nullable final String defaultValue) {
+    String value = config.apply(key);
+    return value == null ? defaultValue : value;
+  }
+
+  private static List<String> splitList(final String list) {
+    List<String> result = new ArrayList<>();
+    for (String s : list.split(",")) {
+      String trimmed = s.trim().toLowerCase(Locale.US);
+      if (!trimmed.isEmpty()) {
+        result.add(trimmed);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @param contentEncoding the content encoding header value.
+   * @return the codec to decode the content with, null if not supported.
+   */
+  @Nullable
+  public ContentCodec getDecoder(final String contentEncoding) {
+    ContentCodec result = decoders.get(contentEncoding);
+    if (result == null) {
+      result = decoders.get(contentEncoding.trim().toLowerCase(Locale.US));
+    }
+    return result;
+  }
+
+  @Nullable
+  public ContentCodec getEncoder(final String contentEncoding) {
+    ContentCodec result = encoders.get(contentEncoding);
+    if (result == null) {
+      result = encoders.get(contentEncoding.trim().toLowerCase(Locale.US));
+    }
+    return result;
+  }
+
+  /**
+   * @return the Accept-Encoding header value to advertise the codings we can decode.
+   */
+  public String getAcceptEncoding() {
+    return acceptEncoding;
+  }
+
+  public int getMinSize() {
+    return minSize;
+  }
+
+  /**
+   * @return the compression level configured for the codec and media type.
+   */
+  public int getLevel(final ContentCodec codec, @Nullable final MediaType mediaType) {
+    Levels lvls = levels.get(codec.getName());
+    if (lvls == null) {
+      return codec.getDefaultLevel();
+    }
+    return lvls.getLevel(mediaType);
+  }
+
+  public boolean isCompressible(final MediaType mediaType) {
+    if (mediaType.isWildcardType() || mediaType.isWildcardSubtype()) {
+      return false;
+    }
+    String type = mediaType.getType().toLowerCase(Locale.US);
+    return compressible.contains(type + '/' + mediaType.getSubtype().toLowerCase(Locale.US))
+            || compressible.contains(type + "/*");
+  }
+
+  /**
+   * Negotiate the content coding to use for a response.
+   * @param acceptEncodingHeaders the Accept-Encoding header values, (null if no header)
+   * @return the best content codec, or null if no coding (identity) should be used.
+   */
+  @Nullable
+  public ContentCodec negotiate(@Nullable final List<String> acceptEncodingHeaders) {
+    if (acceptEncodingHeaders == null || acceptEncodingHeaders.isEmpty()) {
+      return null;
+    }
+    String value = acceptEncodingHeaders.size() == 1 ? acceptEncodingHeaders.get(0)
+            : String.join(",", acceptEncodingHeaders);
+    Optional<ContentCodec> result = negotiationCache.get(value);
+    if (result == null) {
+      result = Optional.ofNullable(negotiate(value));
+      if (negotiationCache.size() < MAX_NEGOTIATION_CACHE_SIZE) {
+        negotiationCache.putIfAbsent(value, result);
+      }
+    }
+    return result.orElse(null);
+  }
+
+  /**
+   * @return the best codec, or null if none acceptable.
+   */
+  @Nullable
+  private ContentCodec negotiate(final String acceptEncoding) {
+    Map<String, Float> qValues = parseAcceptEncoding(acceptEncoding);
+    Float starQ = qValues.get("*");
+    ContentCodec best = null;
+    float bestQ = 0f;
+    for (ContentCodec codec : preference) {
+      Float q = qValues.get(codec.getName());
+      if (q == null) {
+        for (String alias : codec.getAliases()) {
+          q = qValues.get(alias);
+          if (q != null) {
+            break;
+          }
+        }
+      }
+      if (q == null) {
+        q = starQ;
+      }
+      if (q != null && q > bestQ) {
+        bestQ = q;
+        best = codec;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Parse a Accept-Encoding header value (RFC 7231 section 5.3.4).
+   * @return coding name -> q value. invalid entries are ignored.
+   */
+  static Map<String, Float> parseAcceptEncoding(final String acceptEncoding) {
+    Map<String, Float> result = new HashMap<>(8);
+    for (String coding : acceptEncoding.split(",")) {
+      int sIdx = coding.indexOf(';');
+      String name;
+      float q = 1f;
+      if (sIdx < 0) {
+        name = coding.trim();
+      } else {
+        name = coding.substring(0, sIdx).trim();
+        String params = coding.substring(sIdx + 1).trim();
+        if (params.startsWith("q=") || params.startsWith("Q=")) {
+          try {
+            q = Float.parseFloat(params.substring(2).trim());
+          } catch (NumberFormatException ex) {
+            continue;
+          }
+          if (q < 0 || q > 1) {
+            continue;
+          }
+        }
+      }
+      if (!name.isEmpty()) {
+        result.put(name.toLowerCase(Locale.US), q);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "ContentCodecs{" + "decoders=" + decoders + ", encoders=" + encoders + ", levels=" + levels
+            + ", compressible=" + compressible + ", minSize=" + minSize + '}';
+  }
+
+  /**
+   * Compression levels per media type.
+   */
+  private static final class Levels {
+
+    private final int defaultLevel;
+
+    private final Map<String, Integer> byMediaType;
+
+    Levels(final int defaultLevel, final Map<String, Integer> byMediaType) {
+      this.defaultLevel = defaultLevel;
+      this.byMediaType = byMediaType;
+    }
+
+    /**
+     * @param spec "level,type/subtype=level,type/*=level"
+     */
+    static Levels parse(@Nullable final String spec, final int codecDefault) {
+      if (spec == null) {
+        return new Levels(codecDefault, Collections.emptyMap());
+      }
+      int defaultLevel = codecDefault;
+      Map<String, Integer> byMediaType = new HashMap<>(4);
+      for (String part : splitList(spec)) {
+        int eIdx = part.indexOf('=');
+        if (eIdx < 0) {
+          defaultLevel = Integer.parseInt(part);
+        } else {
+          byMediaType.put(part.substring(0, eIdx).trim(), Integer.parseInt(part.substring(eIdx + 1).trim()));
+        }
+      }
+      return new Levels(defaultLevel, byMediaType);
+    }
+
+    int getLevel(@Nullable final MediaType mediaType) {
+      if (mediaType == null || byMediaType.isEmpty()) {
+        return defaultLevel;
+      }
+      String type = mediaType.getType().toLowerCase(Locale.US);
+      Integer result = byMediaType.get(type + '/' + mediaType.getSubtype().toLowerCase(Locale.US));
+      if (result == null) {
+        result = byMediaType.get(type + "/*");
+      }
+      return result == null ? defaultLevel : result;
+    }
+
+    @Override
+    public String toString() {
+      return "Levels{" + "defaultLevel=" + defaultLevel + ", byMediaType=" + byMediaType + '}';
+    }
+
+  }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.common.providers.encoding;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * deflate content coding (zlib wrapped deflate), with pooled Deflaters/Inflaters. Level: 0-9 (-1 = default).
+ * Some implementations send raw deflate, the decoder handles both.
+ * @author Zoltan Farkas
+ */
+public final class DeflateCodec implements ContentCodec {
+
+  @Override
+  public String getName() {
+    return "deflate";
+  }
+
+  @Override
+  public boolean canEncode() {
+    return true;
+  }
+
+  @Override
+  public boolean canDecode() {
+    return true;
+  }
+
+  @Override
+  public int getDefaultLevel() {
+    return 6;
+  }
+
+  @Override
+  public OutputStream encode(final OutputStream os, final int level) {
+    return new PooledDeflaterOutputStream(os, level, false);
+  }
+
+  @Override
+  public InputStream decode(final InputStream is) throws IOException {
+    InputStream mis = is.markSupported() ? is : new BufferedInputStream(is);
+    mis.mark(1);
+    int firstByte = mis.read();
+    mis.reset();
+    // zlib header: CM = 8 (deflate) in the low 4 bits of the first byte.
+    return new PooledInflaterInputStream(mis, (firstByte & 0x0F) != 0x08);
+  }
+
+  @Override
+  public String toString() {
+    return "DeflateCodec{}";
+  }
+
+}
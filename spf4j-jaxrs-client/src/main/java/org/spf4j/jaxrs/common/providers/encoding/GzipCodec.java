@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.common.providers.encoding;
+
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Set;
+
+/**
+ * gzip content coding, with pooled Deflaters/Inflaters. Level: 0-9 (-1 = default).
+ * @author Zoltan Farkas
+ */
+public final class GzipCodec implements ContentCodec {
+
+  private static final Set<String> ALIASES = ImmutableSet.of("x-gzip");
+
+  @Override
+  public String getName() {
+    return "gzip";
+  }
+
+  @Override
+  public Set<String> getAliases() {
+    return ALIASES;
+  }
+
+  @Override
+  public boolean canEncode() {
+    return true;
+  }
+
+  @Override
+  public boolean canDecode() {
+    return true;
+  }
+
+  @Override
+  public int getDefaultLevel() {
+    return 6;
+  }
+
+  @Override
+  public OutputStream encode(final OutputStream os, final int level) throws IOException {
+    return new GzipOutputStream(os, level);
+  }
+
+  @Override
+  public InputStream decode(final InputStream is) throws IOException {
+    return new GzipInputStream(is);
+  }
+
+  @Override
+  public String toString() {
+    return "GzipCodec{}";
+  }
+
+}
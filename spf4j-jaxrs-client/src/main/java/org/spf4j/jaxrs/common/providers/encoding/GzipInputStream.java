@@ -0,0 +1,175 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.common.providers.encoding;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * GZIP (RFC 1952) input stream, using a pooled Inflater. Handles concatenated GZIP members.
+ * The GZIP header is read in the constructor.
+ * @author Zoltan Farkas
+ */
+final class GzipInputStream extends PooledInflaterInputStream {
+
+  private static final int GZIP_MAGIC = 0x8b1f;
+
+  private static final int FHCRC = 2;
+  private static final int FEXTRA = 4;
+  private static final int FNAME = 8;
+  private static final int FCOMMENT = 16;
+
+  private final CRC32 crc;
+
+  private boolean eos;
+
+  GzipInputStream(final InputStream in) throws IOException {
+    super(in, true);
+    this.crc = new CRC32();
+    this.eos = false;
+    try {
+      readHeader(in);
+    } catch (IOException | RuntimeException ex) {
+      release();
+      throw ex;
+    }
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int blen) throws IOException {
+    if (eos) {
+      return -1;
+    }
+    int n = super.read(b, off, blen);
+    if (n == -1) {
+      if (readTrailer()) {
+        eos = true;
+        return -1;
+      } else {
+        return this.read(b, off, blen);
+      }
+    }
+    crc.update(b, off, n);
+    return n;
+  }
+
+  /**
+   * @return the header length.
+   */
+  private int readHeader(final InputStream is) throws IOException {
+    CheckedInputStream cis = new CheckedInputStream(is, crc);
+    crc.reset();
+    if (readUShort(cis) != GZIP_MAGIC) {
+      throw new ZipException("Not in GZIP format");
+    }
+    if (readUByte(cis) != 8) {
+      throw new ZipException("Unsupported compression method");
+    }
+    int flg = readUByte(cis);
+    skipBytes(cis, 6);
+    int n = 10;
+    if ((flg & FEXTRA) == FEXTRA) {
+      int m = readUShort(cis);
+      skipBytes(cis, m);
+      n += m + 2;
+    }
+    if ((flg & FNAME) == FNAME) {
+      do {
+        n++;
+      } while (readUByte(cis) != 0);
+    }
+    if ((flg & FCOMMENT) == FCOMMENT) {
+      do {
+        n++;
+      } while (readUByte(cis) != 0);
+    }
+    if ((flg & FHCRC) == FHCRC) {
+      int v = (int) crc.getValue() & 0xffff;
+      if (readUShort(cis) != v) {
+        throw new ZipException("Corrupt GZIP header");
+      }
+      n += 2;
+    }
+    crc.reset();
+    return n;
+  }
+
+  /**
+   * @return true if end of stream, false if another gzip member follows.
+   */
+  private boolean readTrailer() throws IOException {
+    InputStream is = this.in;
+    int n = inf.getRemaining();
+    if (n > 0) {
+      is = new SequenceInputStream(new ByteArrayInputStream(buf, len - n, n), new FilterInputStream(is) {
+        @Override
+        public void close() {
+          // do not close the underlying stream.
+        }
+      });
+    }
+    if ((readUInt(is) != crc.getValue()) || (readUInt(is) != (inf.getBytesWritten() & 0xffffffffL))) {
+      throw new ZipException("Corrupt GZIP trailer");
+    }
+    // more data available (in the stream, or in our buffer) try reading a concatenated member.
+    if (this.in.available() > 0 || n > 26) {
+      int m = 8; // trailer
+      try {
+        m += readHeader(is);
+      } catch (IOException ex) {
+        return true; // ignore trailing garbage
+      }
+      inf.reset();
+      if (n > m) {
+        inf.setInput(buf, len - n + m, n - m);
+      }
+      return false;
+    }
+    return true;
+  }
+
+  private static long readUInt(final InputStream is) throws IOException {
+    long s = readUShort(is);
+    return ((long) readUShort(is) << 16) | s;
+  }
+
+  private static int readUShort(final InputStream is) throws IOException {
+    int b = readUByte(is);
+    return (readUByte(is) << 8) | b;
+  }
+
+  private static int readUByte(final InputStream is) throws IOException {
+    int b = is.read();
+    if (b == -1) {
+      throw new EOFException();
+    }
+    return b;
+  }
+
+  private static void skipBytes(final InputStream is, final int n) throws IOException {
+    for (int i = 0; i < n; i++) {
+      readUByte(is);
+    }
+  }
+
+}
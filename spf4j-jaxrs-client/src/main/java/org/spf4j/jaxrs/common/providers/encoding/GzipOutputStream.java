@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.common.providers.encoding;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+
+/**
+ * GZIP (RFC 1952) output stream, using a pooled Deflater.
+ * The GZIP header is written in the constructor.
+ * @author Zoltan Farkas
+ */
+final class GzipOutputStream extends PooledDeflaterOutputStream {
+
+  private static final byte[] HEADER = {
+    (byte) 0x1f, (byte) 0x8b, // magic
+    8, // compression method: deflate
+    0, // flags
+    0, 0, 0, 0, // mtime
+    0, // extra flags
+    (byte) 0xff // OS: unknown
+  };
+
+  private final CRC32 crc;
+
+  private boolean finished;
+
+  GzipOutputStream(final OutputStream out, final int level) throws IOException {
+    super(out, level, true);
+    this.crc = new CRC32();
+    this.finished = false;
+    out.write(HEADER);
+  }
+
+  @Override
+  public void write(final byte[] b, final int off, final int len) throws IOException {
+    super.write(b, off, len);
+    crc.update(b, off, len);
+  }
+
+  @Override
+  public void finish() throws IOException {
+    if (!finished) {
+      super.finish();
+      byte[] trailer = new byte[8];
+      writeIntLE(trailer, 0, (int) crc.getValue());
+      writeIntLE(trailer, 4, (int) def.getBytesRead());
+      out.write(trailer);
+      finished = true;
+    }
+  }
+
+  private static void writeIntLE(final byte[] to, final int at, final int value) {
+    to[at] = (byte) value;
+    to[at + 1] = (byte) (value >> 8);
+    to[at + 2] = (byte) (value >> 16);
+    to[at + 3] = (byte) (value >> 24);
+  }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.common.providers.encoding;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Deflater output stream with a pooled Deflater, the deflater is returned to the pool on close.
+ * @author Zoltan Farkas
+ */
+class PooledDeflaterOutputStream extends DeflaterOutputStream {
+
+  private final int level;
+
+  private final boolean nowrap;
+
+  private boolean released;
+
+  PooledDeflaterOutputStream(final OutputStream out, final int level, final boolean nowrap) {
+    super(out, ZlibPools.getDeflater(ZlibPools.normalizeLevel(level), nowrap), 8192);
+    this.level = ZlibPools.normalizeLevel(level);
+    this.nowrap = nowrap;
+    this.released = false;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      super.close();
+    } finally {
+      if (!released) {
+        released = true;
+        ZlibPools.releaseDeflater(def, level, nowrap);
+      }
+    }
+  }
+
+}
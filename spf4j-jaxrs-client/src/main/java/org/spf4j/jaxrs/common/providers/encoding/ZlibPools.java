@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.common.providers.encoding;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Pools of Deflater/Inflater instances, to avoid the native zlib stream allocation (and its cleanup)
+ * for every encoded/decoded entity.
+ * The pools are bounded, instances returned to a full pool are released.
+ * @author Zoltan Farkas
+ */
+final class ZlibPools {
+
+  private static final int POOL_SIZE = Integer.getInteger("spf4j.jaxrs.encoding.zlibPoolSize",
+          Runtime.getRuntime().availableProcessors() * 2);
+
+  /** [nowrap ? 1 : 0][level + 1], level in [-1, 9]. */
+  private static final BlockingQueue<Deflater>[][] DEFLATERS = new BlockingQueue[2][11];
+
+  /** [nowrap ? 1 : 0]. */
+  private static final BlockingQueue<Inflater>[] INFLATERS = new BlockingQueue[2];
+
+  static {
+    for (BlockingQueue<Deflater>[] byLevel : DEFLATERS) {
+      for (int i = 0; i < byLevel.length; i++) {
+        byLevel[i] = new ArrayBlockingQueue<>(POOL_SIZE);
+      }
+    }
+    for (int i = 0; i < INFLATERS.length; i++) {
+      INFLATERS[i] = new ArrayBlockingQueue<>(POOL_SIZE);
+    }
+  }
+
+  private ZlibPools() { }
+
+  static int normalizeLevel(final int level) {
+    if (level < Deflater.DEFAULT_COMPRESSION) {
+      return Deflater.DEFAULT_COMPRESSION;
+    } else if (level > Deflater.BEST_COMPRESSION) {
+      return Deflater.BEST_COMPRESSION;
+    }
+    return level;
+  }
+
+  /**
+   * @param level a valid deflater level (see normalizeLevel).
+   */
+  static Deflater getDeflater(final int level, final boolean nowrap) {
+    Deflater result = DEFLATERS[nowrap ? 1 : 0][level + 1].poll();
+    if (result == null) {
+      return new Deflater(level, nowrap);
+    }
+    return result;
+  }
+
+  static void releaseDeflater(final Deflater deflater, final int level, final boolean nowrap) {
+    deflater.reset();
+    if (!DEFLATERS[nowrap ? 1 : 0][level + 1].offer(deflater)) {
+      deflater.end();
+    }
+  }
+
+  static Inflater getInflater(final boolean nowrap) {
+    Inflater result = INFLATERS[nowrap ? 1 : 0].poll();
+    if (result == null) {
+      return new Inflater(nowrap);
+    }
+    return result;
+  }
+
+  static void releaseInflater(final Inflater inflater, final boolean nowrap) {
+    inflater.reset();
+    if (!INFLATERS[nowrap ? 1 : 0].offer(inflater)) {
+      inflater.end();
+    }
+  }
+
+}
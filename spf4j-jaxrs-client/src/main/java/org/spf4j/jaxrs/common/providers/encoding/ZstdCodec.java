@@ -0,0 +1,197 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.common.providers.encoding;
+
+import com.github.luben.zstd.RecyclingBufferPool;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * zstd content coding (RFC 8878).
+ * Uses zstd-jni (optional dependency) when in the classpath and its native library loads and works on this platform,
+ * otherwise falls back to the pure java aircompressor (optional dependency) implementation.
+ * Level: 1-22 (negative levels for fast modes), the pure java encoder ignores the level.
+ * @author Zoltan Farkas
+ */
+public final class ZstdCodec implements ContentCodec {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ZstdCodec.class);
+
+  private static final Implementation IMPL = findImplementation();
+
+  private static Implementation findImplementation() {
+    try {
+      Class.forName("com.github.luben.zstd.ZstdOutputStream", false, ZstdCodec.class.getClassLoader());
+      if (Native.load() && works(Implementation.NATIVE)) {
+        return Implementation.NATIVE;
+      }
+    } catch (ClassNotFoundException | LinkageError | IOException | RuntimeException ex) {
+      LOG.debug("zstd native library not available", ex);
+    }
+    try {
+      Class.forName("io.airlift.compress.zstd.ZstdOutputStream", false, ZstdCodec.class.getClassLoader());
+      if (works(Implementation.JAVA)) {
+        return Implementation.JAVA;
+      }
+    } catch (ClassNotFoundException | LinkageError | IOException | RuntimeException ex) {
+      LOG.debug("zstd java implementation not available", ex);
+    }
+    return Implementation.NONE;
+  }
+
+  /**
+   * A successful load of a native library does not mean it works, (or that it will load everything it needs)
+   * a round trip makes sure we do not advertise a coding we cannot handle.
+   */
+  private static boolean works(final Implementation impl) throws IOException {
+    byte[] data = "zstd content coding probe".getBytes(StandardCharsets.UTF_8);
+    ByteArrayOutputStream bos = new ByteArrayOutputStream(64);
+    try (OutputStream os = impl.encode(bos, 3)) {
+      os.write(data);
+    }
+    ByteArrayOutputStream result = new ByteArrayOutputStream(data.length);
+    try (InputStream is = impl.decode(new ByteArrayInputStream(bos.toByteArray()))) {
+      byte[] buff = new byte[64];
+      int r;
+      while ((r = is.read(buff)) >= 0) {
+        result.write(buff, 0, r);
+      }
+    }
+    return Arrays.equals(data, result.toByteArray());
+  }
+
+  @Override
+  public String getName() {
+    return "zstd";
+  }
+
+  @Override
+  public boolean canEncode() {
+    return IMPL != Implementation.NONE;
+  }
+
+  @Override
+  public boolean canDecode() {
+    return IMPL != Implementation.NONE;
+  }
+
+  @Override
+  public int getDefaultLevel() {
+    return 3;
+  }
+
+  @Override
+  public OutputStream encode(final OutputStream os, final int level) throws IOException {
+    return IMPL.encode(os, level);
+  }
+
+  @Override
+  public InputStream decode(final InputStream is) throws IOException {
+    return IMPL.decode(is);
+  }
+
+  @Override
+  public String toString() {
+    return "ZstdCodec{implementation=" + IMPL + '}';
+  }
+
+  private enum Implementation {
+    NATIVE {
+      @Override
+      OutputStream encode(final OutputStream os, final int level) throws IOException {
+        return Native.encode(os, level);
+      }
+
+      @Override
+      InputStream decode(final InputStream is) throws IOException {
+        return Native.decode(is);
+      }
+    },
+    JAVA {
+      @Override
+      OutputStream encode(final OutputStream os, final int level) throws IOException {
+        return Java.encode(os);
+      }
+
+      @Override
+      InputStream decode(final InputStream is) {
+        return Java.decode(is);
+      }
+    },
+    NONE {
+      @Override
+      OutputStream encode(final OutputStream os, final int level) {
+        throw new UnsupportedOperationException("zstd not available");
+      }
+
+      @Override
+      InputStream decode(final InputStream is) {
+        throw new UnsupportedOperationException("zstd not available");
+      }
+    };
+
+    abstract OutputStream encode(OutputStream os, int level) throws IOException;
+
+    abstract InputStream decode(InputStream is) throws IOException;
+  }
+
+  /**
+   * Isolates the references to the optional native library, so that this codec can be loaded without it.
+   */
+  private static final class Native {
+
+    private Native() { }
+
+    static boolean load() {
+      com.github.luben.zstd.util.Native.load();
+      return com.github.luben.zstd.util.Native.isLoaded();
+    }
+
+    static OutputStream encode(final OutputStream os, final int level) throws IOException {
+      return new com.github.luben.zstd.ZstdOutputStream(os, RecyclingBufferPool.INSTANCE).setLevel(level);
+    }
+
+    static InputStream decode(final InputStream is) throws IOException {
+      return new com.github.luben.zstd.ZstdInputStream(is, RecyclingBufferPool.INSTANCE);
+    }
+
+  }
+
+  /**
+   * Isolates the references to the optional pure java library, so that this codec can be loaded without it.
+   */
+  private static final class Java {
+
+    private Java() { }
+
+    static OutputStream encode(final OutputStream os) throws IOException {
+      return new io.airlift.compress.zstd.ZstdOutputStream(os);
+    }
+
+    static InputStream decode(final InputStream is) {
+      return new io.airlift.compress.zstd.ZstdInputStream(is);
+    }
+
+  }
+
+}
@@ -30,6 +30,9 @@ import org.eclipse.microprofile.config.spi.ConfigSource;
 import org.spf4j.base.Throwables;
 
 /**
+ * When all config sources are immutable (see {@link ImmutableConfigSource}), with the exception of the first source
+ * that can be observable, resolved values are cached in a versioned snapshot (see {@link ConfigValueCache}),
+ * that is invalidated by the config events of the observable source.
  * @author Zoltan Farkas
  */
 @ParametersAreNonnullByDefault
@@ -41,6 +44,9 @@ public final class ConfigImpl implements ExtendedConfig, AutoCloseable {
 
   private final ObservableConfig observableConfig;
 
+  @Nullable
+  private final ConfigValueCache valueCache;
+
   ConfigImpl(final ObjectConverters converters, final ConfigSource... configs) {
     this.converters = converters;
     this.configs = configs;
@@ -61,6 +67,17 @@ public final class ConfigImpl implements ExtendedConfig, AutoCloseable {
     } else {
       this.observableConfig = null;
     }
+    this.valueCache = isCacheable(configs) ? new ConfigValueCache(observableConfig) : null;
+  }
+
+  private static boolean isCacheable(final ConfigSource... configs) {
+    for (int i = 0; i < configs.length; i++) {
+      ConfigSource cs = configs[i];
+      if (!(cs instanceof ImmutableConfigSource || (i == 0 && cs instanceof ObservableConfig))) {
+        return false;
+      }
+    }
+    return true;
   }
 
   public ConfigImpl withNewSchemaResolver(final Supplier<SchemaResolver> schemaResolver) {
@@ -90,7 +107,8 @@ public final class ConfigImpl implements ExtendedConfig, AutoCloseable {
     if (ExtendedConfig.PROPERTY_NAME.equals(propertyName)) {
       return this;
     }
-    Object value = getCfgValue(propertyName, propertyType);
+    Object value = valueCache == null ? getCfgValue(propertyName, propertyType)
+            : getCachedCfgValue(propertyName, propertyType);
     if (value == null) {
       value = defaultValue == null ? null : convert(propertyType, defaultValue);
     }
@@ -106,6 +124,24 @@ public final class ConfigImpl implements ExtendedConfig, AutoCloseable {
     return convert(type, strValue);
   }
 
+  @Nullable
+  private Object getCachedCfgValue(final String propertyName, final Type type) {
+    ConfigValueCache.Entry entry = valueCache.get(propertyName, type);
+    if (entry == null) {
+      long version = valueCache.beginLoad();
+      String strValue = getCfgStrValue(propertyName);
+      Object value = strValue == null ? null : convert(type, strValue);
+      valueCache.put(version, propertyName, type, strValue, value);
+      return value;
+    }
+    Object value = entry.getValue();
+    if (value != null) {
+      return value;
+    }
+    String strValue = entry.getStrValue();
+    return strValue == null ? null : convert(type, strValue);
+  }
+
   @SuppressFBWarnings("URV_INHERITED_METHOD_WITH_RELATED_TYPES")
   @Override
   public Object convert(final Type type, final String strValue) {
@@ -149,7 +185,7 @@ public final class ConfigImpl implements ExtendedConfig, AutoCloseable {
   @Override
   public void addWatcher(final ConfigWatcher consumer) {
     if (observableConfig != null) {
-      observableConfig.addWatcher(consumer);
+      observableConfig.addWatcher(valueCache == null ? consumer : valueCache.wrap(consumer));
     } else {
       consumer.unknownEvents();
     }
@@ -158,7 +194,7 @@ public final class ConfigImpl implements ExtendedConfig, AutoCloseable {
   @Override
   public void addWatcher(final String name, final PropertyWatcher consumer) {
     if (observableConfig != null) {
-      observableConfig.addWatcher(name, consumer);
+      observableConfig.addWatcher(name, valueCache == null ? consumer : valueCache.wrap(name, consumer));
     } else {
       consumer.unknownEvents();
     }
@@ -167,14 +203,14 @@ public final class ConfigImpl implements ExtendedConfig, AutoCloseable {
   @Override
   public void removeWatcher(final ConfigWatcher consumer) {
     if (observableConfig != null) {
-      observableConfig.removeWatcher(consumer);
+      observableConfig.removeWatcher(valueCache == null ? consumer : valueCache.wrap(consumer));
     }
   }
 
   @Override
   public void removeWatcher(final String name, final PropertyWatcher consumer) {
     if (observableConfig != null) {
-      observableConfig.removeWatcher(name, consumer);
+      observableConfig.removeWatcher(name, valueCache == null ? consumer : valueCache.wrap(name, consumer));
     }
   }
 
@@ -185,6 +221,9 @@ public final class ConfigImpl implements ExtendedConfig, AutoCloseable {
 
   @Override
   public void close() throws Exception {
+    if (valueCache != null) {
+      valueCache.dispose();
+    }
     Exception ex = null;
     for (ConfigSource config : configs) {
       if (config instanceof AutoCloseable) {
@@ -0,0 +1,380 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.config;
+
+import com.google.common.collect.ImmutableSet;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
+
+/**
+ * Immutable, versioned snapshot of resolved (name, type) -&gt; value, with lock free reads.
+ * The snapshot is copied and replaced on every change (new resolved value, or config event),
+ * changes are expected to be rare (warmup, config updates) compared with the reads.
+ * Only values of immutable types are shared between readers,
+ * for everything else the resolved string is cached and converted on every read.
+ *
+ * A loaded value is only published if there was no invalidation since the load has started,
+ * (version did not change) so that we never cache a value that was read before a change notification.
+ *
+ * @author Zoltan Farkas
+ */
+final class ConfigValueCache implements ConfigWatcher {
+
+  private static final Set<Class<?>> IMMUTABLE_TYPES = ImmutableSet.of(String.class, Boolean.class, Byte.class,
+          Short.class, Character.class, Integer.class, Long.class, Float.class, Double.class,
+          BigInteger.class, BigDecimal.class, Duration.class, Instant.class, LocalDate.class, LocalTime.class,
+          LocalDateTime.class, ZonedDateTime.class);
+
+  private static final Entry ABSENT = new Entry(null, null);
+
+  private static final Snapshot EMPTY = new Snapshot(0, Collections.emptyMap());
+
+  @Nullable
+  private final ObservableConfig observed;
+
+  private final AtomicReference<Snapshot> snapshot;
+
+  private volatile boolean watching;
+
+  private volatile boolean closed;
+
+  /**
+   * @param observed the observable config the cache needs to be invalidated from. null if all sources are immutable.
+   */
+  ConfigValueCache(@Nullable final ObservableConfig observed) {
+    this.observed = observed;
+    this.snapshot = new AtomicReference<>(EMPTY);
+    this.watching = false;
+    this.closed = false;
+  }
+
+  /**
+   * @return the cached entry, or null if not cached.
+   */
+  @Nullable
+  Entry get(final String name, final Type type) {
+    return snapshot.get().values.get(new CacheKey(name, type));
+  }
+
+  /**
+   * To be invoked before loading a value from the config sources.
+   * @return the version to be used when publishing the loaded value.
+   */
+  long beginLoad() {
+    if (!watching && observed != null) {
+      synchronized (this) {
+        if (!watching) {
+          observed.addWatcher(this);
+          watching = true;
+        }
+      }
+    }
+    return snapshot.get().version;
+  }
+
+  /**
+   * Publish a loaded value.
+   * @param version the version returned by beginLoad.
+   * @param strValue the value as read from the config sources.
+   * @param value the converted value.
+   */
+  void put(final long version, final String name, final Type type,
+          @Nullable final String strValue, @Nullable final Object value) {
+    if (closed) {
+      return;
+    }
+    Entry entry;
+    if (strValue == null) {
+      entry = ABSENT;
+    } else {
+      entry = new Entry(strValue, value != null && isImmutable(value) ? value : null);
+    }
+    CacheKey key = new CacheKey(name, type);
+    Snapshot current;
+    Map<CacheKey, Entry> values;
+    do {
+      current = snapshot.get();
+      if (current.version != version) {
+        return; // something changed since we read, let the next read cache it.
+      }
+      values = new HashMap<>(current.values.size() + current.values.size() / 3 + 2);
+      values.putAll(current.values);
+      values.put(key, entry);
+    } while (!snapshot.compareAndSet(current, new Snapshot(version, values)));
+  }
+
+  void invalidate(final String name) {
+    Snapshot current;
+    Map<CacheKey, Entry> values;
+    do {
+      current = snapshot.get();
+      values = new HashMap<>(current.values);
+      Iterator<CacheKey> it = values.keySet().iterator();
+      while (it.hasNext()) {
+        if (name.equals(it.next().name)) {
+          it.remove();
+        }
+      }
+    } while (!snapshot.compareAndSet(current, new Snapshot(current.version + 1, values)));
+  }
+
+  void invalidateAll() {
+    Snapshot current;
+    do {
+      current = snapshot.get();
+    } while (!snapshot.compareAndSet(current, new Snapshot(current.version + 1, Collections.emptyMap())));
+  }
+
+  @Override
+  public void accept(final String name, final ConfigEvent event) {
+    invalidate(name);
+  }
+
+  @Override
+  public void unknownEvents() {
+    invalidateAll();
+  }
+
+  /**
+   * Invoked by the observed config when it will not deliver updates anymore, caching will be disabled.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    invalidateAll();
+  }
+
+  /**
+   * Stop observing the config.
+   */
+  synchronized void dispose() {
+    if (watching) {
+      observed.removeWatcher(this);
+      watching = false;
+    }
+    close();
+  }
+
+  /**
+   * @return a watcher that will invalidate the cache before notifying the consumer,
+   * so that consumers always read the new values. Wrappers are equal if the wrapped consumers are.
+   */
+  ConfigWatcher wrap(final ConfigWatcher consumer) {
+    return new InvalidatingConfigWatcher(consumer);
+  }
+
+  PropertyWatcher wrap(final String name, final PropertyWatcher consumer) {
+    return new InvalidatingPropertyWatcher(name, consumer);
+  }
+
+  static boolean isImmutable(final Object value) {
+    return IMMUTABLE_TYPES.contains(value.getClass()) || value instanceof Enum;
+  }
+
+  @Override
+  public String toString() {
+    Snapshot s = snapshot.get();
+    return "ConfigValueCache{" + "version=" + s.version + ", size=" + s.values.size()
+            + ", watching=" + watching + ", closed=" + closed + '}';
+  }
+
+  static final class Entry {
+
+    @Nullable
+    private final String strValue;
+
+    @Nullable
+    private final Object value;
+
+    Entry(@Nullable final String strValue, @Nullable final Object value) {
+      this.strValue = strValue;
+      this.value = value;
+    }
+
+    /**
+     * @return the config value as read from the sources, null if not present.
+     */
+    @Nullable
+    String getStrValue() {
+      return strValue;
+    }
+
+    /**
+     * @return the converted value, null if the converted value cannot be shared (needs to be converted).
+     */
+    @Nullable
+    Object getValue() {
+      return value;
+    }
+
+    @Override
+    public String toString() {
+      return "Entry{" + "strValue=" + strValue + ", value=" + value + '}';
+    }
+
+  }
+
+  private static final class Snapshot {
+
+    private final long version;
+
+    private final Map<CacheKey, Entry> values;
+
+    Snapshot(final long version, final Map<CacheKey, Entry> values) {
+      this.version = version;
+      this.values = values;
+    }
+  }
+
+  private static final class CacheKey {
+
+    private final String name;
+
+    private final Type type;
+
+    CacheKey(final String name, final Type type) {
+      this.name = name;
+      this.type = type;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * name.hashCode() + type.hashCode();
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj == null || getClass() != obj.getClass()) {
+        return false;
+      }
+      final CacheKey other = (CacheKey) obj;
+      return name.equals(other.name) && type.equals(other.type);
+    }
+
+    @Override
+    public String toString() {
+      return "CacheKey{" + "name=" + name + ", type=" + type + '}';
+    }
+
+  }
+
+  private final class InvalidatingConfigWatcher implements ConfigWatcher {
+
+    private final ConfigWatcher consumer;
+
+    InvalidatingConfigWatcher(final ConfigWatcher consumer) {
+      this.consumer = consumer;
+    }
+
+    @Override
+    public void accept(final String name, final ConfigEvent event) {
+      invalidate(name);
+      consumer.accept(name, event);
+    }
+
+    @Override
+    public void unknownEvents() {
+      invalidateAll();
+      consumer.unknownEvents();
+    }
+
+    @Override
+    public void close() {
+      consumer.close();
+    }
+
+    @Override
+    public int hashCode() {
+      return consumer.hashCode();
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      return obj instanceof InvalidatingConfigWatcher
+              && consumer.equals(((InvalidatingConfigWatcher) obj).consumer);
+    }
+
+    @Override
+    public String toString() {
+      return "InvalidatingConfigWatcher{" + "consumer=" + consumer + '}';
+    }
+
+  }
+
+  private final class InvalidatingPropertyWatcher implements PropertyWatcher {
+
+    private final String name;
+
+    private final PropertyWatcher consumer;
+
+    InvalidatingPropertyWatcher(final String name, final PropertyWatcher consumer) {
+      this.name = name;
+      this.consumer = consumer;
+    }
+
+    @Override
+    public void accept(final ConfigEvent event) {
+      invalidate(name);
+      consumer.accept(event);
+    }
+
+    @Override
+    public void unknownEvents() {
+      invalidate(name);
+      consumer.unknownEvents();
+    }
+
+    @Override
+    public void close() {
+      consumer.close();
+    }
+
+    @Override
+    public int hashCode() {
+      return consumer.hashCode();
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      return obj instanceof InvalidatingPropertyWatcher
+              && consumer.equals(((InvalidatingPropertyWatcher) obj).consumer);
+    }
+
+    @Override
+    public String toString() {
+      return "InvalidatingPropertyWatcher{" + "name=" + name + ", consumer=" + consumer + '}';
+    }
+
+  }
+
+}
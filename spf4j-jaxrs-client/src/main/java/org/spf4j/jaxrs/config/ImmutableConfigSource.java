@@ -0,0 +1,29 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.config;
+
+import org.eclipse.microprofile.config.spi.ConfigSource;
+
+/**
+ * Marker interface for config sources whose values do not change during the lifetime of the process.
+ * (system properties, environment, class path resources)
+ * Values from configurations that are made only of immutable sources and at most one ObservableConfig
+ * can be cached (see {@link ConfigImpl}).
+ * @author Zoltan Farkas
+ */
+public interface ImmutableConfigSource extends ConfigSource {
+
+}
@@ -28,13 +28,13 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.Collections;
-import org.eclipse.microprofile.config.spi.ConfigSource;
+import org.spf4j.jaxrs.config.ImmutableConfigSource;
 
 /**
  *
  * @author Zoltan Farkas
  */
-public final class ClassPathPropertiesConfigSource implements ConfigSource {
+public final class ClassPathPropertiesConfigSource implements ImmutableConfigSource {
 
   private final Properties properties;
 
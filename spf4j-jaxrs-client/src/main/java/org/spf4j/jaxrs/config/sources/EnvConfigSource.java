@@ -16,12 +16,12 @@
 package org.spf4j.jaxrs.config.sources;
 
 import java.util.Map;
-import org.eclipse.microprofile.config.spi.ConfigSource;
+import org.spf4j.jaxrs.config.ImmutableConfigSource;
 
 /**
  * @author Zoltan Farkas
  */
-public final class EnvConfigSource implements ConfigSource {
+public final class EnvConfigSource implements ImmutableConfigSource {
 
   @Override
   public Map<String, String> getProperties() {
@@ -146,14 +146,22 @@ public final class MemoryConfigSource implements ConfigSource, ObservableConfig
   }
 
   public void putValue(final String propertyName, final String propertyValue) {
-      configs.compute(propertyName, (k, v) -> {
+    boolean[] added = new boolean[1];
+    configs.compute(propertyName, (k, v) -> {
       if (v == null) {
+        added[0] = propertyValue != null;
         return new ValueHolder(propertyValue);
       } else {
         v.put(k, propertyValue);
         return v;
       }
     });
+    // notify after the value is visible, so that watchers (caches) re-reading it see the new value.
+    if (added[0]) {
+      for (ConfigWatcher watcher : globalWatchers) {
+        watcher.accept(propertyName, ConfigEvent.ADDED);
+      }
+    }
   }
 
 
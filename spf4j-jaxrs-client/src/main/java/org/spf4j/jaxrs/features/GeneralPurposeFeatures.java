@@ -15,10 +15,12 @@
  */
 package org.spf4j.jaxrs.features;
 
+import javax.ws.rs.RuntimeType;
 import javax.ws.rs.core.Feature;
 import javax.ws.rs.core.FeatureContext;
-import org.glassfish.jersey.message.DeflateEncoder;
-import org.spf4j.jaxrs.common.providers.GZipEncoderDecoder;
+import org.spf4j.jaxrs.client.providers.AcceptEncodingClientFilter;
+import org.spf4j.jaxrs.common.providers.ContentCodecInterceptor;
+import org.spf4j.jaxrs.common.providers.EncodedContentInterceptor;
 import org.spf4j.jaxrs.common.providers.gp.CharSequenceMessageProvider;
 import org.spf4j.jaxrs.common.providers.gp.CsvParameterConverterProvider;
 import org.spf4j.jaxrs.common.providers.gp.DirectStringMessageProvider;
@@ -43,8 +45,11 @@ public final class GeneralPurposeFeatures implements Feature {
     fc.register(new DurationParameterConverterProvider());
     fc.register(new SampleNodeMessageProviderJson());
     fc.register(new SampleNodeMessageProviderD3Json());
-    fc.register(new GZipEncoderDecoder());
-    fc.register(DeflateEncoder.class);
+    fc.register(new ContentCodecInterceptor());
+    if (fc.getConfiguration().getRuntimeType() == RuntimeType.CLIENT) {
+      fc.register(new AcceptEncodingClientFilter());
+    }
+    fc.register(new EncodedContentInterceptor());
     return true;
   }
 
@@ -53,6 +53,17 @@ public class SchemaClientTest {
     Assert.assertNull(resolveSchema);
   }
 
+  @Test
+  @SuppressFBWarnings("DM_STRING_CTOR")
+  public void testEqualIdsHitTheCache() throws URISyntaxException {
+    SchemaClient client = new SchemaClient(new URI("https://repo1.maven.org/maven2"));
+    // ids parsed from headers are equal, but not identical to the previously resolved ones.
+    Schema schema = client.resolveSchema(new String("org.spf4j.avro:core-schema:1.0.9:6"));
+    Assert.assertNotNull(schema);
+    Assert.assertSame(schema, client.resolveSchema(new String("org.spf4j.avro:core-schema:1.0.9:6")));
+    Assert.assertEquals(1, client.cachedSchemas());
+  }
+
   @Test
   @SuppressFBWarnings("PRMC_POSSIBLY_REDUNDANT_METHOD_CALLS")
   public void testArbitrarySchemaMulti() throws IOException, URISyntaxException, ClassNotFoundException {
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.http;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spf4j.base.ExecutionContext;
+import org.spf4j.base.ExecutionContexts;
+import org.spf4j.http.ServerTiming.ServerTimingMetric;
+
+/**
+ * @author Zoltan Farkas
+ */
+public class RequestContextTagsTest {
+
+  @Test
+  public void testServerTimingsAreSnapshots() {
+    try (ExecutionContext ctx = ExecutionContexts.start("test", 10, TimeUnit.SECONDS)) {
+      ctx.accumulateComponent(RequestContextTags.SERVER_TIMINGS, ServerTimingMetric.ofMicros("auth", 100));
+      List<ServerTimingMetric> timings = ctx.get(RequestContextTags.SERVER_TIMINGS);
+      for (ServerTimingMetric metric : timings) {
+        // no ConcurrentModificationException.
+        ctx.accumulateComponent(RequestContextTags.SERVER_TIMINGS, metric.withNamePrefix("x."));
+      }
+      Assert.assertEquals(1, timings.size());
+      Assert.assertEquals(2, ctx.get(RequestContextTags.SERVER_TIMINGS).size());
+      try {
+        timings.add(ServerTimingMetric.ofMicros("exec", 1));
+        Assert.fail();
+      } catch (UnsupportedOperationException ex) {
+        // expected, the timings are immutable.
+      }
+    }
+  }
+
+  @Test
+  public void testServerTimingsLimit() {
+    try (ExecutionContext ctx = ExecutionContexts.start("test", 10, TimeUnit.SECONDS)) {
+      for (int i = 0; i < 100; i++) {
+        ctx.accumulateComponent(RequestContextTags.SERVER_TIMINGS, ServerTimingMetric.ofMicros("m" + i, i));
+      }
+      List<ServerTimingMetric> timings = ctx.get(RequestContextTags.SERVER_TIMINGS);
+      Assert.assertEquals(64, timings.size());
+      Assert.assertEquals("m0", timings.get(0).getName());
+    }
+  }
+
+  @Test
+  public void testServerTimingsPushedOnClose() throws InterruptedException {
+    try (ExecutionContext ctx = ExecutionContexts.start("test", 10, TimeUnit.SECONDS)) {
+      ctx.accumulateComponent(RequestContextTags.SERVER_TIMINGS, ServerTimingMetric.ofMicros("auth", 100));
+      Thread pusher = new Thread(() -> {
+        for (int i = 0; i < 10; i++) {
+          try (ExecutionContext child = ExecutionContexts.start("child", ctx, ctx.getDeadlineNanos())) {
+            child.accumulateComponent(RequestContextTags.SERVER_TIMINGS, ServerTimingMetric.ofMicros("ds.exec", i));
+          }
+        }
+      });
+      pusher.start();
+      while (pusher.isAlive()) {
+        for (ServerTimingMetric metric : ctx.get(RequestContextTags.SERVER_TIMINGS)) {
+          Assert.assertNotNull(metric.getName());
+        }
+      }
+      pusher.join();
+      List<ServerTimingMetric> timings = ctx.get(RequestContextTags.SERVER_TIMINGS);
+      Assert.assertEquals(11, timings.size());
+      Assert.assertEquals("auth", timings.get(0).getName());
+      Assert.assertEquals("ds.exec", timings.get(10).getName());
+    }
+  }
+
+}
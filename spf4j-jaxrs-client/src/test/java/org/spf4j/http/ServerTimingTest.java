@@ -67,6 +67,15 @@ public class ServerTimingTest {
     Assert.assertEquals(param, param2);
   }
 
+  @Test
+  public void testServerTimingMetricPrefix() {
+    ServerTiming timing = ServerTiming.parse("auth;dur=1.5, exec;dur=10.25;description=\"x y\"");
+    ServerTimingMetric metric = timing.getMetrics().get(1).withNamePrefix("ds.");
+    Assert.assertEquals("ds.exec;dur=10.25;description=\"x y\"", metric.toString());
+    Assert.assertEquals(10.25, metric.getDuration(), 0.0001);
+    Assert.assertEquals("exec;dur=0.123", ServerTimingMetric.ofMicros("exec", 123).toString());
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void testServerTimingMetricInvalid() {
     new ServerTimingMetric("description ", null, null);
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.http.multi;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Zoltan Farkas
+ */
+public class ConnectRaceTest {
+
+  @Test
+  public void testOrderRotatesFromChoice() throws MalformedURLException {
+    URL[] urls = urls("rotate");
+    Assert.assertArrayEquals(new int[] {0, 1, 2}, ConnectRace.order(urls, 0));
+    Assert.assertArrayEquals(new int[] {1, 2, 0}, ConnectRace.order(urls, 1));
+    Assert.assertArrayEquals(new int[] {2, 0, 1}, ConnectRace.order(urls, 2));
+  }
+
+  @Test
+  public void testRecentlyFailedLast() throws MalformedURLException {
+    URL[] urls = urls("failed");
+    ConnectRace.failed(urls[0]);
+    Assert.assertArrayEquals(new int[] {1, 2, 0}, ConnectRace.order(urls, 0));
+    ConnectRace.failed(urls[1]);
+    // the failed ones keep their relative order.
+    Assert.assertArrayEquals(new int[] {2, 0, 1}, ConnectRace.order(urls, 0));
+    Assert.assertArrayEquals(new int[] {2, 1, 0}, ConnectRace.order(urls, 1));
+    ConnectRace.failed(urls[2]);
+    Assert.assertArrayEquals(new int[] {1, 2, 0}, ConnectRace.order(urls, 1));
+  }
+
+  @Test
+  public void testSingleUrl() throws MalformedURLException {
+    Assert.assertArrayEquals(new int[] {0}, ConnectRace.order(new URL[] {new URL("http://single.test:8080/a")}, 0));
+  }
+
+  /**
+   * The preferred endpoint does not connect within the stagger delay, the next one is started and wins.
+   * The slow connection completes after the race is over, and is disconnected.
+   */
+  @Test(timeout = 20000)
+  public void testFastEndpointWinsSlowIsClosed() throws IOException, InterruptedException {
+    URL[] urls = urls("race");
+    CountDownLatch slowConnects = new CountDownLatch(1);
+    TestConnection slow = new TestConnection(urls[0], slowConnects);
+    TestConnection fast = new TestConnection(urls[1], new CountDownLatch(0));
+    TestConnection[] connections = {slow, fast};
+    ConnectRace.Winner<TestConnection> winner;
+    try {
+      winner = ConnectRace.connect(new URL[] {urls[0], urls[1]}, 0, idx -> connections[idx]);
+    } finally {
+      slowConnects.countDown();
+    }
+    Assert.assertEquals(1, winner.getUrlIdx());
+    Assert.assertSame(fast, winner.getConnection());
+    Assert.assertTrue(slow.disconnected.await(10, TimeUnit.SECONDS));
+    Assert.assertEquals(1, fast.disconnected.getCount());
+  }
+
+  private static URL[] urls(final String prefix) throws MalformedURLException {
+    return new URL[] {new URL("http://" + prefix + "0.test:8080/a"), new URL("http://" + prefix + "1.test:8080/a"),
+      new URL("http://" + prefix + "2.test:8080/a")};
+  }
+
+  /**
+   * A connection that connects when allowed to, and records its disconnection.
+   */
+  private static final class TestConnection extends HttpURLConnection {
+
+    private final CountDownLatch connectAllowed;
+
+    private final CountDownLatch disconnected = new CountDownLatch(1);
+
+    TestConnection(final URL url, final CountDownLatch connectAllowed) {
+      super(url);
+      this.connectAllowed = connectAllowed;
+    }
+
+    @Override
+    public void connect() throws IOException {
+      try {
+        if (!connectAllowed.await(10, TimeUnit.SECONDS)) {
+          throw new IOException("Timed out connecting to " + url);
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted connecting to " + url);
+      }
+      connected = true;
+    }
+
+    @Override
+    public void disconnect() {
+      disconnected.countDown();
+    }
+
+    @Override
+    public boolean usingProxy() {
+      return false;
+    }
+
+  }
+
+}
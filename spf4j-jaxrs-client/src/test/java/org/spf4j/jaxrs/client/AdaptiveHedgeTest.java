@@ -0,0 +1,62 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.client;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.spf4j.failsafe.HedgePolicy;
+
+/**
+ * @author Zoltan Farkas
+ */
+public class AdaptiveHedgeTest {
+
+  @Test
+  public void testBudgetChargedForSentHedges() {
+    LatencySketch sketch = new LatencySketch();
+    for (int i = 1; i <= 1000; i++) {
+      sketch.record(i * 10);
+    }
+    AdaptiveHedge.Budget budget = new AdaptiveHedge.Budget(0.1, 1);
+    AdaptiveHedge hedge = new AdaptiveHedge(sketch, 0.9, 1, budget, HedgePolicy.NONE);
+    // hedge decisions do not consume tokens, only the hedges sent do.
+    for (int i = 0; i < 100; i++) {
+      Assert.assertEquals(1, hedge.getMaxHedges());
+    }
+    budget.charge();
+    Assert.assertEquals(0, hedge.getMaxHedges());
+    // 10% of the requests can be hedged.
+    for (int i = 0; i < 8; i++) {
+      Assert.assertEquals(0, hedge.getMaxHedges());
+    }
+    Assert.assertEquals(1, hedge.getMaxHedges());
+  }
+
+  @Test
+  public void testDebtIsBounded() {
+    AdaptiveHedge.Budget budget = new AdaptiveHedge.Budget(0.5, 2);
+    for (int i = 0; i < 100; i++) {
+      budget.charge();
+    }
+    budget.deposit();
+    Assert.assertFalse(budget.hasTokens(1));
+    for (int i = 0; i < 7; i++) {
+      budget.deposit();
+    }
+    Assert.assertTrue(budget.hasTokens(1));
+  }
+
+}
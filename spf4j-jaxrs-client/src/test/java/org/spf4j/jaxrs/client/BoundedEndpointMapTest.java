@@ -0,0 +1,53 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.client;
+
+import java.util.function.UnaryOperator;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Zoltan Farkas
+ */
+public class BoundedEndpointMapTest {
+
+  @Test
+  public void testCoarserKeyBeyondMax() {
+    BoundedEndpointMap<LatencySketch> map = new BoundedEndpointMap<>(2, BoundedEndpointMap.truncateAt('/', 2),
+            k -> new LatencySketch());
+    LatencySketch a = map.get("GET/localhost:8080/a");
+    Assert.assertSame(a, map.get("GET/localhost:8080/a"));
+    map.get("GET/localhost:8080/b");
+    Assert.assertEquals(2, map.size());
+    LatencySketch c = map.get("GET/localhost:8080/c");
+    Assert.assertSame(c, map.get("GET/localhost:8080/d"));
+    Assert.assertSame(c, map.get("GET/localhost:8080"));
+    // already tracked endpoints keep their values.
+    Assert.assertSame(a, map.get("GET/localhost:8080/a"));
+    Assert.assertEquals(3, map.size());
+  }
+
+  @Test
+  public void testTruncateAt() {
+    UnaryOperator<String> method = BoundedEndpointMap.truncateAt(' ', 1);
+    Assert.assertEquals("GET", method.apply("GET /users/{id}"));
+    Assert.assertEquals("GET", method.apply("GET"));
+    UnaryOperator<String> hostPort = BoundedEndpointMap.truncateAt('/', 2);
+    Assert.assertEquals("GET/localhost:8080", hostPort.apply("GET/localhost:8080/a/b"));
+    Assert.assertEquals("GET/localhost:8080", hostPort.apply("GET/localhost:8080"));
+  }
+
+}
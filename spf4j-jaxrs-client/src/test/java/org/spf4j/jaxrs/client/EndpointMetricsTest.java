@@ -0,0 +1,134 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.client;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Zoltan Farkas
+ */
+public class EndpointMetricsTest {
+
+  private static final String ENDPOINT = "GET/localhost:8080/a";
+
+  private final TestRecorders recorders = new TestRecorders();
+
+  private final EndpointMetrics.Registry registry = new EndpointMetrics.Registry(10, recorders);
+
+  @Test
+  public void testStatusClasses() {
+    EndpointMetrics metrics = registry.get(ENDPOINT);
+    Assert.assertSame(metrics, registry.get(ENDPOINT));
+    metrics.recordAttempt(10, 200);
+    metrics.recordAttempt(20, 204);
+    metrics.recordAttempt(30, 404);
+    metrics.recordAttempt(40, 503);
+    metrics.recordAttempt(50, -1);
+    metrics.recordAttempt(60, 600);
+    Assert.assertEquals(2, recorders.sum(EndpointMetrics.RESPONSES, ENDPOINT + " 2xx"));
+    Assert.assertEquals(1, recorders.sum(EndpointMetrics.RESPONSES, ENDPOINT + " 4xx"));
+    Assert.assertEquals(1, recorders.sum(EndpointMetrics.RESPONSES, ENDPOINT + " 5xx"));
+    Assert.assertEquals(2, recorders.sum(EndpointMetrics.RESPONSES, ENDPOINT + " noResponse"));
+    Assert.assertEquals(0, recorders.sum(EndpointMetrics.RESPONSES, ENDPOINT + " 3xx"));
+    Assert.assertEquals(210, recorders.sum(EndpointMetrics.ATTEMPT_TIME, ENDPOINT));
+  }
+
+  @Test
+  public void testRetry() throws Exception {
+    AtomicInteger nrAttempts = new AtomicInteger();
+    LatencySketch latencies = new LatencySketch();
+    ObservedCall<String> call = new ObservedCall<>(() -> {
+      if (nrAttempts.getAndIncrement() == 0) {
+        throw new ServiceUnavailableException();
+      }
+      return "ok";
+    }, registry.get(ENDPOINT), latencies, null, null);
+    try {
+      call.call();
+      Assert.fail();
+    } catch (ServiceUnavailableException ex) {
+      // expected, first attempt.
+    }
+    Assert.assertEquals("ok", call.call());
+    Assert.assertEquals(1, recorders.sum(EndpointMetrics.RETRIES, ENDPOINT));
+    Assert.assertEquals(0, recorders.sum(EndpointMetrics.HEDGES, ENDPOINT));
+    Assert.assertEquals(0, recorders.sum(EndpointMetrics.HEDGE_WINS, ENDPOINT));
+    Assert.assertEquals(1, recorders.sum(EndpointMetrics.RESPONSES, ENDPOINT + " 5xx"));
+    Assert.assertEquals(1, recorders.sum(EndpointMetrics.RESPONSES, ENDPOINT + " 2xx"));
+    Assert.assertEquals(2, recorders.get(EndpointMetrics.ATTEMPT_TIME, ENDPOINT).size());
+    // only the successful attempts are observed latencies.
+    Assert.assertEquals(1, latencies.getCount());
+  }
+
+  @Test
+  public void testHedge() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger nrAttempts = new AtomicInteger();
+    ObservedCall<String> call = new ObservedCall<>(() -> {
+      if (nrAttempts.getAndIncrement() == 0) {
+        started.countDown();
+        release.await();
+        return "slow";
+      }
+      return "fast";
+    }, registry.get(ENDPOINT), new LatencySketch(), null, null);
+    ExecutorService exec = Executors.newSingleThreadExecutor();
+    try {
+      Future<String> slow = exec.submit(call);
+      Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+      Assert.assertEquals("fast", call.call());
+      release.countDown();
+      Assert.assertEquals("slow", slow.get());
+    } finally {
+      exec.shutdownNow();
+    }
+    Assert.assertEquals(1, recorders.sum(EndpointMetrics.HEDGES, ENDPOINT));
+    Assert.assertEquals(1, recorders.sum(EndpointMetrics.HEDGE_WINS, ENDPOINT));
+    Assert.assertEquals(0, recorders.sum(EndpointMetrics.RETRIES, ENDPOINT));
+    Assert.assertEquals(2, recorders.sum(EndpointMetrics.RESPONSES, ENDPOINT + " 2xx"));
+  }
+
+  @Test
+  public void testExecTime() {
+    URI uri = URI.create("http://localhost:1/cached");
+    HttpCache cache = new HttpCache(100000, 1000);
+    MultivaluedMap<String, String> headers = new MultivaluedHashMap<>();
+    headers.putSingle(HttpHeaders.CACHE_CONTROL, "max-age=600");
+    headers.putSingle(HttpHeaders.CONTENT_TYPE, "text/plain");
+    cache.put(HttpCache.key(uri, "text/plain"), HttpCache.Entry.create("cached".getBytes(StandardCharsets.UTF_8),
+            headers, System.currentTimeMillis()));
+    Spf4JClient client = new Spf4jClientBuilder().build().withHttpCache(cache).withEndpointMetrics(registry);
+    Spf4jWebTarget target = client.target(uri);
+    // served from the cache, nothing listens on port 1.
+    Assert.assertEquals("cached", target.request("text/plain").get(String.class));
+    Assert.assertEquals(1, recorders.get(EndpointMetrics.EXEC_TIME, Spf4jInvocation.getName("GET", target)).size());
+  }
+
+}
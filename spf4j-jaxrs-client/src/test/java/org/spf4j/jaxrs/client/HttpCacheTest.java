@@ -0,0 +1,116 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.client;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Zoltan Farkas
+ */
+public class HttpCacheTest {
+
+  @Test
+  public void testParseCacheControl() {
+    Assert.assertArrayEquals(new long[] {60000, 10000},
+            HttpCache.Entry.parseCacheControl("public, max-age=60, stale-while-revalidate=10"));
+    Assert.assertArrayEquals(new long[] {0, 0}, HttpCache.Entry.parseCacheControl("no-cache, max-age=60"));
+    Assert.assertNull(HttpCache.Entry.parseCacheControl("max-age=60, no-store"));
+  }
+
+  @Test
+  public void testFreshness() {
+    MultivaluedMap<String, String> headers = new MultivaluedHashMap<>();
+    headers.putSingle(HttpHeaders.CACHE_CONTROL, "max-age=10, stale-while-revalidate=5");
+    HttpCache.Entry entry = HttpCache.Entry.create(new byte[] {1, 2, 3}, headers, 0);
+    Assert.assertTrue(entry.isFresh(9999));
+    Assert.assertFalse(entry.isFresh(10000));
+    Assert.assertTrue(entry.isServable(14999));
+    Assert.assertFalse(entry.isServable(15000));
+    headers.putSingle(HttpHeaders.CACHE_CONTROL, "max-age=0");
+    Assert.assertNull(HttpCache.Entry.create(new byte[] {1, 2, 3}, headers, 0));
+  }
+
+  @Test
+  public void testDiskPersistence() throws IOException {
+    Path folder = Files.createTempDirectory("httpCache");
+    MultivaluedMap<String, String> headers = new MultivaluedHashMap<>();
+    headers.putSingle(HttpHeaders.CACHE_CONTROL, "no-cache");
+    headers.putSingle(HttpHeaders.ETAG, "\"abc\"");
+    headers.putSingle(HttpHeaders.CONTENT_TYPE, "application/json");
+    String key = HttpCache.key(URI.create("http://localhost/a"), "application/json");
+    new HttpCache(1000000, 10000, folder).put(key, HttpCache.Entry.create(
+            "[1, 2]".getBytes(StandardCharsets.UTF_8), headers, System.currentTimeMillis()));
+    HttpCache.Entry entry = new HttpCache(1000000, 10000, folder).get(key);
+    Assert.assertNotNull(entry);
+    Assert.assertEquals("\"abc\"", entry.getEtag());
+    Assert.assertEquals("application/json", entry.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE));
+    Assert.assertFalse(entry.isFresh(System.currentTimeMillis()));
+  }
+
+  @Test
+  public void testDiskBound() throws IOException {
+    Path folder = Files.createTempDirectory("httpCache");
+    MultivaluedMap<String, String> headers = new MultivaluedHashMap<>();
+    headers.putSingle(HttpHeaders.CACHE_CONTROL, "max-age=60");
+    HttpCache cache = new HttpCache(1000000, 10000, folder, 10000);
+    byte[] content = new byte[1000];
+    for (int i = 0; i < 100; i++) {
+      cache.put(HttpCache.key(URI.create("http://localhost/" + i), null),
+              HttpCache.Entry.create(content, headers, System.currentTimeMillis()));
+    }
+    long size = 0;
+    try (Stream<Path> files = Files.list(folder)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        size += Files.size(file);
+      }
+    }
+    Assert.assertTrue("size = " + size, size <= 10000);
+  }
+
+  @Test
+  public void testVary() {
+    MultivaluedMap<String, String> headers = new MultivaluedHashMap<>();
+    headers.putSingle(HttpHeaders.CACHE_CONTROL, "max-age=60");
+    headers.putSingle(HttpHeaders.VARY, "Accept-Language");
+    HttpCache.Entry entry = HttpCache.Entry.create(new byte[] {1}, headers,
+            h -> "accept-language".equals(h) ? "en" : null, 0);
+    Assert.assertTrue(entry.matches(h -> "accept-language".equals(h) ? "en" : null));
+    Assert.assertFalse(entry.matches(h -> "accept-language".equals(h) ? "fr" : null));
+    headers.putSingle(HttpHeaders.VARY, "*");
+    Assert.assertFalse(HttpCache.Entry.isCacheable(headers));
+    Assert.assertNull(HttpCache.Entry.create(new byte[] {1}, headers, 0));
+  }
+
+  @Test
+  public void testCredentialsKey() {
+    URI uri = URI.create("http://localhost/a");
+    Assert.assertNotEquals(HttpCache.key(uri, "application/json", "Bearer a"),
+            HttpCache.key(uri, "application/json", "Bearer b"));
+    Assert.assertFalse(HttpCache.key(uri, "application/json", "Bearer secret").contains("secret"));
+    Assert.assertEquals(HttpCache.key(uri, "application/json"), HttpCache.key(uri, "application/json", null));
+  }
+
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Response;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spf4j.base.TimeSource;
+import org.spf4j.base.UncheckedTimeoutException;
+import org.spf4j.base.avro.ServiceError;
+
+/**
+ * @author Zoltan Farkas
+ */
+public class InFlightRequestsTest {
+
+  private static final String KEY = "GET http://localhost/a";
+
+  private final InFlightRequests requests = new InFlightRequests();
+
+  private final ExecutorService exec = Executors.newCachedThreadPool();
+
+  private final CountDownLatch started = new CountDownLatch(1);
+
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  private final AtomicInteger nrCalls = new AtomicInteger();
+
+  @After
+  public void cleanup() {
+    release.countDown();
+    exec.shutdownNow();
+  }
+
+  @Test
+  public void testDeduplication() throws Exception {
+    Future<String> leader = startLeader(String.class, () -> "result");
+    Future<String> follower = exec.submit(() -> requests.invoke(KEY, String.class, deadline(10000),
+            () -> "result" + nrCalls.incrementAndGet()));
+    awaitWaiting(String.class, 1);
+    // a different response type is a different request.
+    Assert.assertEquals(Integer.valueOf(1), requests.invoke(KEY, Integer.class, deadline(10000), () -> 1));
+    release.countDown();
+    Assert.assertEquals("result", leader.get());
+    Assert.assertEquals("result", follower.get());
+    Assert.assertEquals(1, nrCalls.get());
+    Assert.assertEquals(-1, requests.nrWaiting(KEY, String.class));
+  }
+
+  @Test
+  public void testPerCallerDeadline() throws Exception {
+    Future<String> leader = startLeader(String.class, () -> "result");
+    try {
+      requests.invoke(KEY, String.class, deadline(10), () -> "result" + nrCalls.incrementAndGet());
+      Assert.fail();
+    } catch (UncheckedTimeoutException ex) {
+      // expected, the leader is still in flight.
+    }
+    Assert.assertFalse(leader.isDone());
+    release.countDown();
+    Assert.assertEquals("result", leader.get());
+    Assert.assertEquals(1, nrCalls.get());
+  }
+
+  @Test
+  public void testFallbackAfterLeaderTimeout() throws Exception {
+    Future<String> leader = startLeader(String.class, () -> {
+      throw new UncheckedTimeoutException(new TimeoutException("leader deadline"));
+    });
+    Future<String> follower = exec.submit(() -> requests.invoke(KEY, String.class, deadline(10000),
+            () -> "own" + nrCalls.incrementAndGet()));
+    awaitWaiting(String.class, 1);
+    release.countDown();
+    try {
+      leader.get();
+      Assert.fail();
+    } catch (ExecutionException ex) {
+      Assert.assertTrue(ex.getCause() instanceof UncheckedTimeoutException);
+    }
+    Assert.assertEquals("own2", follower.get());
+    Assert.assertEquals(2, nrCalls.get());
+  }
+
+  @Test
+  public void testStreamsAreNotShared() throws Exception {
+    Future<InputStream> leader = startLeader(InputStream.class, () -> new ByteArrayInputStream(new byte[0]));
+    InputStream is = requests.invoke(KEY, InputStream.class, deadline(10000), () -> {
+      nrCalls.incrementAndGet();
+      return new ByteArrayInputStream(new byte[0]);
+    });
+    Assert.assertNotNull(is);
+    Assert.assertEquals(2, nrCalls.get());
+    Assert.assertEquals(-1, requests.nrWaiting(KEY, InputStream.class));
+    release.countDown();
+    Assert.assertNotSame(is, leader.get());
+  }
+
+  @Test
+  public void testIterablesAreNotShared() throws Exception {
+    Type listType = new GenericType<List<String>>() { }.getType();
+    Future<List<String>> leader = startLeader(listType, () -> new ArrayList<>(Arrays.asList("a")));
+    List<String> list = requests.invoke(KEY, listType, deadline(10000), () -> {
+      nrCalls.incrementAndGet();
+      return new ArrayList<>(Arrays.asList("a"));
+    });
+    Assert.assertEquals(2, nrCalls.get());
+    release.countDown();
+    Assert.assertNotSame(list, leader.get());
+  }
+
+  @Test
+  public void testAvroRecordsAreCopied() throws Exception {
+    Future<ServiceError> leader = startLeader(ServiceError.class,
+            () -> ServiceError.newBuilder().setCode(500).setType("test").setMessage("leader").build());
+    Future<ServiceError> follower = exec.submit(() -> requests.invoke(KEY, ServiceError.class, deadline(10000),
+            () -> {
+              nrCalls.incrementAndGet();
+              return ServiceError.newBuilder().setCode(500).setType("test").setMessage("own").build();
+            }));
+    awaitWaiting(ServiceError.class, 1);
+    release.countDown();
+    ServiceError leaderResult = leader.get();
+    leaderResult.setMessage("modified");
+    ServiceError followerResult = follower.get();
+    Assert.assertEquals(1, nrCalls.get());
+    Assert.assertNotSame(leaderResult, followerResult);
+    Assert.assertEquals("leader", followerResult.getMessage());
+  }
+
+  @Test
+  public void testIsShareable() {
+    Assert.assertTrue(InFlightRequests.isShareable(String.class));
+    Assert.assertTrue(InFlightRequests.isShareable(int.class));
+    Assert.assertTrue(InFlightRequests.isShareable(ServiceError.class));
+    Assert.assertFalse(InFlightRequests.isShareable(new GenericType<List<String>>() { }.getType()));
+    Assert.assertFalse(InFlightRequests.isShareable(new GenericType<Iterable<String>>() { }.getType()));
+    Assert.assertFalse(InFlightRequests.isShareable(new GenericType<Map<String, String>>() { }.getType()));
+    Assert.assertFalse(InFlightRequests.isShareable(Closeable.class));
+    Assert.assertFalse(InFlightRequests.isShareable(StringBuilder.class));
+    Assert.assertFalse(InFlightRequests.isShareable(Response.class));
+    Assert.assertFalse(InFlightRequests.isShareable(InputStream.class));
+    Assert.assertFalse(InFlightRequests.isShareable(Reader.class));
+    Assert.assertFalse(InFlightRequests.isShareable(new GenericType<Stream<String>>() { }.getType()));
+    Assert.assertFalse(InFlightRequests.isShareable(new GenericType<Iterator<String>>() { }.getType()));
+  }
+
+  /**
+   * Start a leader call, blocked until released.
+   */
+  private <T> Future<T> startLeader(final Type type, final Supplier<T> result) throws InterruptedException {
+    Future<T> leader = exec.submit(() -> requests.invoke(KEY, type, deadline(10000), () -> {
+      nrCalls.incrementAndGet();
+      started.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(ex);
+      }
+      return result.get();
+    }));
+    Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+    return leader;
+  }
+
+  private void awaitWaiting(final Type type, final int nrWaiting) {
+    long deadline = deadline(10000);
+    while (requests.nrWaiting(KEY, type) < nrWaiting) {
+      if (TimeSource.nanoTime() > deadline) {
+        Assert.fail("No waiting callers");
+      }
+      Thread.yield();
+    }
+  }
+
+  private static long deadline(final long millis) {
+    return TimeSource.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+  }
+
+}
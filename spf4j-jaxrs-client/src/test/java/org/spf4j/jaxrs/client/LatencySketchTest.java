@@ -0,0 +1,32 @@
+package org.spf4j.jaxrs.client;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Zoltan Farkas
+ */
+public class LatencySketchTest {
+
+  @Test
+  public void testBuckets() {
+    for (long micros : new long[] {0, 1, 7, 8, 9, 16, 17, 100, 1000, 12345, 1000000}) {
+      int bucket = LatencySketch.bucket(micros);
+      Assert.assertTrue(LatencySketch.lowerBound(bucket) <= micros);
+      Assert.assertTrue(LatencySketch.lowerBound(bucket + 1) > micros);
+    }
+  }
+
+  @Test
+  public void testPercentile() {
+    LatencySketch sketch = new LatencySketch();
+    for (int i = 1; i <= 1000; i++) {
+      sketch.record(i * 10);
+    }
+    long p90 = sketch.getPercentile(0.9);
+    Assert.assertTrue("p90 = " + p90, p90 >= 9000 && p90 <= 9000 * 1.125 + 1);
+    long p90Lower = sketch.getPercentileLowerBound(0.9);
+    Assert.assertTrue("p90 lower bound = " + p90Lower, p90Lower <= 9000 && p90Lower >= 9000 / 1.125);
+  }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.client;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.ServiceUnavailableException;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spf4j.base.ExecutionContext;
+import org.spf4j.base.ExecutionContexts;
+import org.spf4j.http.HttpWarning;
+import org.spf4j.http.RequestContextTags;
+
+/**
+ * @author Zoltan Farkas
+ */
+public class RetryBudgetTest {
+
+  @Test
+  public void testThrottling() {
+    RetryBudget budget = new RetryBudget("localhost:8080", 10, 0.1);
+    Assert.assertTrue(budget.canRetry());
+    for (int i = 0; i < 4; i++) {
+      budget.onFailure();
+    }
+    Assert.assertTrue(budget.canRetry());
+    budget.onFailure();
+    // half full, no more retries.
+    Assert.assertFalse(budget.canRetry());
+    budget.onSuccess();
+    Assert.assertTrue(budget.canRetry());
+  }
+
+  @Test
+  public void testBounds() {
+    RetryBudget budget = new RetryBudget("localhost:8080", 2, 0.5);
+    for (int i = 0; i < 100; i++) {
+      budget.onFailure();
+    }
+    Assert.assertFalse(budget.canRetry());
+    for (int i = 0; i < 3; i++) {
+      budget.onSuccess();
+    }
+    Assert.assertTrue(budget.canRetry());
+    for (int i = 0; i < 100; i++) {
+      budget.onSuccess();
+    }
+    budget.onFailure();
+    budget.onFailure();
+    Assert.assertFalse(budget.canRetry());
+  }
+
+  @Test
+  public void testExhaustedDecision() {
+    RetryBudget budget = new RetryBudget("localhost:8080", 1, 0.1);
+    Assert.assertNull(budget.getDecision());
+    budget.onFailure();
+    try (ExecutionContext ctx = ExecutionContexts.start("test", 1, TimeUnit.SECONDS)) {
+      Assert.assertNotNull(budget.getDecision());
+      Set<HttpWarning> warnings = ctx.get(RequestContextTags.HTTP_WARNINGS);
+      Assert.assertNotNull(warnings);
+      Assert.assertEquals(1, warnings.size());
+    }
+  }
+
+  @Test
+  public void testIsFailure() {
+    Assert.assertTrue(RetryBudget.isFailure(500));
+    Assert.assertTrue(RetryBudget.isFailure(503));
+    Assert.assertTrue(RetryBudget.isFailure(429));
+    Assert.assertFalse(RetryBudget.isFailure(404));
+    Assert.assertFalse(RetryBudget.isFailure(200));
+    Assert.assertTrue(RetryBudget.isFailure(new IOException("connection refused")));
+    Assert.assertTrue(RetryBudget.isFailure(new ServiceUnavailableException()));
+    Assert.assertFalse(RetryBudget.isFailure(new NotFoundException()));
+  }
+
+  @Test
+  public void testRegistry() {
+    Assert.assertNull(new RetryBudget.Registry(0, 0.1).get("localhost:8080"));
+    RetryBudget.Registry registry = new RetryBudget.Registry(10, 0.1);
+    String destination = RetryBudget.destination(URI.create("http://localhost:8080/a/b"));
+    Assert.assertEquals("localhost:8080", destination);
+    Assert.assertSame(registry.get(destination), registry.get("localhost:8080"));
+    Assert.assertNotSame(registry.get(destination), registry.get("otherhost:8080"));
+  }
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.client;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.core.Response;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spf4j.base.ExecutionContext;
+import org.spf4j.base.ExecutionContexts;
+import org.spf4j.jaxrs.client.providers.ShadowTrafficClientFilter;
+
+/**
+ * @author Zoltan Farkas
+ */
+public class ShadowTrafficTest {
+
+  private final List<Client> clients = new ArrayList<>(2);
+
+  @After
+  public void closeClients() {
+    for (Client client : clients) {
+      client.close();
+    }
+  }
+
+  @Test
+  public void testShadowUri() {
+    ShadowTraffic shadow = new ShadowTraffic(1, false);
+    try {
+      URI uri = URI.create("http://primary:8080/a/b?c=d");
+      URI shadowUri = shadow.shadowUri(uri, "shadow");
+      Assert.assertEquals("http://shadow:8080/a/b?c=d", shadowUri.toString());
+      Assert.assertSame(shadowUri, shadow.shadowUri(URI.create("http://primary:8080/a/b?c=d"), "shadow"));
+    } finally {
+      shadow.close();
+    }
+  }
+
+  @Test
+  public void testRunsInDetachedChildContext() throws InterruptedException {
+    ShadowTraffic shadow = new ShadowTraffic(1, false);
+    AtomicReference<ExecutionContext> shadowCtx = new AtomicReference<>();
+    CountDownLatch done = new CountDownLatch(1);
+    try (ExecutionContext ctx = ExecutionContexts.start("primary", 1, TimeUnit.SECONDS)) {
+      shadow.dispatch("shadow", invocation(() -> {
+        shadowCtx.set(ExecutionContexts.current());
+        done.countDown();
+        return Response.ok().build();
+      }), TimeUnit.SECONDS.toNanos(10));
+      Assert.assertSame(ctx, ExecutionContexts.current());
+      Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+      ExecutionContext sctx = shadowCtx.get();
+      Assert.assertNotNull(sctx);
+      Assert.assertNotSame(ctx, sctx);
+      Assert.assertEquals("shadow", sctx.getName());
+      // own deadline, not the primary one.
+      Assert.assertTrue(sctx.getDeadlineNanos() > ctx.getDeadlineNanos());
+    } finally {
+      shadow.close();
+    }
+  }
+
+  @Test
+  public void testDroppedWhenSaturated() throws InterruptedException {
+    ShadowTraffic shadow = new ShadowTraffic(1, false);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger invoked = new AtomicInteger();
+    try {
+      shadow.dispatch("shadow1", invocation(() -> {
+        started.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+        return Response.ok().build();
+      }), TimeUnit.SECONDS.toNanos(10));
+      Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+      shadow.dispatch("shadow2", invocation(() -> {
+        invoked.incrementAndGet();
+        return Response.ok().build();
+      }), TimeUnit.SECONDS.toNanos(10));
+      Assert.assertEquals(0, invoked.get());
+    } finally {
+      release.countDown();
+      shadow.close();
+    }
+  }
+
+  @Test
+  public void testClose() {
+    ShadowTraffic shadow = new ShadowTraffic(1, false);
+    shadow.close();
+    Assert.assertTrue(shadow.isClosed());
+    AtomicInteger invoked = new AtomicInteger();
+    shadow.dispatch("shadow", invocation(() -> {
+      invoked.incrementAndGet();
+      return Response.ok().build();
+    }), TimeUnit.SECONDS.toNanos(10));
+    Assert.assertEquals(0, invoked.get());
+  }
+
+  @Test
+  public void testDisabledByDefault() {
+    Spf4JClient client = new Spf4jClientBuilder().build();
+    try {
+      Assert.assertNull(client.getShadowTraffic());
+      Assert.assertFalse(client.getConfiguration().isRegistered(ShadowTrafficClientFilter.class));
+    } finally {
+      client.close();
+    }
+    Spf4JClient sclient = new Spf4jClientBuilder()
+            .property(Spf4jClientProperties.SHADOW_MAX_CONCURRENCY, 2).build();
+    ShadowTraffic shadow = sclient.getShadowTraffic();
+    Assert.assertNotNull(shadow);
+    Assert.assertTrue(sclient.getConfiguration().isRegistered(ShadowTrafficClientFilter.class));
+    sclient.close();
+    Assert.assertTrue(shadow.isClosed());
+  }
+
+  /**
+   * @return a real jersey invocation, answered by a stub. (see {@link StubbedClients})
+   */
+  private Invocation invocation(final Supplier<Response> response) {
+    Client client = StubbedClients.create(request -> response.get());
+    clients.add(client);
+    return client.target("http://shadow:8080/a").request().buildGet();
+  }
+
+}
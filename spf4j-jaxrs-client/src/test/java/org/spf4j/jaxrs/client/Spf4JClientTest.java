@@ -41,6 +41,7 @@ public class Spf4JClientTest {
     URI uri = target.getUri();
     LOG.debug("URI: {}", uri);
     Assert.assertEquals("http://localhost/test/testMetric?from=-P5D&to=now", uri.toString());
+    Assert.assertEquals("/test/{metricName}", target.getPathTemplate());
   }
 
   @Test
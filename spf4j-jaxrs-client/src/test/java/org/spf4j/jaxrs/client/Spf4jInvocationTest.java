@@ -0,0 +1,64 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.client;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Zoltan Farkas
+ */
+public class Spf4jInvocationTest {
+
+  @Test
+  public void testCacheHitIsNotObserved() {
+    URI uri = URI.create("http://localhost:1/cached");
+    HttpCache cache = new HttpCache(100000, 1000);
+    MultivaluedMap<String, String> headers = new MultivaluedHashMap<>();
+    headers.putSingle(HttpHeaders.CACHE_CONTROL, "max-age=600");
+    headers.putSingle(HttpHeaders.CONTENT_TYPE, "text/plain");
+    cache.put(HttpCache.key(uri, "text/plain"), HttpCache.Entry.create("cached".getBytes(StandardCharsets.UTF_8),
+            headers, System.currentTimeMillis()));
+    TestRecorders recorders = new TestRecorders();
+    Spf4JClient client = new Spf4jClientBuilder().build().withHttpCache(cache)
+            .withEndpointMetrics(new EndpointMetrics.Registry(10, recorders));
+    RetryBudget budget = client.getRetryBudgets().get(RetryBudget.destination(uri));
+    for (int i = 0; i < 100; i++) {
+      budget.onFailure();
+    }
+    String exhaustedBudget = budget.toString();
+    Spf4jWebTarget target = client.target(uri);
+    String name = Spf4jInvocation.getName("GET", target);
+    for (int i = 0; i < 3; i++) {
+      // served from the cache, nothing listens on port 1.
+      Assert.assertEquals("cached", target.request("text/plain").get(String.class));
+    }
+    Assert.assertEquals(3, recorders.sum(EndpointMetrics.CACHE_HITS, name));
+    Assert.assertEquals(0, client.getEndpointLatencies().get(name).getCount());
+    Assert.assertTrue(recorders.get(EndpointMetrics.ATTEMPT_TIME, name).isEmpty());
+    Assert.assertEquals(0, recorders.sum(EndpointMetrics.RESPONSES, name + " 2xx"));
+    Assert.assertEquals(0, recorders.sum(EndpointMetrics.RETRIES, name));
+    Assert.assertEquals(0, recorders.sum(EndpointMetrics.HEDGES, name));
+    // a success would have added tokens.
+    Assert.assertEquals(exhaustedBudget, budget.toString());
+  }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.client;
+
+import java.util.function.Function;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.core.Response;
+
+/**
+ * Test clients that answer the requests in process, with a stub instead of the network.
+ * <p>
+ * The stub is a request filter that runs after all the other request filters, and aborts the request with the stub
+ * response. Jersey runs the response filters on it like on a network response, so the client filters under test see
+ * real jersey request and response contexts. (properties, headers, entity streams, abortWith)
+ * Requests aborted by a filter under test (like the cache hits) do not reach the stub.
+ * The stub runs on the invoking thread, in the execution context of the invocation.
+ *
+ * @author Zoltan Farkas
+ */
+public final class StubbedClients {
+
+  private StubbedClients() { }
+
+  /**
+   * @param stub answers the requests, the response entity is written with the client message body writers.
+   * @param providers the client providers under test.
+   * @return a new client, the caller must close it.
+   */
+  public static Client create(final Function<ClientRequestContext, Response> stub, final Object... providers) {
+    Client client = ClientBuilder.newClient();
+    for (Object provider : providers) {
+      client.register(provider);
+    }
+    client.register(new Stub(stub), Integer.MAX_VALUE);
+    return client;
+  }
+
+  private static final class Stub implements ClientRequestFilter {
+
+    private final Function<ClientRequestContext, Response> stub;
+
+    Stub(final Function<ClientRequestContext, Response> stub) {
+      this.stub = stub;
+    }
+
+    @Override
+    public void filter(final ClientRequestContext request) {
+      request.abortWith(stub.apply(request));
+    }
+
+    @Override
+    public String toString() {
+      return "Stub{" + stub + '}';
+    }
+  }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongConsumer;
+
+/**
+ * Endpoint metric recorders that keep the recorded values in memory, for tests.
+ * @author Zoltan Farkas
+ */
+final class TestRecorders implements EndpointMetrics.Recorders {
+
+  private final ConcurrentMap<String, List<Long>> values = new ConcurrentHashMap<>();
+
+  @Override
+  public LongConsumer get(final String metric, final String endpoint) {
+    List<Long> recorded = values.computeIfAbsent(metric + ' ' + endpoint,
+            k -> Collections.synchronizedList(new ArrayList<>()));
+    return recorded::add;
+  }
+
+  /**
+   * @return the values recorded for the metric and endpoint.
+   */
+  List<Long> get(final String metric, final String endpoint) {
+    List<Long> result = values.get(metric + ' ' + endpoint);
+    if (result == null) {
+      return Collections.emptyList();
+    }
+    synchronized (result) {
+      return new ArrayList<>(result);
+    }
+  }
+
+  /**
+   * @return the sum of the values recorded for the metric and endpoint.
+   */
+  long sum(final String metric, final String endpoint) {
+    long result = 0;
+    for (Long val : get(metric, endpoint)) {
+      result += val;
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "TestRecorders{" + "values=" + values + '}';
+  }
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.client.providers;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.core.Response;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spf4j.base.ExecutionContext;
+import org.spf4j.base.ExecutionContexts;
+import org.spf4j.http.DeadlineProtocol;
+import org.spf4j.http.Headers;
+import org.spf4j.http.RequestContextTags;
+import org.spf4j.http.ServerTiming.ServerTimingMetric;
+import org.spf4j.jaxrs.client.StubbedClients;
+
+/**
+ * @author Zoltan Farkas
+ */
+public class ExecutionContextClientFilterTest {
+
+  @Test
+  public void testServerTimingsRollUp() {
+    Iterator<String> serverTimings = Arrays.asList("auth;dur=0.5, exec;dur=10.25", "exec;dur=1").iterator();
+    Client client = StubbedClients.create(
+            request -> Response.ok().header(Headers.SERVER_TIMING, serverTimings.next()).build(),
+            new ExecutionContextClientFilter(DeadlineProtocol.NONE, false));
+    try (ExecutionContext ctx = ExecutionContexts.start("server", 10, TimeUnit.SECONDS)) {
+      ctx.accumulateComponent(RequestContextTags.SERVER_TIMINGS, ServerTimingMetric.ofMicros("auth", 100));
+      try (ExecutionContext callCtx = ExecutionContexts.start("call", ctx, ctx.getDeadlineNanos())) {
+        client.target("http://downstream:8080/a").request().get().close();
+        client.target("http://downstream:8080/a").request().get().close();
+      }
+      List<ServerTimingMetric> timings = ctx.get(RequestContextTags.SERVER_TIMINGS);
+      Assert.assertEquals(6, timings.size());
+      Assert.assertEquals("auth", timings.get(0).getName());
+      Assert.assertEquals("downstream", timings.get(1).getName());
+      Assert.assertNotNull(timings.get(1).getDuration());
+      Assert.assertEquals("ds.auth", timings.get(2).getName());
+      Assert.assertEquals("ds.exec", timings.get(3).getName());
+      Assert.assertEquals(10.25, timings.get(3).getDuration(), 0.001);
+      Assert.assertEquals("downstream", timings.get(4).getName());
+      Assert.assertEquals("ds.exec", timings.get(5).getName());
+    } finally {
+      client.close();
+    }
+  }
+
+}
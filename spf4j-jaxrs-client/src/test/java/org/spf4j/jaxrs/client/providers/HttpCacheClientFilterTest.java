@@ -0,0 +1,247 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.client.providers;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spf4j.base.ExecutionContext;
+import org.spf4j.base.ExecutionContexts;
+import org.spf4j.jaxrs.client.HttpCache;
+import org.spf4j.jaxrs.client.StubbedClients;
+
+/**
+ * The filter in a jersey client, with the network replaced by a stub. (see {@link StubbedClients})
+ * @author Zoltan Farkas
+ */
+public class HttpCacheClientFilterTest {
+
+  private static final URI URI_A = URI.create("http://localhost:8080/a");
+
+  @Test
+  public void testStoreAndServe() {
+    AtomicInteger calls = new AtomicInteger();
+    Client client = StubbedClients.create(req -> {
+      calls.incrementAndGet();
+      return response(200, "max-age=60", null).entity("abc", MediaType.TEXT_PLAIN).build();
+    }, new HttpCacheClientFilter(new HttpCache(100000, 1000)));
+    try {
+      Assert.assertEquals("abc", get(client, null));
+      Assert.assertEquals("abc", get(client, null));
+      Assert.assertEquals(1, calls.get());
+    } finally {
+      client.close();
+    }
+  }
+
+  @Test
+  public void testCredentialsArePartOfTheKey() {
+    AtomicInteger calls = new AtomicInteger();
+    Client client = StubbedClients.create(req -> {
+      calls.incrementAndGet();
+      return response(200, "max-age=60", null)
+              .entity(req.getHeaderString(HttpHeaders.AUTHORIZATION) + " data", MediaType.TEXT_PLAIN).build();
+    }, new HttpCacheClientFilter(new HttpCache(100000, 1000)));
+    try {
+      Assert.assertEquals("Bearer user1 data", get(client, "Bearer user1"));
+      Assert.assertEquals("Bearer user2 data", get(client, "Bearer user2"));
+      Assert.assertEquals(2, calls.get());
+      Assert.assertEquals("Bearer user1 data", get(client, "Bearer user1"));
+      Assert.assertEquals(2, calls.get());
+    } finally {
+      client.close();
+    }
+  }
+
+  @Test
+  public void testVary() {
+    AtomicInteger calls = new AtomicInteger();
+    Client client = StubbedClients.create(req -> {
+      calls.incrementAndGet();
+      return response(200, "max-age=60", null).header(HttpHeaders.VARY, HttpHeaders.ACCEPT_LANGUAGE)
+              .entity("hello " + req.getHeaderString(HttpHeaders.ACCEPT_LANGUAGE), MediaType.TEXT_PLAIN).build();
+    }, new HttpCacheClientFilter(new HttpCache(100000, 1000)));
+    try {
+      Assert.assertEquals("hello en",
+              client.target(URI_A).request().header(HttpHeaders.ACCEPT_LANGUAGE, "en").get(String.class));
+      Assert.assertEquals("hello fr",
+              client.target(URI_A).request().header(HttpHeaders.ACCEPT_LANGUAGE, "fr").get(String.class));
+      Assert.assertEquals(2, calls.get());
+    } finally {
+      client.close();
+    }
+  }
+
+  @Test
+  public void testRevalidation() {
+    List<String> ifNoneMatch = new CopyOnWriteArrayList<>();
+    Client client = StubbedClients.create(req -> {
+      String etag = req.getHeaderString(HttpHeaders.IF_NONE_MATCH);
+      ifNoneMatch.add(String.valueOf(etag));
+      if (etag == null) {
+        return response(200, "no-cache", "\"v1\"").entity("abc", MediaType.TEXT_PLAIN).build();
+      }
+      return response(304, "no-cache", "\"v1\"").build();
+    }, new HttpCacheClientFilter(new HttpCache(100000, 1000)));
+    try {
+      Assert.assertEquals("abc", get(client, null));
+      // the 304 is served from the cache.
+      Assert.assertEquals("abc", get(client, null));
+      Assert.assertEquals(Arrays.asList("null", "\"v1\""), ifNoneMatch);
+    } finally {
+      client.close();
+    }
+  }
+
+  @Test(timeout = 20000)
+  public void testCoalescing() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    CountDownLatch leaderIn = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Client client = StubbedClients.create(req -> {
+      calls.incrementAndGet();
+      leaderIn.countDown();
+      await(release);
+      return response(200, "max-age=60", null).entity("abc", MediaType.TEXT_PLAIN).build();
+    }, new HttpCacheClientFilter(new HttpCache(100000, 1000)));
+    try {
+      CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> get(client, null));
+      Assert.assertTrue(leaderIn.await(10, TimeUnit.SECONDS));
+      CompletableFuture<String> waiter = CompletableFuture.supplyAsync(() -> get(client, null));
+      try {
+        waiter.get(100, TimeUnit.MILLISECONDS);
+        Assert.fail("Waiter must wait for the leader");
+      } catch (TimeoutException ex) {
+        // expected.
+      }
+      release.countDown();
+      Assert.assertEquals("abc", leader.get(10, TimeUnit.SECONDS));
+      Assert.assertEquals("abc", waiter.get(10, TimeUnit.SECONDS));
+      Assert.assertEquals(1, calls.get());
+    } finally {
+      release.countDown();
+      client.close();
+    }
+  }
+
+  @Test(timeout = 20000)
+  public void testRetryOfTheLeaderDoesNotWait() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    CountDownLatch leaderIn = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Client client = StubbedClients.create(req -> {
+      if (calls.incrementAndGet() == 1) {
+        leaderIn.countDown();
+        await(release);
+      }
+      return response(200, "max-age=60", null).entity("abc", MediaType.TEXT_PLAIN).build();
+    }, new HttpCacheClientFilter(new HttpCache(100000, 1000)));
+    Object token = new Object();
+    try {
+      CompletableFuture<String> attempt1 = CompletableFuture.supplyAsync(() -> getWithToken(client, token));
+      Assert.assertTrue(leaderIn.await(10, TimeUnit.SECONDS));
+      // all the attempts of a call carry the same token, a retry must not wait for its own flight.
+      Assert.assertEquals("abc", CompletableFuture.supplyAsync(() -> getWithToken(client, token))
+              .get(10, TimeUnit.SECONDS));
+      Assert.assertEquals(2, calls.get());
+      release.countDown();
+      Assert.assertEquals("abc", attempt1.get(10, TimeUnit.SECONDS));
+    } finally {
+      release.countDown();
+      client.close();
+    }
+  }
+
+  @Test(timeout = 20000)
+  public void testWaiterTimeoutDoesNotEndTheFlight() throws Exception {
+    HttpCache cache = new HttpCache(100000, 1000);
+    AtomicInteger calls = new AtomicInteger();
+    CountDownLatch leaderIn = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Client client = StubbedClients.create(req -> {
+      if (calls.incrementAndGet() == 1) {
+        leaderIn.countDown();
+        await(release);
+        return response(200, "max-age=60", null).entity("leader", MediaType.TEXT_PLAIN).build();
+      }
+      return response(200, "max-age=60", null).entity("waiter", MediaType.TEXT_PLAIN).build();
+    }, new HttpCacheClientFilter(cache));
+    Object token = new Object();
+    try {
+      CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> getWithToken(client, token));
+      Assert.assertTrue(leaderIn.await(10, TimeUnit.SECONDS));
+      try (ExecutionContext ctx = ExecutionContexts.start("waiter", 10, TimeUnit.MILLISECONDS)) {
+        // waits until its deadline, then goes to the network.
+        Assert.assertEquals("waiter", get(client, null));
+      }
+      HttpCache.Flight flight = cache.joinFlight(HttpCache.key(URI_A, null, null), new Object());
+      Assert.assertTrue(flight.isLeader(token));
+      Assert.assertFalse(flight.isDone());
+      release.countDown();
+      Assert.assertEquals("leader", leader.get(10, TimeUnit.SECONDS));
+    } finally {
+      release.countDown();
+      client.close();
+    }
+  }
+
+  private static String get(final Client client, @Nullable final String authorization) {
+    Invocation.Builder request = client.target(URI_A).request();
+    if (authorization != null) {
+      request.header(HttpHeaders.AUTHORIZATION, authorization);
+    }
+    return request.get(String.class);
+  }
+
+  private static String getWithToken(final Client client, final Object flightToken) {
+    return client.target(URI_A).request().property(HttpCache.FLIGHT_TOKEN_PROP, flightToken).get(String.class);
+  }
+
+  private static Response.ResponseBuilder response(final int status, final String cacheControl,
+          @Nullable final String etag) {
+    Response.ResponseBuilder rb = Response.status(status).header(HttpHeaders.CACHE_CONTROL, cacheControl);
+    if (etag != null) {
+      rb.header(HttpHeaders.ETAG, etag);
+    }
+    return rb;
+  }
+
+  private static void await(final CountDownLatch latch) {
+    try {
+      if (!latch.await(10, TimeUnit.SECONDS)) {
+        throw new IllegalStateException("Not released " + latch);
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(ex);
+    }
+  }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.common.executors;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spf4j.base.ExecutionContext;
+import org.spf4j.base.ExecutionContexts;
+
+/**
+ * @author Zoltan Farkas
+ */
+public class DeadlineAwareExecutorServiceTest {
+
+  @Test
+  public void testExpiredTasks() throws InterruptedException, ExecutionException {
+    ExecutorService exec = new DeadlineAwareExecutorService(Executors.newSingleThreadExecutor(), "test.exec");
+    try {
+      CountDownLatch blocker = new CountDownLatch(1);
+      exec.execute(() -> {
+        try {
+          blocker.await();
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+      });
+      CountDownLatch ran = new CountDownLatch(1);
+      Future<String> future;
+      try (ExecutionContext ctx = ExecutionContexts.start("testExpired", 1, TimeUnit.MILLISECONDS)) {
+        future = exec.submit(() -> "result");
+        exec.execute(ran::countDown);
+      }
+      Thread.sleep(10);
+      blocker.countDown();
+      Assert.assertTrue("plain tasks must be run", ran.await(5, TimeUnit.SECONDS));
+      try {
+        future.get();
+        Assert.fail();
+      } catch (CancellationException ex) {
+        // expected, expired futures are cancelled.
+      }
+      Assert.assertEquals("result", exec.submit(() -> "result").get());
+    } finally {
+      exec.shutdown();
+    }
+  }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.common.providers.avro;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import org.apache.avro.SchemaResolver;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spf4j.io.MemorizingBufferedInputStream;
+
+/**
+ * @author Zoltan Farkas
+ */
+public class BinaryAvroMessageBodyReaderTest {
+
+  private static final MediaType AVRO_STRING = new MediaType("application", "avro",
+          Collections.singletonMap(DefaultSchemaProtocol.CONTENT_TYPE_AVRO_SCHEMA_PARAM, "\"string\""));
+
+  /** "hello" avro binary encoded. (zig-zag length + utf8 bytes) */
+  private static final byte[] HELLO = {0x0A, 'h', 'e', 'l', 'l', 'o'};
+
+  private final BinaryAvroMessageBodyReader reader
+          = new BinaryAvroMessageBodyReader(new DefaultSchemaProtocol(SchemaResolver.NONE), () -> false);
+
+  @Test
+  public void testContentLength() throws IOException {
+    MultivaluedMap<String, String> headers = headers(Integer.toString(HELLO.length), null);
+    Assert.assertTrue(reader.getEntityStream(new ByteArrayInputStream(HELLO), headers)
+            instanceof BinaryAvroMessageBodyReader.ContentInputStream);
+    Assert.assertEquals("hello", read(reader, headers, HELLO).toString());
+  }
+
+  @Test
+  public void testEncoded() throws IOException {
+    // the content length of the gzip-ed body, the entity stream is the decoded content.
+    MultivaluedMap<String, String> headers = headers("3", "gzip");
+    Assert.assertFalse(reader.getEntityStream(new ByteArrayInputStream(HELLO), headers)
+            instanceof BinaryAvroMessageBodyReader.ContentInputStream);
+    Assert.assertEquals("hello", read(reader, headers, HELLO).toString());
+  }
+
+  @Test
+  public void testStream() throws IOException {
+    MultivaluedMap<String, String> headers = headers(null, null);
+    InputStream is = reader.getEntityStream(new ByteArrayInputStream(HELLO), headers);
+    Assert.assertFalse(is instanceof BinaryAvroMessageBodyReader.ContentInputStream);
+    Assert.assertFalse(is instanceof MemorizingBufferedInputStream);
+    Assert.assertEquals("hello", read(reader, headers, HELLO).toString());
+    // over the reused buffer size.
+    Assert.assertFalse(reader.getEntityStream(new ByteArrayInputStream(HELLO), headers("100000000", null))
+            instanceof BinaryAvroMessageBodyReader.ContentInputStream);
+  }
+
+  @Test
+  public void testEmpty() throws IOException {
+    Assert.assertNull(read(reader, headers("0", null), new byte[0]));
+    Assert.assertNull(read(reader, headers(null, null), new byte[0]));
+  }
+
+  @Test
+  public void testMemorization() throws IOException {
+    BinaryAvroMessageBodyReader debugReader
+            = new BinaryAvroMessageBodyReader(new DefaultSchemaProtocol(SchemaResolver.NONE), () -> true);
+    Assert.assertTrue(debugReader.getEntityStream(new ByteArrayInputStream(HELLO), headers(null, null))
+            instanceof MemorizingBufferedInputStream);
+    byte[] truncated = {0x0A, 'h', 'e'};
+    try {
+      read(debugReader, headers("3", null), truncated);
+      Assert.fail();
+    } catch (RuntimeException ex) {
+      Assert.assertTrue(ex.getMessage(), ex.getMessage().contains("3 bytes: 0A6865"));
+    }
+    try {
+      read(reader, headers("3", null), truncated);
+      Assert.fail();
+    } catch (RuntimeException ex) {
+      Assert.assertTrue(ex.getMessage(), ex.getMessage().endsWith("3 bytes"));
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Object read(final BinaryAvroMessageBodyReader reader,
+          final MultivaluedMap<String, String> headers, final byte[] content) throws IOException {
+    return reader.readFrom((Class) String.class, String.class, new Annotation[0], AVRO_STRING, headers,
+            new ByteArrayInputStream(content));
+  }
+
+  private static MultivaluedMap<String, String> headers(final String contentLength, final String contentEncoding) {
+    MultivaluedMap<String, String> headers = new MultivaluedHashMap<>(4);
+    if (contentLength != null) {
+      headers.add(HttpHeaders.CONTENT_LENGTH, contentLength);
+    }
+    if (contentEncoding != null) {
+      headers.add(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+    }
+    return headers;
+  }
+
+}
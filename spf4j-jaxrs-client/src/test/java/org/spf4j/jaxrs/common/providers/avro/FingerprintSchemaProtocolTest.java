@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.common.providers.avro;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import javax.ws.rs.ClientErrorException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.SchemaResolver;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Zoltan Farkas
+ */
+public class FingerprintSchemaProtocolTest {
+
+  private static final Schema SCHEMA = Schema.createArray(SchemaBuilder.record("FpTestRecord")
+          .namespace("org.spf4j.test").fields().requiredString("name").requiredLong("id").endRecord());
+
+  /**
+   * The schema served to peers does not have the doc and java properties, the peers must compute the same fingerprint
+   * to be able to verify it.
+   */
+  @Test
+  public void testServedSchemaFingerprint() throws IOException {
+    Schema schema = SchemaBuilder.record("FpDocRecord").namespace("org.spf4j.test").doc("some doc")
+            .prop("java-class", "org.spf4j.test.FpDocRecord")
+            .fields().name("name").doc("the name").type().stringType().noDefault()
+            .requiredLong("id").endRecord();
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    SchemaMessageBodyWriter.writeJson(schema, bos);
+    Schema served = new Schema.Parser().parse(new ByteArrayInputStream(bos.toByteArray()));
+    Assert.assertNull(served.getDoc());
+    Assert.assertEquals(SchemaFingerprints.compute(schema), SchemaFingerprints.compute(served));
+    Schema other = SchemaBuilder.record("FpDocRecord").namespace("org.spf4j.test")
+            .fields().requiredString("name").requiredInt("id").endRecord();
+    Assert.assertNotEquals(SchemaFingerprints.compute(schema), SchemaFingerprints.compute(other));
+  }
+
+  @Test
+  public void testFingerprintRoundTrip() {
+    SchemaFingerprints sender = new SchemaFingerprints(100);
+    SchemaFingerprints receiver = new SchemaFingerprints(100);
+    SchemaProtocol sp = new FingerprintSchemaProtocol(sender, (fp) -> null)
+            .combine(new DefaultSchemaProtocol(SchemaResolver.NONE));
+    Map<String, String> headers = new HashMap<>();
+    sp.serialize(FingerprintSchemaProtocol.accepting(MediaType.valueOf("application/avro")), headers::put, SCHEMA);
+    MediaType ct = MediaType.valueOf(headers.get(HttpHeaders.CONTENT_TYPE));
+    Assert.assertNull(ct.getParameters().get(DefaultSchemaProtocol.CONTENT_TYPE_AVRO_SCHEMA_PARAM));
+    String fp = ct.getParameters().get(FingerprintSchemaProtocol.CONTENT_TYPE_AVRO_SCHEMA_FP_PARAM);
+    Assert.assertEquals(SchemaFingerprints.toString(sender.fingerprint(SCHEMA)), fp);
+    // receiver resolves the fingerprint remotely once, and gets the same instance after.
+    int[] resolutions = new int[1];
+    SchemaProtocol rp = new FingerprintSchemaProtocol(receiver, (f) -> {
+      resolutions[0]++;
+      return sender.get(f);
+    }).combine(new DefaultSchemaProtocol(SchemaResolver.NONE));
+    Schema s1 = rp.deserialize(ct, headers::get, Object.class, Object.class);
+    Schema s2 = rp.deserialize(ct, headers::get, Object.class, Object.class);
+    Assert.assertEquals(SCHEMA, s1);
+    Assert.assertSame(s1, s2);
+    Assert.assertEquals(1, resolutions[0]);
+  }
+
+  @Test
+  public void testNoFingerprintForLegacyPeers() {
+    SchemaProtocol sp = new FingerprintSchemaProtocol(new SchemaFingerprints(100), (fp) -> null)
+            .combine(new DefaultSchemaProtocol(SchemaResolver.NONE));
+    Map<String, String> headers = new HashMap<>();
+    sp.serialize(MediaType.valueOf("application/avro"), headers::put, SCHEMA);
+    MediaType ct = MediaType.valueOf(headers.get(HttpHeaders.CONTENT_TYPE));
+    Assert.assertNull(ct.getParameters().get(FingerprintSchemaProtocol.CONTENT_TYPE_AVRO_SCHEMA_FP_PARAM));
+    Assert.assertEquals(SCHEMA, sp.deserialize(ct, headers::get, Object.class, Object.class));
+  }
+
+  @Test(expected = ClientErrorException.class)
+  public void testUnknownFingerprint() {
+    SchemaProtocol sp = new FingerprintSchemaProtocol(new SchemaFingerprints(100), (fp) -> null);
+    sp.deserialize(MediaType.valueOf("application/avro;avscfp=abcdef"), (h) -> null, Object.class, Object.class);
+  }
+
+  @Test
+  public void testUnknownFingerprintException() {
+    SchemaProtocol sp = new FingerprintSchemaProtocol(new SchemaFingerprints(100), (fp) -> null);
+    try {
+      sp.deserialize(MediaType.valueOf("application/avro;avscfp=abcdef"), (h) -> null, Object.class, Object.class);
+      Assert.fail();
+    } catch (ClientErrorException ex) {
+      UnknownSchemaFingerprintException uex = UnknownSchemaFingerprintException.fromCausalChain(
+              new RuntimeException(ex));
+      Assert.assertNotNull(uex);
+      Assert.assertEquals(0xabcdefL, uex.getFingerprint());
+    }
+  }
+
+  @Test
+  public void testSentSchemasAreNotEvicted() {
+    SchemaFingerprints fps = new SchemaFingerprints(2);
+    long fp = fps.fingerprint(SCHEMA);
+    for (int i = 0; i < 10; i++) {
+      fps.intern(i, Schema.create(Schema.Type.STRING));
+    }
+    Assert.assertSame(SCHEMA, fps.get(fp));
+    // a received schema does not override a sent one.
+    Assert.assertSame(SCHEMA, fps.intern(fp, Schema.create(Schema.Type.INT)));
+  }
+
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.common.providers.avro.stream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaResolver;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.IndexedRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.Decoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.reflect.AvroSchema;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spf4j.base.CloseableIterable;
+import org.spf4j.jaxrs.ReuseElements;
+import org.spf4j.jaxrs.common.providers.avro.DefaultSchemaProtocol;
+
+/**
+ * @author Zoltan Farkas
+ */
+public class ReusingArrayIteratorTest {
+
+  private static final String RECORDS_SCHEMA = "{\"type\":\"array\",\"items\":{\"type\":\"record\","
+          + "\"name\":\"TestRecord\",\"namespace\":\"org.spf4j.test\","
+          + "\"fields\":[{\"name\":\"a\",\"type\":\"int\"}]}}";
+
+  private static final Schema RECORDS = new Schema.Parser().parse(RECORDS_SCHEMA);
+
+  @Test
+  public void testReuse() throws IOException {
+    Iterable records = read(CloseableIterable.class, annotations(true));
+    IndexedRecord previous = null;
+    int i = 0;
+    for (Object o : records) {
+      IndexedRecord record = (IndexedRecord) o;
+      Assert.assertEquals(i++, record.get(0));
+      if (previous != null) {
+        Assert.assertSame(previous, record);
+      }
+      previous = record;
+    }
+    Assert.assertEquals(3, i);
+  }
+
+  @Test
+  public void testNoReuse() throws IOException {
+    assertDistinct(read(CloseableIterable.class, annotations(false)));
+  }
+
+  @Test
+  public void testPlainIterableNoReuse() throws IOException {
+    Iterable records = read(Iterable.class, annotations(true));
+    Assert.assertTrue(records instanceof List);
+    assertDistinct(records);
+  }
+
+  @Test
+  public void testPrimitives() throws IOException {
+    Schema intSchema = Schema.create(Schema.Type.INT);
+    Schema longSchema = Schema.create(Schema.Type.LONG);
+    Assert.assertEquals(Schema.Type.INT, ReusingArrayIterator.getPrimitiveType(intSchema, intSchema));
+    Assert.assertNull(ReusingArrayIterator.getPrimitiveType(intSchema, longSchema));
+    Assert.assertNull(ReusingArrayIterator.getPrimitiveType(RECORDS.getElementType(), RECORDS.getElementType()));
+    Schema array = Schema.createArray(intSchema);
+    Decoder decoder = DecoderFactory.get().binaryDecoder(encode(array, Arrays.asList(1, 2, 3)), null);
+    Iterator<Object> it = new ReusingArrayIterator(decoder, new GenericDatumReader(intSchema), Schema.Type.INT, false);
+    List<Object> result = new ArrayList<>();
+    while (it.hasNext()) {
+      result.add(it.next());
+    }
+    Assert.assertEquals(Arrays.asList(1, 2, 3), result);
+    // the end of the array was read, the decoder is not read anymore.
+    Assert.assertFalse(it.hasNext());
+    Assert.assertFalse(it.hasNext());
+  }
+
+  private static void assertDistinct(final Iterable records) {
+    List<IndexedRecord> result = new ArrayList<>(3);
+    for (Object o : records) {
+      result.add((IndexedRecord) o);
+    }
+    Assert.assertEquals(3, result.size());
+    for (int i = 0; i < 3; i++) {
+      Assert.assertEquals(i, result.get(i).get(0));
+    }
+    Assert.assertNotSame(result.get(0), result.get(1));
+    Assert.assertNotSame(result.get(1), result.get(2));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Iterable read(final Class<?> type, final Annotation[] annotations) throws IOException {
+    List<GenericData.Record> records = new ArrayList<>(3);
+    for (int i = 0; i < 3; i++) {
+      GenericData.Record record = new GenericData.Record(RECORDS.getElementType());
+      record.put(0, i);
+      records.add(record);
+    }
+    BinaryAvroIterableMessageBodyReader reader
+            = new BinaryAvroIterableMessageBodyReader(new DefaultSchemaProtocol(SchemaResolver.NONE));
+    return reader.readFrom((Class) type, type, annotations, new MediaType("application", "avro"),
+            new MultivaluedHashMap<>(), new ByteArrayInputStream(encode(RECORDS, records)));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static byte[] encode(final Schema schema, final Object value) throws IOException {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(bos, null);
+    new GenericDatumWriter(schema).write(value, encoder);
+    encoder.flush();
+    return bos.toByteArray();
+  }
+
+  private static Annotation[] annotations(final boolean reuse) {
+    AvroSchema schema = new AvroSchema() {
+      @Override
+      public String value() {
+        return RECORDS_SCHEMA;
+      }
+
+      @Override
+      public Class<? extends Annotation> annotationType() {
+        return AvroSchema.class;
+      }
+    };
+    if (!reuse) {
+      return new Annotation[] {schema};
+    }
+    ReuseElements reuseElements = new ReuseElements() {
+      @Override
+      public Class<? extends Annotation> annotationType() {
+        return ReuseElements.class;
+      }
+    };
+    return new Annotation[] {reuseElements, schema};
+  }
+
+}
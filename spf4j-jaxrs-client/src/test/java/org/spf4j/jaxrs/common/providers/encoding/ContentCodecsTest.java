@@ -0,0 +1,115 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.common.providers.encoding;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import javax.ws.rs.core.MediaType;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Zoltan Farkas
+ */
+public class ContentCodecsTest {
+
+  private static final String PREFIX = ContentCodecs.DEFAULT_PREFIX;
+
+  @Test
+  public void testNegotiation() {
+    ContentCodecs codecs = new ContentCodecs(Arrays.asList(new GzipCodec(), new DeflateCodec()),
+            PREFIX, x -> null);
+    Assert.assertEquals("gzip", codecs.negotiate(Collections.singletonList("gzip, deflate")).getName());
+    Assert.assertEquals("deflate", codecs.negotiate(Collections.singletonList("gzip;q=0.5, deflate")).getName());
+    Assert.assertEquals("gzip", codecs.negotiate(Collections.singletonList("x-gzip, br")).getName());
+    Assert.assertEquals("gzip", codecs.negotiate(Collections.singletonList("*")).getName());
+    Assert.assertEquals("deflate", codecs.negotiate(Collections.singletonList("gzip;q=0, *;q=0.1")).getName());
+    Assert.assertNull(codecs.negotiate(Collections.singletonList("identity")));
+    Assert.assertNull(codecs.negotiate(Collections.singletonList("gzip;q=0, deflate;q=0")));
+    Assert.assertNull(codecs.negotiate(null));
+    Assert.assertEquals("gzip, deflate", codecs.getAcceptEncoding());
+  }
+
+  @Test
+  public void testLevels() {
+    Map<String, String> cfg = new HashMap<>();
+    cfg.put(PREFIX + ".gzip.level", "5,application/avro=1,text/*=9");
+    cfg.put(PREFIX + ".preference", "deflate,gzip");
+    ContentCodecs codecs = new ContentCodecs(Arrays.asList(new GzipCodec(), new DeflateCodec()),
+            PREFIX, cfg::get);
+    ContentCodec gzip = codecs.getEncoder("gzip");
+    Assert.assertEquals(1, codecs.getLevel(gzip, MediaType.valueOf("application/avro")));
+    Assert.assertEquals(9, codecs.getLevel(gzip, MediaType.valueOf("text/csv")));
+    Assert.assertEquals(5, codecs.getLevel(gzip, MediaType.APPLICATION_JSON_TYPE));
+    Assert.assertEquals("deflate", codecs.negotiate(Collections.singletonList("gzip, deflate")).getName());
+    Assert.assertTrue(codecs.isCompressible(MediaType.valueOf("text/plain;charset=UTF-8")));
+    Assert.assertFalse(codecs.isCompressible(MediaType.valueOf("image/png")));
+  }
+
+  @Test
+  public void testGzipRoundTrip() throws IOException {
+    byte[] data = "some text to compress, some text to compress".getBytes(StandardCharsets.UTF_8);
+    GzipCodec codec = new GzipCodec();
+    for (int i = 0; i < 3; i++) { // make sure pooled deflaters are reset properly
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      try (OutputStream os = codec.encode(bos, 6)) {
+        os.write(data);
+      }
+      try (InputStream is = new GZIPInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+        Assert.assertArrayEquals(data, readAll(is));
+      }
+      try (InputStream is = codec.decode(new ByteArrayInputStream(bos.toByteArray()))) {
+        Assert.assertArrayEquals(data, readAll(is));
+      }
+    }
+  }
+
+  @Test
+  public void testZstdRoundTrip() throws IOException {
+    ZstdCodec codec = new ZstdCodec();
+    // with the pure java fallback zstd must be available on any platform.
+    Assert.assertTrue(codec.toString(), codec.canEncode());
+    Assert.assertTrue(codec.canDecode());
+    byte[] data = "some text to compress, some text to compress".getBytes(StandardCharsets.UTF_8);
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (OutputStream os = codec.encode(bos, 3)) {
+      os.write(data);
+    }
+    try (InputStream is = codec.decode(new ByteArrayInputStream(bos.toByteArray()))) {
+      Assert.assertArrayEquals(data, readAll(is));
+    }
+  }
+
+  private static byte[] readAll(final InputStream is) throws IOException {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    byte[] buff = new byte[256];
+    int r;
+    while ((r = is.read(buff)) >= 0) {
+      bos.write(buff, 0, r);
+    }
+    return bos.toByteArray();
+  }
+
+}
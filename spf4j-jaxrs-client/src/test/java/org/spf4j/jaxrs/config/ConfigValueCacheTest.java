@@ -0,0 +1,142 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.config;
+
+import java.util.Collections;
+import java.util.Map;
+import org.apache.avro.SchemaResolver;
+import org.eclipse.microprofile.config.spi.ConfigSource;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spf4j.jaxrs.config.sources.MemoryConfigSource;
+import org.spf4j.jaxrs.config.sources.SysPropConfigSource;
+
+/**
+ * @author Zoltan Farkas
+ */
+public class ConfigValueCacheTest {
+
+  @Test
+  public void testChangeInvalidatesCachedValue() throws Exception {
+    MemoryConfigSource source = new MemoryConfigSource();
+    source.putValue("cvc.test.a", "1");
+    try (ConfigImpl config = newConfig(source)) {
+      Assert.assertEquals(1, config.getValue("cvc.test.a", Integer.class).intValue());
+      Assert.assertEquals(1, config.getValue("cvc.test.a", Integer.class).intValue());
+      source.putValue("cvc.test.a", "2");
+      Assert.assertEquals(2, config.getValue("cvc.test.a", Integer.class).intValue());
+      Assert.assertEquals("2", config.getValue("cvc.test.a", String.class));
+      Assert.assertNull(config.getValue("cvc.test.b", String.class));
+      source.putValue("cvc.test.b", "x");
+      Assert.assertEquals("x", config.getValue("cvc.test.b", String.class));
+      source.putValue("cvc.test.b", null);
+      Assert.assertNull(config.getValue("cvc.test.b", String.class));
+    }
+  }
+
+  /**
+   * A change that happens while a value is being read from the sources, must prevent the read value from
+   * being cached.
+   */
+  @Test
+  public void testConcurrentLoadNotPublished() throws Exception {
+    MemoryConfigSource source = new MemoryConfigSource();
+    source.putValue("cvc.test.c", "1");
+    ChangingConfigSource changing = new ChangingConfigSource(source, "cvc.test.c", "2");
+    try (ConfigImpl config = newConfig(changing)) {
+      // the value read before the change is returned, but must not be cached.
+      Assert.assertEquals(1, config.getValue("cvc.test.c", Integer.class).intValue());
+      Assert.assertEquals(2, config.getValue("cvc.test.c", Integer.class).intValue());
+    }
+  }
+
+  @Test
+  public void testPutAfterVersionChange() {
+    ConfigValueCache cache = new ConfigValueCache(null);
+    long version = cache.beginLoad();
+    cache.invalidate("cvc.test.d");
+    cache.put(version, "cvc.test.d", Integer.class, "1", 1);
+    Assert.assertNull(cache.get("cvc.test.d", Integer.class));
+    version = cache.beginLoad();
+    cache.put(version, "cvc.test.d", Integer.class, "1", 1);
+    Assert.assertEquals(1, cache.get("cvc.test.d", Integer.class).getValue());
+  }
+
+  private static ConfigImpl newConfig(final ConfigSource first) {
+    return new ConfigImpl(new ObjectConverters(Collections.emptyMap(), () -> SchemaResolver.NONE),
+            first, new SysPropConfigSource());
+  }
+
+  /**
+   * Observable source that changes a value (like a concurrent config update would)
+   * right after the first read of that value.
+   */
+  private static final class ChangingConfigSource implements ConfigSource, ObservableConfig {
+
+    private final MemoryConfigSource source;
+
+    private final String name;
+
+    private String newValue;
+
+    ChangingConfigSource(final MemoryConfigSource source, final String name, final String newValue) {
+      this.source = source;
+      this.name = name;
+      this.newValue = newValue;
+    }
+
+    @Override
+    public Map<String, String> getProperties() {
+      return source.getProperties();
+    }
+
+    @Override
+    public String getValue(final String propertyName) {
+      String result = source.getValue(propertyName);
+      if (newValue != null && name.equals(propertyName)) {
+        source.putValue(propertyName, newValue);
+        newValue = null;
+      }
+      return result;
+    }
+
+    @Override
+    public String getName() {
+      return "Changing" + source.getName();
+    }
+
+    @Override
+    public void addWatcher(final ConfigWatcher consumer) {
+      source.addWatcher(consumer);
+    }
+
+    @Override
+    public void addWatcher(final String pname, final PropertyWatcher consumer) {
+      source.addWatcher(pname, consumer);
+    }
+
+    @Override
+    public void removeWatcher(final ConfigWatcher consumer) {
+      source.removeWatcher(consumer);
+    }
+
+    @Override
+    public void removeWatcher(final String pname, final PropertyWatcher consumer) {
+      source.removeWatcher(pname, consumer);
+    }
+  }
+
+}
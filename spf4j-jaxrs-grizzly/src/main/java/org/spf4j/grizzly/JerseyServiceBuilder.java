@@ -47,13 +47,14 @@ import org.glassfish.grizzly.http.CompressionConfig;
 import org.glassfish.grizzly.http.server.HttpServer;
 import org.glassfish.grizzly.http.server.NetworkListener;
 import org.glassfish.grizzly.http.server.ServerConfiguration;
+import org.glassfish.grizzly.http2.Http2AddOn;
+import org.glassfish.grizzly.http2.Http2Configuration;
 import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
 import org.glassfish.grizzly.servlet.FixedWebappContext;
 import org.glassfish.grizzly.servlet.ServletRegistration;
 import org.glassfish.grizzly.servlet.WebappContext;
 import org.glassfish.grizzly.ssl.SSLEngineConfigurator;
 import org.glassfish.jersey.client.ClientProperties;
-import org.glassfish.jersey.client.filter.EncodingFilter;
 import org.glassfish.jersey.internal.inject.AbstractBinder;
 import org.glassfish.jersey.internal.inject.Binder;
 import org.glassfish.jersey.server.ResourceConfig;
@@ -72,13 +73,18 @@ import org.spf4j.jaxrs.client.Spf4JClient;
 import org.spf4j.jaxrs.client.providers.ClientCustomExecutorServiceProvider;
 import org.spf4j.jaxrs.client.providers.ClientCustomScheduledExecutionServiceProvider;
 import org.spf4j.jaxrs.client.providers.ExecutionContextClientFilter;
+import org.spf4j.jaxrs.client.providers.SchemaFingerprintClientFilter;
 import org.spf4j.jaxrs.common.providers.avro.DefaultSchemaProtocol;
+import org.spf4j.jaxrs.common.providers.avro.FingerprintSchemaProtocol;
+import org.spf4j.jaxrs.common.providers.avro.SchemaProtocol;
 import org.spf4j.jaxrs.config.MicroprofileConfigFeature;
 import org.spf4j.jaxrs.features.AvroFeature;
 import org.spf4j.jaxrs.features.GeneralPurposeFeatures;
 import org.spf4j.jaxrs.server.DelegatingAuthenticationClientFilter;
 import org.spf4j.jaxrs.server.features.ImmediateFeature;
 import org.spf4j.jaxrs.server.providers.DefaultServerProvidersFeatures;
+import org.spf4j.jaxrs.server.providers.SchemaFingerprintLinkFilter;
+import org.spf4j.jaxrs.server.resources.SchemaFingerprintResource;
 import org.spf4j.servlet.ExecutionContextFilter;
 import org.spf4j.stackmonitor.Sampler;
 
@@ -118,6 +124,18 @@ public final class JerseyServiceBuilder implements JaxRsConfiguration {
 
   private SecurityAuthenticator auth = SecurityAuthenticator.NOAUTH;
 
+  private boolean schemaFingerprints;
+
+  private boolean http2;
+
+  private boolean http2PriorKnowledge;
+
+  private int http2MaxConcurrentStreams;
+
+  private int http2InitialWindowSize;
+
+  private int http2MaxHeaderListSize;
+
   /* see https://github.com/jersey/jersey/blob/master/examples/
   https-clientserver-grizzly/src/main/java/org/glassfish/jersey/examples/httpsclientservergrizzly/Server.java */
   private SSLEngineConfigurator sslConfig;
@@ -141,6 +159,12 @@ public final class JerseyServiceBuilder implements JaxRsConfiguration {
     this.maxHeaderSizeBytes = 256 * 1024;
     this.defaultTimeoutNanos = TimeUnit.SECONDS.toNanos(10);
     this.maximumAllowedTimeoutNanos = TimeUnit.SECONDS.toNanos(25);
+    this.schemaFingerprints = false;
+    this.http2 = false;
+    this.http2PriorKnowledge = false;
+    this.http2MaxConcurrentStreams = 100;
+    this.http2InitialWindowSize = 65535;
+    this.http2MaxHeaderListSize = 8192;
   }
 
   public JerseyServiceBuilder removeDefaults() {
@@ -232,6 +256,46 @@ public final class JerseyServiceBuilder implements JaxRsConfiguration {
     return this;
   }
 
+  /**
+   * Transmit avro schemas as fingerprints to the peers that support them (see FingerprintSchemaProtocol),
+   * and serve our schemas by fingerprint, (with a link to the fingerprint resource in the responses)
+   */
+  public JerseyServiceBuilder withSchemaFingerprints(final boolean enabled) {
+    this.schemaFingerprints = enabled;
+    return this;
+  }
+
+  /**
+   * Enable HTTP/2: h2 via ALPN when TLS is configured, h2c via upgrade otherwise.
+   */
+  public JerseyServiceBuilder withHttp2(final boolean enabled) {
+    this.http2 = enabled;
+    return this;
+  }
+
+  /**
+   * Accept cleartext HTTP/2 connections without upgrade (prior knowledge), for intra-cluster traffic.
+   */
+  public JerseyServiceBuilder withHttp2PriorKnowledge(final boolean enabled) {
+    this.http2PriorKnowledge = enabled;
+    return this;
+  }
+
+  public JerseyServiceBuilder withHttp2MaxConcurrentStreams(final int maxStreams) {
+    this.http2MaxConcurrentStreams = maxStreams;
+    return this;
+  }
+
+  public JerseyServiceBuilder withHttp2InitialWindowSize(final int windowSizeBytes) {
+    this.http2InitialWindowSize = windowSizeBytes;
+    return this;
+  }
+
+  public JerseyServiceBuilder withHttp2MaxHeaderListSize(final int sizeBytes) {
+    this.http2MaxHeaderListSize = sizeBytes;
+    return this;
+  }
+
   public Set<String> getProviderPackages() {
     return Collections.unmodifiableSet(providerPackages);
   }
@@ -253,7 +317,7 @@ public final class JerseyServiceBuilder implements JaxRsConfiguration {
             + ", jvmServices=" + jvmServices + ", kernelThreadsCoreSize=" + kernelThreadsCoreSize
             + ", kernelThreadsMaxSize=" + kernelThreadsMaxSize + ", workerThreadsCoreSize="
             + workerThreadsCoreSize + ", workerThreadsMaxSize=" + workerThreadsMaxSize
-            + ", sslConfig=" + sslConfig + '}';
+            + ", sslConfig=" + sslConfig + ", http2=" + http2 + '}';
   }
 
   @Override
@@ -333,17 +397,22 @@ public final class JerseyServiceBuilder implements JaxRsConfiguration {
         }
       });
 
-    AvroFeature avroFeature = new AvroFeature(
-            new DefaultSchemaProtocol(schemaClient), schemaClient);
-    Spf4JClient restClient = Spf4JClient.create(ClientBuilder
-            .newBuilder()
+    SchemaProtocol schemaProtocol = new DefaultSchemaProtocol(schemaClient);
+    ClientBuilder clientBuilder = ClientBuilder.newBuilder();
+    if (schemaFingerprints) {
+      schemaProtocol = new FingerprintSchemaProtocol().combine(schemaProtocol);
+      clientBuilder.register(SchemaFingerprintClientFilter.class);
+      resourceConfig.register(SchemaFingerprintResource.class);
+      resourceConfig.register(SchemaFingerprintLinkFilter.class);
+    }
+    AvroFeature avroFeature = new AvroFeature(schemaProtocol, schemaClient);
+    Spf4JClient restClient = Spf4JClient.create(clientBuilder
             .connectTimeout(2, TimeUnit.SECONDS)
             .readTimeout(60, TimeUnit.SECONDS)
             .register(new ExecutionContextClientFilter(dp, true))
             .register(ClientCustomExecutorServiceProvider.class)
             .register(ClientCustomScheduledExecutionServiceProvider.class)
             .register(new GeneralPurposeFeatures())
-            .register(EncodingFilter.class)
             .register(avroFeature)
             .register(DelegatingAuthenticationClientFilter.class)
             .property(ClientProperties.USE_ENCODING, "gzip")
@@ -386,13 +455,17 @@ public final class JerseyServiceBuilder implements JaxRsConfiguration {
       final NetworkListener listener
               = new NetworkListener("http", pbindAddr, port);
       listener.setMaxHttpHeaderSize(maxHeaderSizeBytes);
-      // Create default HTTP/2 configuration and provide it to the AddOn
-      //Http2Configuration configuration = Http2Configuration.builder().build();
-      //Http2AddOn http2Addon = new Http2AddOn(configuration);
-
-      // Register the Addon.
-      //listener.registerAddOn(http2Addon);
+      if (http2) {
+        listener.registerAddOn(new Http2AddOn(Http2Configuration.builder()
+                .maxConcurrentStreams(http2MaxConcurrentStreams)
+                .initialWindowSize(http2InitialWindowSize)
+                .maxHeaderListSize(http2MaxHeaderListSize)
+                .priorKnowledge(http2PriorKnowledge)
+                .build()));
+      }
 
+      // jersey responses are encoded by the ContentEncodingFilter/ContentCodecInterceptor (zstd, br, gzip...),
+      // grizzly will not compress responses that already have a Content-Encoding.
       CompressionConfig compressionConfig = listener.getCompressionConfig();
       compressionConfig.setCompressionMode(CompressionConfig.CompressionMode.ON); // the mode
       compressionConfig.setCompressionMinSize(4096); // the min amount of bytes to compress
@@ -30,6 +30,7 @@ import org.spf4j.base.SysExits;
 import org.spf4j.base.ThreadLocalContextAttacher;
 import org.spf4j.base.Throwables;
 import org.spf4j.io.Csv;
+import org.spf4j.http.ContextTags;
 import org.spf4j.jaxrs.server.JAXRSAvroSerializers;
 import org.spf4j.log.LogbackService;
 import org.spf4j.os.OperatingSystem;
@@ -84,6 +85,10 @@ public final class JvmServicesBuilder {
     this.threadUseSampleTimeMillis = Env.getValue("V_THREAD_USE_S_MILLIS", 10000);
     this.cpuUseSampleTimeMillis = Env.getValue("V_CPU_USE_S_MILLIS", 10000);
     this.aggregationGroups = (ctx) -> {
+                        String route = ctx.get(ContextTags.ROUTE);
+                        if (route != null) {
+                          return route; // interned, one group per endpoint.
+                        }
                         String name = ctx.getName();
                         if (name.startsWith("GET")) {
                           return "GET";
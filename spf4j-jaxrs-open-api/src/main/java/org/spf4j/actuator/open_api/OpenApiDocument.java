@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.actuator.open_api;
+
+import com.google.common.hash.Hashing;
+import io.swagger.v3.core.util.Json;
+import io.swagger.v3.core.util.Yaml;
+import io.swagger.v3.oas.models.OpenAPI;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+import javax.ws.rs.core.EntityTag;
+
+/**
+ * A pre-rendered open api document, (json, yaml, and their gzip-ed variants) with strong ETags.
+ * @author Zoltan Farkas
+ */
+final class OpenApiDocument {
+
+  private final Representation json;
+
+  private final Representation yaml;
+
+  OpenApiDocument(final OpenAPI oas, final boolean pretty) throws IOException {
+    this.json = new Representation(pretty ? Json.pretty().writeValueAsBytes(oas)
+            : Json.mapper().writeValueAsBytes(oas));
+    this.yaml = new Representation(pretty ? Yaml.pretty().writeValueAsBytes(oas)
+            : Yaml.mapper().writeValueAsBytes(oas));
+  }
+
+  Representation getJson() {
+    return json;
+  }
+
+  Representation getYaml() {
+    return yaml;
+  }
+
+  @Override
+  public String toString() {
+    return "OpenApiDocument{" + "json=" + json + ", yaml=" + yaml + '}';
+  }
+
+  static final class Representation {
+
+    private final byte[] content;
+
+    private final byte[] gzipContent;
+
+    private final EntityTag etag;
+
+    private final EntityTag gzipEtag;
+
+    Representation(final byte[] content) throws IOException {
+      this.content = content;
+      ByteArrayOutputStream bos = new ByteArrayOutputStream(content.length / 4 + 64);
+      try (GZIPOutputStream gos = new GZIPOutputStream(bos)) {
+        gos.write(content);
+      }
+      this.gzipContent = bos.toByteArray();
+      String hash = Hashing.sha256().hashBytes(content).toString();
+      this.etag = new EntityTag(hash);
+      // different representation (encoding) needs a different strong ETag.
+      this.gzipEtag = new EntityTag(hash + "-gzip");
+    }
+
+    byte[] getContent() {
+      return content;
+    }
+
+    byte[] getGzipContent() {
+      return gzipContent;
+    }
+
+    EntityTag getEtag() {
+      return etag;
+    }
+
+    EntityTag getGzipEtag() {
+      return gzipEtag;
+    }
+
+    @Override
+    public String toString() {
+      return "Representation{" + "length=" + content.length + ", gzipLength=" + gzipContent.length
+              + ", etag=" + etag + '}';
+    }
+
+  }
+
+}
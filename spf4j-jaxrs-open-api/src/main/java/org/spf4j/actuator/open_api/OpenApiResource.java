@@ -46,19 +46,23 @@ import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import javax.annotation.security.PermitAll;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import javax.servlet.ServletConfig;
 import javax.ws.rs.GET;
+import javax.ws.rs.NotFoundException;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Application;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.Cookie;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
@@ -66,6 +70,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.glassfish.jersey.servlet.ServletContainer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.spf4j.jaxrs.EncodedContent;
 
 @Path("/")
 @Singleton
@@ -74,12 +79,24 @@ public final class OpenApiResource extends BaseOpenApiResource {
 
   private static final Logger LOG = LoggerFactory.getLogger(OpenApiResource.class);
 
+  private static final MediaType YAML_TYPE = new MediaType("application", "yaml");
+
   static {
     ModelConverters.getInstance().addConverter(AvroModelConverter.INSTANCE);
   }
 
   private final ServletConfig config;
 
+  /**
+   * the pre-rendered document, lazily initialized on first request.
+   */
+  private volatile OpenApiDocument document;
+
+  /**
+   * true if a spec filter is configured (init param or open api configuration file), lazily initialized.
+   */
+  private volatile Boolean filtered;
+
   @Inject
   public OpenApiResource(@Context final ServletConfig config) {
     this.config = config;
@@ -89,7 +106,12 @@ public final class OpenApiResource extends BaseOpenApiResource {
   @Produces(MediaType.APPLICATION_JSON)
   @Path("openapi.json")
   public Response getOpenApi(@Context final HttpHeaders headers,
-          @Context final UriInfo uriInfo, @Context final Application app) throws Exception {
+          @Context final UriInfo uriInfo, @Context final Application app,
+          @Context final Request request) throws Exception {
+    if (isCacheable(uriInfo, app)) {
+      return getCachedOpenApi(getDocument(headers, app, uriInfo).getJson(), MediaType.APPLICATION_JSON_TYPE,
+              headers, request);
+    }
     return getOpenApi(headers, config, app, uriInfo, "json");
   }
 
@@ -97,16 +119,131 @@ public final class OpenApiResource extends BaseOpenApiResource {
   @Produces("application/yaml")
   @Path("openapi.yaml")
   public Response getOpenApiYaml(@Context final HttpHeaders headers,
-          @Context final UriInfo uriInfo, @Context final Application app) throws Exception {
+          @Context final UriInfo uriInfo, @Context final Application app,
+          @Context final Request request) throws Exception {
+    if (isCacheable(uriInfo, app)) {
+      return getCachedOpenApi(getDocument(headers, app, uriInfo).getYaml(), YAML_TYPE,
+              headers, request);
+    }
     return getOpenApi(headers, config, app, uriInfo, "yaml");
   }
 
+  /**
+   * The document depends on the request only via the filters, DefaultAspectsApiFilter does not look at the request,
+   * custom filters might. A filter can be configured either via init param or in the open api configuration file.
+   */
+  private boolean isCacheable(final UriInfo uriInfo, final Application app) throws Exception {
+    if (!uriInfo.getQueryParameters().isEmpty()) {
+      return false;
+    }
+    Boolean isFiltered = filtered;
+    if (isFiltered == null) {
+      isFiltered = getInitParam(config, OPENAPI_CONFIGURATION_FILTER_KEY) != null
+              || buildContext(config, app).getOpenApiConfiguration().getFilterClass() != null;
+      filtered = isFiltered;
+    }
+    return !isFiltered;
+  }
+
+  private OpenApiDocument getDocument(final HttpHeaders headers, final Application app,
+          final UriInfo uriInfo) throws Exception {
+    OpenApiDocument doc = document;
+    if (doc == null) {
+      synchronized (this) {
+        doc = document;
+        if (doc == null) {
+          OpenApiContext ctx = buildContext(config, app);
+          OpenAPI oas = readOpenApi(ctx, headers, uriInfo);
+          if (oas == null) {
+            throw new NotFoundException("No open api document available");
+          }
+          doc = new OpenApiDocument(oas, Boolean.TRUE.equals(ctx.getOpenApiConfiguration().isPrettyPrint()));
+          document = doc;
+          LOG.debug("Rendered open api document {}", doc);
+        }
+      }
+    }
+    return doc;
+  }
+
+  private static Response getCachedOpenApi(final OpenApiDocument.Representation repr, final MediaType type,
+          final HttpHeaders headers, final Request request) {
+    boolean gzip = acceptsGzip(headers);
+    EntityTag etag = gzip ? repr.getGzipEtag() : repr.getEtag();
+    Response.ResponseBuilder notModified = request.evaluatePreconditions(etag);
+    if (notModified != null) {
+      return notModified.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING).build();
+    }
+    Object entity = gzip ? new EncodedContent(repr.getGzipContent(), "gzip") : repr.getContent();
+    return Response.ok(entity, type)
+            .tag(etag)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+            .build();
+  }
+
+  static boolean acceptsGzip(final HttpHeaders headers) {
+    List<String> acceptEncodings = headers.getRequestHeader(HttpHeaders.ACCEPT_ENCODING);
+    if (acceptEncodings == null) {
+      return false;
+    }
+    for (String acceptEncoding : acceptEncodings) {
+      for (String coding : acceptEncoding.split(",")) {
+        int pIdx = coding.indexOf(';');
+        String name = (pIdx < 0 ? coding : coding.substring(0, pIdx)).trim();
+        if ("gzip".equalsIgnoreCase(name) || "x-gzip".equalsIgnoreCase(name)) {
+          return pIdx < 0 || !coding.substring(pIdx + 1).trim().matches("q\\s*=\\s*0(\\.0*)?");
+        }
+      }
+    }
+    return false;
+  }
+
   @Override
   protected Response getOpenApi(final HttpHeaders headers,
           final ServletConfig servletConfig,
           final Application application,
           final UriInfo uriInfo,
           final String type) throws Exception {
+    OpenApiContext ctx = buildContext(servletConfig, application);
+    OpenAPI oas = readOpenApi(ctx, headers, uriInfo);
+    if (oas == null) {
+      return Response.status(404).build();
+    }
+    final boolean pretty = Boolean.TRUE.equals(ctx.getOpenApiConfiguration().isPrettyPrint());
+    final OpenAPI result = oas;
+    if (StringUtils.isNotBlank(type) && type.trim().equalsIgnoreCase("yaml")) {
+      return Response.status(Response.Status.OK)
+              .entity(new StreamingOutput() {
+                @Override
+                public void write(final OutputStream os) throws IOException {
+                  if (pretty) {
+                    Yaml.pretty().writeValue(os, result);
+                  } else {
+                    Yaml.mapper().writeValue(os, result);
+                  }
+                }
+              })
+              .type("application/yaml")
+              .build();
+    } else {
+      return Response.status(Response.Status.OK)
+              .entity(new StreamingOutput() {
+                @Override
+                public void write(final OutputStream os) throws IOException {
+                  if (pretty) {
+                    Json.pretty().writeValue(os, result);
+                  } else {
+                    Json.mapper().writeValue(os, result);
+                  }
+                }
+              })
+              .type(MediaType.APPLICATION_JSON_TYPE)
+              .build();
+    }
+  }
+
+  private synchronized OpenApiContext buildContext(final ServletConfig servletConfig,
+          final Application application) throws Exception {
     String ctxId = getContextIdFromServletConfig(servletConfig);
     if (resourcePackages == null) {
       resourcePackages = resolveResourcePackages(servletConfig);
@@ -147,14 +284,12 @@ public final class OpenApiResource extends BaseOpenApiResource {
             .openApiConfiguration(openApiConfiguration)
             .ctxId(ctxId)
             .buildContext(true);
-    OpenAPI oas = ctx.read();
-    final boolean pretty;
-    if (Boolean.TRUE.equals(ctx.getOpenApiConfiguration().isPrettyPrint())) {
-      pretty = true;
-    } else {
-      pretty = false;
-    }
+    return ctx;
+  }
 
+  @Nullable
+  private static OpenAPI readOpenApi(final OpenApiContext ctx, final HttpHeaders headers, final UriInfo uriInfo) {
+    OpenAPI oas = ctx.read();
     if (oas != null) {
       if (ctx.getOpenApiConfiguration().getFilterClass() != null) {
         try {
@@ -172,39 +307,7 @@ public final class OpenApiResource extends BaseOpenApiResource {
     oas = f.filter(oas, new DefaultAspectsApiFilter(),
             getQueryParams(uriInfo.getQueryParameters()), getCookies(headers),
             getHeaders(headers));
-    if (oas == null) {
-      return Response.status(404).build();
-    }
-    final OpenAPI result = oas;
-    if (StringUtils.isNotBlank(type) && type.trim().equalsIgnoreCase("yaml")) {
-      return Response.status(Response.Status.OK)
-              .entity(new StreamingOutput() {
-                @Override
-                public void write(final OutputStream os) throws IOException {
-                  if (pretty) {
-                    Yaml.pretty().writeValue(os, result);
-                  } else {
-                    Yaml.mapper().writeValue(os, result);
-                  }
-                }
-              })
-              .type("application/yaml")
-              .build();
-    } else {
-      return Response.status(Response.Status.OK)
-              .entity(new StreamingOutput() {
-                @Override
-                public void write(final OutputStream os) throws IOException {
-                  if (pretty) {
-                    Json.pretty().writeValue(os, result);
-                  } else {
-                    Json.mapper().writeValue(os, result);
-                  }
-                }
-              })
-              .type(MediaType.APPLICATION_JSON_TYPE)
-              .build();
-    }
+    return oas;
   }
 
   private static Map<String, List<String>> getQueryParams(final MultivaluedMap<String, String> params) {
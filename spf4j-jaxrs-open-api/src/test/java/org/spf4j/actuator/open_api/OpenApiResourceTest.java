@@ -15,7 +15,10 @@
  */
 package org.spf4j.actuator.open_api;
 
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 import org.hamcrest.Matchers;
 import org.junit.Assert;
 import org.junit.Ignore;
@@ -39,6 +42,20 @@ public class OpenApiResourceTest extends ServiceIntegrationBase {
     Assert.assertThat(json.toString(), Matchers.containsString("\"/openapi.json\":{"));
   }
 
+  @Test
+  public void testOpenApiConditionalGet() {
+    Response resp = getTarget().path("openapi.json")
+            .request(MediaType.APPLICATION_JSON).get();
+    Assert.assertEquals(200, resp.getStatus());
+    EntityTag etag = resp.getEntityTag();
+    Assert.assertNotNull(etag);
+    resp.close();
+    Response resp2 = getTarget().path("openapi.json")
+            .request(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, etag.toString()).get();
+    Assert.assertEquals(304, resp2.getStatus());
+    resp2.close();
+  }
+
   @Test
   public void testOpenApi() {
     CharSequence json = getTarget().path("openapi.json")
@@ -2,10 +2,8 @@
 package org.spf4j.http;
 
 import org.spf4j.jaxrs.JaxRsSecurityContext;
-import gnu.trove.set.hash.THashSet;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 import org.spf4j.base.ExecutionContext.SimpleTag;
 import org.spf4j.base.ExecutionContext.Tag;
 import org.spf4j.log.Level;
@@ -60,9 +58,14 @@ public final class ContextTags {
   };
 
   /**
-   * Http warnings attached to current execution context.
+   * Http warnings attached to current execution context. (equal to RequestContextTags.HTTP_WARNINGS)
    */
-  public static final WarningsTag HTTP_WARNINGS =  new WarningsTag();
+  public static final WarningsTag HTTP_WARNINGS = new WarningsTag();
+
+  /**
+   * Server timing metrics attached to current execution context.
+   */
+  public static final RequestContextTags.ServerTimingsTag SERVER_TIMINGS = RequestContextTags.SERVER_TIMINGS;
 
   /**
    * Upgrade the log level of the standard LOG entry for the context.
@@ -103,49 +106,39 @@ public final class ContextTags {
     }
   };
 
-  public static final SimpleTag<JaxRsSecurityContext> SECURITY_CONTEXT = new SimpleTag<JaxRsSecurityContext>() {
+  /**
+   * The matched route: http method + resource path template, (interned, low cardinality)
+   * used to aggregate metrics and profiles by endpoint.
+   */
+  public static final SimpleTag<String> ROUTE = new SimpleTag<String>() {
     @Override
     public String toString() {
-      return "SEC";
+      return "ROUTE";
     }
   };
 
-  public static final class WarningsTag implements Tag<Set<HttpWarning>, HttpWarning> {
-
+  /**
+   * The admission decision to make once the route is known. (see RouteNameFilter)
+   */
+  public static final SimpleTag<RouteAdmission> ROUTE_ADMISSION = new SimpleTag<RouteAdmission>() {
     @Override
     public String toString() {
-      return "HW";
-    }
-
-    @Override
-    public Set<HttpWarning> accumulate(final Set<HttpWarning> existing, final Set<HttpWarning> current) {
-      if (existing == null) {
-        return new THashSet<>(current);
-      } else {
-        existing.addAll(current);
-        return existing;
-      }
+      return "RADM";
     }
+  };
 
+  public static final SimpleTag<JaxRsSecurityContext> SECURITY_CONTEXT = new SimpleTag<JaxRsSecurityContext>() {
     @Override
-    public Set<HttpWarning> accumulateComponent(final Set<HttpWarning> existing, final HttpWarning component) {
-      Set<HttpWarning> result;
-      if (existing == null) {
-        result = new THashSet<>(2);
-      } else {
-        result = existing;
-      }
-      result.add(component);
-      return result;
+    public String toString() {
+      return "SEC";
     }
+  };
 
-
-
-    @Override
-    public boolean pushOnClose() {
-      return true;
-    }
+  /**
+   * @deprecated use {@link RequestContextTags.WarningsTag}, the warnings tag is shared with the client.
+   */
+  @Deprecated
+  public static final class WarningsTag extends RequestContextTags.WarningsTag {
   }
 
-
 }
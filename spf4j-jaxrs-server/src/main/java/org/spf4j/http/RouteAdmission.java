@@ -0,0 +1,33 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.http;
+
+/**
+ * Admission decision that can be made only once the request route is known. (see {@link ContextTags#ROUTE})
+ * Available in the request execution context as {@link ContextTags#ROUTE_ADMISSION}.
+ * @author Zoltan Farkas
+ */
+public interface RouteAdmission {
+
+  /**
+   * @param route the matched route (http method + resource path template).
+   * @param nowNanos the current time.
+   * @param deadlineNanos the request deadline.
+   * @return true if the request should be served, false if it should be rejected (shed).
+   */
+  boolean admit(String route, long nowNanos, long deadlineNanos);
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.server.providers;
+
+import java.util.List;
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+import org.spf4j.jaxrs.EncodedContent;
+import org.spf4j.jaxrs.common.providers.encoding.ContentCodec;
+import org.spf4j.jaxrs.common.providers.encoding.ContentCodecs;
+
+/**
+ * Negotiates the response content coding based on the request Accept-Encoding header (q-values),
+ * for compressible media types. The actual encoding is done by the ContentCodecInterceptor.
+ * Responses of known (byte[], CharSequence) length smaller than the configured minimum are not encoded.
+ *
+ * @author Zoltan Farkas
+ */
+@Provider
+@Priority(Priorities.HEADER_DECORATOR)
+public final class ContentEncodingFilter implements ContainerResponseFilter {
+
+  private final ContentCodecs codecs;
+
+  public ContentEncodingFilter() {
+    this(ContentCodecs.getDefault());
+  }
+
+  public ContentEncodingFilter(final ContentCodecs codecs) {
+    this.codecs = codecs;
+  }
+
+  @Override
+  public void filter(final ContainerRequestContext requestContext, final ContainerResponseContext responseContext) {
+    if (!responseContext.hasEntity()) {
+      return;
+    }
+    MultivaluedMap<String, Object> headers = responseContext.getHeaders();
+    if (headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+      return;
+    }
+    Object entity = responseContext.getEntity();
+    if (entity instanceof EncodedContent) {
+      return;
+    }
+    MediaType mediaType = responseContext.getMediaType();
+    if (mediaType == null || !codecs.isCompressible(mediaType)) {
+      return;
+    }
+    addVary(headers);
+    if (isSmall(entity)) {
+      return;
+    }
+    ContentCodec codec = codecs.negotiate(requestContext.getHeaders().get(HttpHeaders.ACCEPT_ENCODING));
+    if (codec != null) {
+      headers.putSingle(HttpHeaders.CONTENT_ENCODING, codec.getName());
+    }
+  }
+
+  private boolean isSmall(final Object entity) {
+    if (entity instanceof byte[]) {
+      return ((byte[]) entity).length < codecs.getMinSize();
+    } else if (entity instanceof CharSequence) {
+      return ((CharSequence) entity).length() < codecs.getMinSize();
+    }
+    return false;
+  }
+
+  private static void addVary(final MultivaluedMap<String, Object> headers) {
+    List<Object> vary = headers.get(HttpHeaders.VARY);
+    if (vary != null) {
+      for (Object value : vary) {
+        if (value.toString().contains(HttpHeaders.ACCEPT_ENCODING)) {
+          return;
+        }
+      }
+    }
+    headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+  }
+
+  @Override
+  public String toString() {
+    return "ContentEncodingFilter{" + "codecs=" + codecs + '}';
+  }
+
+}
@@ -34,6 +34,11 @@ public final class DefaultServerProvidersFeatures implements Feature {
     fc.register(DataDeprecationsJaxRsFilter.class);
     fc.register(StdErrorResponseExceptionMapper.class);
     fc.register(ProjectionJaxRsFilter.class);
+    fc.register(RouteNameFilter.class);
+    fc.register(ServerTimingFilter.class);
+    fc.register(ResponseCacheFilter.class);
+    fc.register(ContentEncodingFilter.class);
+    fc.register(NonBlockingOutputInterceptor.class);
     fc.register(ServerCustomExecutorServiceProvider.class);
     fc.register(ServerCustomScheduledExecutionServiceProvider.class);
     fc.register(SecurityContextRequestFilter.class);
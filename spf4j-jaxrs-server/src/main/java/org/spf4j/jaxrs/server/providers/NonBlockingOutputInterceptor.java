@@ -0,0 +1,135 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.server.providers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import javax.annotation.Priority;
+import javax.servlet.ServletOutputStream;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import org.spf4j.base.ExecutionContext;
+import org.spf4j.base.ExecutionContexts;
+import org.spf4j.concurrent.DefaultExecutor;
+import org.spf4j.http.ContextTags;
+import org.spf4j.jaxrs.NonBlockingOutput;
+import org.spf4j.servlet.CountingHttpServletRequest;
+import org.spf4j.servlet.CountingHttpServletResponse;
+import org.spf4j.servlet.CountingServletOutputStream;
+import org.spf4j.servlet.NonBlockingWriter;
+
+/**
+ * Interceptor that runs right before the message body writers (after the content encoders),
+ * and exposes a {@link NonBlockingOutput} entity stream for Iterable entities. Message body writers that can
+ * produce their content in increments will hand it over, and the content will be written
+ * with servlet 3.1 non blocking I/O, releasing the request thread. (see {@link NonBlockingWriter})
+ * The content is handed over only if the response can be committed by flushing the entity stream,
+ * (interceptors that buffer the output prevent it) otherwise it is written in blocking mode.
+ *
+ * @author Zoltan Farkas
+ */
+@Priority(Priorities.USER + 1000)
+public final class NonBlockingOutputInterceptor implements WriterInterceptor {
+
+  @Override
+  public void aroundWriteTo(final WriterInterceptorContext context) throws IOException {
+    Object entity = context.getEntity();
+    if (entity instanceof Iterable) {
+      ExecutionContext ctx = ExecutionContexts.current();
+      if (ctx != null) {
+        CountingHttpServletRequest req = ctx.get(ContextTags.HTTP_REQ);
+        CountingHttpServletResponse resp = ctx.get(ContextTags.HTTP_RESP);
+        if (req != null && resp != null && req.isAsyncSupported()) {
+          context.setOutputStream(new NonBlockingEntityOutputStream(context.getOutputStream(), req, resp));
+        }
+      }
+    }
+    context.proceed();
+  }
+
+  /**
+   * Once the content is handed over, the flush/close invoked by the jax-rs runtime after the message body writer
+   * returns are ignored, the underlying stream is closed by the non blocking writer when all content is written.
+   */
+  private static final class NonBlockingEntityOutputStream extends OutputStream implements NonBlockingOutput {
+
+    private final OutputStream out;
+
+    private final CountingHttpServletRequest request;
+
+    private final CountingHttpServletResponse response;
+
+    private boolean handedOver;
+
+    NonBlockingEntityOutputStream(final OutputStream out, final CountingHttpServletRequest request,
+            final CountingHttpServletResponse response) {
+      this.out = out;
+      this.request = request;
+      this.response = response;
+      this.handedOver = false;
+    }
+
+    @Override
+    public boolean writeNonBlocking(final NonBlockingOutput.Content content) throws IOException {
+      if (handedOver || request.isAsyncStarted()) {
+        return false;
+      }
+      out.flush(); // commits the response status and headers.
+      if (!response.isCommitted()) {
+        return false; // the output is buffered by somebody, write it blocking.
+      }
+      ServletOutputStream sos = response.getOutputStream();
+      if (!(sos instanceof CountingServletOutputStream)) {
+        return false;
+      }
+      handedOver = true;
+      NonBlockingWriter.handOver(request, (CountingServletOutputStream) sos, out, content, DefaultExecutor.INSTANCE);
+      return true;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+      out.write(b);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      out.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      if (!handedOver) {
+        out.flush();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (!handedOver) {
+        out.close();
+      }
+    }
+
+    @Override
+    public String toString() {
+      return "NonBlockingEntityOutputStream{" + "out=" + out + ", handedOver=" + handedOver + '}';
+    }
+
+  }
+
+}
@@ -32,6 +32,7 @@ import javax.ws.rs.container.ContainerResponseFilter;
 import javax.ws.rs.container.ResourceInfo;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.ext.Provider;
 import org.apache.avro.Schema;
 import org.apache.avro.generic.IndexedRecord;
@@ -90,6 +91,9 @@ public final class ProjectionJaxRsFilter implements ContainerResponseFilter {
     if (responseContext.getStatus() >= 400) {
       return; // No projections on error responses.
     }
+    if (responseContext.getEntity() instanceof StreamingOutput) {
+      return; // already serialized (cached) responses.
+    }
     MultivaluedMap<String, String> qp = requestContext.getUriInfo().getQueryParameters();
     String select = qp.getFirst("_project");
     List<String> projection;
@@ -0,0 +1,409 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.server.providers;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.annotation.Nullable;
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.ServerErrorException;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import org.spf4j.base.ExecutionContext;
+import org.spf4j.base.ExecutionContexts;
+import org.spf4j.base.Reflections;
+import org.spf4j.base.TimeSource;
+import org.spf4j.jaxrs.Cached;
+
+/**
+ * Server side response cache for {@link Cached} GET endpoints.
+ * <ul>
+ * <li>The serialized (not content encoded) response is cached, with a strong ETag.</li>
+ * <li>Concurrent misses for the same key are coalesced, one request (the leader) computes the response,
+ * the others wait for it, but not past their own execution context deadline.</li>
+ * <li>Responses are served with ETag, Vary (the {@link Cached#varyOn()} headers), Cache-Control
+ * (max-age = remaining ttl) and Age headers,
+ * If-None-Match requests are answered with 304.</li>
+ * </ul>
+ * Only 200 responses not larger than spf4j.jaxrs.responseCache.maxEntryBytes are cached, the cache is bounded
+ * by the total body size (spf4j.jaxrs.responseCache.maxBytes). Streamed (non Collection Iterable) entities
+ * are not cached.
+ * @author Zoltan Farkas
+ */
+@Cached(ttl = 0)
+@Provider
+@Priority(Priorities.USER)
+public final class ResponseCacheFilter implements ContainerRequestFilter, ContainerResponseFilter,
+        WriterInterceptor {
+
+  private static final String LEADER_PROP = ResponseCacheFilter.class.getName() + ".leader";
+
+  private static final int MAX_ENTRY_BYTES = Integer.getInteger("spf4j.jaxrs.responseCache.maxEntryBytes",
+          1024 * 1024);
+
+  private static final long DEFAULT_WAIT_MILLIS = 10000;
+
+  private final Cache<String, CompletableFuture<CachedResponse>> cache;
+
+  private final ConcurrentMap<Method, Cached> configs;
+
+  private final javax.inject.Provider<ResourceInfo> resourceInfoProvider;
+
+  @Inject
+  public ResponseCacheFilter(@Context final javax.inject.Provider<ResourceInfo> resourceInfo) {
+    this.resourceInfoProvider = resourceInfo;
+    this.cache = CacheBuilder.newBuilder()
+            .maximumWeight(Long.getLong("spf4j.jaxrs.responseCache.maxBytes", 64L * 1024 * 1024))
+            .<String, CompletableFuture<CachedResponse>>weigher(ResponseCacheFilter::weigh)
+            // bounds the life of entries abandoned by leaders that never completed them.
+            .expireAfterWrite(Long.getLong("spf4j.jaxrs.responseCache.maxTtlMillis", 3600000L),
+                    TimeUnit.MILLISECONDS)
+            .build();
+    this.configs = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Entries are weighed by their body size, in progress entries are re-weighed once completed.
+   */
+  private static int weigh(final String key, final CompletableFuture<CachedResponse> entry) {
+    CachedResponse resp = entry.getNow(null);
+    return resp == null ? key.length() : key.length() + resp.content.length;
+  }
+
+  private Cached getConfig(final ResourceInfo resourceInfo) {
+    Method method = resourceInfo.getResourceMethod();
+    return configs.computeIfAbsent(method, (m) -> {
+      Cached annotation = Reflections.getInheritedAnnotation(Cached.class, m);
+      if (annotation == null) {
+        annotation = Reflections.getInheritedAnnotation(Cached.class, m.getDeclaringClass());
+      }
+      return annotation;
+    });
+  }
+
+  private static String key(final ContainerRequestContext rctx, final Cached cfg) {
+    URI uri = rctx.getUriInfo().getRequestUri();
+    StringBuilder result = new StringBuilder(128);
+    result.append(uri.getRawPath());
+    String query = uri.getRawQuery();
+    if (query != null) {
+      result.append('?').append(query);
+    }
+    for (String header : cfg.varyOn()) {
+      result.append('|');
+      String value = rctx.getHeaderString(header);
+      if (value != null) {
+        result.append(value);
+      }
+    }
+    return result.toString();
+  }
+
+  @Override
+  public void filter(final ContainerRequestContext rctx) throws IOException {
+    if (!HttpMethod.GET.equals(rctx.getMethod())) {
+      return;
+    }
+    Cached cfg = getConfig(resourceInfoProvider.get());
+    if (cfg == null || cfg.ttl() <= 0) {
+      return;
+    }
+    String key = key(rctx, cfg);
+    ConcurrentMap<String, CompletableFuture<CachedResponse>> map = cache.asMap();
+    while (true) {
+      CompletableFuture<CachedResponse> entry = map.get(key);
+      if (entry == null) {
+        CompletableFuture<CachedResponse> newEntry = new CompletableFuture<>();
+        entry = map.putIfAbsent(key, newEntry);
+        if (entry == null) {
+          rctx.setProperty(LEADER_PROP, new Leader(key, newEntry, cfg.unit().toNanos(cfg.ttl()),
+                  String.join(", ", cfg.varyOn())));
+          return;
+        }
+      }
+      CachedResponse resp = await(key, entry);
+      if (resp == null) {
+        return; // leader could not cache the response, compute it.
+      }
+      long nowNanos = TimeSource.nanoTime();
+      if (resp.isExpired(nowNanos)) {
+        map.remove(key, entry);
+        continue;
+      }
+      rctx.abortWith(resp.toResponse(rctx.getHeaderString(HttpHeaders.IF_NONE_MATCH), nowNanos));
+      return;
+    }
+  }
+
+  @Nullable
+  private CachedResponse await(final String key, final CompletableFuture<CachedResponse> entry) {
+    if (entry.isDone()) {
+      return entry.getNow(null);
+    }
+    ExecutionContext ctx = ExecutionContexts.current();
+    long waitMillis = ctx == null ? DEFAULT_WAIT_MILLIS : ctx.getMillisToDeadline();
+    try {
+      return entry.get(waitMillis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new ServerErrorException("Interrupted while waiting for " + key, 503, ex);
+    } catch (ExecutionException ex) {
+      return null;
+    } catch (TimeoutException ex) {
+      // only the leader removes its entry, this request just gives up.
+      throw new ServerErrorException("Timed out waiting for " + key, 504, ex);
+    }
+  }
+
+  @Override
+  public void filter(final ContainerRequestContext rctx, final ContainerResponseContext respCtx) {
+    Leader leader = (Leader) rctx.getProperty(LEADER_PROP);
+    if (leader == null) {
+      return;
+    }
+    if (respCtx.getStatus() != 200 || !respCtx.hasEntity()) {
+      rctx.removeProperty(LEADER_PROP);
+      leader.fail();
+      return;
+    }
+    MultivaluedMap<String, Object> headers = respCtx.getHeaders();
+    headers.putSingle(HttpHeaders.CACHE_CONTROL, "max-age=" + TimeUnit.NANOSECONDS.toSeconds(leader.ttlNanos));
+    if (!leader.vary.isEmpty()) {
+      headers.putSingle(HttpHeaders.VARY, leader.vary);
+    }
+  }
+
+  @Override
+  public void aroundWriteTo(final WriterInterceptorContext context) throws IOException {
+    Leader leader = (Leader) context.getProperty(LEADER_PROP);
+    if (leader == null) {
+      context.proceed();
+      return;
+    }
+    context.removeProperty(LEADER_PROP);
+    Object entity = context.getEntity();
+    if (entity instanceof Iterable && !(entity instanceof Collection)) {
+      // streamed content, can be written with non blocking I/O after this method returns.
+      leader.fail();
+      context.getHeaders().remove(HttpHeaders.CACHE_CONTROL);
+      context.proceed();
+      return;
+    }
+    OutputStream out = context.getOutputStream();
+    CaptureOutputStream capture = new CaptureOutputStream(out);
+    boolean cached = false;
+    try {
+      context.setOutputStream(capture);
+      context.proceed();
+      context.setOutputStream(out);
+      byte[] content = capture.getCaptured();
+      if (content != null) {
+        MultivaluedMap<String, Object> headers = context.getHeaders();
+        Object contentType = headers.getFirst(HttpHeaders.CONTENT_TYPE);
+        CachedResponse resp = new CachedResponse(content,
+                contentType == null ? context.getMediaType().toString() : contentType.toString(),
+                TimeSource.nanoTime() + leader.ttlNanos, leader.vary);
+        headers.putSingle(HttpHeaders.ETAG, resp.etag);
+        out.write(content);
+        leader.entry.complete(resp);
+        cache.asMap().replace(leader.key, leader.entry, leader.entry); // re-weigh.
+        cached = true;
+      }
+    } finally {
+      if (!cached) {
+        leader.fail();
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "ResponseCacheFilter{" + "size=" + cache.size() + '}';
+  }
+
+  private final class Leader {
+
+    private final String key;
+
+    private final CompletableFuture<CachedResponse> entry;
+
+    private final long ttlNanos;
+
+    /** the Vary header value, empty if none. */
+    private final String vary;
+
+    Leader(final String key, final CompletableFuture<CachedResponse> entry, final long ttlNanos,
+            final String vary) {
+      this.key = key;
+      this.entry = entry;
+      this.ttlNanos = ttlNanos;
+      this.vary = vary;
+    }
+
+    void fail() {
+      cache.asMap().remove(key, entry);
+      entry.complete(null);
+    }
+
+  }
+
+  private static final class CachedResponse implements StreamingOutput {
+
+    private final byte[] content;
+
+    private final String contentType;
+
+    private final EntityTag etag;
+
+    private final long createdNanos;
+
+    private final long expiresNanos;
+
+    private final String vary;
+
+    CachedResponse(final byte[] content, final String contentType, final long expiresNanos, final String vary) {
+      this.content = content;
+      this.contentType = contentType;
+      this.vary = vary;
+      this.etag = new EntityTag(Hashing.murmur3_128().hashBytes(content).toString());
+      this.createdNanos = TimeSource.nanoTime();
+      this.expiresNanos = expiresNanos;
+    }
+
+    boolean isExpired(final long nowNanos) {
+      return nowNanos - expiresNanos >= 0;
+    }
+
+    Response toResponse(@Nullable final String ifNoneMatch, final long nowNanos) {
+      Response.ResponseBuilder rb;
+      if (ifNoneMatch != null && (ifNoneMatch.contains(etag.getValue()) || "*".equals(ifNoneMatch.trim()))) {
+        rb = Response.notModified(etag);
+      } else {
+        rb = Response.ok(this).tag(etag).header(HttpHeaders.CONTENT_TYPE, contentType);
+      }
+      if (!vary.isEmpty()) {
+        rb.header(HttpHeaders.VARY, vary);
+      }
+      return rb.header(HttpHeaders.CACHE_CONTROL,
+              "max-age=" + TimeUnit.NANOSECONDS.toSeconds(expiresNanos - nowNanos))
+              .header("Age", TimeUnit.NANOSECONDS.toSeconds(nowNanos - createdNanos))
+              .build();
+    }
+
+    @Override
+    public void write(final OutputStream output) throws IOException {
+      output.write(content);
+    }
+
+    @Override
+    public String toString() {
+      return "CachedResponse{" + "length=" + content.length + ", contentType=" + contentType
+              + ", etag=" + etag + '}';
+    }
+
+  }
+
+  /**
+   * Captures the output in memory up to MAX_ENTRY_BYTES, if larger, everything is written through and
+   * the response is not cached.
+   */
+  private static final class CaptureOutputStream extends OutputStream {
+
+    private final OutputStream out;
+
+    @Nullable
+    private ByteArrayOutputStream buffer;
+
+    CaptureOutputStream(final OutputStream out) {
+      this.out = out;
+      this.buffer = new ByteArrayOutputStream(1024);
+    }
+
+    @Nullable
+    byte[] getCaptured() {
+      return buffer == null ? null : buffer.toByteArray();
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+      if (buffer != null) {
+        buffer.write(b);
+        checkSize();
+      } else {
+        out.write(b);
+      }
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      if (buffer != null) {
+        buffer.write(b, off, len);
+        checkSize();
+      } else {
+        out.write(b, off, len);
+      }
+    }
+
+    private void checkSize() throws IOException {
+      if (buffer.size() > MAX_ENTRY_BYTES) {
+        buffer.writeTo(out);
+        buffer = null;
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      if (buffer == null) {
+        out.flush();
+      }
+    }
+
+    @Override
+    public void close() {
+      // the jax-rs runtime closes the entity stream.
+    }
+
+  }
+
+}
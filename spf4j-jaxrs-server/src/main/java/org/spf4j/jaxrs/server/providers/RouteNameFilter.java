@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.server.providers;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.ext.Provider;
+import org.glassfish.jersey.server.ExtendedUriInfo;
+import org.glassfish.jersey.server.model.ResourceMethod;
+import org.glassfish.jersey.uri.UriTemplate;
+import org.spf4j.base.ExecutionContext;
+import org.spf4j.base.ExecutionContexts;
+import org.spf4j.base.TimeSource;
+import org.spf4j.http.ContextTags;
+import org.spf4j.http.RouteAdmission;
+
+/**
+ * Post matching filter that attaches the matched route (http method + resource path template) to the execution
+ * context (ContextTags.ROUTE). Route names are computed once per resource method.
+ * Once the route is known, the request is run through the route admission (ContextTags.ROUTE_ADMISSION), if any,
+ * requests that would most likely not be served in time are rejected with 503.
+ * @author Zoltan Farkas
+ */
+@Provider
+@Priority(Priorities.AUTHENTICATION - 100)
+public final class RouteNameFilter implements ContainerRequestFilter {
+
+  private static final int MAX_CACHED_ROUTES = Integer.getInteger("spf4j.jaxrs.maxCachedRoutes", 10000);
+
+  private final ConcurrentMap<ResourceMethod, String> routes = new ConcurrentHashMap<>();
+
+  @Override
+  public void filter(final ContainerRequestContext rctx) {
+    ExecutionContext ctx = ExecutionContexts.current();
+    if (ctx == null) {
+      return;
+    }
+    UriInfo uriInfo = rctx.getUriInfo();
+    if (!(uriInfo instanceof ExtendedUriInfo)) {
+      return;
+    }
+    ExtendedUriInfo euriInfo = (ExtendedUriInfo) uriInfo;
+    ResourceMethod method = euriInfo.getMatchedResourceMethod();
+    if (method == null) {
+      return;
+    }
+    String route = routes.get(method);
+    if (route == null) {
+      route = toRoute(rctx.getMethod(), euriInfo.getMatchedTemplates());
+      if (routes.size() < MAX_CACHED_ROUTES) {
+        String existing = routes.putIfAbsent(method, route);
+        if (existing != null) {
+          route = existing;
+        }
+      }
+    }
+    ctx.put(ContextTags.ROUTE, route);
+    RouteAdmission admission = ctx.get(ContextTags.ROUTE_ADMISSION);
+    if (admission != null && !admission.admit(route, TimeSource.nanoTime(), ctx.getDeadlineNanos())) {
+      throw new ServiceUnavailableException("Overloaded, request cannot be served in time", 1L);
+    }
+  }
+
+  /**
+   * @param templates the matched templates, the last matched first.
+   */
+  static String toRoute(final String httpMethod, final List<UriTemplate> templates) {
+    StringBuilder result = new StringBuilder(64);
+    result.append(httpMethod).append(' ');
+    int mark = result.length();
+    for (int i = templates.size() - 1; i >= 0; i--) {
+      String template = templates.get(i).getTemplate();
+      if (template.isEmpty() || "/".equals(template)) {
+        continue;
+      }
+      if (template.charAt(0) != '/') {
+        result.append('/');
+      }
+      result.append(template);
+      int l = result.length() - 1;
+      if (result.charAt(l) == '/') {
+        result.setLength(l);
+      }
+    }
+    if (result.length() == mark) {
+      result.append('/');
+    }
+    return result.toString().intern();
+  }
+
+}
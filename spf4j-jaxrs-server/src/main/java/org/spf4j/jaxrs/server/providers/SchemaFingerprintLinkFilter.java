@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.server.providers;
+
+import java.util.List;
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Link;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.ext.Provider;
+import org.spf4j.jaxrs.client.providers.SchemaFingerprintClientFilter;
+import org.spf4j.jaxrs.common.providers.avro.FingerprintSchemaProtocol;
+import org.spf4j.jaxrs.server.resources.SchemaFingerprintResource;
+
+/**
+ * Links the responses to clients that accept schema fingerprints, to the schema fingerprint resource
+ * ({@link SchemaFingerprintResource}) where the fingerprints can be resolved.
+ * The link is relative to the request uri, so that clients resolve it correctly
+ * when the service is behind a path prefix. (context path, ingress path routing)
+ *
+ * @author Zoltan Farkas
+ */
+@Provider
+@Priority(Priorities.HEADER_DECORATOR)
+public final class SchemaFingerprintLinkFilter implements ContainerResponseFilter {
+
+  @Override
+  public void filter(final ContainerRequestContext requestContext, final ContainerResponseContext responseContext) {
+    if (!responseContext.hasEntity() || !acceptsFingerprints(requestContext.getAcceptableMediaTypes())) {
+      return;
+    }
+    String path = requestContext.getUriInfo().getPath(false);
+    StringBuilder link = new StringBuilder(SchemaFingerprintResource.PATH.length() + 16);
+    for (int i = path.startsWith("/") ? 1 : 0, l = path.length(); i < l; i++) {
+      if (path.charAt(i) == '/') {
+        link.append("../");
+      }
+    }
+    link.append(SchemaFingerprintResource.PATH).append('/');
+    responseContext.getHeaders().add(HttpHeaders.LINK,
+            Link.fromUri(link.toString()).rel(SchemaFingerprintClientFilter.SCHEMA_FINGERPRINTS_REL).build());
+  }
+
+  private static boolean acceptsFingerprints(final List<MediaType> acceptable) {
+    for (MediaType mt : acceptable) {
+      if (mt.getParameters().containsKey(FingerprintSchemaProtocol.CONTENT_TYPE_AVRO_SCHEMA_FP_PARAM)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+}
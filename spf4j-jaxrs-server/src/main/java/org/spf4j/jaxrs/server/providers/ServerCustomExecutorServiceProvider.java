@@ -1,6 +1,7 @@
 package org.spf4j.jaxrs.server.providers;
 
 import org.spf4j.jaxrs.common.executors.CustomExecutorServiceProvider;
+import org.spf4j.jaxrs.common.executors.ExecutorStrategy;
 import javax.inject.Inject;
 import javax.ws.rs.core.Configuration;
 import javax.ws.rs.ext.Provider;
@@ -20,7 +21,9 @@ public final class ServerCustomExecutorServiceProvider extends CustomExecutorSer
             Utils.getIntConfigValue(cfg, "jersey.server.exec.maxSize", 256),
             Utils.getIntConfigValue(cfg, "jersey.server.exec.maxIdleMIllis", 120000),
             Utils.getIntConfigValue(cfg, "jersey.server.exec.cleanShutdownWaitMillis", 300000),
-            Utils.getStringConfigValue(cfg, "jersey.server.exec.name", "svr-masync"));
+            Utils.getStringConfigValue(cfg, "jersey.server.exec.name", "svr-masync"),
+            ExecutorStrategy.valueOf(Utils.getStringConfigValue(cfg, "jersey.server.exec.strategy", "LIFO")),
+            Utils.getIntConfigValue(cfg, "jersey.server.exec.queueSize", 1024));
   }
 
 }
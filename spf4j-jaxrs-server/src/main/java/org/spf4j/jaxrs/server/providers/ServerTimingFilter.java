@@ -0,0 +1,130 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.server.providers;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.ReaderInterceptor;
+import javax.ws.rs.ext.ReaderInterceptorContext;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import org.spf4j.base.ExecutionContext;
+import org.spf4j.base.ExecutionContexts;
+import org.spf4j.base.TimeSource;
+import org.spf4j.http.ContextTags;
+import org.spf4j.http.Headers;
+import org.spf4j.http.ServerTiming;
+import org.spf4j.http.ServerTiming.ServerTimingMetric;
+import org.spf4j.jaxrs.JaxRsSecurityContext;
+
+/**
+ * Measures the request processing phases, and attaches them to the execution context (ContextTags.SERVER_TIMINGS):
+ * <ul>
+ * <li>deser - request entity deserialization.</li>
+ * <li>exec - resource execution. (from the last request filter to the first response filter, without deser)</li>
+ * <li>ser - response entity serialization. (only in the request log, the headers are committed by then)</li>
+ * </ul>
+ * The auth timing is attached by the ExecutionContextFilter, the downstream call timings by the
+ * ExecutionContextClientFilter. All the context timings are written in the Server-Timing response header,
+ * for operators or for everybody if spf4j.jaxrs.serverTiming.public=true, this is how timings roll up across hops,
+ * and in the request log.
+ *
+ * @author Zoltan Farkas
+ */
+@Provider
+@Priority(Priorities.USER + 2000)
+public final class ServerTimingFilter implements ContainerRequestFilter, ContainerResponseFilter,
+        ReaderInterceptor, WriterInterceptor {
+
+  private static final String START_PROP = "spf4j.serverTiming.start";
+
+  private static final boolean PUBLIC = Boolean.getBoolean("spf4j.jaxrs.serverTiming.public");
+
+  @Override
+  public void filter(final ContainerRequestContext requestContext) {
+    requestContext.setProperty(START_PROP, TimeSource.nanoTime());
+  }
+
+  @Override
+  public Object aroundReadFrom(final ReaderInterceptorContext context) throws IOException {
+    long startNanos = TimeSource.nanoTime();
+    try {
+      return context.proceed();
+    } finally {
+      addTiming("deser", TimeSource.nanoTime() - startNanos);
+    }
+  }
+
+  @Override
+  public void filter(final ContainerRequestContext requestContext, final ContainerResponseContext responseContext) {
+    ExecutionContext ctx = ExecutionContexts.current();
+    if (ctx == null) {
+      return;
+    }
+    Long startNanos = (Long) requestContext.getProperty(START_PROP);
+    if (startNanos != null) {
+      long execMicros = TimeUnit.NANOSECONDS.toMicros(TimeSource.nanoTime() - startNanos);
+      List<ServerTimingMetric> timings = ctx.get(ContextTags.SERVER_TIMINGS);
+      if (timings != null) {
+        for (ServerTimingMetric metric : timings) {
+          Double duration = metric.getDuration();
+          if (duration != null && "deser".equals(metric.getName())) {
+            execMicros -= (long) (duration * 1000);
+          }
+        }
+      }
+      ctx.accumulateComponent(ContextTags.SERVER_TIMINGS, ServerTimingMetric.ofMicros("exec", execMicros));
+    }
+    if (PUBLIC || requestContext.getSecurityContext().isUserInRole(JaxRsSecurityContext.OPERATOR_ROLE)) {
+      List<ServerTimingMetric> timings = ctx.get(ContextTags.SERVER_TIMINGS);
+      if (timings != null && !timings.isEmpty()) {
+        responseContext.getHeaders().add(Headers.SERVER_TIMING, new ServerTiming(timings).toString());
+      }
+    }
+  }
+
+  @Override
+  public void aroundWriteTo(final WriterInterceptorContext context) throws IOException {
+    long startNanos = TimeSource.nanoTime();
+    try {
+      context.proceed();
+    } finally {
+      addTiming("ser", TimeSource.nanoTime() - startNanos);
+    }
+  }
+
+  private static void addTiming(final String name, final long nanos) {
+    ExecutionContext ctx = ExecutionContexts.current();
+    if (ctx != null) {
+      ctx.accumulateComponent(ContextTags.SERVER_TIMINGS,
+              ServerTimingMetric.ofMicros(name, TimeUnit.NANOSECONDS.toMicros(nanos)));
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "ServerTimingFilter{" + "public=" + PUBLIC + '}';
+  }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.server.resources;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import javax.inject.Singleton;
+import javax.ws.rs.GET;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Response;
+import org.apache.avro.Schema;
+import org.spf4j.jaxrs.common.providers.avro.SchemaFingerprints;
+
+/**
+ * Serves the schemas known by fingerprint, so that peers can resolve the fingerprints
+ * sent with the {@link org.spf4j.jaxrs.common.providers.avro.FingerprintSchemaProtocol}.
+ * A fingerprint always resolves to the same schema, so responses are cacheable forever.
+ *
+ * @author Zoltan Farkas
+ */
+@Path(SchemaFingerprintResource.PATH)
+@Singleton
+@SuppressWarnings("checkstyle:DesignForExtension")// methods cannot be final due to interceptors
+@SuppressFBWarnings("JAXRS_ENDPOINT")
+public class SchemaFingerprintResource {
+
+  /** the resource path, relative to the application base uri. */
+  public static final String PATH = "avro/schemas/fingerprints";
+
+  private static final int ONE_YEAR_SECONDS = 365 * 24 * 3600;
+
+  private final SchemaFingerprints fingerprints;
+
+  public SchemaFingerprintResource() {
+    this(SchemaFingerprints.getDefault());
+  }
+
+  public SchemaFingerprintResource(final SchemaFingerprints fingerprints) {
+    this.fingerprints = fingerprints;
+  }
+
+  @GET
+  @Path("{fingerprint}")
+  @Produces({"application/avsc+json", "application/json"})
+  public Response getSchema(@PathParam("fingerprint") final String fingerprint) {
+    long fp;
+    try {
+      fp = SchemaFingerprints.parse(fingerprint);
+    } catch (NumberFormatException ex) {
+      throw new NotFoundException("Invalid schema fingerprint " + fingerprint, ex);
+    }
+    Schema schema = fingerprints.get(fp);
+    if (schema == null) {
+      throw new NotFoundException("Unknown schema fingerprint " + fingerprint);
+    }
+    CacheControl cc = new CacheControl();
+    cc.setMaxAge(ONE_YEAR_SECONDS);
+    return Response.ok(schema).cacheControl(cc).tag(new EntityTag(SchemaFingerprints.toString(fp))).build();
+  }
+
+  @Override
+  public String toString() {
+    return "SchemaFingerprintResource{" + "fingerprints=" + fingerprints + '}';
+  }
+
+}
@@ -0,0 +1,216 @@
+package org.spf4j.servlet;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.servlet.FilterConfig;
+import javax.servlet.http.HttpServletRequest;
+import org.spf4j.http.ContextTags;
+import org.spf4j.http.RouteAdmission;
+import org.spf4j.jaxrs.client.BoundedEndpointMap;
+import org.spf4j.jaxrs.client.LatencySketch;
+import org.spf4j.perf.MeasurementRecorder;
+import org.spf4j.perf.impl.RecorderFactory;
+
+/**
+ * Server admission control.
+ * <ul>
+ * <li>Deadline based load shedding: a request whose remaining time is smaller than the (configurable percentile)
+ * latency of its endpoint is rejected right away, it would most likely time out anyway after using up capacity.</li>
+ * <li>Adaptive concurrency limit (AIMD) for the normal priority traffic. The limit is decreased multiplicatively
+ * when requests are slow (exec time over the error threshold of their allowed time), and increased additively
+ * while requests are fast and the limit is used.</li>
+ * </ul>
+ * High priority requests (health checks, actuator endpoints, configured by path prefix, matched by whole path
+ * segments) are always admitted.
+ * Endpoint latencies are tracked in decaying latency sketches per route (http method + resource path template,
+ * see {@link ContextTags#ROUTE}), up to a maximum number of routes, beyond that only per method.
+ * Since the route is known only after the request is matched, the deadline based shedding is done by the
+ * RouteNameFilter, via the permit published in the execution context. (see {@link ContextTags#ROUTE_ADMISSION})
+ * Deadline based shedding is disabled by default (spf4j.jaxrs.admission.shedEnabled).
+ * @author Zoltan Farkas
+ */
+@ParametersAreNonnullByDefault
+final class AdmissionControl {
+
+  static final MeasurementRecorder SHED_REQUESTS =
+          RecorderFactory.createScalableSimpleCountingRecorder("http.shedRequests", "count", 60000);
+
+  static final String CFG_SHED_ENABLED = "spf4j.jaxrs.admission.shedEnabled";
+
+  static final String CFG_SHED_PERCENTILE = "spf4j.jaxrs.admission.shedPercentile";
+
+  static final String CFG_SHED_MIN_SAMPLES = "spf4j.jaxrs.admission.shedMinSamples";
+
+  static final String CFG_MAX_ENDPOINTS = "spf4j.jaxrs.admission.maxEndpoints";
+
+  /** initial concurrency limit, 0 disables the concurrency limit */
+  static final String CFG_CONCURRENCY_LIMIT = "spf4j.jaxrs.admission.concurrencyLimit";
+
+  static final String CFG_MIN_CONCURRENCY_LIMIT = "spf4j.jaxrs.admission.minConcurrencyLimit";
+
+  static final String CFG_MAX_CONCURRENCY_LIMIT = "spf4j.jaxrs.admission.maxConcurrencyLimit";
+
+  /** comma separated list of path prefixes for high priority requests, matched by whole path segments */
+  static final String CFG_HIGH_PRIORITY_PATHS = "spf4j.jaxrs.admission.highPriorityPaths";
+
+  private final boolean shedEnabled;
+
+  private final double shedPercentile;
+
+  private final int shedMinSamples;
+
+  private final String[] highPriorityPaths;
+
+  private final BoundedEndpointMap<LatencySketch> latencies;
+
+  private final int minLimit;
+
+  private final int maxLimit;
+
+  private final AtomicInteger inFlight;
+
+  private final boolean limitEnabled;
+
+  /** the current concurrency limit */
+  private volatile double limit;
+
+  AdmissionControl(final FilterConfig cfg) {
+    this.shedEnabled = Boolean.parseBoolean(Filters.getStringParameter(cfg, CFG_SHED_ENABLED, "false"));
+    this.shedPercentile = Double.parseDouble(Filters.getStringParameter(cfg, CFG_SHED_PERCENTILE, "0.5"));
+    this.shedMinSamples = Filters.getIntParameter(cfg, CFG_SHED_MIN_SAMPLES, 64);
+    this.limit = Filters.getIntParameter(cfg, CFG_CONCURRENCY_LIMIT, 0);
+    this.limitEnabled = limit > 0;
+    this.minLimit = Filters.getIntParameter(cfg, CFG_MIN_CONCURRENCY_LIMIT, 8);
+    this.maxLimit = Filters.getIntParameter(cfg, CFG_MAX_CONCURRENCY_LIMIT, 4096);
+    this.highPriorityPaths = Filters.getStringParameter(cfg, CFG_HIGH_PRIORITY_PATHS,
+            "/health,/info,/metrics,/jmx,/logs,/logFiles,/logback,/profiles").split(",");
+    this.latencies = new BoundedEndpointMap<>(Filters.getIntParameter(cfg, CFG_MAX_ENDPOINTS, 1000),
+            BoundedEndpointMap.truncateAt(' ', 1), k -> new LatencySketch());
+    this.inFlight = new AtomicInteger();
+  }
+
+  /**
+   * @param request the http request.
+   * @return a permit that needs to be released at request end, or null if the request should be rejected.
+   */
+  @Nullable
+  Permit tryAcquire(final HttpServletRequest request) {
+    if (isHighPriority(request)) {
+      return new Permit(this, true, false);
+    }
+    if (limitEnabled) {
+      int nrInFlight = inFlight.incrementAndGet();
+      if (nrInFlight > limit) {
+        inFlight.decrementAndGet();
+        return null;
+      }
+      return new Permit(this, false, true);
+    }
+    return new Permit(this, false, false);
+  }
+
+  /**
+   * @param permit the permit acquired at request start.
+   * @param execTimeMicros the request execution time.
+   * @param slow if the request was slow (exec time over the error threshold).
+   */
+  void release(final Permit permit, final long execTimeMicros, final boolean slow) {
+    LatencySketch histogram = permit.histogram;
+    if (histogram != null) {
+      histogram.record(execTimeMicros);
+    }
+    if (permit.limited) {
+      int nrInFlight = inFlight.getAndDecrement();
+      adjustLimit(nrInFlight, slow);
+    }
+  }
+
+  private synchronized void adjustLimit(final int nrInFlight, final boolean slow) {
+    if (slow) {
+      limit = Math.max(minLimit, limit * 0.9);
+    } else if (nrInFlight * 2 >= limit) {
+      limit = Math.min(maxLimit, limit + 1 / limit);
+    }
+  }
+
+  private boolean isHighPriority(final HttpServletRequest request) {
+    return isHighPriority(request.getRequestURI(), request.getContextPath().length());
+  }
+
+  boolean isHighPriority(final String uri, final int from) {
+    for (String prefix : highPriorityPaths) {
+      if (uri.startsWith(prefix, from)) {
+        int end = from + prefix.length();
+        if (end == uri.length() || uri.charAt(end) == '/' || prefix.endsWith("/")) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the latency histogram of the route, or null if the request should be shed.
+   */
+  @Nullable
+  LatencySketch admit(final String route, final long nowNanos, final long deadlineNanos) {
+    LatencySketch histogram = latencies.get(route);
+    // we shed conservatively, using the lower bound of the percentile.
+    if (shedEnabled && histogram.getCount() >= shedMinSamples && TimeUnit.NANOSECONDS.toMicros(deadlineNanos - nowNanos)
+            < histogram.getPercentileLowerBound(shedPercentile)) {
+      SHED_REQUESTS.increment();
+      return null;
+    }
+    return histogram;
+  }
+
+  @Override
+  public String toString() {
+    return "AdmissionControl{" + "shedEnabled=" + shedEnabled + ", shedPercentile=" + shedPercentile
+            + ", latencies=" + latencies + ", inFlight=" + inFlight + ", limit=" + limit + '}';
+  }
+
+  /**
+   * The admission permit of a request, the latencies are recorded by route, once the request is admitted
+   * for the route.
+   */
+  static final class Permit implements RouteAdmission {
+
+    private final AdmissionControl control;
+
+    private final boolean highPriority;
+
+    private final boolean limited;
+
+    @Nullable
+    private volatile LatencySketch histogram;
+
+    Permit(final AdmissionControl control, final boolean highPriority, final boolean limited) {
+      this.control = control;
+      this.highPriority = highPriority;
+      this.limited = limited;
+    }
+
+    @Override
+    public boolean admit(final String route, final long nowNanos, final long deadlineNanos) {
+      if (highPriority) {
+        return true;
+      }
+      LatencySketch h = control.admit(route, nowNanos, deadlineNanos);
+      if (h == null) {
+        return false;
+      }
+      this.histogram = h;
+      return true;
+    }
+
+    @Override
+    public String toString() {
+      return "Permit{" + "highPriority=" + highPriority + ", limited=" + limited + '}';
+    }
+
+  }
+
+}
@@ -4,6 +4,7 @@ package org.spf4j.servlet;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.io.IOException;
 import java.security.Principal;
+import javax.annotation.Nullable;
 import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
@@ -16,10 +17,14 @@ import org.spf4j.base.Wrapper;
 public final class CountingHttpServletRequest extends HttpServletRequestWrapper
         implements Wrapper<HttpServletRequest> {
 
-  private CountingServletInputStream is;
+  private volatile CountingServletInputStream is;
 
   private final SecurityContext secCtx;
 
+  /** the non blocking writer the response content was handed over to, to be started after the dispatch. */
+  @Nullable
+  private NonBlockingWriter nonBlockingWriter;
+
   public CountingHttpServletRequest(final HttpServletRequest request, final SecurityContext secCtx) {
     super(request);
     this.secCtx = secCtx;
@@ -34,8 +39,23 @@ public final class CountingHttpServletRequest extends HttpServletRequestWrapper
     return is;
   }
 
-  public synchronized long getBytesRead() {
-    return is == null ? 0 : is.getCount();
+  synchronized void setNonBlockingWriter(final NonBlockingWriter writer) {
+    if (this.nonBlockingWriter != null) {
+      throw new IllegalStateException("Content already handed over to " + this.nonBlockingWriter);
+    }
+    this.nonBlockingWriter = writer;
+  }
+
+  @Nullable
+  synchronized NonBlockingWriter takeNonBlockingWriter() {
+    NonBlockingWriter result = this.nonBlockingWriter;
+    this.nonBlockingWriter = null;
+    return result;
+  }
+
+  public long getBytesRead() {
+    CountingServletInputStream s = is;
+    return s == null ? 0 : s.getCount();
   }
 
   @Override
@@ -15,7 +15,7 @@ import org.spf4j.base.Wrapper;
 public final class CountingHttpServletResponse extends HttpServletResponseWrapper
   implements Wrapper<HttpServletResponse> {
 
-  private CountingServletOutputStream os;
+  private volatile CountingServletOutputStream os;
 
   public CountingHttpServletResponse(final HttpServletResponse response) {
     super(response);
@@ -30,8 +30,9 @@ public final class CountingHttpServletResponse extends HttpServletResponseWrappe
     return os;
   }
 
-  public synchronized long getBytesWritten() {
-    return os == null ? 0 : os.getCount();
+  public long getBytesWritten() {
+    CountingServletOutputStream s = os;
+    return s == null ? 0 : s.getCount();
   }
 
   @Override
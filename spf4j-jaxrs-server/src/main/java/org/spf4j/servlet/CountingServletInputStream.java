@@ -2,21 +2,28 @@ package org.spf4j.servlet;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import javax.annotation.ParametersAreNonnullByDefault;
 import javax.servlet.ReadListener;
 import javax.servlet.ServletInputStream;
 import org.spf4j.base.Wrapper;
 
 /**
+ * Byte counting servlet input stream.
+ * Same as with {@link CountingServletOutputStream}, the stream is read by one thread at a time, counting
+ * is done without synchronization, and the count is published with an ordered store.
  * @author Zoltan Farkas
  */
 @ParametersAreNonnullByDefault
 public final class CountingServletInputStream extends ServletInputStream
   implements Wrapper<ServletInputStream> {
 
+  private static final AtomicLongFieldUpdater<CountingServletInputStream> COUNT_UPDATER
+          = AtomicLongFieldUpdater.newUpdater(CountingServletInputStream.class, "count");
+
   private final ServletInputStream in;
 
-  private long count;
+  private volatile long count;
 
   private long mark = -1;
 
@@ -42,44 +49,46 @@ public final class CountingServletInputStream extends ServletInputStream
   }
 
   /** Returns the number of bytes read. */
-  public synchronized long getCount() {
+  public long getCount() {
     return count;
   }
 
   @Override
-  public synchronized int read() throws IOException {
+  public int read() throws IOException {
     int result = in.read();
     if (result != -1) {
-      count++;
+      COUNT_UPDATER.lazySet(this, count + 1);
     }
     return result;
   }
 
   @Override
-  public  synchronized int read(final byte[] b, final int off, final int len) throws IOException {
+  public int read(final byte[] b, final int off, final int len) throws IOException {
     int result = in.read(b, off, len);
-    if (result != -1) {
-      count += result;
+    if (result > 0) {
+      COUNT_UPDATER.lazySet(this, count + result);
     }
     return result;
   }
 
   @Override
-  public synchronized long skip(final long n) throws IOException {
+  public long skip(final long n) throws IOException {
     long result = in.skip(n);
-    count += result;
+    if (result > 0) {
+      COUNT_UPDATER.lazySet(this, count + result);
+    }
     return result;
   }
 
   @Override
-  public synchronized void mark(final int readlimit) {
+  public void mark(final int readlimit) {
     in.mark(readlimit);
     mark = count;
     // it's okay to mark even if mark isn't supported, as reset won't work
   }
 
   @Override
-  public synchronized void reset() throws IOException {
+  public void reset() throws IOException {
     if (!in.markSupported()) {
       throw new IOException("Mark not supported by " + in);
     }
@@ -88,7 +97,7 @@ public final class CountingServletInputStream extends ServletInputStream
     }
 
     in.reset();
-    count = mark;
+    COUNT_UPDATER.lazySet(this, mark);
   }
 
   @SuppressFBWarnings("EI_EXPOSE_REP")
@@ -96,7 +105,7 @@ public final class CountingServletInputStream extends ServletInputStream
     return in;
   }
 
-  public synchronized long getMark() {
+  public long getMark() {
     return mark;
   }
 
@@ -117,7 +126,7 @@ public final class CountingServletInputStream extends ServletInputStream
   }
 
   @Override
-  public synchronized String toString() {
+  public String toString() {
     return "CountingServletInputStream{" + "in=" + in + ", count=" + count + ", mark=" + mark + '}';
   }
 
@@ -1,25 +1,34 @@
-
 package org.spf4j.servlet;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import javax.annotation.ParametersAreNonnullByDefault;
 import javax.servlet.ServletOutputStream;
 import javax.servlet.WriteListener;
 import org.spf4j.base.Wrapper;
 
 /**
- *
+ * Byte counting servlet output stream.
+ * A servlet output stream is written by a single thread at a time (the request thread, or the container thread
+ * invoking the WriteListener), so counting does not need synchronization, the count is published with
+ * an ordered store, so that getCount can be safely invoked from a different thread (at request end).
+ * Once a {@link NonBlockingWriter} is attached, all writes (and flush/close) go to its buffer, and only the writer
+ * writes to the wrapped stream when the container reports it ready.
  * @author Zoltan Farkas
  */
 @ParametersAreNonnullByDefault
 public final class CountingServletOutputStream extends ServletOutputStream
          implements Wrapper<ServletOutputStream> {
 
+  private static final AtomicLongFieldUpdater<CountingServletOutputStream> COUNT_UPDATER
+          = AtomicLongFieldUpdater.newUpdater(CountingServletOutputStream.class, "count");
+
   private final ServletOutputStream out;
 
-  private long count;
+  private volatile long count;
 
+  private volatile NonBlockingWriter nonBlockingWriter;
 
   @SuppressFBWarnings("EI_EXPOSE_REP2")
   public CountingServletOutputStream(final ServletOutputStream out) {
@@ -31,35 +40,74 @@ public final class CountingServletOutputStream extends ServletOutputStream
     return out.isReady();
   }
 
+  /**
+   * The listener is passed through to the wrapped stream as is, writes done from the listener go through
+   * this stream and will be counted.
+   */
   @Override
   public void setWriteListener(final WriteListener writeListener) {
     out.setWriteListener(writeListener);
   }
 
   /** Returns the number of bytes written. */
-  public synchronized long getCount() {
+  public long getCount() {
     return count;
   }
 
+  /**
+   * Attach a non blocking writer, all subsequent writes will be buffered by it.
+   */
+  void attach(final NonBlockingWriter writer) {
+    this.nonBlockingWriter = writer;
+    out.setWriteListener(writer);
+  }
+
   @Override
-  public synchronized void write(final byte[] b, final int off, final int len) throws IOException {
-    out.write(b, off, len);
-    count += len;
+  public void write(final byte[] b) throws IOException {
+    write(b, 0, b.length);
   }
 
   @Override
-  public synchronized void write(final int b) throws IOException {
+  public void write(final byte[] b, final int off, final int len) throws IOException {
+    NonBlockingWriter nbw = nonBlockingWriter;
+    if (nbw != null) {
+      nbw.buffer(b, off, len);
+      return;
+    }
+    writeThrough(b, off, len);
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    NonBlockingWriter nbw = nonBlockingWriter;
+    if (nbw != null) {
+      nbw.buffer(b);
+      return;
+    }
     out.write(b);
-    count++;
+    COUNT_UPDATER.lazySet(this, count + 1);
+  }
+
+  void writeThrough(final byte[] b, final int off, final int len) throws IOException {
+    out.write(b, off, len);
+    COUNT_UPDATER.lazySet(this, count + len);
   }
 
   @Override
   public void flush() throws IOException {
-    out.flush();
+    if (nonBlockingWriter == null) {
+      out.flush();
+    } // otherwise the non blocking writer flushes whenever the output is ready.
   }
 
   @Override
   public void close() throws IOException {
+    if (nonBlockingWriter == null) {
+      out.close();
+    } // otherwise the non blocking writer closes the stream after all buffered content is written.
+  }
+
+  void closeThrough() throws IOException {
     out.close();
   }
 
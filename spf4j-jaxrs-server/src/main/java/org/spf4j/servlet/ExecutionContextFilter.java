@@ -84,6 +84,8 @@ import org.spf4j.stackmonitor.ProfilePersister;
  * <li>Execution time, timeout relative access log level upgrade.</li>
  * <li>Execution context creation/closing.</li>
  * <li>Context log level overwrites.</li>
+ * <li>Admission control: deadline based load shedding and an optional adaptive concurrency limit,
+ * see {@link AdmissionControl}.</li>
  * </ul>
  */
 @WebFilter(asyncSupported = true)
@@ -107,6 +109,9 @@ public final class ExecutionContextFilter implements Filter {
           RecorderFactory.createScalableSimpleCountingRecorder("http.serverErrors", "count", 60000);
 
 
+  private static final XJsonAvroMessageBodyWriter ERROR_WRITER
+          = new XJsonAvroMessageBodyWriter(new DefaultSchemaProtocol(SchemaResolver.NONE));
+
   private static final MeasurementRecorder BYTES_IN
                      = RecorderFactory.createScalableMinMaxAvgRecorder("http.contentBytesIn", "bytes", 60000);
 
@@ -131,6 +136,8 @@ public final class ExecutionContextFilter implements Filter {
 
   private final ProfilePersister profilepersister;
 
+  private AdmissionControl admissionControl;
+
 
   public ExecutionContextFilter(final DeadlineProtocol deadlineProtocol, final SecurityAuthenticator auth,
           final ProfilePersister profilepersister) {
@@ -160,6 +167,7 @@ public final class ExecutionContextFilter implements Filter {
             CFG_CTX_LOG_LEVEL_HEADER_NAME, Headers.CTX_LOG_LEVEL);
     idHeaderName = Filters.getStringParameter(filterConfig, CFG_ID_HEADER_NAME, Headers.REQ_ID);
     headerOverwriteQueryParamPrefix = Filters.getStringParameter(filterConfig, CFG_HEADER_OVERWRITE_QP_PREFIX, "_");
+    admissionControl = new AdmissionControl(filterConfig);
   }
 
 
@@ -198,10 +206,11 @@ public final class ExecutionContextFilter implements Filter {
     long startTimeNanos = TimeSource.nanoTime();
     HttpServletRequest httpRequest = (HttpServletRequest) request;
     JaxRsSecurityContext secCtx = auth.authenticate(httpRequest::getHeader);
+    long authTimeNanos = TimeSource.nanoTime() - startTimeNanos;
     CountingHttpServletRequest httpReq = new CountingHttpServletRequest(
             overwriteHeadersIfNeeded(httpRequest), secCtx);
     CountingHttpServletResponse httpResp = new CountingHttpServletResponse((HttpServletResponse) response);
-    String name = httpReq.getMethod() + '/' + httpReq.getRequestURL();
+    String name = httpReq.getMethod() + ' ' + httpReq.getRequestURI();
     String reqId = httpReq.getHeader(idHeaderName);
     long deadlineNanos;
     try {
@@ -224,10 +233,21 @@ public final class ExecutionContextFilter implements Filter {
     } else {
       level = null;
     }
+    AdmissionControl.Permit permit = admissionControl.tryAcquire(httpReq);
+    if (permit == null) {
+      AdmissionControl.SHED_REQUESTS.increment();
+      httpResp.setHeader(HttpHeaders.RETRY_AFTER, "1");
+      errorResponse(httpResp, 503, "Overloaded, request cannot be served in time", null, secCtx);
+      logRequestEnd(startTimeNanos, org.spf4j.log.Level.WARN, name, reqId, httpReq, httpResp, secCtx);
+      return;
+    }
     ExecutionContext ctx = ExecutionContexts.start(name, reqId, null, startTimeNanos, deadlineNanos);
     ctx.put(ContextTags.HTTP_REQ, httpReq);
     ctx.put(ContextTags.HTTP_RESP, httpResp);
     ctx.put(ContextTags.SECURITY_CONTEXT, secCtx);
+    ctx.put(ContextTags.ROUTE_ADMISSION, permit);
+    ctx.accumulateComponent(ContextTags.SERVER_TIMINGS,
+            ServerTimingMetric.ofMicros("auth", TimeUnit.NANOSECONDS.toMicros(authTimeNanos)));
     if (level != null) {
         ctx.setBackendMinLogLevel(level);
     }
@@ -246,7 +266,7 @@ public final class ExecutionContextFilter implements Filter {
               throw new UncheckedIOException(ex);
             } finally {
               try {
-                logRequestEnd(org.spf4j.log.Level.INFO, ctx, httpReq, httpResp, secCtx);
+                logRequestEnd(org.spf4j.log.Level.INFO, ctx, httpReq, httpResp, secCtx, permit);
               } finally {
                 ctx.close();
               }
@@ -269,21 +289,30 @@ public final class ExecutionContextFilter implements Filter {
           public void onStartAsync(final AsyncEvent event) {
           }
         }, request, response);
+        NonBlockingWriter nbWriter = httpReq.takeNonBlockingWriter();
+        if (nbWriter != null) {
+          // started only now, so that the response cannot complete before the listener above is registered.
+          nbWriter.start(ctx);
+        }
       } else {
         try {
-          logRequestEnd(org.spf4j.log.Level.INFO, ctx, httpReq, httpResp, secCtx);
+          logRequestEnd(org.spf4j.log.Level.INFO, ctx, httpReq, httpResp, secCtx, permit);
         } finally {
           ctx.close();
         }
       }
     } catch (Throwable t) {
+      NonBlockingWriter nbWriter = httpReq.takeNonBlockingWriter();
+      if (nbWriter != null) {
+        nbWriter.abort(t);
+      }
       try {
         if (Throwables.isNonRecoverable(t)) {
           org.spf4j.base.Runtime.goDownWithError(t, SysExits.EX_SOFTWARE);
         }
         ctx.accumulateComponent(ContextTags.LOG_ATTRIBUTES, t);
         Level logLevel = isCommunicationError(t) ? org.spf4j.log.Level.WARN : org.spf4j.log.Level.ERROR;
-        logRequestEnd(logLevel, ctx, httpReq, httpResp, secCtx);
+        logRequestEnd(logLevel, ctx, httpReq, httpResp, secCtx, permit);
       } finally {
         ctx.close();
       }
@@ -302,7 +331,7 @@ public final class ExecutionContextFilter implements Filter {
   @SuppressFBWarnings({"UCC_UNRELATED_COLLECTION_CONTENTS", "HTTP_RESPONSE_SPLITTING"})
   private void logRequestEnd(final Level plevel,
           final ExecutionContext ctx, final CountingHttpServletRequest req, final CountingHttpServletResponse resp,
-          final JaxRsSecurityContext secCtx) {
+          final JaxRsSecurityContext secCtx, final AdmissionControl.Permit permit) {
     org.spf4j.log.Level level;
     org.spf4j.log.Level ctxOverride = ctx.get(ContextTags.LOG_LEVEL);
     if (ctxOverride != null && ctxOverride.ordinal() > plevel.ordinal()) {
@@ -310,53 +339,34 @@ public final class ExecutionContextFilter implements Filter {
     } else {
       level = plevel;
     }
-    Object[] args;
-    List<Object> logAttrs = ctx.get(ContextTags.LOG_ATTRIBUTES);
     long startTimeNanos = ctx.getStartTimeNanos();
     long execTimeNanos = TimeSource.nanoTime() - startTimeNanos;
     long maxTime = ctx.getDeadlineNanos() - startTimeNanos;
     long etn = (long) (maxTime * errorThreshold);
+    long wtn = (long) (maxTime * warnThreshold);
+    long execTimeMicros = TimeUnit.NANOSECONDS.toMicros(execTimeNanos);
+    admissionControl.release(permit, execTimeMicros, execTimeNanos > etn);
     if (execTimeNanos > etn) {
-      if (logAttrs == null) {
-        logAttrs = new ArrayList<>(2);
-      }
       logContextProfile(execTimeNanos, ctx);
-      logAttrs.add(LogAttribute.of("performanceError", "exec time > " + etn + " ns"));
       if (level.ordinal() < Level.ERROR.ordinal()) {
         level = level.ERROR;
       }
-    } else {
-      long wtn = (long) (maxTime * warnThreshold);
-      if (execTimeNanos > wtn) {
-        if (logAttrs == null) {
-          logAttrs = new ArrayList<>(2);
-        }
-        logContextProfile(execTimeNanos, ctx);
-        logAttrs.add(LogAttribute.of("performanceWarning", "exec time > " + wtn + " ns"));
-        if (level.ordinal() < Level.WARN.ordinal()) {
-          level = level.WARN;
-        }
+    } else if (execTimeNanos > wtn) {
+      logContextProfile(execTimeNanos, ctx);
+      if (level.ordinal() < Level.WARN.ordinal()) {
+        level = level.WARN;
       }
     }
     boolean clientWarning = false;
     Set<HttpWarning> warnings = ctx.get(ContextTags.HTTP_WARNINGS);
-    if (warnings != null) {
-      if (logAttrs == null) {
-        logAttrs = new ArrayList<>(warnings);
-      } else {
-        logAttrs.addAll(warnings);
-      }
-      if (level.ordinal() < Level.WARN.ordinal()) {
-        level = level.WARN;
-        clientWarning = true;
-      }
+    if (warnings != null && level.ordinal() < Level.WARN.ordinal()) {
+      level = level.WARN;
+      clientWarning = true;
     }
-    long execTimeMicros = TimeUnit.NANOSECONDS.toMicros(execTimeNanos);
     if (secCtx.isUserInRole(JaxRsSecurityContext.OPERATOR_ROLE)) {
       resp.addHeader(Headers.SERVER_TIMING, new ServerTiming(
               new ServerTimingMetric("server_time", execTimeMicros / 1000.0, "")).toString());
     }
-    String remoteHost = getRemoteHost(req);
     int status = resp.getStatus();
     long bytesRead = req.getBytesRead();
     long bytesWritten = resp.getBytesWritten();
@@ -365,9 +375,42 @@ public final class ExecutionContextFilter implements Filter {
     } else if (status >= 400) {
       CLIENT_ERRORS.increment();
     }
-    EXEC_TIME_STATS.getRecorder(req.getMethod()).record(execTimeMicros);
+    String route = ctx.get(ContextTags.ROUTE);
+    EXEC_TIME_STATS.getRecorder(route == null ? req.getMethod() : route).record(execTimeMicros);
     BYTES_IN.record(bytesRead);
     BYTES_OUT.record(bytesWritten);
+    if (!log.isLoggable(level.getJulLevel())) {
+      return;
+    }
+    // the log attributes are built only when the access log is enabled for the level.
+    List<Object> logAttrs = ctx.get(ContextTags.LOG_ATTRIBUTES);
+    if (execTimeNanos > etn) {
+      if (logAttrs == null) {
+        logAttrs = new ArrayList<>(2);
+      }
+      logAttrs.add(LogAttribute.of("performanceError", "exec time > " + etn + " ns"));
+    } else if (execTimeNanos > wtn) {
+      if (logAttrs == null) {
+        logAttrs = new ArrayList<>(2);
+      }
+      logAttrs.add(LogAttribute.of("performanceWarning", "exec time > " + wtn + " ns"));
+    }
+    if (warnings != null) {
+      if (logAttrs == null) {
+        logAttrs = new ArrayList<>(warnings);
+      } else {
+        logAttrs.addAll(warnings);
+      }
+    }
+    List<ServerTimingMetric> timings = ctx.get(ContextTags.SERVER_TIMINGS);
+    if (timings != null && !timings.isEmpty()) {
+      if (logAttrs == null) {
+        logAttrs = new ArrayList<>(2);
+      }
+      logAttrs.add(LogAttribute.of("serverTiming", new ServerTiming(timings)));
+    }
+    Object[] args;
+    String remoteHost = getRemoteHost(req);
     if (logAttrs == null) {
       args = new Object[]{ctx.getName(),
         LogAttribute.traceId(ctx.getId()),
@@ -425,6 +468,9 @@ public final class ExecutionContextFilter implements Filter {
     EXEC_TIME_STATS.getRecorder(req.getMethod()).record(execTimeMicros);
     BYTES_IN.record(bytesRead);
     BYTES_OUT.record(bytesWritten);
+    if (!log.isLoggable(level.getJulLevel())) {
+      return;
+    }
     args = new Object[]{reqStr,
       LogAttribute.traceId(reqId),
       LogAttribute.of("clientHost", getRemoteHost(req)),
@@ -450,8 +496,7 @@ public final class ExecutionContextFilter implements Filter {
                     exception != null ? Converters.convert(exception) : null, Collections.EMPTY_LIST));
     }
     ServiceError err = errBuilder.build();
-    XJsonAvroMessageBodyWriter writer = new XJsonAvroMessageBodyWriter(new DefaultSchemaProtocol(
-            SchemaResolver.NONE));
+    XJsonAvroMessageBodyWriter writer = ERROR_WRITER;
     try {
       MultivaluedHashMap<String, Object> headers = new MultivaluedHashMap<String, Object>(2);
       writer.writeTo(err, err.getClass(), err.getClass(),
@@ -538,7 +583,8 @@ public final class ExecutionContextFilter implements Filter {
         try {
           Instant now = Instant.now();
           try {
-            this.profilepersister.persist(ImmutableMap.of(ctx.getName(), stackSamples),
+            String route = ctx.get(ContextTags.ROUTE);
+            this.profilepersister.persist(ImmutableMap.of(route == null ? ctx.getName() : route, stackSamples),
                     ctx.getId().toString(), now.minusNanos(execTimeNanos), now);
           } catch (IOException ex) {
             this.log.log(java.util.logging.Level.WARNING, "Failed to persist profiles", ex);
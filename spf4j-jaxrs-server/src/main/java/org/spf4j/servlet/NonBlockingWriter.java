@@ -0,0 +1,390 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.servlet;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import javax.annotation.Nullable;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.WriteListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.spf4j.base.ExecutionContext;
+import org.spf4j.jaxrs.NonBlockingOutput;
+
+/**
+ * Servlet 3.1 non blocking writer, the content increments are pulled on a executor thread (with the request
+ * execution context attached) while the buffered output is below the high water mark,
+ * and the buffered output is written to the servlet output stream while the container reports it ready.
+ * This way a slow client will not hold on to a request thread, the container I/O threads only write ready chunks,
+ * and the memory used per response is bounded.
+ * <p>
+ * The content is written to the entity stream (the jax-rs entity stream, with all the content encoders),
+ * which ends up buffered in chunks by the {@link CountingServletOutputStream} this writer is attached to.
+ * The chunks are handed over to the container as they are, without copying, so they are never reused:
+ * containers (like Grizzly) queue large writes by reference, and write them out later.
+ * At most one content producer runs at a time, the buffer is guarded by this writer's monitor.
+ * <p>
+ * The writer is started by {@link ExecutionContextFilter} once the request dispatch returned and its async listener
+ * is registered, the content is closed and the chunks are released when the response completes, times out or fails.
+ *
+ * @author Zoltan Farkas
+ */
+public final class NonBlockingWriter implements WriteListener, AsyncListener, Runnable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(NonBlockingWriter.class);
+
+  private static final int CHUNK_SIZE = Integer.getInteger("spf4j.servlet.nonBlockingWriter.chunkSize", 16384);
+
+  private static final int HIGH_WATER = Integer.getInteger("spf4j.servlet.nonBlockingWriter.highWater",
+          4 * CHUNK_SIZE);
+
+  private final AsyncContext asyncContext;
+
+  private final CountingServletOutputStream servletStream;
+
+  private final OutputStream entityStream;
+
+  private final NonBlockingOutput.Content content;
+
+  private final Executor executor;
+
+  /** the request execution context, attached to the content producer threads. */
+  @Nullable
+  private volatile ExecutionContext ctx;
+
+  private final ArrayDeque<byte[]> chunks;
+
+  /** position of the first unwritten byte in the first chunk */
+  private int headPos;
+
+  /** position of the first free byte in the last chunk */
+  private int tailPos;
+
+  private int pendingBytes;
+
+  /** a content producer is scheduled or running. */
+  private boolean producing;
+
+  private boolean contentDone;
+
+  private boolean done;
+
+  NonBlockingWriter(final AsyncContext asyncContext, final CountingServletOutputStream servletStream,
+          final OutputStream entityStream, final NonBlockingOutput.Content content, final Executor executor) {
+    this.asyncContext = asyncContext;
+    this.servletStream = servletStream;
+    this.entityStream = entityStream;
+    this.content = content;
+    this.executor = executor;
+    this.chunks = new ArrayDeque<>(HIGH_WATER / CHUNK_SIZE + 2);
+  }
+
+  /**
+   * Hand over the content to be written in non blocking mode, puts the request in async mode.
+   * The response must be committed (headers written) before invoking this.
+   * The writing will start when the request dispatch returns. (see {@link ExecutionContextFilter})
+   * @param request the request.
+   * @param servletStream the response servlet stream.
+   * @param entityStream the stream the content writes to, ends up in servletStream.
+   * @param content the content to write.
+   * @param executor the executor to pull the content on.
+   */
+  public static void handOver(final CountingHttpServletRequest request,
+          final CountingServletOutputStream servletStream,
+          final OutputStream entityStream, final NonBlockingOutput.Content content, final Executor executor) {
+    AsyncContext asyncContext = request.startAsync();
+    request.setNonBlockingWriter(new NonBlockingWriter(asyncContext, servletStream, entityStream, content, executor));
+  }
+
+  /**
+   * Start writing, the container will invoke onWritePossible, which will schedule the content producer.
+   * @param pctx the request execution context.
+   */
+  void start(@Nullable final ExecutionContext pctx) {
+    this.ctx = pctx;
+    asyncContext.addListener(this);
+    servletStream.attach(this);
+  }
+
+  synchronized void buffer(final int b) {
+    if (done) {
+      return;
+    }
+    if (chunks.isEmpty() || tailPos == CHUNK_SIZE) {
+      chunks.addLast(allocateChunk());
+      tailPos = 0;
+    }
+    chunks.getLast()[tailPos++] = (byte) b;
+    pendingBytes++;
+  }
+
+  synchronized void buffer(final byte[] b, final int off, final int len) {
+    if (done) {
+      return;
+    }
+    int o = off;
+    int l = len;
+    while (l > 0) {
+      if (chunks.isEmpty() || tailPos == CHUNK_SIZE) {
+        chunks.addLast(allocateChunk());
+        tailPos = 0;
+      }
+      int n = Math.min(l, CHUNK_SIZE - tailPos);
+      System.arraycopy(b, o, chunks.getLast(), tailPos, n);
+      tailPos += n;
+      o += n;
+      l -= n;
+    }
+    pendingBytes += len;
+  }
+
+  private synchronized boolean canBuffer() {
+    return pendingBytes < HIGH_WATER && !done;
+  }
+
+  /**
+   * The content producer, pulls content increments until the high water mark is reached.
+   */
+  @Override
+  public void run() {
+    boolean finished;
+    ExecutionContext c = ctx;
+    if (c != null) {
+      c.attach();
+    }
+    try {
+      finished = content.write(this::canBuffer);
+      if (finished) {
+        content.close();
+        entityStream.close(); // flushes the content encoders, the servlet stream close is deferred.
+      }
+    } catch (IOException | RuntimeException ex) {
+      synchronized (this) {
+        producing = false;
+      }
+      fail(ex);
+      return;
+    } finally {
+      if (c != null) {
+        c.detach();
+      }
+    }
+    boolean aborted;
+    synchronized (this) {
+      producing = false;
+      contentDone = finished;
+      aborted = done;
+    }
+    if (aborted) {
+      if (!finished) {
+        closeContent(); // failed while producing.
+      }
+      return;
+    }
+    pump();
+  }
+
+  @Override
+  public void onWritePossible() {
+    pump();
+  }
+
+  /**
+   * Write the buffered data while the output is ready, when everything is written either complete the response,
+   * or schedule the content producer.
+   */
+  private void pump() {
+    boolean complete = false;
+    boolean produce = false;
+    try {
+      synchronized (this) {
+        if (done || !drain()) {
+          return;
+        }
+        if (contentDone) {
+          // all content written including the encoder trailers.
+          done = true;
+          servletStream.closeThrough();
+          releaseChunks();
+          complete = true;
+        } else if (!producing) {
+          producing = true;
+          produce = true;
+        }
+      }
+      if (complete) {
+        complete();
+      } else if (produce) {
+        executor.execute(this);
+      }
+    } catch (IOException | RuntimeException ex) {
+      if (produce) {
+        synchronized (this) {
+          producing = false;
+        }
+      }
+      fail(ex);
+    }
+  }
+
+  /**
+   * Write buffered data while the output is ready.
+   * @return true if all the buffered data was written, false if the output is not ready,
+   * in which case the container will invoke onWritePossible when it is.
+   */
+  private boolean drain() throws IOException {
+    if (!servletStream.isReady()) {
+      return false;
+    }
+    while (pendingBytes > 0) {
+      byte[] head = chunks.getFirst();
+      boolean last = chunks.size() == 1;
+      int n = (last ? tailPos : CHUNK_SIZE) - headPos;
+      if (n > 0) {
+        servletStream.writeThrough(head, headPos, n);
+        pendingBytes -= n;
+      }
+      if (last) {
+        // the written part of the tail chunk is not touched anymore, new bytes are appended after it.
+        headPos = tailPos;
+      } else {
+        chunks.removeFirst();
+        headPos = 0;
+      }
+      if (!servletStream.isReady()) {
+        return false;
+      }
+    }
+    if (tailPos == CHUNK_SIZE) {
+      // the container might still hold on to the full tail chunk, a new one will be allocated.
+      chunks.clear();
+      headPos = 0;
+      tailPos = 0;
+    }
+    return true;
+  }
+
+  @Override
+  public void onError(final Throwable t) {
+    fail(t);
+  }
+
+  /**
+   * Abort the writing when the request dispatch failed after the content was handed over.
+   */
+  void abort(final Throwable t) {
+    synchronized (this) {
+      if (done) {
+        return;
+      }
+      done = true;
+      releaseChunks();
+    }
+    LOG.debug("Aborted writing {}", content, t);
+    closeContent();
+    complete();
+  }
+
+  private void fail(final Throwable t) {
+    boolean closeNow;
+    synchronized (this) {
+      if (done) {
+        return;
+      }
+      done = true;
+      closeNow = !producing; // otherwise the producer closes the content when it returns.
+      releaseChunks();
+    }
+    LOG.debug("Failed to write {}", content, t);
+    if (closeNow) {
+      closeContent();
+    }
+    complete();
+  }
+
+  @Override
+  public void onTimeout(final AsyncEvent event) {
+    fail(new IOException("Timed out writing " + content));
+  }
+
+  @Override
+  public void onError(final AsyncEvent event) {
+    Throwable t = event.getThrowable();
+    fail(t == null ? new IOException("Failed writing " + content) : t);
+  }
+
+  @Override
+  public void onComplete(final AsyncEvent event) {
+    boolean closeNow;
+    synchronized (this) {
+      if (done) {
+        return;
+      }
+      done = true;
+      closeNow = !producing;
+      releaseChunks();
+    }
+    if (closeNow) {
+      closeContent();
+    }
+  }
+
+  @Override
+  public void onStartAsync(final AsyncEvent event) {
+    // nothing to do.
+  }
+
+  private void closeContent() {
+    try {
+      content.close();
+    } catch (IOException | RuntimeException ex) {
+      LOG.debug("Failed to close {}", content, ex);
+    }
+  }
+
+  private void complete() {
+    try {
+      asyncContext.complete();
+    } catch (IllegalStateException ex) {
+      // already completed (timed out).
+      LOG.debug("Async context already completed", ex);
+    }
+  }
+
+  private void releaseChunks() {
+    chunks.clear();
+    pendingBytes = 0;
+  }
+
+  /**
+   * @return a new chunk, chunks are not pooled since the container might hold on to them after they are written.
+   */
+  private static byte[] allocateChunk() {
+    return new byte[CHUNK_SIZE];
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "NonBlockingWriter{" + "content=" + content + ", pendingBytes=" + pendingBytes
+            + ", contentDone=" + contentDone + ", done=" + done + '}';
+  }
+
+}
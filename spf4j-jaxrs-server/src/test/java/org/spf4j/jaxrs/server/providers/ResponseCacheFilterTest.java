@@ -0,0 +1,262 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.server.providers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.ServerErrorException;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spf4j.base.ExecutionContext;
+import org.spf4j.base.ExecutionContexts;
+import org.spf4j.jaxrs.Cached;
+
+/**
+ * @author Zoltan Farkas
+ */
+public class ResponseCacheFilterTest {
+
+  @Test
+  public void testCacheAndRevalidate() throws IOException {
+    ResponseCacheFilter filter = newFilter();
+    TestRequest leader = new TestRequest("/test?a=1", null);
+    filter.filter(leader.proxy());
+    Assert.assertNull(leader.aborted);
+    TestWrite write = new TestWrite(leader, "hello");
+    write.run(filter);
+    Assert.assertEquals("hello", write.written());
+    EntityTag etag = (EntityTag) write.headers.getFirst(HttpHeaders.ETAG);
+    Assert.assertNotNull(etag);
+
+    TestRequest hit = new TestRequest("/test?a=1", null);
+    filter.filter(hit.proxy());
+    Assert.assertEquals(200, hit.aborted.getStatus());
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    ((StreamingOutput) hit.aborted.getEntity()).write(bos);
+    Assert.assertEquals("hello", new String(bos.toByteArray(), StandardCharsets.UTF_8));
+
+    TestRequest revalidate = new TestRequest("/test?a=1", etag.toString());
+    filter.filter(revalidate.proxy());
+    Assert.assertEquals(304, revalidate.aborted.getStatus());
+
+    TestRequest other = new TestRequest("/test?a=2", null);
+    filter.filter(other.proxy());
+    Assert.assertNull(other.aborted);
+  }
+
+  @Test
+  public void testWaiterTimeoutKeepsLeaderEntry() throws IOException {
+    ResponseCacheFilter filter = newFilter();
+    TestRequest leader = new TestRequest("/test", null);
+    filter.filter(leader.proxy());
+    TestRequest waiter = new TestRequest("/test", null);
+    try (ExecutionContext ctx = ExecutionContexts.start("waiter", 10, TimeUnit.MILLISECONDS)) {
+      filter.filter(waiter.proxy());
+      Assert.fail();
+    } catch (ServerErrorException ex) {
+      Assert.assertEquals(504, ex.getResponse().getStatus());
+    }
+    new TestWrite(leader, "computed").run(filter);
+    TestRequest hit = new TestRequest("/test", null);
+    filter.filter(hit.proxy());
+    Assert.assertNotNull(hit.aborted);
+    Assert.assertEquals(200, hit.aborted.getStatus());
+  }
+
+  @Test
+  public void testStreamedEntityNotCached() throws IOException {
+    ResponseCacheFilter filter = newFilter();
+    TestRequest leader = new TestRequest("/test", null);
+    filter.filter(leader.proxy());
+    TestWrite write = new TestWrite(leader, (Iterable<String>) () -> Arrays.asList("a", "b").iterator());
+    write.run(filter);
+    Assert.assertEquals("streamed", write.written());
+    Assert.assertNull(write.headers.getFirst(HttpHeaders.CACHE_CONTROL));
+    Assert.assertNull(write.headers.getFirst(HttpHeaders.ETAG));
+    TestRequest next = new TestRequest("/test", null);
+    filter.filter(next.proxy());
+    Assert.assertNull(next.aborted);
+  }
+
+  private static ResponseCacheFilter newFilter() {
+    Method method;
+    try {
+      method = TestResource.class.getMethod("get");
+    } catch (NoSuchMethodException ex) {
+      throw new IllegalStateException(ex);
+    }
+    ResourceInfo resourceInfo = (ResourceInfo) Proxy.newProxyInstance(ResourceInfo.class.getClassLoader(),
+            new Class[] {ResourceInfo.class}, (p, m, args) -> {
+              if ("getResourceMethod".equals(m.getName())) {
+                return method;
+              } else if ("getResourceClass".equals(m.getName())) {
+                return TestResource.class;
+              }
+              throw new UnsupportedOperationException(m.toString());
+            });
+    return new ResponseCacheFilter(() -> resourceInfo);
+  }
+
+  public static final class TestResource {
+
+    @Cached(ttl = 60)
+    public String get() {
+      return "";
+    }
+  }
+
+  private static final class TestRequest {
+
+    private final URI uri;
+
+    private final String ifNoneMatch;
+
+    private final Map<String, Object> properties = new HashMap<>(4);
+
+    private Response aborted;
+
+    TestRequest(final String uri, final String ifNoneMatch) {
+      this.uri = URI.create("http://localhost" + uri);
+      this.ifNoneMatch = ifNoneMatch;
+    }
+
+    ContainerRequestContext proxy() {
+      UriInfo uriInfo = (UriInfo) Proxy.newProxyInstance(UriInfo.class.getClassLoader(),
+              new Class[] {UriInfo.class}, (p, m, args) -> {
+                if ("getRequestUri".equals(m.getName())) {
+                  return uri;
+                }
+                throw new UnsupportedOperationException(m.toString());
+              });
+      return (ContainerRequestContext) Proxy.newProxyInstance(ContainerRequestContext.class.getClassLoader(),
+              new Class[] {ContainerRequestContext.class}, (p, m, args) -> {
+                switch (m.getName()) {
+                  case "getMethod":
+                    return "GET";
+                  case "getUriInfo":
+                    return uriInfo;
+                  case "getHeaderString":
+                    return HttpHeaders.IF_NONE_MATCH.equals(args[0]) ? ifNoneMatch : null;
+                  case "getProperty":
+                    return properties.get((String) args[0]);
+                  case "setProperty":
+                    properties.put((String) args[0], args[1]);
+                    return null;
+                  case "removeProperty":
+                    properties.remove((String) args[0]);
+                    return null;
+                  case "abortWith":
+                    aborted = (Response) args[0];
+                    return null;
+                  default:
+                    throw new UnsupportedOperationException(m.toString());
+                }
+              });
+    }
+  }
+
+  /**
+   * The response filter + writer interceptor invocation of a request.
+   */
+  private static final class TestWrite {
+
+    private final TestRequest request;
+
+    private final Object entity;
+
+    private final MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+
+    private final ByteArrayOutputStream sink = new ByteArrayOutputStream();
+
+    private OutputStream out = sink;
+
+    TestWrite(final TestRequest request, final Object entity) {
+      this.request = request;
+      this.entity = entity;
+    }
+
+    void run(final ResponseCacheFilter filter) throws IOException {
+      filter.filter(request.proxy(), (ContainerResponseContext) Proxy.newProxyInstance(
+              ContainerResponseContext.class.getClassLoader(),
+              new Class[] {ContainerResponseContext.class}, (p, m, args) -> {
+                switch (m.getName()) {
+                  case "getStatus":
+                    return 200;
+                  case "hasEntity":
+                    return true;
+                  case "getHeaders":
+                    return headers;
+                  default:
+                    throw new UnsupportedOperationException(m.toString());
+                }
+              }));
+      filter.aroundWriteTo((WriterInterceptorContext) Proxy.newProxyInstance(
+              WriterInterceptorContext.class.getClassLoader(),
+              new Class[] {WriterInterceptorContext.class}, (p, m, args) -> {
+                switch (m.getName()) {
+                  case "getProperty":
+                    return request.properties.get((String) args[0]);
+                  case "removeProperty":
+                    request.properties.remove((String) args[0]);
+                    return null;
+                  case "getEntity":
+                    return entity;
+                  case "getHeaders":
+                    return headers;
+                  case "getMediaType":
+                    return MediaType.TEXT_PLAIN_TYPE;
+                  case "getOutputStream":
+                    return out;
+                  case "setOutputStream":
+                    out = (OutputStream) args[0];
+                    return null;
+                  case "proceed":
+                    out.write((entity instanceof String ? (String) entity : "streamed")
+                            .getBytes(StandardCharsets.UTF_8));
+                    return null;
+                  default:
+                    throw new UnsupportedOperationException(m.toString());
+                }
+              }));
+    }
+
+    String written() {
+      return new String(sink.toByteArray(), StandardCharsets.UTF_8);
+    }
+  }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.jaxrs.server.providers;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.glassfish.jersey.uri.UriTemplate;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Zoltan Farkas
+ */
+public class RouteNameFilterTest {
+
+  @Test
+  public void testRouteFromTemplates() {
+    // the last matched template comes first.
+    Assert.assertEquals("GET /users/{id}", RouteNameFilter.toRoute("GET",
+            Arrays.asList(new UriTemplate("{id}"), new UriTemplate("/users"))));
+    Assert.assertEquals("POST /users/{id}/roles", RouteNameFilter.toRoute("POST",
+            Arrays.asList(new UriTemplate("/roles/"), new UriTemplate("/{id}"), new UriTemplate("users/"))));
+  }
+
+  @Test
+  public void testRootRoute() {
+    Assert.assertEquals("GET /", RouteNameFilter.toRoute("GET", Collections.emptyList()));
+    Assert.assertEquals("GET /", RouteNameFilter.toRoute("GET", Arrays.asList(new UriTemplate("/"))));
+  }
+
+  @Test
+  public void testRoutesAreInterned() {
+    Assert.assertSame(RouteNameFilter.toRoute("GET", Arrays.asList(new UriTemplate("/a/{b}"))),
+            RouteNameFilter.toRoute("GET", Arrays.asList(new UriTemplate("/a/{b}"))));
+  }
+
+}
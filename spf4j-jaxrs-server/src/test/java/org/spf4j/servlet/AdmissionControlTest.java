@@ -0,0 +1,101 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.servlet;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Zoltan Farkas
+ */
+public class AdmissionControlTest {
+
+  @Test
+  public void testHighPriorityPathSegments() {
+    AdmissionControl control = new AdmissionControl(config(Collections.emptyMap()));
+    Assert.assertTrue(control.isHighPriority("/info", 0));
+    Assert.assertTrue(control.isHighPriority("/info/build", 0));
+    Assert.assertTrue(control.isHighPriority("/app/health/ping", 4));
+    Assert.assertFalse(control.isHighPriority("/information", 0));
+    Assert.assertFalse(control.isHighPriority("/app/healthy", 4));
+  }
+
+  @Test
+  public void testSheddingDisabledByDefault() {
+    AdmissionControl control = new AdmissionControl(config(Collections.emptyMap()));
+    recordLatencies(control, "GET /users/{id}", 100000, 1000);
+    Assert.assertTrue(new AdmissionControl.Permit(control, false, false)
+            .admit("GET /users/{id}", 0, TimeUnit.MILLISECONDS.toNanos(1)));
+  }
+
+  @Test
+  public void testShedByRoute() {
+    Map<String, String> cfg = new HashMap<>(4);
+    cfg.put(AdmissionControl.CFG_SHED_ENABLED, "true");
+    cfg.put(AdmissionControl.CFG_SHED_MIN_SAMPLES, "10");
+    AdmissionControl control = new AdmissionControl(config(cfg));
+    recordLatencies(control, "GET /users/{id}", 100000, 100);
+    long deadline = TimeUnit.MILLISECONDS.toNanos(1);
+    Assert.assertFalse(new AdmissionControl.Permit(control, false, false).admit("GET /users/{id}", 0, deadline));
+    Assert.assertTrue(new AdmissionControl.Permit(control, false, false)
+            .admit("GET /users/{id}", 0, TimeUnit.SECONDS.toNanos(1)));
+    // no samples for this route.
+    Assert.assertTrue(new AdmissionControl.Permit(control, false, false).admit("GET /other", 0, deadline));
+    // high priority requests are never shed.
+    Assert.assertTrue(new AdmissionControl.Permit(control, true, false).admit("GET /users/{id}", 0, deadline));
+  }
+
+  private static void recordLatencies(final AdmissionControl control, final String route,
+          final long micros, final int count) {
+    for (int i = 0; i < count; i++) {
+      AdmissionControl.Permit permit = new AdmissionControl.Permit(control, false, false);
+      Assert.assertTrue(permit.admit(route, 0, TimeUnit.SECONDS.toNanos(10)));
+      control.release(permit, micros, false);
+    }
+  }
+
+  private static FilterConfig config(final Map<String, String> params) {
+    return new FilterConfig() {
+      @Override
+      public String getFilterName() {
+        return "test";
+      }
+
+      @Override
+      public ServletContext getServletContext() {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public String getInitParameter(final String name) {
+        return params.get(name);
+      }
+
+      @Override
+      public Enumeration<String> getInitParameterNames() {
+        return Collections.enumeration(params.keySet());
+      }
+    };
+  }
+
+}
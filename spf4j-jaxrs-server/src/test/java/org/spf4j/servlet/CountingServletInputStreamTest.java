@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.servlet;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Zoltan Farkas
+ */
+public class CountingServletInputStreamTest {
+
+  @Test
+  public void testCount() throws IOException {
+    CountingServletInputStream is = new CountingServletInputStream(new BytesServletInputStream(new byte[100]));
+    Assert.assertEquals(0, is.read());
+    byte[] buff = new byte[10];
+    Assert.assertEquals(10, is.read(buff));
+    Assert.assertEquals(5, is.read(buff, 0, 5));
+    Assert.assertEquals(16, is.getCount());
+    is.mark(100);
+    Assert.assertEquals(20, is.skip(20));
+    Assert.assertEquals(36, is.getCount());
+    is.reset();
+    Assert.assertEquals(16, is.getCount());
+    byte[] rest = new byte[200];
+    Assert.assertEquals(84, is.read(rest));
+    Assert.assertEquals(-1, is.read());
+    Assert.assertEquals(-1, is.read(rest));
+    Assert.assertEquals(100, is.getCount());
+    Assert.assertTrue(is.isFinished());
+  }
+
+  private static final class BytesServletInputStream extends ServletInputStream {
+
+    private final ByteArrayInputStream in;
+
+    BytesServletInputStream(final byte[] bytes) {
+      this.in = new ByteArrayInputStream(bytes);
+    }
+
+    @Override
+    public boolean isFinished() {
+      return in.available() == 0;
+    }
+
+    @Override
+    public boolean isReady() {
+      return true;
+    }
+
+    @Override
+    public void setReadListener(final ReadListener readListener) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int read() {
+      return in.read();
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) {
+      return in.read(b, off, len);
+    }
+
+    @Override
+    public long skip(final long n) {
+      return in.skip(n);
+    }
+
+    @Override
+    public boolean markSupported() {
+      return true;
+    }
+
+    @Override
+    public synchronized void mark(final int readlimit) {
+      in.mark(readlimit);
+    }
+
+    @Override
+    public synchronized void reset() {
+      in.reset();
+    }
+  }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.servlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Zoltan Farkas
+ */
+public class CountingServletOutputStreamTest {
+
+  @Test
+  public void testCount() throws IOException {
+    SinkServletOutputStream sink = new SinkServletOutputStream();
+    CountingServletOutputStream os = new CountingServletOutputStream(sink);
+    byte[] data = "0123456789".getBytes(StandardCharsets.US_ASCII);
+    os.write('a');
+    os.write(data);
+    os.write(data, 2, 5);
+    os.write(data, 0, 0);
+    os.flush();
+    Assert.assertEquals(16, os.getCount());
+    Assert.assertEquals("a012345678923456", sink.bytes.toString("US-ASCII"));
+    Assert.assertTrue(sink.flushed);
+    os.close();
+    Assert.assertTrue(sink.closed);
+    Assert.assertEquals(16, os.getCount());
+  }
+
+  /**
+   * The count is written by the thread writing the response, and read by the request end logging,
+   * that might run on a different thread.
+   */
+  @Test
+  public void testCountReadFromOtherThread() throws IOException, InterruptedException, ExecutionException {
+    SinkServletOutputStream sink = new SinkServletOutputStream();
+    CountingServletOutputStream os = new CountingServletOutputStream(sink);
+    byte[] data = new byte[1000];
+    ExecutorService exec = Executors.newSingleThreadExecutor();
+    try {
+      Future<?> written = exec.submit(() -> {
+        for (int i = 0; i < 1000; i++) {
+          os.write(data);
+          os.write(i);
+        }
+        return null;
+      });
+      written.get();
+    } finally {
+      exec.shutdown();
+    }
+    Assert.assertEquals(1000 * 1001, os.getCount());
+    Assert.assertEquals(1000 * 1001, sink.bytes.size());
+  }
+
+  private static final class SinkServletOutputStream extends ServletOutputStream {
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    private boolean flushed;
+
+    private boolean closed;
+
+    @Override
+    public boolean isReady() {
+      return true;
+    }
+
+    @Override
+    public void setWriteListener(final WriteListener writeListener) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void write(final int b) {
+      bytes.write(b);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) {
+      bytes.write(b, off, len);
+    }
+
+    @Override
+    public void flush() {
+      flushed = true;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+
+}
@@ -0,0 +1,344 @@
+/*
+ * Copyright 2020 SPF4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.spf4j.servlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spf4j.jaxrs.NonBlockingOutput;
+
+/**
+ * @author Zoltan Farkas
+ */
+public class NonBlockingWriterTest {
+
+  @Test
+  public void testWriteAll() {
+    TestServletOutputStream sink = new TestServletOutputStream(false);
+    TestAsyncContext async = new TestAsyncContext();
+    CountingServletOutputStream os = new CountingServletOutputStream(sink);
+    TestContent content = new TestContent(os, 200, 1000);
+    NonBlockingWriter writer = new NonBlockingWriter(async, os, os, content, Runnable::run);
+    writer.start(null);
+    Assert.assertEquals(1, async.listeners.size());
+    writer.onWritePossible();
+    Assert.assertEquals(1, async.completions);
+    Assert.assertTrue(content.closed);
+    Assert.assertTrue(sink.closed);
+    Assert.assertArrayEquals(content.expected(), sink.bytes.toByteArray());
+    Assert.assertEquals(200 * 1000, os.getCount());
+  }
+
+  @Test
+  public void testSlowClient() {
+    TestServletOutputStream sink = new TestServletOutputStream(true);
+    TestAsyncContext async = new TestAsyncContext();
+    CountingServletOutputStream os = new CountingServletOutputStream(sink);
+    TestContent content = new TestContent(os, 300, 777);
+    NonBlockingWriter writer = new NonBlockingWriter(async, os, os, content, Runnable::run);
+    writer.start(null);
+    for (int i = 0; i < 10000 && async.completions == 0; i++) {
+      writer.onWritePossible(); // what the container does when the output becomes ready again.
+    }
+    Assert.assertEquals(1, async.completions);
+    Assert.assertTrue(content.closed);
+    Assert.assertArrayEquals(content.expected(), sink.bytes.toByteArray());
+  }
+
+  /**
+   * Containers (like Grizzly) queue large writes by reference, the written chunks must not be reused.
+   */
+  @Test
+  public void testContainerQueuesWritesByReference() {
+    QueuingServletOutputStream sink = new QueuingServletOutputStream();
+    TestAsyncContext async = new TestAsyncContext();
+    CountingServletOutputStream os = new CountingServletOutputStream(sink);
+    TestContent content = new TestContent(os, 500, 1001);
+    NonBlockingWriter writer = new NonBlockingWriter(async, os, os, content, Runnable::run);
+    writer.start(null);
+    for (int i = 0; i < 10000 && async.completions == 0; i++) {
+      writer.onWritePossible();
+    }
+    Assert.assertEquals(1, async.completions);
+    Assert.assertTrue(sink.writes.size() > 10);
+    Assert.assertArrayEquals(content.expected(), sink.toByteArray());
+  }
+
+  @Test
+  public void testTimeoutClosesContent() throws IOException {
+    TestServletOutputStream sink = new TestServletOutputStream(true);
+    TestAsyncContext async = new TestAsyncContext();
+    CountingServletOutputStream os = new CountingServletOutputStream(sink);
+    TestContent content = new TestContent(os, 1000, 1000);
+    NonBlockingWriter writer = new NonBlockingWriter(async, os, os, content, Runnable::run);
+    writer.start(null);
+    writer.onWritePossible();
+    Assert.assertFalse(content.closed);
+    for (AsyncListener listener : async.listeners) {
+      listener.onTimeout(new AsyncEvent(async));
+    }
+    Assert.assertTrue(content.closed);
+    Assert.assertEquals(1, async.completions);
+    // late container callbacks are ignored.
+    writer.onWritePossible();
+    Assert.assertEquals(1, async.completions);
+  }
+
+  private static final class TestContent implements NonBlockingOutput.Content {
+
+    private final OutputStream out;
+
+    private final int nrIncrements;
+
+    private final byte[] increment;
+
+    private int written;
+
+    private boolean closed;
+
+    TestContent(final OutputStream out, final int nrIncrements, final int incrementSize) {
+      this.out = out;
+      this.nrIncrements = nrIncrements;
+      this.increment = new byte[incrementSize];
+    }
+
+    @Override
+    public boolean write(final BooleanSupplier canContinue) throws IOException {
+      while (written < nrIncrements) {
+        fillIncrement(written);
+        out.write(increment);
+        written++;
+        if (!canContinue.getAsBoolean()) {
+          break;
+        }
+      }
+      return written >= nrIncrements;
+    }
+
+    /**
+     * every increment has different content, so that any reuse of the written bytes is detected.
+     */
+    private void fillIncrement(final int idx) {
+      for (int i = 0; i < increment.length; i++) {
+        increment[i] = (byte) (i + idx);
+      }
+    }
+
+    byte[] expected() {
+      byte[] result = new byte[nrIncrements * increment.length];
+      for (int i = 0; i < nrIncrements; i++) {
+        fillIncrement(i);
+        System.arraycopy(increment, 0, result, i * increment.length, increment.length);
+      }
+      return result;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+
+  }
+
+  /**
+   * A servlet output stream that, if slow, is not ready after every write.
+   */
+  private static final class TestServletOutputStream extends ServletOutputStream {
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    private final boolean slow;
+
+    private boolean ready = true;
+
+    private boolean closed;
+
+    TestServletOutputStream(final boolean slow) {
+      this.slow = slow;
+    }
+
+    @Override
+    public boolean isReady() {
+      boolean result = ready;
+      ready = true;
+      return result;
+    }
+
+    @Override
+    public void setWriteListener(final WriteListener writeListener) {
+      // the test invokes the listener.
+    }
+
+    @Override
+    public void write(final int b) {
+      bytes.write(b);
+      ready = !slow;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) {
+      bytes.write(b, off, len);
+      ready = !slow;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+
+  }
+
+  /**
+   * A servlet output stream that queues the written arrays by reference, without copying them (like Grizzly does
+   * for large writes), and is not ready until onWritePossible.
+   */
+  private static final class QueuingServletOutputStream extends ServletOutputStream {
+
+    private final List<ByteBuffer> writes = new ArrayList<>();
+
+    private boolean ready = true;
+
+    @Override
+    public boolean isReady() {
+      boolean result = ready;
+      ready = true;
+      return result;
+    }
+
+    @Override
+    public void setWriteListener(final WriteListener writeListener) {
+      // the test invokes the listener.
+    }
+
+    @Override
+    public void write(final int b) {
+      writes.add(ByteBuffer.wrap(new byte[] {(byte) b}));
+      ready = false;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) {
+      writes.add(ByteBuffer.wrap(b, off, len));
+      ready = false;
+    }
+
+    byte[] toByteArray() {
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      for (ByteBuffer bb : writes) {
+        bos.write(bb.array(), bb.arrayOffset() + bb.position(), bb.remaining());
+      }
+      return bos.toByteArray();
+    }
+
+  }
+
+  /**
+   * Records the listeners and the completions, the writer uses nothing else.
+   */
+  private static final class TestAsyncContext implements AsyncContext {
+
+    private final List<AsyncListener> listeners = new ArrayList<>(2);
+
+    private int completions;
+
+    @Override
+    public void addListener(final AsyncListener listener) {
+      listeners.add(listener);
+    }
+
+    @Override
+    public void complete() {
+      completions++;
+    }
+
+    @Override
+    public ServletRequest getRequest() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ServletResponse getResponse() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean hasOriginalRequestAndResponse() {
+      return true;
+    }
+
+    @Override
+    public void dispatch() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void dispatch(final String path) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void dispatch(final ServletContext context, final String path) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void start(final Runnable run) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void addListener(final AsyncListener listener, final ServletRequest servletRequest,
+            final ServletResponse servletResponse) {
+      listeners.add(listener);
+    }
+
+    @Override
+    public <T extends AsyncListener> T createListener(final Class<T> clazz) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setTimeout(final long timeout) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long getTimeout() {
+      return 0;
+    }
+
+    @Override
+    public String toString() {
+      return "TestAsyncContext{" + "listeners=" + listeners + ", completions=" + completions + '}';
+    }
+
+  }
+
+}